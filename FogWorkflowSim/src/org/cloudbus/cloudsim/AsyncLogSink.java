@@ -0,0 +1,168 @@
+package org.cloudbus.cloudsim;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AsyncLogSink writes the messages of the {@link Log} from a background thread. The messages are kept in a bounded
+ * ring buffer and written in batches, so logging never blocks the simulation: when the buffer is full the message is
+ * dropped, and the quantity of dropped messages is written with the next batch.
+ * 
+ * @since TSP Extension 1.0
+ */
+public class AsyncLogSink {
+
+	/** The maximum quantity of messages written at once. */
+	private static final int BATCH_SIZE = 1024;
+
+	/** The pending messages. */
+	private final ArrayBlockingQueue<String> queue;
+
+	/** The writer thread. */
+	private final Thread writer;
+
+	/** The output where the messages are written. */
+	private volatile OutputStream output;
+
+	/** Quantity of messages accepted in the buffer. */
+	private final AtomicLong accepted = new AtomicLong();
+
+	/** Quantity of messages dropped because the buffer was full, not yet reported. */
+	private final AtomicLong dropped = new AtomicLong();
+
+	/** Quantity of messages already written, guarded by this sink. */
+	private long written;
+
+	/** The closed flag. */
+	private volatile boolean closed;
+
+	/**
+	 * Creates a sink and starts its writer thread.
+	 * 
+	 * @param output the output where the messages are written
+	 * @param capacity the maximum quantity of pending messages
+	 */
+	public AsyncLogSink(OutputStream output, int capacity) {
+		this.output = output;
+		queue = new ArrayBlockingQueue<String>(capacity);
+		writer = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				writeMessages();
+			}
+		}, "cloudsim-log");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Adds a message to the buffer without waiting.
+	 * 
+	 * @param message the message
+	 * @return true if the message was accepted, false if it was dropped
+	 */
+	public boolean offer(String message) {
+		if (!closed && queue.offer(message)) {
+			accepted.incrementAndGet();
+			return true;
+		}
+		dropped.incrementAndGet();
+		return false;
+	}
+
+	/**
+	 * Waits until every message accepted so far has been written.
+	 */
+	public synchronized void flush() {
+		long target = accepted.get();
+		while (written < target && writer.isAlive()) {
+			try {
+				wait(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Writes the pending messages and stops the writer thread.
+	 */
+	public void close() {
+		flush();
+		closed = true;
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Sets the output where the next messages are written.
+	 * 
+	 * @param output the output
+	 */
+	public void setOutput(OutputStream output) {
+		flush();
+		this.output = output;
+	}
+
+	/**
+	 * Gets the output where the messages are written.
+	 * 
+	 * @return the output
+	 */
+	public OutputStream getOutput() {
+		return output;
+	}
+
+	/**
+	 * Body of the writer thread.
+	 */
+	private void writeMessages() {
+		List<String> batch = new ArrayList<String>(BATCH_SIZE);
+		StringBuilder text = new StringBuilder();
+		while (!closed || !queue.isEmpty()) {
+			try {
+				String message = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (message == null) {
+					continue;
+				}
+				batch.add(message);
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(batch, BATCH_SIZE - 1);
+
+			for (String message : batch) {
+				text.append(message);
+			}
+			long lost = dropped.getAndSet(0);
+			if (lost > 0) {
+				text.append("[").append(lost).append(" log messages dropped]").append(System.lineSeparator());
+			}
+			try {
+				OutputStream out = output;
+				out.write(text.toString().getBytes());
+				out.flush();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+			synchronized (this) {
+				written += batch.size();
+				notifyAll();
+			}
+			batch.clear();
+			text.setLength(0);
+		}
+	}
+
+}
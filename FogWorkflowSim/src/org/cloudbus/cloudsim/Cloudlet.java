@@ -8,7 +8,6 @@
 
 package org.cloudbus.cloudsim;
 
-import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -59,9 +58,6 @@ public class Cloudlet {
 	/** The status of this Cloudlet. */
 	private int status;
 
-	/** The format of decimal numbers. */
-	private DecimalFormat num;
-
 	/** The time where this Cloudlet completes. */
 	private double finishTime;
 
@@ -78,12 +74,6 @@ public class Cloudlet {
 	/** The records the transaction history for this Cloudlet. */
 	private final boolean record;
 
-	/** The newline. */
-	private String newline;
-
-	/** The history. */
-	private StringBuffer history;
-
 	/** The res list. */
 	private final List<Resource> resList;
 
@@ -582,11 +572,9 @@ public class Cloudlet {
 	 * @post $result != null
 	 */
 	public String getCloudletHistory() {
-		String msg = null;
-		if (history == null) {
+		String msg = CloudletJournal.getHistory(cloudletId);
+		if (msg == null) {
 			msg = "No history is recorded for Cloudlet #" + cloudletId;
-		} else {
-			msg = history.toString();
 		}
 
 		return msg;
@@ -660,8 +648,8 @@ public class Cloudlet {
 		final Resource res = resList.get(index);
 		res.finishedSoFar = length;
 
-		if (record) {
-			write("Sets the length's finished so far to " + length);
+		if (isJournaled()) {
+			journal(CloudletJournal.FINISHED_SO_FAR, status, res.resourceId, length, 0.0);
 		}
 	}
 
@@ -675,8 +663,8 @@ public class Cloudlet {
 	 */
 	public void setUserId(final int id) {
 		userId = id;
-		if (record) {
-			write("Assigns the Cloudlet to " + CloudSim.getEntityName(id) + " (ID #" + id + ")");
+		if (isJournaled()) {
+			journal(CloudletJournal.USER, status, id, 0.0, 0.0);
 		}
 	}
 
@@ -749,14 +737,9 @@ public class Cloudlet {
 		// add into a list if moving to a new grid resource
 		resList.add(res);
 
-		if (index == -1 && record) {
-			write("Allocates this Cloudlet to " + res.resourceName + " (ID #" + resourceID
-					+ ") with cost = $" + cost + "/sec");
-		} else if (record) {
-			final int id = resList.get(index).resourceId;
-			final String name = resList.get(index).resourceName;
-			write("Moves Cloudlet from " + name + " (ID #" + id + ") to " + res.resourceName + " (ID #"
-					+ resourceID + ") with cost = $" + cost + "/sec");
+		if (isJournaled()) {
+			final int previousId = index == -1 ? -1 : resList.get(index).resourceId;
+			journal(CloudletJournal.RESOURCE, status, resourceID, cost, previousId);
 		}
 
 		index++;  // initially, index = -1   //reslist中资源的索引initially, index = -1
@@ -777,8 +760,8 @@ public class Cloudlet {
 		final Resource res = resList.get(index);
 		res.submissionTime = clockTime;
 
-		if (record) {
-			write("Sets the submission time to " + num.format(clockTime));
+		if (isJournaled()) {
+			journal(CloudletJournal.SUBMISSION, status, res.resourceId, clockTime, 0.0);
 		}
 	}
 
@@ -808,8 +791,8 @@ public class Cloudlet {
 	 */
 	public void setExecStartTime(final double clockTime) {
 		execStartTime = clockTime;
-		if (record) {
-			write("Sets the execution start time to " + num.format(clockTime));
+		if (isJournaled()) {
+			journal(CloudletJournal.EXEC_START, status, getResourceId(), clockTime, 0.0);
 		}
 	}
 
@@ -845,9 +828,8 @@ public class Cloudlet {
 		res.wallClockTime = wallTime;
 		res.actualCPUTime = actualTime;
 
-		if (record) {
-			write("Sets the wall clock time to " + num.format(wallTime) + " and the actual CPU time to "
-					+ num.format(actualTime));
+		if (isJournaled()) {
+			journal(CloudletJournal.EXEC_PARAM, status, res.resourceId, wallTime, actualTime);
 		}
 	}
 
@@ -875,9 +857,9 @@ public class Cloudlet {
 			finishTime = CloudSim.clock();
 		}
 
-		if (record) {
-			write("Sets Cloudlet status from " + getCloudletStatusString() + " to "
-					+ Cloudlet.getStatusString(newStatus));
+		if (isJournaled()) {
+			CloudletJournal.append(CloudSim.clock(), cloudletId, CloudletJournal.STATUS, newStatus, status,
+					getResourceId(), 0.0, 0.0);
 		}
 
 		status = newStatus;
@@ -1190,35 +1172,25 @@ public class Cloudlet {
 	// //////////////////////// PROTECTED METHODS //////////////////////////////
 
 	/**
-	 * Writes this particular history transaction of this Cloudlet into a log.
+	 * Checks if the transitions of this Cloudlet are written to the {@link CloudletJournal}.
 	 * 
-	 * @param str a history transaction of this Cloudlet
-	 * @pre str != null
-	 * @post $none
+	 * @return true if this Cloudlet records its history or every cloudlet is being journaled
 	 */
-	protected void write(final String str) {
-		if (!record) {
-			return;
-		}
-
-		if (num == null || history == null) { // Creates the history or
-												// transactions of this Cloudlet
-			newline = System.getProperty("line.separator");
-			num = new DecimalFormat("#0.00#"); // with 3 decimal spaces
-			history = new StringBuffer(1000);
-			history.append("Time below denotes the simulation time.");
-			history.append(System.getProperty("line.separator"));
-			history.append("Time (sec)       Description Cloudlet #" + cloudletId);
-			history.append(System.getProperty("line.separator"));
-			history.append("------------------------------------------");
-			history.append(System.getProperty("line.separator"));
-			history.append(num.format(CloudSim.clock()));
-			history.append("   Creates Cloudlet ID #" + cloudletId);
-			history.append(System.getProperty("line.separator"));
-		}
+	protected boolean isJournaled() {
+		return record || CloudletJournal.isRecordingAll();
+	}
 
-		history.append(num.format(CloudSim.clock()));
-		history.append("   " + str + newline);
+	/**
+	 * Writes a transition of this Cloudlet to the {@link CloudletJournal}.
+	 * 
+	 * @param event the event
+	 * @param status the status of this Cloudlet
+	 * @param resourceId the resource id, or the user id for user assignments
+	 * @param value the first value of the event
+	 * @param secondValue the second value of the event
+	 */
+	private void journal(byte event, int status, int resourceId, double value, double secondValue) {
+		CloudletJournal.append(CloudSim.clock(), cloudletId, event, status, status, resourceId, value, secondValue);
 	}
 
 	/**
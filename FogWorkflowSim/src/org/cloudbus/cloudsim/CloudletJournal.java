@@ -0,0 +1,634 @@
+package org.cloudbus.cloudsim;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+
+/**
+ * CloudletJournal is a simulation-wide, append-only binary journal of the lifecycle transitions of the cloudlets. It
+ * replaces the per-cloudlet text history: every transition is written as a fixed-size record to a memory-mapped file,
+ * and the timeline of a cloudlet is rebuilt only when it is queried.
+ * <p>
+ * The file has the following layout (big endian):
+ *
+ * <pre>
+ * header:  magic (int), version (int), record quantity (long)
+ * record:  time (double), cloudlet id (int), event (byte), status (byte), previous status (byte), unused (byte),
+ *          resource id (int), unused (int), value (double), second value (double)
+ * names:   name quantity (int) and, for each entity, its id (int) and its name (modified UTF-8)
+ * </pre>
+ *
+ * The resource id is the user id for {@link #USER} records. The values depend on the event: the cost and the previous
+ * resource id for {@link #RESOURCE}, the time for {@link #SUBMISSION} and {@link #EXEC_START}, the wall clock and the
+ * CPU times for {@link #EXEC_PARAM} and the length for {@link #FINISHED_SO_FAR}. The names of the users and resources
+ * are taken when they are first journaled and written after the records when the journal is closed.
+ * <p>
+ * When a journal is opened with {@link #open(String)} every cloudlet is journaled. Otherwise only the cloudlets created
+ * with history recording are, in a temporary journal created when the first one needs it.
+ * <p>
+ * A journal holds one simulation: it is emptied by {@link #reset()} when CloudSim is initialised, and indexed by
+ * cloudlet id once by {@link #seal()} when the simulation finishes. Histories requested before it is sealed are found
+ * by scanning the records.
+ *
+ * @since TSP Extension 1.0
+ */
+public final class CloudletJournal {
+
+	/** The cloudlet has been assigned to a user. */
+	public static final byte USER = 1;
+
+	/** The cloudlet has been allocated to or moved to a resource. */
+	public static final byte RESOURCE = 2;
+
+	/** The submission time has been set. */
+	public static final byte SUBMISSION = 3;
+
+	/** The execution start time has been set. */
+	public static final byte EXEC_START = 4;
+
+	/** The wall clock and actual CPU times have been set. */
+	public static final byte EXEC_PARAM = 5;
+
+	/** The length finished so far has been set. */
+	public static final byte FINISHED_SO_FAR = 6;
+
+	/** The status has changed. */
+	public static final byte STATUS = 7;
+
+	/** Size in bytes of a record. */
+	public static final int RECORD_SIZE = 40;
+
+	/** Identifies the journal files ("CLJ1"). */
+	private static final int MAGIC = 0x434C4A31;
+
+	/** Version of the file format. */
+	private static final int VERSION = 1;
+
+	/** Size in bytes of the header. */
+	private static final int HEADER_SIZE = 16;
+
+	/** Quantity of records mapped at once while writing. */
+	private static final int SEGMENT_RECORDS = 1 << 20;
+
+	/** The journal being written, if any. */
+	private static CloudletJournal current;
+
+	/** Whether every cloudlet is journaled or only the ones recording their history. */
+	private static boolean recordingAll;
+
+	/** The journal file. */
+	private final String file;
+
+	/** The channel of the journal file. */
+	private final RandomAccessFile raf;
+
+	/** The channel of the journal file. */
+	private final FileChannel channel;
+
+	/** The mapped segment where the next records are written. */
+	private MappedByteBuffer segment;
+
+	/** Quantity of records written. */
+	private long count;
+
+	/** Names of the users and resources of the records, indexed by their id. */
+	private final Map<Integer, String> names = new HashMap<Integer, String>();
+
+	/** The indexed view built when the journal was sealed, valid while no record is added. */
+	private Query query;
+
+	private CloudletJournal(String file) throws IOException {
+		this.file = file;
+		raf = new RandomAccessFile(file, "rw");
+		raf.setLength(0);
+		channel = raf.getChannel();
+		writeHeader();
+	}
+
+	/**
+	 * Opens a journal where the transitions of every cloudlet are written, closing the current one.
+	 *
+	 * @param file the journal file, which is overwritten
+	 * @throws IOException if the file can not be created
+	 */
+	public static synchronized void open(String file) throws IOException {
+		close();
+		current = new CloudletJournal(file);
+		recordingAll = true;
+	}
+
+	/**
+	 * Closes the current journal, leaving the file with its exact size so it can be queried later.
+	 *
+	 * @throws IOException if the file can not be written
+	 */
+	public static synchronized void close() throws IOException {
+		if (current != null) {
+			current.finish();
+			current = null;
+		}
+		recordingAll = false;
+	}
+
+	/**
+	 * Discards the records of the previous simulation, so the histories of a new one are not mixed with them. An
+	 * opened journal keeps its file but starts over, so it has to be closed before to keep those records.
+	 */
+	public static synchronized void reset() {
+		if (current != null && current.count > 0) {
+			try {
+				current.rewind();
+			} catch (IOException e) {
+				throw new IllegalStateException("The cloudlet journal can not be reset", e);
+			}
+		}
+	}
+
+	/**
+	 * Indexes the records of the current journal by cloudlet id, once the simulation writing them has finished.
+	 */
+	public static synchronized void seal() {
+		if (current != null && current.count > 0) {
+			try {
+				current.writeHeader();
+				current.query = new Query(current.channel, current.count, current.names);
+				current.query.index();
+			} catch (IOException e) {
+				throw new IllegalStateException("The cloudlet journal can not be read", e);
+			}
+		}
+	}
+
+	/**
+	 * Checks if every cloudlet is being journaled.
+	 *
+	 * @return true if a journal has been opened with {@link #open(String)}
+	 */
+	public static boolean isRecordingAll() {
+		return recordingAll;
+	}
+
+	/**
+	 * Gets the file of the current journal.
+	 *
+	 * @return the file, or $null if there is no journal
+	 */
+	public static synchronized String getFile() {
+		return current == null ? null : current.file;
+	}
+
+	/**
+	 * Appends a record to the current journal, creating a temporary one if needed.
+	 *
+	 * @param time the simulation time
+	 * @param cloudletId the cloudlet id
+	 * @param event the event
+	 * @param status the status of the cloudlet after the event
+	 * @param previousStatus the status of the cloudlet before the event
+	 * @param resourceId the resource id, or the user id for {@link #USER} records
+	 * @param value the first value of the event
+	 * @param secondValue the second value of the event
+	 */
+	public static synchronized void append(
+			double time,
+			int cloudletId,
+			byte event,
+			int status,
+			int previousStatus,
+			int resourceId,
+			double value,
+			double secondValue) {
+		try {
+			if (current == null) {
+				File temporary = File.createTempFile("cloudlets", ".journal");
+				temporary.deleteOnExit();
+				current = new CloudletJournal(temporary.getPath());
+			}
+			current.write(time, cloudletId, event, status, previousStatus, resourceId, value, secondValue);
+			if ((event == USER || event == RESOURCE) && !current.names.containsKey(resourceId)) {
+				current.names.put(resourceId, CloudSim.getEntityName(resourceId));
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("The cloudlet journal can not be written", e);
+		}
+	}
+
+	/**
+	 * Rebuilds the history of a cloudlet from the current journal.
+	 *
+	 * @param cloudletId the cloudlet id
+	 * @return the history, or $null if there are no records of the cloudlet
+	 */
+	public static synchronized String getHistory(int cloudletId) {
+		if (current == null || current.count == 0) {
+			return null;
+		}
+		try {
+			List<Record> records;
+			if (current.query != null && current.query.size() == current.count) {
+				records = current.query.getRecords(cloudletId);
+			} else {
+				// the journal is still growing, so it is scanned instead of being indexed on every request
+				records = new Query(current.channel, current.count, current.names).findRecords(cloudletId);
+			}
+			return records.isEmpty() ? null : formatHistory(cloudletId, records, current.names);
+		} catch (IOException e) {
+			throw new IllegalStateException("The cloudlet journal can not be read", e);
+		}
+	}
+
+	private void write(
+			double time,
+			int cloudletId,
+			byte event,
+			int status,
+			int previousStatus,
+			int resourceId,
+			double value,
+			double secondValue) throws IOException {
+		if (segment == null || !segment.hasRemaining()) {
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + count * RECORD_SIZE,
+					(long) SEGMENT_RECORDS * RECORD_SIZE);
+		}
+		segment.putDouble(time);
+		segment.putInt(cloudletId);
+		segment.put(event);
+		segment.put((byte) status);
+		segment.put((byte) previousStatus);
+		segment.put((byte) 0);
+		segment.putInt(resourceId);
+		segment.putInt(0);
+		segment.putDouble(value);
+		segment.putDouble(secondValue);
+		count++;
+	}
+
+	private void writeHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putLong(count).flip();
+		channel.write(header, 0);
+	}
+
+	private void rewind() throws IOException {
+		segment = null;
+		query = null;
+		count = 0;
+		names.clear();
+		channel.truncate(HEADER_SIZE);
+		writeHeader();
+	}
+
+	private void finish() throws IOException {
+		writeHeader();
+		if (segment != null) {
+			segment.force();
+			segment = null;
+		}
+		query = null;
+		long end = HEADER_SIZE + count * RECORD_SIZE;
+		channel.truncate(end);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		int quantity = 0;
+		for (String name : names.values()) {
+			if (name != null) {
+				quantity++;
+			}
+		}
+		out.writeInt(quantity);
+		for (Map.Entry<Integer, String> entry : names.entrySet()) {
+			if (entry.getValue() != null) {
+				out.writeInt(entry.getKey());
+				out.writeUTF(entry.getValue());
+			}
+		}
+		out.flush();
+		channel.write(ByteBuffer.wrap(bytes.toByteArray()), end);
+		raf.close();
+	}
+
+	/**
+	 * A lifecycle transition of a cloudlet.
+	 */
+	public static final class Record {
+
+		private final double time;
+
+		private final int cloudletId;
+
+		private final byte event;
+
+		private final int status;
+
+		private final int previousStatus;
+
+		private final int resourceId;
+
+		private final double value;
+
+		private final double secondValue;
+
+		private Record(ByteBuffer buffer, int position) {
+			time = buffer.getDouble(position);
+			cloudletId = buffer.getInt(position + 8);
+			event = buffer.get(position + 12);
+			status = buffer.get(position + 13);
+			previousStatus = buffer.get(position + 14);
+			resourceId = buffer.getInt(position + 16);
+			value = buffer.getDouble(position + 24);
+			secondValue = buffer.getDouble(position + 32);
+		}
+
+		public double getTime() {
+			return time;
+		}
+
+		public int getCloudletId() {
+			return cloudletId;
+		}
+
+		public byte getEvent() {
+			return event;
+		}
+
+		public int getStatus() {
+			return status;
+		}
+
+		public int getPreviousStatus() {
+			return previousStatus;
+		}
+
+		public int getResourceId() {
+			return resourceId;
+		}
+
+		public double getValue() {
+			return value;
+		}
+
+		public double getSecondValue() {
+			return secondValue;
+		}
+
+		/**
+		 * Describes the transition as in the former text history of the cloudlets.
+		 *
+		 * @param num the format of the times
+		 * @param names the names of the users and resources, indexed by their id
+		 * @return the description
+		 */
+		public String describe(DecimalFormat num, Map<Integer, String> names) {
+			switch (event) {
+				case USER:
+					return "Assigns the Cloudlet to " + names.get(resourceId) + " (ID #" + resourceId + ")";
+				case RESOURCE:
+					if (secondValue < 0) {
+						return "Allocates this Cloudlet to " + names.get(resourceId) + " (ID #" + resourceId
+								+ ") with cost = $" + value + "/sec";
+					}
+					return "Moves Cloudlet from " + names.get((int) secondValue) + " (ID #" + (int) secondValue + ") to "
+							+ names.get(resourceId) + " (ID #" + resourceId + ") with cost = $" + value + "/sec";
+				case SUBMISSION:
+					return "Sets the submission time to " + num.format(value);
+				case EXEC_START:
+					return "Sets the execution start time to " + num.format(value);
+				case EXEC_PARAM:
+					return "Sets the wall clock time to " + num.format(value) + " and the actual CPU time to "
+							+ num.format(secondValue);
+				case FINISHED_SO_FAR:
+					return "Sets the length's finished so far to " + (long) value;
+				case STATUS:
+					return "Sets Cloudlet status from " + Cloudlet.getStatusString(previousStatus) + " to "
+							+ Cloudlet.getStatusString(status);
+				default:
+					return "Unknown event " + event;
+			}
+		}
+	}
+
+	/**
+	 * Read-only view of a journal file, indexed by cloudlet id the first time a timeline is requested.
+	 */
+	public static final class Query {
+
+		/** Quantity of records in the view. */
+		private final long count;
+
+		/** The mapped records, in segments of at most SEGMENT_RECORDS records. */
+		private final MappedByteBuffer[] segments;
+
+		/** Names of the users and resources, indexed by their id. */
+		private final Map<Integer, String> names;
+
+		/** Cloudlet id in the high half and record position in the low half, sorted. */
+		private long[] index;
+
+		/**
+		 * Maps a journal file.
+		 *
+		 * @param file the journal file
+		 * @throws IOException if the file can not be read or it is not a journal
+		 */
+		public Query(String file) throws IOException {
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+				FileChannel channel = raf.getChannel();
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				channel.read(header, 0);
+				header.flip();
+				if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+					throw new IOException(file + " is not a cloudlet journal");
+				}
+				int version = header.getInt();
+				if (version != VERSION) {
+					throw new IOException(file + " has the unsupported version " + version);
+				}
+				count = header.getLong();
+				segments = map(channel, count, FileChannel.MapMode.READ_ONLY);
+
+				long end = HEADER_SIZE + count * RECORD_SIZE;
+				ByteBuffer trailer = ByteBuffer.allocate((int) (channel.size() - end));
+				channel.read(trailer, end);
+				names = new HashMap<Integer, String>();
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(trailer.array()));
+				for (int i = trailer.capacity() == 0 ? 0 : in.readInt(); i > 0; i--) {
+					int id = in.readInt();
+					names.put(id, in.readUTF());
+				}
+			}
+		}
+
+		private Query(FileChannel channel, long count, Map<Integer, String> names) throws IOException {
+			this.count = count;
+			this.names = names;
+			segments = map(channel, count, FileChannel.MapMode.READ_ONLY);
+		}
+
+		private static MappedByteBuffer[] map(FileChannel channel, long count, FileChannel.MapMode mode)
+				throws IOException {
+			MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((count + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS)];
+			for (int i = 0; i < segments.length; i++) {
+				long first = (long) i * SEGMENT_RECORDS;
+				long records = Math.min(SEGMENT_RECORDS, count - first);
+				segments[i] = channel.map(mode, HEADER_SIZE + first * RECORD_SIZE, records * RECORD_SIZE);
+			}
+			return segments;
+		}
+
+		/**
+		 * Gets the quantity of records.
+		 *
+		 * @return the quantity of records
+		 */
+		public long size() {
+			return count;
+		}
+
+		/**
+		 * Gets a record by its position in the journal.
+		 *
+		 * @param position the position
+		 * @return the record
+		 */
+		public Record getRecord(long position) {
+			return new Record(segments[(int) (position / SEGMENT_RECORDS)],
+					(int) (position % SEGMENT_RECORDS) * RECORD_SIZE);
+		}
+
+		private int getCloudletId(long position) {
+			return segments[(int) (position / SEGMENT_RECORDS)].getInt(
+					(int) (position % SEGMENT_RECORDS) * RECORD_SIZE + 8);
+		}
+
+		/**
+		 * Gets the names of the users and resources of the records.
+		 *
+		 * @return the names, indexed by the id of the entities
+		 */
+		public Map<Integer, String> getNames() {
+			return names;
+		}
+
+		/**
+		 * Sorts the records by cloudlet id, unless it was already done.
+		 */
+		private synchronized void index() {
+			if (index == null) {
+				if (count > Integer.MAX_VALUE) {
+					throw new IllegalStateException("The journal has too many records to be indexed");
+				}
+				index = new long[(int) count];
+				for (int i = 0; i < index.length; i++) {
+					index[i] = ((long) getCloudletId(i) << 32) | i;
+				}
+				Arrays.sort(index);
+			}
+		}
+
+		/**
+		 * Gets the records of a cloudlet in the order they were written by scanning all of them, without indexing
+		 * the view.
+		 *
+		 * @param cloudletId the cloudlet id
+		 * @return the records of the cloudlet
+		 */
+		public List<Record> findRecords(int cloudletId) {
+			List<Record> records = new ArrayList<Record>();
+			for (long i = 0; i < count; i++) {
+				if (getCloudletId(i) == cloudletId) {
+					records.add(getRecord(i));
+				}
+			}
+			return records;
+		}
+
+		/**
+		 * Gets the records of a cloudlet in the order they were written, indexing the view the first time.
+		 *
+		 * @param cloudletId the cloudlet id
+		 * @return the records of the cloudlet
+		 */
+		public synchronized List<Record> getRecords(int cloudletId) {
+			index();
+
+			List<Record> records = new ArrayList<Record>();
+			int i = Arrays.binarySearch(index, (long) cloudletId << 32);
+			if (i < 0) {
+				i = -i - 1;
+			}
+			for (; i < index.length && (int) (index[i] >> 32) == cloudletId; i++) {
+				records.add(getRecord(index[i] & 0xFFFFFFFFL));
+			}
+			return records;
+		}
+	}
+
+	/**
+	 * Formats the records of a cloudlet as a table with the time and the description of each transition. As in the
+	 * former text history, the creation of the cloudlet is listed at the time of its first transition.
+	 *
+	 * @param cloudletId the cloudlet id
+	 * @param records the records of the cloudlet, at least one
+	 * @param names the names of the users and resources, indexed by their id
+	 * @return the history
+	 */
+	public static String formatHistory(int cloudletId, List<Record> records, Map<Integer, String> names) {
+		String newline = System.getProperty("line.separator");
+		DecimalFormat num = new DecimalFormat("#0.00#");
+		StringBuilder history = new StringBuilder();
+		history.append("Time below denotes the simulation time.").append(newline);
+		history.append("Time (sec)       Description Cloudlet #").append(cloudletId).append(newline);
+		history.append("------------------------------------------").append(newline);
+		history.append(num.format(records.get(0).getTime())).append("   Creates Cloudlet ID #").append(cloudletId)
+				.append(newline);
+		for (Record record : records) {
+			history.append(num.format(record.getTime())).append("   ").append(record.describe(num, names))
+					.append(newline);
+		}
+		return history.toString();
+	}
+
+	/**
+	 * Prints the timelines of cloudlets stored in a journal file.
+	 *
+	 * @param args the journal file and the ids of the cloudlets; with no ids, the quantity of records is printed
+	 * @throws IOException if the file can not be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.out.println("Usage: CloudletJournal <journal file> [<cloudlet id> ...]");
+			return;
+		}
+		Query query = new Query(args[0]);
+		if (args.length == 1) {
+			System.out.println(args[0] + ": " + query.size() + " records");
+			return;
+		}
+		for (int i = 1; i < args.length; i++) {
+			int cloudletId = Integer.parseInt(args[i]);
+			List<Record> records = query.getRecords(cloudletId);
+			if (records.isEmpty()) {
+				System.out.println("No history is recorded for Cloudlet #" + cloudletId);
+			} else {
+				System.out.print(formatHistory(cloudletId, records, query.getNames()));
+			}
+		}
+	}
+
+}
@@ -27,6 +27,9 @@ public abstract class CloudletScheduler {
 	/** The current mips share. */
 	private List<Double> currentMipsShare;
 
+	/** The listener notified of submitted and finished cloudlets, if any. */
+	private CloudletSchedulerListener listener;
+
 	/**
 	 * Creates a new CloudletScheduler object. This method must be invoked before starting the
 	 * actual simulation.
@@ -249,4 +252,40 @@ public abstract class CloudletScheduler {
 		return currentMipsShare;
 	}
 
+	/**
+	 * Gets the listener notified of submitted and finished cloudlets.
+	 * 
+	 * @return the listener, or $null if there is none
+	 */
+	public CloudletSchedulerListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Sets the listener notified of submitted and finished cloudlets.
+	 * 
+	 * @param listener the listener, or $null to remove it
+	 */
+	public void setListener(CloudletSchedulerListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Notifies the listener, if any, that a cloudlet has been submitted.
+	 */
+	protected void notifyCloudletSubmitted() {
+		if (listener != null) {
+			listener.cloudletSubmitted(this);
+		}
+	}
+
+	/**
+	 * Notifies the listener, if any, that a cloudlet has finished.
+	 */
+	protected void notifyCloudletFinished() {
+		if (listener != null) {
+			listener.cloudletFinished(this);
+		}
+	}
+
 }
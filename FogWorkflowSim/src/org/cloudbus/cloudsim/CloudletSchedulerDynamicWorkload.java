@@ -139,6 +139,7 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 		}
 
 		getCloudletExecList().add(rcl);
+		notifyCloudletSubmitted();
 		return getEstimatedFinishTime(rcl, getPreviousTime());
 	}
 
@@ -154,6 +155,7 @@ public class CloudletSchedulerDynamicWorkload extends CloudletSchedulerTimeShare
 		rcl.setCloudletStatus(Cloudlet.SUCCESS);
 		rcl.finalizeCloudlet();
 		getCloudletFinishedList().add(rcl);
+		notifyCloudletFinished();
 	}
 
 	/**
@@ -0,0 +1,25 @@
+package org.cloudbus.cloudsim;
+
+/**
+ * CloudletSchedulerListener is notified when a cloudlet scheduler receives or finishes a cloudlet. Datacenters use it
+ * to know which hosts have changed since their last update, instead of polling the scheduler of every VM.
+ *
+ * @since TSP Extension 1.0
+ */
+public interface CloudletSchedulerListener {
+
+	/**
+	 * Called after a cloudlet has been submitted to the scheduler.
+	 *
+	 * @param scheduler the scheduler that received the cloudlet
+	 */
+	void cloudletSubmitted(CloudletScheduler scheduler);
+
+	/**
+	 * Called after a cloudlet has been added to the finished list of the scheduler.
+	 *
+	 * @param scheduler the scheduler where the cloudlet finished
+	 */
+	void cloudletFinished(CloudletScheduler scheduler);
+
+}
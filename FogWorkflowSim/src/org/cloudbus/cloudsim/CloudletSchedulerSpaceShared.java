@@ -8,11 +8,14 @@
 
 package org.cloudbus.cloudsim;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.cloudbus.cloudsim.core.CloudSim;
-import org.workflowsim.WorkflowEngine;
 
 /**
  * CloudletSchedulerSpaceShared implements a policy of scheduling performed by a virtual machine. It
@@ -20,6 +23,13 @@ import org.workflowsim.WorkflowEngine;
  * We consider that file transfer from cloudlets waiting happens before cloudlet execution. I.e.,
  * even though cloudlets must wait for CPU, data transfer happens as soon as cloudlets are
  * submitted.
+ * <p>
+ * All the state belongs to the scheduler instance. The waiting and finished cloudlets are kept in
+ * FIFO queues and every cloudlet held by the scheduler is indexed by its id, so submitting,
+ * finishing and looking up a cloudlet do not scan the lists. The earliest estimated finish time
+ * is computed in the same pass that advances the running cloudlets, and it is kept until a
+ * cloudlet is submitted, finishes or leaves the exec list, so a repeated update at the same time
+ * does not visit the cloudlets again.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -28,24 +38,37 @@ import org.workflowsim.WorkflowEngine;
 public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 
 	/** The cloudlet waiting list. */
-	private List<? extends ResCloudlet> cloudletWaitingList;
+	private final ArrayDeque<ResCloudlet> cloudletWaitingList;
 
 	/** The cloudlet exec list. */
-	private List<? extends ResCloudlet> cloudletExecList;
+	private final List<ResCloudlet> cloudletExecList;
 
 	/** The cloudlet paused list. */
-	private List<? extends ResCloudlet> cloudletPausedList;
+	private final List<ResCloudlet> cloudletPausedList;
 
 	/** The cloudlet finished list. */
-	private List<? extends ResCloudlet> cloudletFinishedList;
+	private final ArrayDeque<ResCloudlet> cloudletFinishedList;
+
+	/** The cloudlets held by this scheduler, in any list, indexed by their id. */
+	private final Map<Integer, ResCloudlet> cloudletsById;
+
+	/** The cloudlets finished since the last {@link #clear()}, which resets them. */
+	private final List<ResCloudlet> cloudletsFinishedSinceClear;
+
+	/** The earliest estimated finish time returned by the last update, while it is valid. */
+	private double nextFinishTime;
+
+	/** The capacity of each cpu in the last update. */
+	private double nextFinishCapacity;
+
+	/** Whether the exec list has not changed since the earliest finish time was estimated. */
+	private boolean nextFinishValid;
 
 	/** The current CPUs. */
 	protected int currentCpus;
 
 	/** The used PEs. */
 	protected int usedPes;
-	
-	public static List<? extends ResCloudlet> cloudlets=new ArrayList<ResCloudlet>();
 
 	/**
 	 * Creates a new CloudletSchedulerSpaceShared object. This method must be invoked before
@@ -56,10 +79,12 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	public CloudletSchedulerSpaceShared() {
 		super();
-		cloudletWaitingList = new ArrayList<ResCloudlet>();
+		cloudletWaitingList = new ArrayDeque<ResCloudlet>();
 		cloudletExecList = new ArrayList<ResCloudlet>();
 		cloudletPausedList = new ArrayList<ResCloudlet>();
-		cloudletFinishedList = new ArrayList<ResCloudlet>();
+		cloudletFinishedList = new ArrayDeque<ResCloudlet>();
+		cloudletsById = new HashMap<Integer, ResCloudlet>();
+		cloudletsFinishedSinceClear = new ArrayList<ResCloudlet>();
 		usedPes = 0;
 		currentCpus = 0;
 	}
@@ -90,87 +115,105 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 		currentCpus = cpus;
 		capacity /= cpus; // average capacity of each cpu
 
-		// each machine in the exec list has the same amount of cpu
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			rcl.updateCloudletFinishedSoFar((long) (capacity * timeSpam * rcl.getNumberOfPes() * Consts.MILLION));
-		}
-
 		// no more cloudlets in this scheduler
-		if (getCloudletExecList().size() == 0 && getCloudletWaitingList().size() == 0) {
+		if (cloudletExecList.isEmpty() && cloudletWaitingList.isEmpty()) {
 			setPreviousTime(currentTime);
 			return 0.0;
 		}
 
-		// update each cloudlet
+		// nothing has progressed or changed since the last estimate
+		if (timeSpam == 0 && nextFinishValid && capacity == nextFinishCapacity) {
+			return nextFinishTime;
+		}
+
+		// each machine in the exec list has the same amount of cpu, the ones that are finished
+		// (anyway, rounding issue...) leave the exec list and the others estimate their finish
+		// time in the same pass
+		double nextEvent = Double.MAX_VALUE;
 		int finished = 0;
-		List<ResCloudlet> toRemove = new ArrayList<ResCloudlet>();
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			// finished anyway, rounding issue...
+		Iterator<ResCloudlet> exec = cloudletExecList.iterator();
+		while (exec.hasNext()) {
+			ResCloudlet rcl = exec.next();
+			rcl.updateCloudletFinishedSoFar((long) (capacity * timeSpam * rcl.getNumberOfPes() * Consts.MILLION));
 			if (rcl.getRemainingCloudletLength() == 0) {
-				toRemove.add(rcl);
+				exec.remove();
 				cloudletFinish(rcl);
 				finished++;
+			} else {
+				nextEvent = Math.min(nextEvent, getEstimatedFinishTime(rcl, currentTime, capacity));
 			}
 		}
-		getCloudletExecList().removeAll(toRemove);
-		cloudlets.addAll(getCloudletFinishedList());
-
-		// for each finished cloudlet, add a new one from the waiting list
-		if (!getCloudletWaitingList().isEmpty()) {
-			for (int i = 0; i < finished; i++) {
-				toRemove.clear();
-				for (ResCloudlet rcl : getCloudletWaitingList()) {
-					if ((currentCpus - usedPes) >= rcl.getNumberOfPes()) {
-						rcl.setCloudletStatus(Cloudlet.INEXEC);
-						for (int k = 0; k < rcl.getNumberOfPes(); k++) {
-							rcl.setMachineAndPeId(0, i);
-						}
-						getCloudletExecList().add(rcl);
-						usedPes += rcl.getNumberOfPes();
-						toRemove.add(rcl);
-						break;
-					}
+
+		// for each finished cloudlet, add a new one from the waiting list. A cloudlet that does
+		// not fit does not fit later either, so the waiting list is visited once from its head
+		int promoted = 0;
+		Iterator<ResCloudlet> waiting = cloudletWaitingList.iterator();
+		while (promoted < finished && waiting.hasNext()) {
+			ResCloudlet rcl = waiting.next();
+			if ((currentCpus - usedPes) >= rcl.getNumberOfPes()) {
+				rcl.setCloudletStatus(Cloudlet.INEXEC);
+				for (int k = 0; k < rcl.getNumberOfPes(); k++) {
+					rcl.setMachineAndPeId(0, promoted);
 				}
-				getCloudletWaitingList().removeAll(toRemove);
+				cloudletExecList.add(rcl);
+				usedPes += rcl.getNumberOfPes();
+				waiting.remove();
+				promoted++;
+				nextEvent = Math.min(nextEvent, getEstimatedFinishTime(rcl, currentTime, capacity));
 			}
 		}
 
-		// estimate finish time of cloudlets in the execution queue
-		double nextEvent = Double.MAX_VALUE;
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			double remainingLength = rcl.getRemainingCloudletLength();
-			double estimatedFinishTime = currentTime + (remainingLength / (capacity * rcl.getNumberOfPes()));
-			if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
-				estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
-			}
-			if (estimatedFinishTime < nextEvent) {
-				nextEvent = estimatedFinishTime;
-			}
-		}
 		setPreviousTime(currentTime);
+		nextFinishTime = nextEvent;
+		nextFinishCapacity = capacity;
+		nextFinishValid = true;
 		return nextEvent;
 	}
 
+	/**
+	 * Estimates the finish time of a running cloudlet, at least the minimum time between events
+	 * after the current time.
+	 * 
+	 * @param rcl the running cloudlet
+	 * @param currentTime current simulation time
+	 * @param capacity the capacity of each cpu
+	 * @return the estimated finish time
+	 */
+	private double getEstimatedFinishTime(ResCloudlet rcl, double currentTime, double capacity) {
+		double remainingLength = rcl.getRemainingCloudletLength();
+		double estimatedFinishTime = currentTime + (remainingLength / (capacity * rcl.getNumberOfPes()));
+		if (estimatedFinishTime - currentTime < CloudSim.getMinTimeBetweenEvents()) {
+			estimatedFinishTime = currentTime + CloudSim.getMinTimeBetweenEvents();
+		}
+		return estimatedFinishTime;
+	}
+
+	/**
+	 * Resets the cloudlets finished in this scheduler since the last call and drops the waiting and
+	 * finished ones, so the same cloudlets can be simulated again.
+	 */
+	@Override
 	public void clear() {
-		for (ResCloudlet rcl : cloudlets) {
-			// finished anyway, rounding issue...
+		for (ResCloudlet rcl : cloudletsFinishedSinceClear) {
 			rcl.setCloudletFinishedSoFar(0);
-			rcl.updateCloudletFinishedSoFar(0);
 			rcl.setCloudletStatus(Cloudlet.CREATED);
 			rcl.setExecParam(0, 0);
 			rcl.setSubmissionTime(0);
-			//rcl.init2();
-			/*rcl.setExecParam(CloudSim.clock(), 0.0);
-			rcl.setSubmissionTime(0.0);*/
 		}
-		usedPes=0;
-		currentCpus=0;
-		getCloudletFinishedList().removeAll(cloudlets);
-		getCloudletWaitingList().removeAll(getCloudletWaitingList());
-		cloudlets.removeAll(cloudlets);
-		
+		cloudletsFinishedSinceClear.clear();
+		nextFinishValid = false;
+		usedPes = 0;
+		currentCpus = 0;
+		for (ResCloudlet rcl : cloudletFinishedList) {
+			cloudletsById.remove(rcl.getCloudletId());
+		}
+		cloudletFinishedList.clear();
+		for (ResCloudlet rcl : cloudletWaitingList) {
+			cloudletsById.remove(rcl.getCloudletId());
+		}
+		cloudletWaitingList.clear();
 	}
-	
+
 	/**
 	 * Cancels execution of a cloudlet.
 	 * 
@@ -181,46 +224,34 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public Cloudlet cloudletCancel(int cloudletId) {
-		// First, looks in the finished queue
-		for (ResCloudlet rcl : getCloudletFinishedList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				getCloudletFinishedList().remove(rcl);
-				return rcl.getCloudlet();
-			}
-		}
-
-		// Then searches in the exec list
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				getCloudletExecList().remove(rcl);
-				if (rcl.getRemainingCloudletLength() == 0) {
-					cloudletFinish(rcl);
-				} else {
-					rcl.setCloudletStatus(Cloudlet.CANCELED);
-				}
-				return rcl.getCloudlet();
-			}
+		ResCloudlet rcl = cloudletsById.remove(cloudletId);
+		if (rcl == null) {
+			return null;
 		}
+		nextFinishValid = false;
 
-		// Now, looks in the paused queue
-		for (ResCloudlet rcl : getCloudletPausedList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				getCloudletPausedList().remove(rcl);
-				return rcl.getCloudlet();
-			}
+		if (cloudletFinishedList.remove(rcl)) {
+			return rcl.getCloudlet();
 		}
 
-		// Finally, looks in the waiting list
-		for (ResCloudlet rcl : getCloudletWaitingList()) {
-			if (rcl.getCloudletId() == cloudletId) {
+		if (cloudletExecList.remove(rcl)) {
+			if (rcl.getRemainingCloudletLength() == 0) {
+				cloudletFinish(rcl);
+				cloudletsById.put(cloudletId, rcl);
+			} else {
 				rcl.setCloudletStatus(Cloudlet.CANCELED);
-				getCloudletWaitingList().remove(rcl);
-				return rcl.getCloudlet();
 			}
+			return rcl.getCloudlet();
 		}
 
-		return null;
+		if (cloudletPausedList.remove(rcl)) {
+			return rcl.getCloudlet();
+		}
 
+		if (cloudletWaitingList.remove(rcl)) {
+			rcl.setCloudletStatus(Cloudlet.CANCELED);
+		}
+		return rcl.getCloudlet();
 	}
 
 	/**
@@ -233,53 +264,22 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public boolean cloudletPause(int cloudletId) {
-		boolean found = false;
-		int position = 0;
-
-		// first, looks for the cloudlet in the exec list
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				found = true;
-				break;
-			}
-			position++;
+		ResCloudlet rgl = cloudletsById.get(cloudletId);
+		if (rgl == null) {
+			return false;
 		}
 
-		if (found) {
+		// first, looks for the cloudlet in the exec list, then in the waiting list
+		if (cloudletExecList.remove(rgl) || cloudletWaitingList.remove(rgl)) {
+			nextFinishValid = false;
 			// moves to the paused list
-			ResCloudlet rgl = getCloudletExecList().remove(position);
 			if (rgl.getRemainingCloudletLength() == 0) {
 				cloudletFinish(rgl);
 			} else {
 				rgl.setCloudletStatus(Cloudlet.PAUSED);
-				getCloudletPausedList().add(rgl);
+				cloudletPausedList.add(rgl);
 			}
 			return true;
-
-		}
-
-		// now, look for the cloudlet in the waiting list
-		position = 0;
-		found = false;
-		for (ResCloudlet rcl : getCloudletWaitingList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				found = true;
-				break;
-			}
-			position++;
-		}
-
-		if (found) {
-			// moves to the paused list
-			ResCloudlet rgl = getCloudletWaitingList().remove(position);
-			if (rgl.getRemainingCloudletLength() == 0) {
-				cloudletFinish(rgl);
-			} else {
-				rgl.setCloudletStatus(Cloudlet.PAUSED);
-				getCloudletPausedList().add(rgl);
-			}
-			return true;
-
 		}
 
 		return false;
@@ -296,7 +296,10 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	public void cloudletFinish(ResCloudlet rcl) {
 		rcl.setCloudletStatus(Cloudlet.SUCCESS);
 		rcl.finalizeCloudlet();
-		getCloudletFinishedList().add(rcl);
+		cloudletFinishedList.add(rcl);
+		cloudletsFinishedSinceClear.add(rcl);
+		nextFinishValid = false;
+		notifyCloudletFinished();
 		usedPes -= rcl.getNumberOfPes();
 	}
 
@@ -310,20 +313,10 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public double cloudletResume(int cloudletId) {
-		boolean found = false;
-		int position = 0;
-
 		// look for the cloudlet in the paused list
-		for (ResCloudlet rcl : getCloudletPausedList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				found = true;
-				break;
-			}
-			position++;
-		}
-
-		if (found) {
-			ResCloudlet rcl = getCloudletPausedList().remove(position);
+		ResCloudlet rcl = cloudletsById.get(cloudletId);
+		if (rcl != null && cloudletPausedList.remove(rcl)) {
+			nextFinishValid = false;
 
 			// it can go to the exec list
 			if ((currentCpus - usedPes) >= rcl.getNumberOfPes()) {
@@ -336,7 +329,7 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 				size *= rcl.getNumberOfPes();
 				rcl.getCloudlet().setCloudletLength(size);
 
-				getCloudletExecList().add(rcl);
+				cloudletExecList.add(rcl);
 				usedPes += rcl.getNumberOfPes();
 
 				// calculate the expected time for cloudlet completion
@@ -363,7 +356,7 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 				size *= rcl.getNumberOfPes();
 				rcl.getCloudlet().setCloudletLength(size);
 
-				getCloudletWaitingList().add(rcl);
+				cloudletWaitingList.add(rcl);
 				return 0.0;
 			}
 
@@ -385,6 +378,7 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public double cloudletSubmit(Cloudlet cloudlet, double fileTransferTime) {
+		nextFinishValid = false;
 		// it can go to the exec list
 		if ((currentCpus - usedPes) >= cloudlet.getNumberOfPes()) {
 			ResCloudlet rcl = new ResCloudlet(cloudlet);
@@ -392,12 +386,15 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 			for (int i = 0; i < cloudlet.getNumberOfPes(); i++) {
 				rcl.setMachineAndPeId(0, i);
 			}
-			getCloudletExecList().add(rcl);
+			cloudletExecList.add(rcl);
+			cloudletsById.put(cloudlet.getCloudletId(), rcl);
 			usedPes += cloudlet.getNumberOfPes();
 		} else {// no enough free PEs: go to the waiting queue
 			ResCloudlet rcl = new ResCloudlet(cloudlet);
 			rcl.setCloudletStatus(Cloudlet.QUEUED);
-			getCloudletWaitingList().add(rcl);
+			cloudletWaitingList.add(rcl);
+			cloudletsById.put(cloudlet.getCloudletId(), rcl);
+			notifyCloudletSubmitted();
 			return 0.0;
 		}
 
@@ -419,11 +416,10 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 		
 		double extraSize = capacity * fileTransferTime;
 		long length = cloudlet.getCloudletLength();
-		if(WorkflowEngine.already==0) {
-			length += extraSize;
-		}
+		length += extraSize;
 		cloudlet.setCloudletLength(length);
 		//System.out.println("cloudlet#"+cloudlet.getCloudletId()+".getCloudletLength()="+cloudlet.getCloudletLength());
+		notifyCloudletSubmitted();
 		return cloudlet.getCloudletLength() / capacity;
 	}
 
@@ -446,25 +442,12 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public int getCloudletStatus(int cloudletId) {
-		for (ResCloudlet rcl : getCloudletExecList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				return rcl.getCloudletStatus();
-			}
-		}
-
-		for (ResCloudlet rcl : getCloudletPausedList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				return rcl.getCloudletStatus();
-			}
+		ResCloudlet rcl = cloudletsById.get(cloudletId);
+		if (rcl == null || rcl.getCloudletStatus() == Cloudlet.SUCCESS) {
+			// the finished cloudlets are not reported
+			return -1;
 		}
-
-		for (ResCloudlet rcl : getCloudletWaitingList()) {
-			if (rcl.getCloudletId() == cloudletId) {
-				return rcl.getCloudletStatus();
-			}
-		}
-
-		return -1;
+		return rcl.getCloudletStatus();
 	}
 
 	/**
@@ -476,7 +459,7 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	@Override
 	public double getTotalUtilizationOfCpu(double time) {
 		double totalUtilization = 0;
-		for (ResCloudlet gl : getCloudletExecList()) {
+		for (ResCloudlet gl : cloudletExecList) {
 			totalUtilization += gl.getCloudlet().getUtilizationOfCpu(time);
 		}
 		return totalUtilization;
@@ -491,7 +474,7 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public boolean isFinishedCloudlets() {
-		return getCloudletFinishedList().size() > 0;
+		return !cloudletFinishedList.isEmpty();
 	}
 
 	/**
@@ -503,8 +486,10 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public Cloudlet getNextFinishedCloudlet() {
-		if (getCloudletFinishedList().size() > 0) {
-			return getCloudletFinishedList().remove(0).getCloudlet();
+		ResCloudlet rcl = cloudletFinishedList.poll();
+		if (rcl != null) {
+			cloudletsById.remove(rcl.getCloudletId());
+			return rcl.getCloudlet();
 		}
 		return null;
 	}
@@ -518,7 +503,7 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public int runningCloudlets() {
-		return getCloudletExecList().size();
+		return cloudletExecList.size();
 	}
 
 	/**
@@ -530,7 +515,9 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	 */
 	@Override
 	public Cloudlet migrateCloudlet() {
-		ResCloudlet rcl = getCloudletExecList().remove(0);
+		ResCloudlet rcl = cloudletExecList.remove(0);
+		nextFinishValid = false;
+		cloudletsById.remove(rcl.getCloudletId());
 		rcl.finalizeCloudlet();
 		Cloudlet cl = rcl.getCloudlet();
 		usedPes -= cl.getNumberOfPes();
@@ -540,85 +527,37 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	/**
 	 * Gets the cloudlet waiting list.
 	 * 
-	 * @param <T> the generic type
-	 * @return the cloudlet waiting list
-	 */
-	@SuppressWarnings("unchecked")
-	protected <T extends ResCloudlet> List<T> getCloudletWaitingList() {
-		return (List<T>) cloudletWaitingList;
-	}
-
-	/**
-	 * Cloudlet waiting list.
-	 * 
-	 * @param <T> the generic type
-	 * @param cloudletWaitingList the cloudlet waiting list
+	 * @return the cloudlet waiting list, in arrival order
 	 */
-	protected <T extends ResCloudlet> void cloudletWaitingList(List<T> cloudletWaitingList) {
-		this.cloudletWaitingList = cloudletWaitingList;
+	protected ArrayDeque<ResCloudlet> getCloudletWaitingList() {
+		return cloudletWaitingList;
 	}
 
 	/**
 	 * Gets the cloudlet exec list.
 	 * 
-	 * @param <T> the generic type
 	 * @return the cloudlet exec list
 	 */
-	@SuppressWarnings("unchecked")
-	protected <T extends ResCloudlet> List<T> getCloudletExecList() {
-		return (List<T>) cloudletExecList;
-	}
-
-	/**
-	 * Sets the cloudlet exec list.
-	 * 
-	 * @param <T> the generic type
-	 * @param cloudletExecList the new cloudlet exec list
-	 */
-	protected <T extends ResCloudlet> void setCloudletExecList(List<T> cloudletExecList) {
-		this.cloudletExecList = cloudletExecList;
+	protected List<ResCloudlet> getCloudletExecList() {
+		return cloudletExecList;
 	}
 
 	/**
 	 * Gets the cloudlet paused list.
 	 * 
-	 * @param <T> the generic type
 	 * @return the cloudlet paused list
 	 */
-	@SuppressWarnings("unchecked")
-	protected <T extends ResCloudlet> List<T> getCloudletPausedList() {
-		return (List<T>) cloudletPausedList;
-	}
-
-	/**
-	 * Sets the cloudlet paused list.
-	 * 
-	 * @param <T> the generic type
-	 * @param cloudletPausedList the new cloudlet paused list
-	 */
-	protected <T extends ResCloudlet> void setCloudletPausedList(List<T> cloudletPausedList) {
-		this.cloudletPausedList = cloudletPausedList;
+	protected List<ResCloudlet> getCloudletPausedList() {
+		return cloudletPausedList;
 	}
 
 	/**
 	 * Gets the cloudlet finished list.
 	 * 
-	 * @param <T> the generic type
-	 * @return the cloudlet finished list
-	 */
-	@SuppressWarnings("unchecked")
-	protected <T extends ResCloudlet> List<T> getCloudletFinishedList() {
-		return (List<T>) cloudletFinishedList;
-	}
-
-	/**
-	 * Sets the cloudlet finished list.
-	 * 
-	 * @param <T> the generic type
-	 * @param cloudletFinishedList the new cloudlet finished list
+	 * @return the cloudlet finished list, in finishing order
 	 */
-	protected <T extends ResCloudlet> void setCloudletFinishedList(List<T> cloudletFinishedList) {
-		this.cloudletFinishedList = cloudletFinishedList;
+	protected ArrayDeque<ResCloudlet> getCloudletFinishedList() {
+		return cloudletFinishedList;
 	}
 
 	/*
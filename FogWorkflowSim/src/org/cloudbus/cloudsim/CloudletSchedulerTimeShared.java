@@ -250,6 +250,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		rcl.setCloudletStatus(Cloudlet.SUCCESS);
 		rcl.finalizeCloudlet();
 		getCloudletFinishedList().add(rcl);
+		notifyCloudletFinished();
 	}
 
 	/**
@@ -316,6 +317,7 @@ public class CloudletSchedulerTimeShared extends CloudletScheduler {
 		double extraSize = getCapacity(getCurrentMipsShare()) * fileTransferTime;
 		long length = (long) (cloudlet.getCloudletLength() + extraSize);
 		cloudlet.setCloudletLength(length);
+		notifyCloudletSubmitted();
 		return cloudlet.getCloudletLength() / getCapacity(getCurrentMipsShare());
 	}
 
@@ -296,6 +296,10 @@ public class Host {
 	 * @post $none
 	 */
 	public Vm getVm(int vmId, int userId) {
+		Vm registered = VmRegistry.getVm(vmId, userId);
+		if (registered != null && registered.getHost() == this) {
+			return registered;
+		}
 		for (Vm vm : getVmList()) {
 			if (vm.getId() == vmId && vm.getUserId() == userId) {
 				return vm;
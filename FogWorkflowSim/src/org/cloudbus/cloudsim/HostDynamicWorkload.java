@@ -9,7 +9,6 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.core.CloudSim;
@@ -31,8 +30,8 @@ public class HostDynamicWorkload extends Host {
 	/** The previous utilization mips. */
 	private double previousUtilizationMips;
 
-	/** The state history. */
-	private final List<HostStateHistoryEntry> stateHistory = new LinkedList<HostStateHistoryEntry>();
+	/** The state history, an array list since the entries are only appended or replaced at the end. */
+	private final List<HostStateHistoryEntry> stateHistory = new ArrayList<HostStateHistoryEntry>();
 
 	/**
 	 * Instantiates a new host.
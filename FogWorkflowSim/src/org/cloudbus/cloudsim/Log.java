@@ -10,16 +10,35 @@ package org.cloudbus.cloudsim;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.function.Supplier;
 
 /**
  * The Log class used for performing loggin of the simulation process. It provides the ability to
  * substitute the output stream by any OutputStream subclass.
+ * <p>
+ * Messages that are expensive to build should be passed as a {@link Supplier} or as a format with its arguments, so
+ * nothing is built when the output is disabled or the level is filtered out. Setting {@link #ENABLED} to false and
+ * recompiling removes every logging call. The output can be written from a background thread with
+ * {@link #setAsync(int)}.
  * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 2.0
  */
 public class Log {
 
+	/**
+	 * Compile-time switch of the logging. When it is false the compiler drops the code guarded by
+	 * {@link #isEnabled(Level)} and {@link #isDisabled()}.
+	 */
+	public static final boolean ENABLED = true;
+
+	/**
+	 * The levels of the messages. The methods without a level log at INFO.
+	 */
+	public enum Level {
+		TRACE, DEBUG, INFO, WARN, ERROR
+	}
+
 	/** The Constant LINE_SEPARATOR. */
 	private static final String LINE_SEPARATOR = System.getProperty("line.separator");  //行分隔符
 
@@ -29,18 +48,38 @@ public class Log {
 	/** The disable output flag. */
 	private static boolean disabled;
 
+	/** The minimum level of the messages written. */
+	private static Level level = Level.INFO;
+
+	/** The sink writing the output in background, if any. */
+	private static volatile AsyncLogSink asyncSink;
+
 	/**
 	 * Prints the message.
 	 * 
 	 * @param message the message
 	 */
 	public static void print(String message) {
-		if (!isDisabled()) {
-			try {
-				getOutput().write(message.getBytes());
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+		if (isEnabled(Level.INFO)) {
+			write(message);
+		}
+	}
+
+	/**
+	 * Writes a message to the output or to the background sink.
+	 * 
+	 * @param message the message
+	 */
+	private static void write(String message) {
+		AsyncLogSink sink = asyncSink;
+		if (sink != null) {
+			sink.offer(message);
+			return;
+		}
+		try {
+			getOutput().write(message.getBytes());
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 	}
 
@@ -50,7 +89,7 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void print(Object message) {
-		if (!isDisabled()) {
+		if (isEnabled(Level.INFO)) {
 			print(String.valueOf(message));
 		}
 	}
@@ -61,7 +100,7 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void printLine(String message) {
-		if (!isDisabled()) {
+		if (isEnabled(Level.INFO)) {
 			print(message + LINE_SEPARATOR);
 		}
 	}
@@ -70,7 +109,7 @@ public class Log {
 	 * Prints the empty line.
 	 */
 	public static void printLine() {
-		if (!isDisabled()) {
+		if (isEnabled(Level.INFO)) {
 			print(LINE_SEPARATOR);
 		}
 	}
@@ -81,7 +120,7 @@ public class Log {
 	 * @param message the message
 	 */
 	public static void printLine(Object message) {
-		if (!isDisabled()) {
+		if (isEnabled(Level.INFO)) {
 			printLine(String.valueOf(message));
 		}
 	}
@@ -93,7 +132,7 @@ public class Log {
 	 * @param args the args
 	 */
 	public static void format(String format, Object... args) {
-		if (!isDisabled()) {
+		if (isEnabled(Level.INFO)) {
 			print(String.format(format, args));
 		}
 	}
@@ -105,11 +144,113 @@ public class Log {
 	 * @param args the args
 	 */
 	public static void formatLine(String format, Object... args) {
-		if (!isDisabled()) {
+		if (isEnabled(Level.INFO)) {
 			printLine(String.format(format, args));
 		}
 	}
 
+	/**
+	 * Prints the line built by a supplier, which is only called if the INFO level is enabled.
+	 * 
+	 * @param message the supplier of the message
+	 */
+	public static void printLine(Supplier<?> message) {
+		log(Level.INFO, message);
+	}
+
+	/**
+	 * Prints the line built by a supplier, which is only called if the level is enabled.
+	 * 
+	 * @param level the level of the message
+	 * @param message the supplier of the message
+	 */
+	public static void log(Level level, Supplier<?> message) {
+		if (isEnabled(level)) {
+			write(String.valueOf(message.get()) + LINE_SEPARATOR);
+		}
+	}
+
+	/**
+	 * Prints a line formated as in String.format(), only if the level is enabled.
+	 * 
+	 * @param level the level of the message
+	 * @param format the format
+	 * @param args the args
+	 */
+	public static void formatLine(Level level, String format, Object... args) {
+		if (isEnabled(level)) {
+			write(String.format(format, args) + LINE_SEPARATOR);
+		}
+	}
+
+	/**
+	 * Checks if the messages of a level are written.
+	 * 
+	 * @param level the level
+	 * @return true, if the output is enabled and the level is not filtered out
+	 */
+	public static boolean isEnabled(Level level) {
+		return ENABLED && !disabled && level.compareTo(Log.level) >= 0;
+	}
+
+	/**
+	 * Sets the minimum level of the messages written.
+	 * 
+	 * @param level the new level
+	 */
+	public static void setLevel(Level level) {
+		Log.level = level;
+	}
+
+	/**
+	 * Gets the minimum level of the messages written.
+	 * 
+	 * @return the level
+	 */
+	public static Level getLevel() {
+		return level;
+	}
+
+	/**
+	 * Writes the output from a background thread, buffering up to the given quantity of messages. Messages logged
+	 * while the buffer is full are dropped instead of blocking the simulation.
+	 * 
+	 * @param capacity the maximum quantity of pending messages
+	 */
+	public static synchronized void setAsync(int capacity) {
+		setSync();
+		asyncSink = new AsyncLogSink(getOutput(), capacity);
+	}
+
+	/**
+	 * Writes the pending messages and goes back to writing the output from the logging thread.
+	 */
+	public static synchronized void setSync() {
+		if (asyncSink != null) {
+			asyncSink.close();
+			asyncSink = null;
+		}
+	}
+
+	/**
+	 * Checks if the output is written from a background thread.
+	 * 
+	 * @return true, if the output is asynchronous
+	 */
+	public static boolean isAsync() {
+		return asyncSink != null;
+	}
+
+	/**
+	 * Waits until the pending messages have been written.
+	 */
+	public static void flush() {
+		AsyncLogSink sink = asyncSink;
+		if (sink != null) {
+			sink.flush();
+		}
+	}
+
 	/**
 	 * Sets the output.
 	 * 
@@ -117,6 +258,9 @@ public class Log {
 	 */
 	public static void setOutput(OutputStream _output) {
 		output = _output;
+		if (asyncSink != null) {
+			asyncSink.setOutput(_output);
+		}
 	}
 
 	/**
@@ -146,7 +290,7 @@ public class Log {
 	 * @return true, if is disable
 	 */
 	public static boolean isDisabled() {
-		return disabled;
+		return !ENABLED || disabled;
 	}
 
 	/**
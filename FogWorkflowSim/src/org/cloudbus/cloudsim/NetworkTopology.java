@@ -13,7 +13,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
-import org.cloudbus.cloudsim.network.DelayMatrix_Float;
+import org.cloudbus.cloudsim.network.DelayOracle;
 import org.cloudbus.cloudsim.network.GraphReaderBrite;
 import org.cloudbus.cloudsim.network.TopologicalGraph;
 import org.cloudbus.cloudsim.network.TopologicalLink;
@@ -29,6 +29,11 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  * Nevertheless, each CloudSim entity must be mapped to one (and only one) BRITE node to allow
  * proper work of the network simulation. Each BRITE node can be mapped to only one entity at a
  * time.
+ * <p>
+ * TSP modification: the delays are given by a {@link DelayOracle}, which computes the shortest paths
+ * from a node when they are first needed, instead of a delay matrix of all the pairs of nodes
+ * recomputed with Floyd-Warshall for every new link. The bandwidth matrix is only created when it
+ * is requested.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -40,7 +45,7 @@ public class NetworkTopology {
 
 	private static boolean networkEnabled = false;
 
-	protected static DelayMatrix_Float delayMatrix = null;
+	protected static DelayOracle delayOracle = null;
 
 	protected static double[][] bwMatrix = null;
 
@@ -78,11 +83,11 @@ public class NetworkTopology {
 	 * Generates the matrices used internally to set latency and bandwidth between elements
 	 */
 	private static void generateMatrices() {
-		// creates the delay matrix
-		delayMatrix = new DelayMatrix_Float(graph, false);
+		// creates the delay oracle
+		delayOracle = new DelayOracle(graph, false);
 
-		// creates the bw matrix
-		bwMatrix = createBwMatrix(graph, false);
+		// the bw matrix is created when it is requested
+		bwMatrix = null;
 
 		networkEnabled = true;
 	}
@@ -122,10 +127,30 @@ public class NetworkTopology {
 		}
 
 		// generate a new link
-		graph.addLink(new TopologicalLink(map.get(srcId), map.get(destId), (float) lat, (float) bw));
+		TopologicalLink link = new TopologicalLink(map.get(srcId), map.get(destId), (float) lat, (float) bw);
+		graph.addLink(link);
 
-		generateMatrices();
+		if (delayOracle == null) {
+			generateMatrices();
+		} else {
+			// only the cached delays shortened by the link are discarded
+			delayOracle.addLink(graph, link);
+			bwMatrix = null;
+		}
+
+	}
 
+	/**
+	 * Gets the matrix containing the available bandwidth between two nodes, creating it if the
+	 * topology changed since it was last created
+	 * 
+	 * @return the bandwidth matrix, or null if there is no topology
+	 */
+	protected static double[][] getBwMatrix() {
+		if (bwMatrix == null && graph != null) {
+			bwMatrix = createBwMatrix(graph, false);
+		}
+		return bwMatrix;
 	}
 
 	/**
@@ -222,7 +247,7 @@ public class NetworkTopology {
 		if (networkEnabled) {
 			try {
 				// add the network latency
-				double delay = delayMatrix.getDelay(map.get(srcID), map.get(destID));
+				double delay = delayOracle.getDelay(map.get(srcID), map.get(destID));
 
 				return delay;
 			} catch (Exception e) {
@@ -16,6 +16,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
 
+import org.cloudbus.cloudsim.core.RandomStreams;
+
 /**
  * The UtilizationModelStochastic class implements a model, according to which a Cloudlet generates
  * random CPU utilization every time frame.
@@ -32,11 +34,12 @@ public class UtilizationModelStochastic implements UtilizationModel {
 	private Map<Double, Double> history;
 
 	/**
-	 * Instantiates a new utilization model stochastic.
+	 * Instantiates a new utilization model stochastic, with the next UtilizationModelStochastic stream of
+	 * {@link RandomStreams}.
 	 */
 	public UtilizationModelStochastic() {
 		setHistory(new HashMap<Double, Double>());
-		setRandomGenerator(new Random());
+		setRandomGenerator(RandomStreams.random("UtilizationModelStochastic"));
 	}
 
 	/**
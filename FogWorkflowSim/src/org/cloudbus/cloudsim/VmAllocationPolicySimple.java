@@ -96,6 +96,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 				if (result) { // if vm were succesfully created in the host  如果虚拟机创建成功  
 					//更新映射关系及主机可用的处理器核心数 
 					getVmTable().put(vm.getUid(), host);
+					VmRegistry.register(vm, host, this);
 					getUsedPes().put(vm.getUid(), requiredPes);
 					getFreePes().set(idx, getFreePes().get(idx) - requiredPes);
 					result = true;
@@ -123,6 +124,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	public void deallocateHostForVm(Vm vm) {
 		//删除虚拟机相应的映射关系，通过主机销毁虚拟机并更新可用的处理器核心数
 		Host host = getVmTable().remove(vm.getUid());
+		VmRegistry.deregister(vm);
 		int idx = getHostList().indexOf(host);
 		int pes = getUsedPes().remove(vm.getUid());
 		if (host != null) {
@@ -141,7 +143,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 */
 	@Override
 	public Host getHost(Vm vm) {
-		return getVmTable().get(vm.getUid());
+		return getHost(vm.getId(), vm.getUserId());
 	}
 
 	/**
@@ -155,6 +157,11 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	 */
 	@Override
 	public Host getHost(int vmId, int userId) {
+		// the registry avoids building the uid string on every cloudlet submission
+		Host host = VmRegistry.getHost(vmId, userId, this);
+		if (host != null) {
+			return host;
+		}
 		return getVmTable().get(Vm.getUid(userId, vmId));
 	}
 
@@ -232,6 +239,7 @@ public class VmAllocationPolicySimple extends VmAllocationPolicy {
 	public boolean allocateHostForVm(Vm vm, Host host) {
 		if (host.vmCreate(vm)) { // if vm has been succesfully created in the host 如果虚拟机创建成功，更新vmTable，并返回true
 			getVmTable().put(vm.getUid(), host);
+			VmRegistry.register(vm, host, this);
 
 			int requiredPes = vm.getNumberOfPes();
 			int idx = getHostList().indexOf(host);
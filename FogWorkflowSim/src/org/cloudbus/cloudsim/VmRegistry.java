@@ -0,0 +1,146 @@
+package org.cloudbus.cloudsim;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * VmRegistry indexes the VMs allocated in the current simulation by their id, together with the host where they run
+ * and the allocation policy that placed them. Brokers, datacenters and allocation policies look up VMs and hosts by
+ * array access instead of iterating over VM lists or building string uids. It is cleared when CloudSim is
+ * initialised.
+ * <p>
+ * The VM ids are expected to be small and dense. A VM whose id is already used by a VM of another user is kept in an
+ * overflow map keyed by user and VM id.
+ *
+ * @since TSP Extension 1.0
+ */
+public final class VmRegistry {
+
+	/** A registered VM with its host and allocation policy. */
+	private static final class Entry {
+
+		final Vm vm;
+
+		final Host host;
+
+		final VmAllocationPolicy policy;
+
+		Entry(Vm vm, Host host, VmAllocationPolicy policy) {
+			this.vm = vm;
+			this.host = host;
+			this.policy = policy;
+		}
+	}
+
+	/** The entries indexed by VM id. */
+	private static Entry[] entries = new Entry[64];
+
+	/** The entries whose VM id is already used by a VM of another user. */
+	private static final Map<Long, Entry> overflow = new HashMap<Long, Entry>();
+
+	private VmRegistry() {
+	}
+
+	private static long key(int vmId, int userId) {
+		return ((long) userId << 32) | (vmId & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Registers a VM allocated in a host.
+	 *
+	 * @param vm the vm
+	 * @param host the host where the vm was allocated
+	 * @param policy the allocation policy that allocated the vm
+	 */
+	public static void register(Vm vm, Host host, VmAllocationPolicy policy) {
+		int vmId = vm.getId();
+		if (vmId < 0) {
+			return;
+		}
+		Entry entry = new Entry(vm, host, policy);
+		if (vmId >= entries.length) {
+			entries = Arrays.copyOf(entries, Math.max(entries.length * 2, vmId + 1));
+		}
+		Entry current = entries[vmId];
+		if (current == null || current.vm.getUserId() == vm.getUserId()) {
+			entries[vmId] = entry;
+		} else {
+			overflow.put(key(vmId, vm.getUserId()), entry);
+		}
+	}
+
+	/**
+	 * Removes a VM from the registry.
+	 *
+	 * @param vm the vm
+	 */
+	public static void deregister(Vm vm) {
+		int vmId = vm.getId();
+		if (vmId >= 0 && vmId < entries.length && entries[vmId] != null && entries[vmId].vm == vm) {
+			entries[vmId] = null;
+		} else {
+			overflow.remove(key(vmId, vm.getUserId()));
+		}
+	}
+
+	private static Entry getEntry(int vmId, int userId) {
+		if (vmId < 0) {
+			return null;
+		}
+		if (vmId < entries.length) {
+			Entry entry = entries[vmId];
+			if (entry != null && entry.vm.getUserId() == userId) {
+				return entry;
+			}
+		}
+		return overflow.isEmpty() ? null : overflow.get(key(vmId, userId));
+	}
+
+	/**
+	 * Gets a VM from its id and the id of its user.
+	 *
+	 * @param vmId the vm id
+	 * @param userId the user id
+	 * @return the vm; $null if it is not registered
+	 */
+	public static Vm getVm(int vmId, int userId) {
+		Entry entry = getEntry(vmId, userId);
+		return entry == null ? null : entry.vm;
+	}
+
+	/**
+	 * Gets the first VM registered with an id, regardless of its user. It is meant for simulations where every VM has
+	 * a different id.
+	 *
+	 * @param vmId the vm id
+	 * @return the vm; $null if it is not registered
+	 */
+	public static Vm getVm(int vmId) {
+		if (vmId < 0 || vmId >= entries.length || entries[vmId] == null) {
+			return null;
+		}
+		return entries[vmId].vm;
+	}
+
+	/**
+	 * Gets the host where a VM was allocated by an allocation policy.
+	 *
+	 * @param vmId the vm id
+	 * @param userId the user id
+	 * @param policy the allocation policy
+	 * @return the host; $null if the vm is not registered or it was allocated by another policy
+	 */
+	public static Host getHost(int vmId, int userId, VmAllocationPolicy policy) {
+		Entry entry = getEntry(vmId, userId);
+		return entry == null || entry.policy != policy ? null : entry.host;
+	}
+
+	/**
+	 * Removes all the VMs from the registry.
+	 */
+	public static void clear() {
+		Arrays.fill(entries, null);
+		overflow.clear();
+	}
+}
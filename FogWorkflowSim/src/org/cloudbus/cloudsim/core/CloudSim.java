@@ -17,9 +17,11 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.CloudletJournal;
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmRegistry;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
 import org.cloudbus.cloudsim.core.predicates.PredicateAny;
 import org.cloudbus.cloudsim.core.predicates.PredicateNone;
@@ -353,6 +355,9 @@ public class CloudSim {
 		waitPredicates = new HashMap<Integer, Predicate>();
 		clock = 0;
 		running = false;
+		VmRegistry.clear();
+		CloudletJournal.reset();
+		RandomStreams.reset();
 	}
 
 	// The two standard predicates
@@ -951,6 +956,9 @@ public class CloudSim {
 			ent.shutdownEntity();
 		}
 
+		// the cloudlet histories of this simulation are complete, so they are indexed once
+		CloudletJournal.seal();
+
 		// reset all static variables
 		// Private data members
 		entities = null;
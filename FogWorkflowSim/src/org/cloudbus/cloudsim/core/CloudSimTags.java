@@ -275,6 +275,12 @@ public class CloudSimTags {
 	public static final int SEND_QTY_OF_TASKS = BASE + 52;
 	public static final int THERE_WERE_DEADLINES = BASE + 53;
 
+	/**
+	 * This is only for the TSP problem
+	 * Its means that the workflow planner should send the next tasks of the dataset to the broker
+	 */
+	public static final int TSP_INJECT_TASKS = BASE + 54;
+
 	/** Private Constructor */
 	private CloudSimTags() {
 		throw new UnsupportedOperationException("CloudSim Tags cannot be instantiated");
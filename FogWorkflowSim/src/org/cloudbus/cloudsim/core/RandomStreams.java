@@ -0,0 +1,137 @@
+package org.cloudbus.cloudsim.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * RandomStreams is the simulation-wide source of random numbers. Every subsystem draws from named streams whose seeds
+ * are derived from a single master seed, so a simulation is reproduced by setting the same master seed and creating
+ * the streams in the same order.
+ * <p>
+ * The seed of a stream is a SplitMix64 hash of the master seed, the name of the stream and an index. A stream can be
+ * requested with an explicit index, for example one per parallel worker, or with the next free index of its name, for
+ * example one per created object. The streams are {@link SplittableRandom}s; the components whose API is based on
+ * {@link Random} get a {@link Random} seeded with the seed of the stream.
+ *
+ * @since TSP Extension 1.0
+ */
+public final class RandomStreams {
+
+	/** The master seed used until another one is set. */
+	public static final long DEFAULT_MASTER_SEED = 42;
+
+	/** The master seed. */
+	private static long masterSeed = DEFAULT_MASTER_SEED;
+
+	/** The next free index of every stream name. */
+	private static final Map<String, Long> nextIndexes = new HashMap<String, Long>();
+
+	private RandomStreams() {
+	}
+
+	/**
+	 * Sets the master seed and restarts all the streams.
+	 *
+	 * @param seed the master seed
+	 */
+	public static synchronized void setMasterSeed(long seed) {
+		masterSeed = seed;
+		nextIndexes.clear();
+	}
+
+	/**
+	 * Gets the master seed.
+	 *
+	 * @return the master seed
+	 */
+	public static synchronized long getMasterSeed() {
+		return masterSeed;
+	}
+
+	/**
+	 * Restarts all the streams, keeping the master seed. It is called by {@link CloudSim#init}, so every simulation
+	 * gets the same streams in the same creation order; the streams requested before the initialization are given
+	 * again after it.
+	 */
+	public static synchronized void reset() {
+		nextIndexes.clear();
+	}
+
+	/**
+	 * Gets the seed of a stream.
+	 *
+	 * @param name the name of the stream
+	 * @param index the index of the stream
+	 * @return the seed
+	 */
+	public static synchronized long seed(String name, long index) {
+		return mix(mix(masterSeed ^ hash(name)) + index * 0x9E3779B97F4A7C15L);
+	}
+
+	/**
+	 * Gets the seed of the stream with the next free index of a name.
+	 *
+	 * @param name the name of the stream
+	 * @return the seed
+	 */
+	public static synchronized long nextSeed(String name) {
+		long index = nextIndexes.merge(name, 1L, Long::sum) - 1;
+		return seed(name, index);
+	}
+
+	/**
+	 * Gets a stream with an explicit index. The same name and index always give the same numbers for a master seed.
+	 *
+	 * @param name the name of the stream
+	 * @param index the index of the stream
+	 * @return the stream
+	 */
+	public static SplittableRandom stream(String name, long index) {
+		return new SplittableRandom(seed(name, index));
+	}
+
+	/**
+	 * Gets the stream with the next free index of a name.
+	 *
+	 * @param name the name of the stream
+	 * @return the stream
+	 */
+	public static SplittableRandom stream(String name) {
+		return new SplittableRandom(nextSeed(name));
+	}
+
+	/**
+	 * Gets a {@link Random} seeded as the stream with the next free index of a name, for the components whose API is
+	 * based on {@link Random}.
+	 *
+	 * @param name the name of the stream
+	 * @return the generator
+	 */
+	public static Random random(String name) {
+		return new Random(nextSeed(name));
+	}
+
+	/**
+	 * The 64-bit FNV-1a hash of a name.
+	 */
+	private static long hash(String name) {
+		long hash = 0xCBF29CE484222325L;
+		for (int i = 0; i < name.length(); i++) {
+			hash ^= name.charAt(i);
+			hash *= 0x100000001B3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * The finalizer of SplitMix64.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,302 @@
+package org.cloudbus.cloudsim.network;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class gives the delay of the shortest path between two nodes of a topological graph, like
+ * {@link DelayMatrix_Float}, but without computing the delays between all the pairs of nodes. The
+ * delays from a source node are computed with Dijkstra the first time they are needed and kept in a
+ * cache of the most recently used sources. Adding a link only discards the cached sources whose
+ * delays it shortens.
+ * <p>
+ * The delays follow the delay matrix: the delay between a node and itself is 0, the delay between
+ * two unconnected nodes is Float.MAX_VALUE, a link between two nodes replaces the previous one and
+ * the links with a delay of 0 are ignored. The link delays must not be negative.
+ *
+ * @since TSP Extension 1.0
+ */
+public class DelayOracle {
+
+	/**
+	 * The default quantity of sources whose delays are cached
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 256;
+
+	/**
+	 * true if the links are directed
+	 */
+	private final boolean directed;
+
+	/**
+	 * number of nodes in the topology
+	 */
+	private int mTotalNodeNum = 0;
+
+	/**
+	 * The neighbors of every node, the delays of the links to them and the quantity of neighbors
+	 */
+	private int[][] neighbors = new int[0][];
+	private float[][] linkDelays = new float[0][];
+	private int[] degrees = new int[0];
+
+	/**
+	 * The delays from the cached sources to every node, in least recently used order
+	 */
+	private final Map<Integer, float[]> cache;
+
+	/**
+	 * The heap of the Dijkstra searches, every entry holding the delay bits and the node
+	 */
+	private long[] heap = new long[16];
+
+	/**
+	 * Creates the delay oracle of a graph with the default cache size
+	 *
+	 * @param graph the topological graph as source-information
+	 * @param directed true if the links are directed, false otherwise
+	 */
+	public DelayOracle(TopologicalGraph graph, boolean directed) {
+		this(graph, directed, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Creates the delay oracle of a graph
+	 *
+	 * @param graph the topological graph as source-information
+	 * @param directed true if the links are directed, false otherwise
+	 * @param cacheSize the quantity of sources whose delays are cached
+	 */
+	public DelayOracle(TopologicalGraph graph, boolean directed, final int cacheSize) {
+		this.directed = directed;
+		cache = new LinkedHashMap<Integer, float[]>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, float[]> eldest) {
+				return size() > cacheSize;
+			}
+		};
+
+		setNumberOfNodes(graph.getNumberOfNodes());
+		Iterator<TopologicalLink> itr = graph.getLinkIterator();
+		while (itr.hasNext()) {
+			TopologicalLink edge = itr.next();
+			setLinkDelay(edge.getSrcNodeID(), edge.getDestNodeID(), edge.getLinkDelay());
+		}
+	}
+
+	/**
+	 * @param srcID the id of the source-node
+	 * @param destID the id of the destination-node
+	 * @return the delay-count between the given two nodes
+	 */
+	public float getDelay(int srcID, int destID) {
+		// check the nodeIDs against internal array-boundarys
+		if (srcID < 0 || destID < 0 || srcID >= mTotalNodeNum || destID >= mTotalNodeNum) {
+			throw new ArrayIndexOutOfBoundsException("srcID or destID is higher than highest stored node-ID!");
+		}
+
+		float[] delays = cache.get(srcID);
+		if (delays == null) {
+			delays = calculateShortestPaths(srcID);
+			cache.put(srcID, delays);
+		}
+		return getDelay(delays, destID);
+	}
+
+	/**
+	 * Adds a link of a graph whose delays are being given, after adding it to the graph
+	 *
+	 * @param graph the topological graph
+	 * @param edge the link
+	 */
+	public void addLink(TopologicalGraph graph, TopologicalLink edge) {
+		setNumberOfNodes(graph.getNumberOfNodes());
+		int src = edge.getSrcNodeID();
+		int dest = edge.getDestNodeID();
+		float delay = edge.getLinkDelay();
+
+		boolean replaced = setLinkDelay(src, dest, delay);
+		if (replaced) {
+			// the link could be longer than the replaced one, so any cached delay can be wrong
+			cache.clear();
+		} else if (delay != 0 && src != dest) {
+			// only the sources reaching an end of the link faster through it are affected
+			Iterator<float[]> itr = cache.values().iterator();
+			while (itr.hasNext()) {
+				float[] delays = itr.next();
+				if (getDelay(delays, src) + delay < getDelay(delays, dest)
+						|| !directed && getDelay(delays, dest) + delay < getDelay(delays, src)) {
+					itr.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets a delay of a cached source, which is Float.MAX_VALUE for the nodes added after caching it
+	 */
+	private static float getDelay(float[] delays, int destID) {
+		return destID < delays.length ? delays[destID] : Float.MAX_VALUE;
+	}
+
+	/**
+	 * Grows the adjacency lists to a quantity of nodes
+	 */
+	private void setNumberOfNodes(int numberOfNodes) {
+		if (numberOfNodes <= mTotalNodeNum) {
+			return;
+		}
+		neighbors = Arrays.copyOf(neighbors, numberOfNodes);
+		linkDelays = Arrays.copyOf(linkDelays, numberOfNodes);
+		degrees = Arrays.copyOf(degrees, numberOfNodes);
+		for (int node = mTotalNodeNum; node < numberOfNodes; node++) {
+			neighbors[node] = new int[4];
+			linkDelays[node] = new float[4];
+		}
+		mTotalNodeNum = numberOfNodes;
+	}
+
+	/**
+	 * Sets the delay of a link, in both directions if the links are not directed
+	 *
+	 * @return true if there was a link between the nodes
+	 */
+	private boolean setLinkDelay(int src, int dest, float delay) {
+		boolean replaced = setArcDelay(src, dest, delay);
+		if (!directed) {
+			replaced |= setArcDelay(dest, src, delay);
+		}
+		return replaced;
+	}
+
+	/**
+	 * Sets the delay of the arc from a node to another one, removing it if the delay is 0
+	 *
+	 * @return true if there was an arc between the nodes
+	 */
+	private boolean setArcDelay(int src, int dest, float delay) {
+		int[] nodeNeighbors = neighbors[src];
+		for (int i = 0; i < degrees[src]; i++) {
+			if (nodeNeighbors[i] == dest) {
+				if (delay != 0) {
+					linkDelays[src][i] = delay;
+				} else {
+					int last = --degrees[src];
+					nodeNeighbors[i] = nodeNeighbors[last];
+					linkDelays[src][i] = linkDelays[src][last];
+				}
+				return true;
+			}
+		}
+		// the delay matrix takes a delay of 0 as no link, and ignores the links of a node to itself
+		if (delay == 0 || src == dest) {
+			return false;
+		}
+		if (degrees[src] == nodeNeighbors.length) {
+			linkDelays[src] = Arrays.copyOf(linkDelays[src], 2 * nodeNeighbors.length);
+			neighbors[src] = nodeNeighbors = Arrays.copyOf(nodeNeighbors, 2 * nodeNeighbors.length);
+		}
+		nodeNeighbors[degrees[src]] = dest;
+		linkDelays[src][degrees[src]] = delay;
+		degrees[src]++;
+		return false;
+	}
+
+	/**
+	 * Calculates the delays from a source to every node with Dijkstra. The heap entries are not
+	 * updated when a shorter delay is found; the outdated ones are skipped when they are polled.
+	 */
+	private float[] calculateShortestPaths(int srcID) {
+		float[] delays = new float[mTotalNodeNum];
+		Arrays.fill(delays, Float.MAX_VALUE);
+		delays[srcID] = 0;
+
+		int size = 0;
+		heap[size++] = entry(0, srcID);
+		while (size > 0) {
+			long top = heap[0];
+			heap[0] = heap[--size];
+			siftDown(size);
+
+			int node = (int) top;
+			float delay = Float.intBitsToFloat((int) (top >>> 32));
+			if (delay > delays[node]) {
+				continue;
+			}
+			int[] nodeNeighbors = neighbors[node];
+			float[] nodeLinkDelays = linkDelays[node];
+			for (int i = 0; i < degrees[node]; i++) {
+				int neighbor = nodeNeighbors[i];
+				float candidate = delay + nodeLinkDelays[i];
+				if (candidate < delays[neighbor]) {
+					delays[neighbor] = candidate;
+					if (size == heap.length) {
+						heap = Arrays.copyOf(heap, 2 * size);
+					}
+					heap[size] = entry(candidate, neighbor);
+					siftUp(size++);
+				}
+			}
+		}
+		return delays;
+	}
+
+	/**
+	 * Packs a delay and a node in a heap entry. The bits of a non negative float have the same order
+	 * as the float, so the entries are ordered by delay.
+	 */
+	private static long entry(float delay, int node) {
+		return ((long) Float.floatToIntBits(delay) << 32) | node;
+	}
+
+	private void siftUp(int position) {
+		long entry = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (heap[parent] <= entry) {
+				break;
+			}
+			heap[position] = heap[parent];
+			position = parent;
+		}
+		heap[position] = entry;
+	}
+
+	private void siftDown(int size) {
+		if (size == 0) {
+			return;
+		}
+		long entry = heap[0];
+		int position = 0;
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (entry <= heap[child]) {
+				break;
+			}
+			heap[position] = heap[child];
+			position = child;
+		}
+		heap[position] = entry;
+	}
+
+	/**
+	 * Gets the quantity of nodes of the topology
+	 *
+	 * @return the quantity of nodes
+	 */
+	public int getNumberOfNodes() {
+		return mTotalNodeNum;
+	}
+
+}
@@ -10,14 +10,9 @@ package org.cloudbus.cloudsim.network.datacenter;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map.Entry;
 
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
-import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
  * This class allows to simulate Edge switch for Datacenter network. It interacts with other
@@ -46,8 +41,8 @@ public class EdgeSwitch extends Switch {
 	public EdgeSwitch(String name, int level, NetworkDatacenter dc) {
 		super(name, level, dc);
 		hostlist = new HashMap<Integer, NetworkHost>();
-		uplinkswitchpktlist = new HashMap<Integer, List<NetworkPacket>>();
-		packetTohost = new HashMap<Integer, List<NetworkPacket>>();
+		uplinkswitchpktlist = new HashMap<Integer, PacketQueue>();
+		packetTohost = new HashMap<Integer, PacketQueue>();
 		uplinkbandwidth = NetworkConstants.BandWidthEdgeAgg;
 		downlinkbandwidth = NetworkConstants.BandWidthEdgeHost;
 		switching_delay = NetworkConstants.SwitchingDelayEdge;
@@ -70,9 +65,6 @@ public class EdgeSwitch extends Switch {
 		// int src=ev.getSource();
 		NetworkPacket hspkt = (NetworkPacket) ev.getData();
 		int recvVMid = hspkt.pkt.reciever;
-		CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.Network_Event_send));
-		schedule(getId(), switching_delay, CloudSimTags.Network_Event_send);
-
 		// packet is recieved from host
 		// packet is to be sent to aggregate level or to another host in the same level
 
@@ -83,12 +75,7 @@ public class EdgeSwitch extends Switch {
 		// packet needs to go to a host which is connected directly to switch
 		if (hs != null) {
 			// packet to be sent to host connected to the switch
-			List<NetworkPacket> pktlist = packetTohost.get(hostid);
-			if (pktlist == null) {
-				pktlist = new ArrayList<NetworkPacket>();
-				packetTohost.put(hostid, pktlist);
-			}
-			pktlist.add(hspkt);
+			queuePacket(packetTohost, hostid, hspkt, switching_delay);
 			return;
 
 		}
@@ -98,12 +85,7 @@ public class EdgeSwitch extends Switch {
 		// if there are more than one Aggregate level switch one need to modify following code
 
 		Switch sw = uplinkswitches.get(0);
-		List<NetworkPacket> pktlist = uplinkswitchpktlist.get(sw.getId());
-		if (pktlist == null) {
-			pktlist = new ArrayList<NetworkPacket>();
-			uplinkswitchpktlist.put(sw.getId(), pktlist);
-		}
-		pktlist.add(hspkt);
+		queuePacket(uplinkswitchpktlist, sw.getId(), hspkt, switching_delay);
 		return;
 
 	}
@@ -116,45 +98,10 @@ public class EdgeSwitch extends Switch {
 	@Override
 	protected void processpacketforward(SimEvent ev) {
 		// search for the host and packets..send to them
+		forwardscheduled = false;
 
-		if (uplinkswitchpktlist != null) {
-			for (Entry<Integer, List<NetworkPacket>> es : uplinkswitchpktlist.entrySet()) {
-				int tosend = es.getKey();
-				List<NetworkPacket> hspktlist = es.getValue();
-				if (!hspktlist.isEmpty()) {
-					// sharing bandwidth between packets
-					double avband = uplinkbandwidth / hspktlist.size();
-					Iterator<NetworkPacket> it = hspktlist.iterator();
-					while (it.hasNext()) {
-						NetworkPacket hspkt = it.next();
-						double delay = 1000 * hspkt.pkt.data / avband;
-
-						this.send(tosend, delay, CloudSimTags.Network_Event_UP, hspkt);
-					}
-					hspktlist.clear();
-				}
-			}
-		}
-		if (packetTohost != null) {
-			for (Entry<Integer, List<NetworkPacket>> es : packetTohost.entrySet()) {
-				List<NetworkPacket> hspktlist = es.getValue();
-				if (!hspktlist.isEmpty()) {
-					double avband = downlinkbandwidth / hspktlist.size();
-					Iterator<NetworkPacket> it = hspktlist.iterator();
-					while (it.hasNext()) {
-						NetworkPacket hspkt = it.next();
-						// hspkt.recieverhostid=tosend;
-						// hs.packetrecieved.add(hspkt);
-						this.send(getId(), hspkt.pkt.data / avband, CloudSimTags.Network_Event_Host, hspkt);
-					}
-					hspktlist.clear();
-				}
-			}
-		}
-
-		// or to switch at next level.
-		// clear the list
-
+		forwardPackets(uplinkswitchpktlist, uplinkbandwidth, CloudSimTags.Network_Event_UP);
+		forwardPacketsToHosts();
 	}
 
 }
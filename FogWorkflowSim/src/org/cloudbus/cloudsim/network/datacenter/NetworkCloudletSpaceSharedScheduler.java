@@ -406,6 +406,7 @@ public class NetworkCloudletSpaceSharedScheduler extends CloudletScheduler {
 		rcl.setCloudletStatus(Cloudlet.SUCCESS);
 		rcl.finalizeCloudlet();
 		getCloudletFinishedList().add(rcl);
+		notifyCloudletFinished();
 		usedPes -= rcl.getNumberOfPes();
 	}
 
@@ -509,6 +510,7 @@ public class NetworkCloudletSpaceSharedScheduler extends CloudletScheduler {
 			ResCloudlet rcl = new ResCloudlet(cloudlet);
 			rcl.setCloudletStatus(Cloudlet.QUEUED);
 			getCloudletWaitingList().add(rcl);
+			notifyCloudletSubmitted();
 			return 0.0;
 		}
 
@@ -531,6 +533,7 @@ public class NetworkCloudletSpaceSharedScheduler extends CloudletScheduler {
 		long length = cloudlet.getCloudletLength();
 		length += extraSize;
 		cloudlet.setCloudletLength(length);
+		notifyCloudletSubmitted();
 		return cloudlet.getCloudletLength() / capacity;
 	}
 
@@ -51,6 +51,8 @@ public class NetworkConstants {
 
 	public static double RootSwitchPort = 1;// number of Agg
 
+	public static int PortQueueCapacity = 64;// packets a port queue has room for before growing
+
 	public static double seed = 199;
 
 	public static boolean logflag = false;
@@ -0,0 +1,87 @@
+package org.cloudbus.cloudsim.network.datacenter;
+
+import java.util.Arrays;
+
+/**
+ * This class is the FIFO queue of the packets waiting in a port of a switch. The packets are kept
+ * in a ring array, which is reused after the queue is drained. No packet is dropped, since the
+ * stages of the network cloudlets wait for all their packets, so the ring grows when a burst
+ * does not fit in it.
+ *
+ * @since TSP Extension 1.0
+ */
+public class PacketQueue {
+
+	/** The packets, from head, wrapping around. The length is a power of two. */
+	private NetworkPacket[] packets;
+
+	/** The position of the oldest packet. */
+	private int head;
+
+	/** The quantity of packets. */
+	private int size;
+
+	/**
+	 * Creates an empty queue with room for NetworkConstants.PortQueueCapacity packets
+	 */
+	public PacketQueue() {
+		this(NetworkConstants.PortQueueCapacity);
+	}
+
+	/**
+	 * Creates an empty queue
+	 *
+	 * @param capacity the quantity of packets the queue has room for before growing
+	 */
+	public PacketQueue(int capacity) {
+		packets = new NetworkPacket[Integer.highestOneBit(Math.max(1, capacity - 1)) << 1];
+	}
+
+	/**
+	 * Adds a packet at the end of the queue
+	 *
+	 * @param packet the packet
+	 */
+	public void add(NetworkPacket packet) {
+		if (size == packets.length) {
+			// unwrap the packets before doubling the ring
+			NetworkPacket[] grown = Arrays.copyOfRange(packets, head, head + 2 * packets.length);
+			System.arraycopy(packets, 0, grown, packets.length - head, head);
+			packets = grown;
+			head = 0;
+		}
+		packets[(head + size) & (packets.length - 1)] = packet;
+		size++;
+	}
+
+	/**
+	 * Removes the oldest packet of the queue
+	 *
+	 * @return the packet, or null if the queue is empty
+	 */
+	public NetworkPacket poll() {
+		if (size == 0) {
+			return null;
+		}
+		NetworkPacket packet = packets[head];
+		packets[head] = null;
+		head = (head + 1) & (packets.length - 1);
+		size--;
+		return packet;
+	}
+
+	/**
+	 * @return the quantity of packets in the queue
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if there is no packet in the queue
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+}
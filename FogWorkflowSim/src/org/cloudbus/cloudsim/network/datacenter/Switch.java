@@ -9,7 +9,6 @@
 package org.cloudbus.cloudsim.network.datacenter;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -25,6 +24,16 @@ import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.core.predicates.PredicateType;
 import org.cloudbus.cloudsim.lists.VmList;
 
+/**
+ * This class allows to simulate a switch for Datacenter network. The packets are queued in the
+ * ports they are going out from, and forwarded in batches by the switch.
+ * 
+ * TSP modification: the ports keep their packets in {@link PacketQueue} rings instead of lists. The
+ * first packet reaching an idle switch schedules the forwarding of the packets queued until then,
+ * instead of every packet cancelling and rescheduling the forwarding, which searched the whole
+ * future event queue per packet. The packets queued in a port share its bandwidth, which is
+ * computed once per batch.
+ */
 public class Switch extends SimEntity {
 
 	// switch level
@@ -34,9 +43,9 @@ public class Switch extends SimEntity {
 
 	public int datacenterid;
 
-	public Map<Integer, List<NetworkPacket>> uplinkswitchpktlist;
+	public Map<Integer, PacketQueue> uplinkswitchpktlist;
 
-	public Map<Integer, List<NetworkPacket>> downlinkswitchpktlist;
+	public Map<Integer, PacketQueue> downlinkswitchpktlist;
 
 	public Map<Integer, NetworkHost> hostlist;
 
@@ -44,7 +53,7 @@ public class Switch extends SimEntity {
 
 	public List<Switch> downlinkswitches;
 
-	public Map<Integer, List<NetworkPacket>> packetTohost;
+	public Map<Integer, PacketQueue> packetTohost;
 
 	int type;// edge switch or aggregation switch
 
@@ -72,6 +81,9 @@ public class Switch extends SimEntity {
 
 	public Map<Integer, NetworkVm> Vmlist;
 
+	// true if the forwarding of the queued packets is scheduled
+	protected boolean forwardscheduled = false;
+
 	public Switch(String name, int level, NetworkDatacenter dc) {
 		super(name);
 		this.level = level;
@@ -131,30 +143,18 @@ public class Switch extends SimEntity {
 		// int src=ev.getSource();
 		NetworkPacket hspkt = (NetworkPacket) ev.getData();
 		int recvVMid = hspkt.pkt.reciever;
-		CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.Network_Event_send));
-		schedule(getId(), latency, CloudSimTags.Network_Event_send);
 		if (level == NetworkConstants.EDGE_LEVEL) {
 			// packet is to be recieved by host
 			int hostid = dc.VmtoHostlist.get(recvVMid);
 			hspkt.recieverhostid = hostid;
-			List<NetworkPacket> pktlist = packetTohost.get(hostid);
-			if (pktlist == null) {
-				pktlist = new ArrayList<NetworkPacket>();
-				packetTohost.put(hostid, pktlist);
-			}
-			pktlist.add(hspkt);
+			queuePacket(packetTohost, hostid, hspkt, latency);
 			return;
 		}
 		if (level == NetworkConstants.Agg_LEVEL) {
 			// packet is coming from root so need to be sent to edgelevel swich
 			// find the id for edgelevel switch
 			int switchid = dc.VmToSwitchid.get(recvVMid);
-			List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
-			if (pktlist == null) {
-				pktlist = new ArrayList<NetworkPacket>();
-				downlinkswitchpktlist.put(switchid, pktlist);
-			}
-			pktlist.add(hspkt);
+			queuePacket(downlinkswitchpktlist, switchid, hspkt, latency);
 			return;
 		}
 
@@ -169,8 +169,6 @@ public class Switch extends SimEntity {
 		// int src=ev.getSource();
 		NetworkPacket hspkt = (NetworkPacket) ev.getData();
 		int recvVMid = hspkt.pkt.reciever;
-		CloudSim.cancelAll(getId(), new PredicateType(CloudSimTags.Network_Event_send));
-		schedule(getId(), switching_delay, CloudSimTags.Network_Event_send);
 		if (level == NetworkConstants.EDGE_LEVEL) {
 			// packet is recieved from host
 			// packet is to be sent to aggregate level or to another host in the
@@ -181,12 +179,7 @@ public class Switch extends SimEntity {
 			hspkt.recieverhostid = hostid;
 			if (hs != null) {
 				// packet to be sent to host connected to the switch
-				List<NetworkPacket> pktlist = packetTohost.get(hostid);
-				if (pktlist == null) {
-					pktlist = new ArrayList<NetworkPacket>();
-					packetTohost.put(hostid, pktlist);
-				}
-				pktlist.add(hspkt);
+				queuePacket(packetTohost, hostid, hspkt, switching_delay);
 				return;
 
 			}
@@ -194,12 +187,7 @@ public class Switch extends SimEntity {
 			// ASSUMPTION EACH EDGE is Connected to one aggregate level switch
 
 			Switch sw = uplinkswitches.get(0);
-			List<NetworkPacket> pktlist = uplinkswitchpktlist.get(sw.getId());
-			if (pktlist == null) {
-				pktlist = new ArrayList<NetworkPacket>();
-				uplinkswitchpktlist.put(sw.getId(), pktlist);
-			}
-			pktlist.add(hspkt);
+			queuePacket(uplinkswitchpktlist, sw.getId(), hspkt, switching_delay);
 			return;
 		}
 		if (level == NetworkConstants.Agg_LEVEL) {
@@ -214,21 +202,11 @@ public class Switch extends SimEntity {
 				}
 			}
 			if (flagtoswtich) {
-				List<NetworkPacket> pktlist = downlinkswitchpktlist.get(switchid);
-				if (pktlist == null) {
-					pktlist = new ArrayList<NetworkPacket>();
-					downlinkswitchpktlist.put(switchid, pktlist);
-				}
-				pktlist.add(hspkt);
+				queuePacket(downlinkswitchpktlist, switchid, hspkt, switching_delay);
 			} else// send to up
 			{
 				Switch sw = uplinkswitches.get(0);
-				List<NetworkPacket> pktlist = uplinkswitchpktlist.get(sw.getId());
-				if (pktlist == null) {
-					pktlist = new ArrayList<NetworkPacket>();
-					uplinkswitchpktlist.put(sw.getId(), pktlist);
-				}
-				pktlist.add(hspkt);
+				queuePacket(uplinkswitchpktlist, sw.getId(), hspkt, switching_delay);
 			}
 		}
 		if (level == NetworkConstants.ROOT_LEVEL) {
@@ -248,16 +226,33 @@ public class Switch extends SimEntity {
 			if (aggSwtichid < 0) {
 				System.out.println(" No destination for this packet");
 			} else {
-				List<NetworkPacket> pktlist = downlinkswitchpktlist.get(aggSwtichid);
-				if (pktlist == null) {
-					pktlist = new ArrayList<NetworkPacket>();
-					downlinkswitchpktlist.put(aggSwtichid, pktlist);
-				}
-				pktlist.add(hspkt);
+				queuePacket(downlinkswitchpktlist, aggSwtichid, hspkt, switching_delay);
 			}
 		}
 	}
 
+	/**
+	 * Adds a packet to the queue of a port, and schedules the forwarding of the queued packets
+	 * if it is not scheduled yet
+	 * 
+	 * @param ports the queues of the ports, by the id of the switch or host they are connected to
+	 * @param port the id of the switch or host the port is connected to
+	 * @param hspkt the packet
+	 * @param delay the delay to forward the packets if it is not scheduled yet
+	 */
+	protected void queuePacket(Map<Integer, PacketQueue> ports, int port, NetworkPacket hspkt, double delay) {
+		PacketQueue queue = ports.get(port);
+		if (queue == null) {
+			queue = new PacketQueue();
+			ports.put(port, queue);
+		}
+		queue.add(hspkt);
+		if (!forwardscheduled) {
+			forwardscheduled = true;
+			schedule(getId(), delay, CloudSimTags.Network_Event_send);
+		}
+	}
+
 	private void registerHost(SimEvent ev) {
 		NetworkHost hs = (NetworkHost) ev.getData();
 		hostlist.put(hs.getId(), (NetworkHost) ev.getData());
@@ -279,61 +274,57 @@ public class Switch extends SimEntity {
 
 	protected void processpacketforward(SimEvent ev) {
 		// search for the host and packets..send to them
+		forwardscheduled = false;
 
-		if (downlinkswitchpktlist != null) {
-			for (Entry<Integer, List<NetworkPacket>> es : downlinkswitchpktlist.entrySet()) {
-				int tosend = es.getKey();
-				List<NetworkPacket> hspktlist = es.getValue();
-				if (!hspktlist.isEmpty()) {
-					double avband = downlinkbandwidth / hspktlist.size();
-					Iterator<NetworkPacket> it = hspktlist.iterator();
-					while (it.hasNext()) {
-						NetworkPacket hspkt = it.next();
-						double delay = 1000 * hspkt.pkt.data / avband;
-
-						this.send(tosend, delay, CloudSimTags.Network_Event_DOWN, hspkt);
-					}
-					hspktlist.clear();
-				}
-			}
+		forwardPackets(downlinkswitchpktlist, downlinkbandwidth, CloudSimTags.Network_Event_DOWN);
+		forwardPackets(uplinkswitchpktlist, uplinkbandwidth, CloudSimTags.Network_Event_UP);
+		forwardPacketsToHosts();
+	}
+
+	/**
+	 * Sends the packets queued in some ports to the switches the ports are connected to. The
+	 * packets of a port share its bandwidth.
+	 * 
+	 * @param ports the queues of the ports, by the id of the switch they are connected to
+	 * @param bandwidth the bandwidth of the ports
+	 * @param tag the tag of the events sending the packets
+	 */
+	protected void forwardPackets(Map<Integer, PacketQueue> ports, double bandwidth, int tag) {
+		if (ports == null) {
+			return;
 		}
-		if (uplinkswitchpktlist != null) {
-			for (Entry<Integer, List<NetworkPacket>> es : uplinkswitchpktlist.entrySet()) {
-				int tosend = es.getKey();
-				List<NetworkPacket> hspktlist = es.getValue();
-				if (!hspktlist.isEmpty()) {
-					double avband = uplinkbandwidth / hspktlist.size();
-					Iterator<NetworkPacket> it = hspktlist.iterator();
-					while (it.hasNext()) {
-						NetworkPacket hspkt = it.next();
-						double delay = 1000 * hspkt.pkt.data / avband;
-
-						this.send(tosend, delay, CloudSimTags.Network_Event_UP, hspkt);
-					}
-					hspktlist.clear();
+		for (Entry<Integer, PacketQueue> es : ports.entrySet()) {
+			int tosend = es.getKey();
+			PacketQueue queue = es.getValue();
+			if (!queue.isEmpty()) {
+				double avband = bandwidth / queue.size();
+				for (NetworkPacket hspkt = queue.poll(); hspkt != null; hspkt = queue.poll()) {
+					double delay = 1000 * hspkt.pkt.data / avband;
+
+					this.send(tosend, delay, tag, hspkt);
 				}
 			}
 		}
-		if (packetTohost != null) {
-			for (Entry<Integer, List<NetworkPacket>> es : packetTohost.entrySet()) {
-				List<NetworkPacket> hspktlist = es.getValue();
-				if (!hspktlist.isEmpty()) {
-					double avband = downlinkbandwidth / hspktlist.size();
-					Iterator<NetworkPacket> it = hspktlist.iterator();
-					while (it.hasNext()) {
-						NetworkPacket hspkt = it.next();
-						// hspkt.recieverhostid=tosend;
-						// hs.packetrecieved.add(hspkt);
-						this.send(getId(), hspkt.pkt.data / avband, CloudSimTags.Network_Event_Host, hspkt);
-					}
-					hspktlist.clear();
+	}
+
+	/**
+	 * Sends the packets queued in the ports connected to hosts to the hosts. The packets of a port
+	 * share the downlink bandwidth.
+	 */
+	protected void forwardPacketsToHosts() {
+		if (packetTohost == null) {
+			return;
+		}
+		for (PacketQueue queue : packetTohost.values()) {
+			if (!queue.isEmpty()) {
+				double avband = downlinkbandwidth / queue.size();
+				for (NetworkPacket hspkt = queue.poll(); hspkt != null; hspkt = queue.poll()) {
+					// hspkt.recieverhostid=tosend;
+					// hs.packetrecieved.add(hspkt);
+					this.send(getId(), hspkt.pkt.data / avband, CloudSimTags.Network_Event_Host, hspkt);
 				}
 			}
 		}
-
-		// or to switch at next level.
-		// clear the list
-
 	}
 
 	//
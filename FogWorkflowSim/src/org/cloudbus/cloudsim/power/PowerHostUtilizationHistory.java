@@ -8,6 +8,7 @@
 
 package org.cloudbus.cloudsim.power;
 
+import java.util.Arrays;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Pe;
@@ -15,6 +16,7 @@ import org.cloudbus.cloudsim.VmScheduler;
 import org.cloudbus.cloudsim.power.models.PowerModel;
 import org.cloudbus.cloudsim.provisioners.BwProvisioner;
 import org.cloudbus.cloudsim.provisioners.RamProvisioner;
+import org.cloudbus.cloudsim.util.DoubleRingBuffer;
 import org.cloudbus.cloudsim.util.MathUtil;
 
 /**
@@ -29,11 +31,29 @@ import org.cloudbus.cloudsim.util.MathUtil;
  * Cloud Data Centers", Concurrency and Computation: Practice and Experience (CCPE), Volume 24,
  * Issue 13, Pages: 1397-1420, John Wiley & Sons, Ltd, New York, USA, 2012
  * 
+ * TSP modification: the host utilization history is kept in a primitive array and it is only
+ * computed again when the history of any VM, the VMs of the host or their MIPS change, so the
+ * over-utilization detectors can read it several times per optimization without copying it.
+ * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 2.0
  */
 public class PowerHostUtilizationHistory extends PowerHost {
 
+	/** The host utilization history, from the most recent value. */
+	private final double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+
+	/** The quantity of values of the host utilization history, without the zero tail. */
+	private int utilizationHistoryLength;
+
+	/** The version of the VM histories the host utilization history was computed from. */
+	private long utilizationHistoryVersion = -1;
+
+	/** The VMs, their MIPS and the host MIPS the host utilization history was computed from. */
+	private PowerVm[] utilizationHistoryVms = new PowerVm[0];
+	private double[] utilizationHistoryVmMips = new double[0];
+	private double utilizationHistoryHostMips;
+
 	/**
 	 * Instantiates a new power host utilization history.
 	 * 
@@ -62,14 +82,79 @@ public class PowerHostUtilizationHistory extends PowerHost {
 	 * @return the host utilization history
 	 */
 	protected double[] getUtilizationHistory() {
-		double[] utilizationHistory = new double[PowerVm.HISTORY_LENGTH];
+		updateUtilizationHistory();
+		return Arrays.copyOf(utilizationHistory, utilizationHistoryLength);
+	}
+
+	/**
+	 * Gets the host utilization history without copying it. Only the first
+	 * {@link #getUtilizationHistoryLength()} values are part of the history and the array must not
+	 * be modified.
+	 * 
+	 * @return the host utilization history
+	 */
+	protected double[] getUtilizationHistoryValues() {
+		updateUtilizationHistory();
+		return utilizationHistory;
+	}
+
+	/**
+	 * Gets the length of the host utilization history.
+	 * 
+	 * @return the length of the host utilization history
+	 */
+	protected int getUtilizationHistoryLength() {
+		updateUtilizationHistory();
+		return utilizationHistoryLength;
+	}
+
+	/**
+	 * Computes the host utilization history again if it changed, adding the histories of the VMs
+	 * weighted by their share of the host MIPS.
+	 */
+	private void updateUtilizationHistory() {
+		List<PowerVm> vms = this.<PowerVm> getVmList();
 		double hostMips = getTotalMips();
-		for (PowerVm vm : this.<PowerVm> getVmList()) {
-			for (int i = 0; i < vm.getUtilizationHistory().size(); i++) {
-				utilizationHistory[i] += vm.getUtilizationHistory().get(i) * vm.getMips() / hostMips;
+		if (isUtilizationHistoryUpToDate(vms, hostMips)) {
+			return;
+		}
+		utilizationHistoryVersion = PowerVm.getUtilizationHistoryVersion();
+		utilizationHistoryHostMips = hostMips;
+		if (utilizationHistoryVms.length != vms.size()) {
+			utilizationHistoryVms = new PowerVm[vms.size()];
+			utilizationHistoryVmMips = new double[vms.size()];
+		}
+
+		Arrays.fill(utilizationHistory, 0);
+		for (int k = 0; k < vms.size(); k++) {
+			PowerVm vm = vms.get(k);
+			double vmMips = vm.getMips();
+			utilizationHistoryVms[k] = vm;
+			utilizationHistoryVmMips[k] = vmMips;
+			DoubleRingBuffer vmUtilizationHistory = vm.getUtilizationHistory();
+			for (int i = 0; i < vmUtilizationHistory.size(); i++) {
+				utilizationHistory[i] += vmUtilizationHistory.getDouble(i) * vmMips / hostMips;
+			}
+		}
+		utilizationHistoryLength = MathUtil.countNonZeroBeginning(utilizationHistory);
+	}
+
+	/**
+	 * Checks whether the host utilization history was computed from the current histories of the
+	 * same VMs, in the same order and with the same MIPS.
+	 */
+	private boolean isUtilizationHistoryUpToDate(List<PowerVm> vms, double hostMips) {
+		if (utilizationHistoryVersion != PowerVm.getUtilizationHistoryVersion()
+				|| utilizationHistoryHostMips != hostMips || utilizationHistoryVms.length != vms.size()) {
+			return false;
+		}
+		for (int k = 0; k < utilizationHistoryVms.length; k++) {
+			PowerVm vm = vms.get(k);
+			if (utilizationHistoryVms[k] != vm || utilizationHistoryVmMips[k] != vm.getMips()) {
+				return false;
 			}
 		}
-		return MathUtil.trimZeroTail(utilizationHistory);
+		return true;
 	}
 
 }
@@ -8,12 +8,12 @@
 
 package org.cloudbus.cloudsim.power;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import org.cloudbus.cloudsim.CloudletScheduler;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.util.DoubleRingBuffer;
 import org.cloudbus.cloudsim.util.MathUtil;
 
 /**
@@ -28,6 +28,10 @@ import org.cloudbus.cloudsim.util.MathUtil;
  * Cloud Data Centers", Concurrency and Computation: Practice and Experience (CCPE), Volume 24,
  * Issue 13, Pages: 1397-1420, John Wiley & Sons, Ltd, New York, USA, 2012
  * 
+ * TSP modification: the utilization history is a ring buffer of primitive values, and every value
+ * added to the history of any VM increments a global version, so the hosts know when the sum of
+ * the histories of their VMs must be computed again.
+ * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 2.0
  */
@@ -37,7 +41,10 @@ public class PowerVm extends Vm {
 	public static final int HISTORY_LENGTH = 30;
 
 	/** The utilization history. */
-	private final List<Double> utilizationHistory = new LinkedList<Double>();
+	private final DoubleRingBuffer utilizationHistory = new DoubleRingBuffer(HISTORY_LENGTH);
+
+	/** The quantity of values added to the utilization histories of all the VMs. */
+	private static long utilizationHistoryVersion;
 
 	/** The previous time. */
 	private double previousTime;
@@ -109,16 +116,9 @@ public class PowerVm extends Vm {
 	public double getUtilizationMad() {
 		double mad = 0;
 		if (!getUtilizationHistory().isEmpty()) {
-			int n = HISTORY_LENGTH;
-			if (HISTORY_LENGTH > getUtilizationHistory().size()) {
-				n = getUtilizationHistory().size();
-			}
-			double median = MathUtil.median(getUtilizationHistory());
-			double[] deviationSum = new double[n];
-			for (int i = 0; i < n; i++) {
-				deviationSum[i] = Math.abs(median - getUtilizationHistory().get(i));
-			}
-			mad = MathUtil.median(deviationSum);
+			double[] history = new double[HISTORY_LENGTH];
+			int n = getUtilizationHistory().copyTo(history);
+			mad = MathUtil.mad(history, n);
 		}
 		return mad;
 	}
@@ -136,7 +136,7 @@ public class PowerVm extends Vm {
 				n = getUtilizationHistory().size();
 			}
 			for (int i = 0; i < n; i++) {
-				mean += getUtilizationHistory().get(i);
+				mean += getUtilizationHistory().getDouble(i);
 			}
 			mean /= n;
 		}
@@ -157,7 +157,7 @@ public class PowerVm extends Vm {
 				n = getUtilizationHistory().size();
 			}
 			for (int i = 0; i < n; i++) {
-				double tmp = getUtilizationHistory().get(i) * getMips() - mean;
+				double tmp = getUtilizationHistory().getDouble(i) * getMips() - mean;
 				variance += tmp * tmp;
 			}
 			variance /= n;
@@ -171,21 +171,29 @@ public class PowerVm extends Vm {
 	 * @param utilization the utilization
 	 */
 	public void addUtilizationHistoryValue(final double utilization) {
-		getUtilizationHistory().add(0, utilization);
-		if (getUtilizationHistory().size() > HISTORY_LENGTH) {
-			getUtilizationHistory().remove(HISTORY_LENGTH);
-		}
+		getUtilizationHistory().addValue(utilization);
+		utilizationHistoryVersion++;
 	}
 
 	/**
-	 * Gets the utilization history.
+	 * Gets the utilization history, from the most recent value.
 	 * 
 	 * @return the utilization history
 	 */
-	protected List<Double> getUtilizationHistory() {
+	protected DoubleRingBuffer getUtilizationHistory() {
 		return utilizationHistory;
 	}
 
+	/**
+	 * Gets the quantity of values added to the utilization histories of all the VMs, which changes
+	 * every time any history changes.
+	 * 
+	 * @return the utilization history version
+	 */
+	public static long getUtilizationHistoryVersion() {
+		return utilizationHistoryVersion;
+	}
+
 	/**
 	 * Gets the previous time.
 	 * 
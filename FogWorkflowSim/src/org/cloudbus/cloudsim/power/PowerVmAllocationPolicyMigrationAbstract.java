@@ -9,8 +9,11 @@
 package org.cloudbus.cloudsim.power;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +39,14 @@ import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
  * Cloud Data Centers", Concurrency and Computation: Practice and Experience (CCPE), Volume 24,
  * Issue 13, Pages: 1397-1420, John Wiley & Sons, Ltd, New York, USA, 2012
  * 
+ * TSP modification: during a reallocation round the hosts are indexed by their available MIPS in a
+ * max segment tree, built once per round, so the search of a host for a VM skips the hosts without
+ * enough capacity, and the current power of every host is computed once per round. The index only
+ * prunes by MIPS: the power after the allocation is still computed for every host that fits, so a
+ * search remains linear in the hosts that fit. A search out of a round scans the hosts. The
+ * under-utilized hosts are sorted by utilization once per round instead of scanning all the hosts
+ * for every one of them.
+ * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 3.0
  */
@@ -68,6 +79,9 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	/** The execution time history total. */
 	private final List<Double> executionTimeHistoryTotal = new LinkedList<Double>();
 
+	/** The index of the hosts while the VMs are reallocated, null otherwise. */
+	private HostIndex hostIndex;
+
 	/**
 	 * Instantiates a new power vm allocation policy migration abstract.
 	 * 
@@ -107,6 +121,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 
 		Log.printLine("Reallocation of VMs from the over-utilized hosts:");
 		ExecutionTimeMeasurer.start("optimizeAllocationVmReallocation");
+		hostIndex = new HostIndex(this.<PowerHost> getHostList());
 		List<Map<String, Object>> migrationMap = getNewVmPlacement(vmsToMigrate, new HashSet<Host>(
 				overUtilizedHosts));
 		getExecutionTimeHistoryVmReallocation().add(
@@ -114,6 +129,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		Log.printLine();
 
 		migrationMap.addAll(getMigrationMapFromUnderUtilizedHosts(overUtilizedHosts));
+		hostIndex = null;
 
 		restoreAllocation();
 
@@ -146,12 +162,23 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 
 		int numberOfHosts = getHostList().size();
 
+		// the utilization of the hosts does not change until the next update of the VMs processing
+		List<PowerHost> underUtilizedHostCandidates = getUnderUtilizedHostCandidates();
+		int firstCandidate = 0;
+
 		while (true) {
 			if (numberOfHosts == excludedHostsForFindingUnderUtilizedHost.size()) {
 				break;
 			}
 
-			PowerHost underUtilizedHost = getUnderUtilizedHost(excludedHostsForFindingUnderUtilizedHost);
+			while (firstCandidate < underUtilizedHostCandidates.size()
+					&& excludedHostsForFindingUnderUtilizedHost.contains(underUtilizedHostCandidates
+							.get(firstCandidate))) {
+				firstCandidate++;
+			}
+			PowerHost underUtilizedHost = getUnderUtilizedHost(
+					underUtilizedHostCandidates.subList(firstCandidate, underUtilizedHostCandidates.size()),
+					excludedHostsForFindingUnderUtilizedHost);
 			if (underUtilizedHost == null) {
 				break;
 			}
@@ -213,7 +240,12 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		double minPower = Double.MAX_VALUE;
 		PowerHost allocatedHost = null;
 
-		for (PowerHost host : this.<PowerHost> getHostList()) {
+		// the index is only built for the searches of a reallocation round, a single search scans the hosts;
+		// either way the power after the allocation is computed for every host that fits
+		HostIndex index = hostIndex;
+		List<PowerHost> hosts = index != null ? index.getHostsWithAvailableMips(vm.getCurrentRequestedTotalMips())
+				: this.<PowerHost> getHostList();
+		for (PowerHost host : hosts) {
 			if (excludedHosts.contains(host)) {
 				continue;
 			}
@@ -225,7 +257,8 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 				try {
 					double powerAfterAllocation = getPowerAfterAllocation(host, vm);
 					if (powerAfterAllocation != -1) {
-						double powerDiff = powerAfterAllocation - host.getPower();
+						double powerDiff = powerAfterAllocation
+								- (index != null ? index.getPower(host) : host.getPower());
 						if (powerDiff < minPower) {
 							minPower = powerDiff;
 							allocatedHost = host;
@@ -299,6 +332,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 			PowerHost allocatedHost = findHostForVm(vm, excludedHosts);
 			if (allocatedHost != null) {
 				allocatedHost.vmCreate(vm);
+				updateHostIndex(allocatedHost);
 				Log.printLine("VM #" + vm.getId() + " allocated to host #" + allocatedHost.getId());
 
 				Map<String, Object> migrate = new HashMap<String, Object>();
@@ -326,6 +360,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 			PowerHost allocatedHost = findHostForVm(vm, excludedHosts);
 			if (allocatedHost != null) {
 				allocatedHost.vmCreate(vm);
+				updateHostIndex(allocatedHost);
 				Log.printLine("VM #" + vm.getId() + " allocated to host #" + allocatedHost.getId());
 
 				Map<String, Object> migrate = new HashMap<String, Object>();
@@ -336,6 +371,7 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 				Log.printLine("Not all VMs can be reallocated from the host, reallocation cancelled");
 				for (Map<String, Object> map : migrationMap) {
 					((Host) map.get("host")).vmDestroy((Vm) map.get("vm"));
+					updateHostIndex((Host) map.get("host"));
 				}
 				migrationMap.clear();
 				break;
@@ -423,20 +459,43 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 	 * @return the under utilized host
 	 */
 	protected PowerHost getUnderUtilizedHost(Set<? extends Host> excludedHosts) {
-		double minUtilization = 1;
-		PowerHost underUtilizedHost = null;
+		return getUnderUtilizedHost(getUnderUtilizedHostCandidates(), excludedHosts);
+	}
+
+	/**
+	 * Gets the hosts that can be under-utilized, that is, the ones with a utilization greater than 0
+	 * and less than 1, sorted by utilization and then by their position in the host list.
+	 * 
+	 * @return the under-utilized host candidates
+	 */
+	protected List<PowerHost> getUnderUtilizedHostCandidates() {
+		List<PowerHost> candidates = new ArrayList<PowerHost>();
 		for (PowerHost host : this.<PowerHost> getHostList()) {
-			if (excludedHosts.contains(host)) {
-				continue;
-			}
 			double utilization = host.getUtilizationOfCpu();
-			if (utilization > 0 && utilization < minUtilization
-					&& !areAllVmsMigratingOutOrAnyVmMigratingIn(host)) {
-				minUtilization = utilization;
-				underUtilizedHost = host;
+			if (utilization > 0 && utilization < 1) {
+				candidates.add(host);
+			}
+		}
+		// the sort is stable, so the ties keep the order of the host list
+		candidates.sort(Comparator.comparingDouble(PowerHost::getUtilizationOfCpu));
+		return candidates;
+	}
+
+	/**
+	 * Gets the under utilized host, which is the first candidate that is not excluded and whose VMs
+	 * can be migrated.
+	 * 
+	 * @param candidates the under-utilized host candidates, sorted by utilization
+	 * @param excludedHosts the excluded hosts
+	 * @return the under utilized host
+	 */
+	protected PowerHost getUnderUtilizedHost(List<PowerHost> candidates, Set<? extends Host> excludedHosts) {
+		for (PowerHost host : candidates) {
+			if (!excludedHosts.contains(host) && !areAllVmsMigratingOutOrAnyVmMigratingIn(host)) {
+				return host;
 			}
 		}
-		return underUtilizedHost;
+		return null;
 	}
 
 	/**
@@ -581,6 +640,17 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		return hostUtilizationMips;
 	}
 
+	/**
+	 * Updates the available MIPS of a host in the host index after a VM is created or destroyed in it.
+	 * 
+	 * @param host the host
+	 */
+	protected void updateHostIndex(Host host) {
+		if (hostIndex != null) {
+			hostIndex.update(host);
+		}
+	}
+
 	/**
 	 * Gets the saved allocation.
 	 * 
@@ -671,4 +741,107 @@ public abstract class PowerVmAllocationPolicyMigrationAbstract extends PowerVmAl
 		return executionTimeHistoryTotal;
 	}
 
+	/**
+	 * A max segment tree over the available MIPS of the hosts, in the order of the host list, with the
+	 * power of every host computed the first time it is needed.
+	 */
+	private static class HostIndex {
+
+		/** The hosts. */
+		private final List<PowerHost> hosts;
+
+		/** The position of every host in the host list. */
+		private final Map<Host, Integer> positions;
+
+		/** The first leaf of the tree. */
+		private final int leaves;
+
+		/** The maximum available MIPS of every subtree. */
+		private final double[] availableMips;
+
+		/** The power of every host, NaN until it is needed. */
+		private final double[] power;
+
+		/**
+		 * Instantiates a new host index.
+		 * 
+		 * @param hosts the host list
+		 */
+		HostIndex(List<PowerHost> hosts) {
+			this.hosts = hosts;
+			positions = new IdentityHashMap<Host, Integer>(hosts.size() * 2);
+			int size = 1;
+			while (size < hosts.size()) {
+				size <<= 1;
+			}
+			leaves = size;
+			availableMips = new double[2 * size];
+			Arrays.fill(availableMips, Double.NEGATIVE_INFINITY);
+			for (int i = 0; i < hosts.size(); i++) {
+				positions.put(hosts.get(i), i);
+				availableMips[leaves + i] = hosts.get(i).getAvailableMips();
+			}
+			for (int node = leaves - 1; node > 0; node--) {
+				availableMips[node] = Math.max(availableMips[2 * node], availableMips[2 * node + 1]);
+			}
+			power = new double[hosts.size()];
+			Arrays.fill(power, Double.NaN);
+		}
+
+		/**
+		 * Updates the available MIPS of a host.
+		 * 
+		 * @param host the host
+		 */
+		void update(Host host) {
+			Integer position = positions.get(host);
+			if (position == null) {
+				return;
+			}
+			int node = leaves + position;
+			availableMips[node] = host.getAvailableMips();
+			for (node >>= 1; node > 0; node >>= 1) {
+				availableMips[node] = Math.max(availableMips[2 * node], availableMips[2 * node + 1]);
+			}
+		}
+
+		/**
+		 * Gets the hosts with at least some available MIPS, in the order of the host list.
+		 * 
+		 * @param mips the MIPS
+		 * @return the hosts
+		 */
+		List<PowerHost> getHostsWithAvailableMips(double mips) {
+			List<PowerHost> result = new ArrayList<PowerHost>();
+			collect(1, mips, result);
+			return result;
+		}
+
+		private void collect(int node, double mips, List<PowerHost> result) {
+			if (availableMips[node] < mips) {
+				return;
+			}
+			if (node >= leaves) {
+				result.add(hosts.get(node - leaves));
+				return;
+			}
+			collect(2 * node, mips, result);
+			collect(2 * node + 1, mips, result);
+		}
+
+		/**
+		 * Gets the current power of a host.
+		 * 
+		 * @param host the host
+		 * @return the power
+		 */
+		double getPower(PowerHost host) {
+			int position = positions.get(host);
+			if (Double.isNaN(power[position])) {
+				power[position] = host.getPower();
+			}
+			return power[position];
+		}
+	}
+
 }
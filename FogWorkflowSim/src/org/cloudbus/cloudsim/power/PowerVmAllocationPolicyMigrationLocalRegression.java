@@ -90,9 +90,10 @@ public class PowerVmAllocationPolicyMigrationLocalRegression extends PowerVmAllo
 	@Override
 	protected boolean isHostOverUtilized(PowerHost host) {
 		PowerHostUtilizationHistory _host = (PowerHostUtilizationHistory) host;
-		double[] utilizationHistory = _host.getUtilizationHistory();
+		// the history is read without copying it
+		double[] utilizationHistory = _host.getUtilizationHistoryValues();
 		int length = 10; // we use 10 to make the regression responsive enough to latest values
-		if (utilizationHistory.length < length) {
+		if (_host.getUtilizationHistoryLength() < length) {
 			return getFallbackVmAllocationPolicy().isHostOverUtilized(host);
 		}
 		double[] utilizationHistoryReversed = new double[length];
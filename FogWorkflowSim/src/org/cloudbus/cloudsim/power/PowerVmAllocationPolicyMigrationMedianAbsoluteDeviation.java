@@ -105,9 +105,11 @@ public class PowerVmAllocationPolicyMigrationMedianAbsoluteDeviation extends
 	 * @return the host utilization mad
 	 */
 	protected double getHostUtilizationMad(PowerHostUtilizationHistory host) throws IllegalArgumentException {
-		double[] data = host.getUtilizationHistory();
-		if (MathUtil.countNonZeroBeginning(data) >= 12) { // 12 has been suggested as a safe value
-			return MathUtil.mad(data);
+		// the history is read without copying it
+		double[] data = host.getUtilizationHistoryValues();
+		int length = host.getUtilizationHistoryLength();
+		if (MathUtil.countNonZeroBeginning(data, length) >= 12) { // 12 has been suggested as a safe value
+			return MathUtil.mad(data, length);
 		}
 		throw new IllegalArgumentException();
 	}
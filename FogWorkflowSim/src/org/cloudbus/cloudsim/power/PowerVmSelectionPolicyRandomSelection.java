@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Random;
 
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.core.RandomStreams;
 
 /**
  * The Random Selection (RS) VM selection policy.
@@ -29,6 +30,9 @@ import org.cloudbus.cloudsim.Vm;
  */
 public class PowerVmSelectionPolicyRandomSelection extends PowerVmSelectionPolicy {
 
+	/** The random generator. */
+	private final Random random = RandomStreams.random("PowerVmSelectionPolicyRandomSelection");
+
 	/*
 	 * (non-Javadoc)
 	 * @see
@@ -41,7 +45,7 @@ public class PowerVmSelectionPolicyRandomSelection extends PowerVmSelectionPolic
 		if (migratableVms.isEmpty()) {
 			return null;
 		}
-		int index = (new Random()).nextInt(migratableVms.size());
+		int index = random.nextInt(migratableVms.size());
 		return migratableVms.get(index);
 	}
 
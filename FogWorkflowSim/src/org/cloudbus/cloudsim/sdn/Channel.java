@@ -8,6 +8,7 @@
 
 package org.cloudbus.cloudsim.sdn;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -81,6 +82,17 @@ public class Channel {
 		nodes.get(nodes.size()-1).updateNetworkUtilization();
 	}
 	
+	/**
+	 * Adds the channels using a link of this channel in the same direction, this channel included
+	 * if it has not been terminated.
+	 * @param channels the collection the channels are added to
+	 */
+	public void addChannelsSharingLinks(Collection<Channel> channels) {
+		for(int i=0; i<nodes.size()-1; i++) {
+			channels.addAll(links.get(i).getChannels(nodes.get(i)));
+		}
+	}
+	
 	private double getLowestSharedBandwidth() {
 		// Get the lowest bandwidth along links in the channel
 		double lowestSharedBw = Double.POSITIVE_INFINITY;
@@ -294,6 +306,14 @@ public class Channel {
 		inTransmission.remove(transmission);
 	}
 
+	/**
+	 * @return true if some Package finished its transmission and has not been
+	 *         returned by getArrivedPackages yet
+	 */
+	public boolean hasArrivedPackages(){
+		return !completed.isEmpty();
+	}
+
 	/**
 	 * @return list of Packages whose transmission finished, or empty
 	 *         list if no package arrived.
@@ -15,10 +15,14 @@ import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
 import org.cloudbus.cloudsim.Host;
@@ -45,6 +49,11 @@ import org.json.simple.JSONValue;
  * NOS calculates and estimates network behaviour. It also mimics SDN Controller functions.  
  * It manages channels between switches, and assigns packages to channels and control their completion
  * Once the transmission is completed, forward the packet to the destination.
+ * 
+ * TSP modification: the channels are indexed by keys packed in a long instead of strings. Adding or
+ * removing a channel only adjusts the bandwidth of the channels sharing a link with it, and the
+ * channels are kept in a heap by the time their next transmission finishes, so that only the channels
+ * whose transmissions finish are updated instead of all of them.
  *  
  * @author Jungmin Son
  * @author Rodrigo N. Calheiros
@@ -57,7 +66,12 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 	//Hashtable<Integer,SDNHost> vmHostTable;
 	Hashtable<Package,Node> pkgTable;
 	
-	Hashtable<String, Channel> channelTable;
+	Map<Long, Channel> channelTable;
+	
+	// The channels by the time their next transmission finishes; the entries no longer in finishTable are outdated 
+	PriorityQueue<ChannelFinish> finishQueue;
+	Map<Channel, ChannelFinish> finishTable;
+	long finishSequence = 0;
 
 	List<Host> hosts;
 	protected List<SDNHost> sdnhosts;
@@ -97,7 +111,9 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 		this.physicalTopologyFileName = fileName;
 		
 		this.pkgTable = new Hashtable<Package, Node>();
-		this.channelTable = new Hashtable<String, Channel>();
+		this.channelTable = new HashMap<Long, Channel>();
+		this.finishQueue = new PriorityQueue<ChannelFinish>();
+		this.finishTable = new IdentityHashMap<Channel, ChannelFinish>();
 		
 		initPhysicalTopology();
 	}
@@ -182,6 +198,10 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 		pkgTable.put(pkg,sender);
 		
 		Channel channel=findChannel(src, dst, flowId);
+		if(channel != null && processChannel(channel)) {
+			// The channel completed all its transmissions and has been removed.
+			channel = null;
+		}
 		if(channel == null) {
 			//No channel establisihed. Add a channel.
 			channel = createChannel(src, dst, flowId, sender);
@@ -194,6 +214,7 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 		}
 		
 		double eft = channel.addTransmission(new Transmission(pkg));
+		scheduleFinish(channel);
 		Log.printLine(CloudSim.clock() + ": " + getName() + ".addPackageToChannel ("+channel
 				+"): Transmission added:" + 
 				NetworkOperatingSystem.debugVmIdName.get(src) + "->"+
@@ -204,9 +225,8 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 	
 
 	private void internalPackageProcess() {
-		if(updatePackageProcessing()) {
-			sendInternalEvent();
-		}
+		updatePackageProcessing();
+		sendInternalEvent();
 	}
 	
 	private void sendInternalEvent() {
@@ -222,56 +242,95 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 	}
 	
 	private double nextFinishTime() {
-		double earliestEft = Double.POSITIVE_INFINITY;
-		for(Channel ch:channelTable.values()){
-			
-			double eft = ch.nextFinishTime();
-			if (eft<earliestEft){
-				earliestEft=eft;
-			}
-		}
+		ChannelFinish earliest = peekFinish();
 		
-		if(earliestEft == Double.POSITIVE_INFINITY) {
+		if(earliest == null) {
 			throw new IllegalArgumentException("NOS.nextFinishTime(): next finish time is infinite!");
 		}
-		return earliestEft;
 		
+		double delay = earliest.time - CloudSim.clock();
+		if(delay < getMinTimeBetweenNetworkEvents()) {
+			delay = getMinTimeBetweenNetworkEvents();
+		}
+		return delay;
 	}
 	
-	private boolean updatePackageProcessing() {
-		boolean needSendEvent = false;
+	private void updatePackageProcessing() {
+		// Channels finishing sooner than the minimum time between events are processed now
+		double limit = CloudSim.clock() + getMinTimeBetweenNetworkEvents();
+		
+		List<Channel> dueChannels = new ArrayList<Channel>();
+		for(ChannelFinish finish = peekFinish(); finish != null && finish.time < limit; finish = peekFinish()) {
+			finishQueue.poll();
+			finishTable.remove(finish.channel);
+			dueChannels.add(finish.channel);
+		}
 		
-		LinkedList<Channel> completeChannels = new LinkedList<Channel>();
+		for(Channel ch:dueChannels) {
+			processChannel(ch);
+		}
+	}
+	
+	/**
+	 * Updates the transmissions of a channel, forwards its completed packages to their destination,
+	 * and removes the channel if it has no more transmissions.
+	 * @return true if the channel has been removed
+	 */
+	private boolean processChannel(Channel ch) {
+		ch.updatePackageProcessing();
+		
+		Node dest = ch.getLastNode();
 		
-		for(Channel ch:channelTable.values()){
-			boolean isCompleted = ch.updatePackageProcessing();
-			needSendEvent = needSendEvent || isCompleted;
-			//completeChannels.add(ch.getArrivedPackages());
-			completeChannels.add(ch);
+		for (Transmission tr:ch.getArrivedPackages()){
+			Package pkg = tr.getPackage();
+			//Node sender = pkgTable.remove(pkg);
+			//Node nextHop = sender.getRoute(pkg.getOrigin(),pkg.getDestination(),pkg.getFlowId());
+			
+			Log.printLine(CloudSim.clock() + ": " + getName() + ": Package completed: "+pkg +". Send to destination:"+dest);
+			sendNow(dest.getAddress(),Constants.SDN_PACKAGE,pkg);
 		}
 		
-		if(completeChannels.size() != 0) {
-			processCompletePackages(completeChannels);
-			updateChannel();
+		if(ch.getActiveTransmissionNum() == 0) {
+			// No more job in channel. Delete
+			removeChannel(getKey(ch.getSrcId(), ch.getDstId(), ch.getChId()));
+			return true;
 		}
-
-		return needSendEvent;
+		
+		scheduleFinish(ch);
+		return false;
 	}
 	
-	private void processCompletePackages(List<Channel> channels){
-		for(Channel ch:channels) {
-			
-			Node dest = ch.getLastNode();
-			
-			for (Transmission tr:ch.getArrivedPackages()){
-				Package pkg = tr.getPackage();
-				//Node sender = pkgTable.remove(pkg);
-				//Node nextHop = sender.getRoute(pkg.getOrigin(),pkg.getDestination(),pkg.getFlowId());
-				
-				Log.printLine(CloudSim.clock() + ": " + getName() + ": Package completed: "+pkg +". Send to destination:"+dest);
-				sendNow(dest.getAddress(),Constants.SDN_PACKAGE,pkg);
+	/**
+	 * Puts a channel in the heap by the time its next transmission finishes. Channels with arrived packages
+	 * or without transmissions are processed in the next event.
+	 */
+	private void scheduleFinish(Channel ch) {
+		double time = CloudSim.clock();
+		if(ch.getActiveTransmissionNum() != 0 && !ch.hasArrivedPackages()) {
+			double delay = ch.nextFinishTime();
+			if(delay == Double.POSITIVE_INFINITY) {
+				finishTable.remove(ch);
+				return;
 			}
+			time = ch.getLastUpdateTime() + delay;
 		}
+		
+		ChannelFinish finish = new ChannelFinish(ch, time, finishSequence++);
+		finishTable.put(ch, finish);
+		finishQueue.add(finish);
+	}
+	
+	/**
+	 * Gets the earliest channel finish, discarding the outdated ones.
+	 * @return the earliest channel finish or null if there is none
+	 */
+	private ChannelFinish peekFinish() {
+		ChannelFinish finish = finishQueue.peek();
+		while(finish != null && finishTable.get(finish.channel) != finish) {
+			finishQueue.poll();
+			finish = finishQueue.peek();
+		}
+		return finish;
 	}
 	
 	public Map<String, Integer> getVmNameIdTable() {
@@ -282,43 +341,56 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 	}
 	
 	private Channel findChannel(int from, int to, int channelId) {
-		// check if there is a pre-configured channel for this application
-		Channel channel=channelTable.get(getKey(from,to, channelId));
-
-		if (channel == null) {
-			//there is no channel for specific flow, find the default channel for this link
-			channel=channelTable.get(getKey(from,to));
-		}
-		return channel;
+		// the default channel of a link is the one with channelId == -1
+		return channelTable.get(getKey(from,to, channelId));
 	}
 	
 	private void addChannel(int src, int dst, int chId, Channel ch) {
 		//System.err.println("NOS.addChannel:"+getKey(src, dst, chId));
 		this.channelTable.put(getKey(src, dst, chId), ch);
 		ch.initialize();
-		adjustAllChannels();
+		adjustChannelsSharingLinks(ch);
 	}
 	
-	private Channel removeChannel(String key) {
+	private Channel removeChannel(long key) {
 		//System.err.println("NOS.removeChannel:"+key);
 		Channel ch = this.channelTable.remove(key);
+		finishTable.remove(ch);
 		ch.terminate();
-		adjustAllChannels();
+		adjustChannelsSharingLinks(ch);
 		return ch;
 	}
 	
-	private void adjustAllChannels() {
-		for(Channel ch:this.channelTable.values()) {
+	/**
+	 * Adjusts the bandwidth of the channels affected by adding or removing a channel. The dedicated channels
+	 * only depend on the links they use, and the shared channels also depend on the dedicated channels
+	 * sharing their links.
+	 */
+	private void adjustChannelsSharingLinks(Channel changed) {
+		Set<Channel> channels = new LinkedHashSet<Channel>();
+		changed.addChannelsSharingLinks(channels);
+		
+		List<Channel> adjusted = new ArrayList<Channel>();
+		for(Channel ch:channels) {
 			if(ch.adjustDedicatedBandwidthAlongLink()) {
-				// Channel BW is changed. send event.
+				adjusted.add(ch);
 			}
 		}
 		
-		for(Channel ch:this.channelTable.values()) {
+		Set<Channel> sharedChannels = new LinkedHashSet<Channel>(channels);
+		for(Channel ch:adjusted) {
+			ch.addChannelsSharingLinks(sharedChannels);
+		}
+		for(Channel ch:sharedChannels) {
 			if(ch.adjustSharedBandwidthAlongLink()) {
-				// Channel BW is changed. send event.
+				adjusted.add(ch);
 			}
 		}
+		
+		// Channel BW is changed. Its transmissions finish at another time.
+		for(Channel ch:adjusted) {
+			scheduleFinish(ch);
+		}
 	}
 
 	private Channel createChannel(int src, int dst, int flowId, Node srcNode) {
@@ -360,7 +432,7 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 		if(flowId != -1 && lowestBw < reqBw) {
 			// free bandwidth is less than required one.
 			// Cannot make channel.
-			Log.printLine(CloudSim.clock() + ": " + getName() + ": Free bandwidth is less than required.("+getKey(src,dst,flowId)+"): ReqBW="+ reqBw + "/ Free="+lowestBw);
+			Log.printLine(CloudSim.clock() + ": " + getName() + ": Free bandwidth is less than required.("+src+"-"+dst+"-"+flowId+"): ReqBW="+ reqBw + "/ Free="+lowestBw);
 			//return null;
 		}
 		
@@ -369,27 +441,37 @@ public abstract class NetworkOperatingSystem extends SimEntity {
 		return channel;
 	}
 	
-	private void updateChannel() {
-		List<String> removeCh = new ArrayList<String>();  
-		for(String key:this.channelTable.keySet()) {
-			Channel ch = this.channelTable.get(key);
-			if(ch.getActiveTransmissionNum() == 0) {
-				// No more job in channel. Delete
-				removeCh.add(key);
-			}
-		}
-		
-		for(String key:removeCh) {
-			removeChannel(key);
-		}
-	}
+	// Bits of the channel keys for the origin, the destination and the application id + 1
+	private static final int KEY_NODE_BITS = 21;
+	private static final int KEY_APP_BITS = 64 - 2 * KEY_NODE_BITS;
 	
-	private String getKey(int origin, int destination) {
-		return origin+"-"+destination;
+	private static long getKey(int origin, int destination, int appId) {
+		if(origin < 0 || origin >= 1 << KEY_NODE_BITS || destination < 0 || destination >= 1 << KEY_NODE_BITS
+				|| appId < -1 || appId >= (1 << KEY_APP_BITS) - 1) {
+			throw new IllegalArgumentException("NOS.getKey(): channel "+origin+"-"+destination+"-"+appId+" out of range!");
+		}
+		return ((long) origin << (KEY_NODE_BITS + KEY_APP_BITS)) | ((long) destination << KEY_APP_BITS) | (appId + 1);
 	}
 	
-	private String getKey(int origin, int destination, int appId) {
-		return getKey(origin,destination)+"-"+appId;
+	/**
+	 * The time the next transmission of a channel finishes, ordered by time and then by scheduling order
+	 */
+	private static class ChannelFinish implements Comparable<ChannelFinish> {
+		final Channel channel;
+		final double time;
+		final long sequence;
+		
+		ChannelFinish(Channel channel, double time, long sequence) {
+			this.channel = channel;
+			this.time = time;
+			this.sequence = sequence;
+		}
+		
+		@Override
+		public int compareTo(ChannelFinish other) {
+			int result = Double.compare(time, other.time);
+			return result != 0 ? result : Long.compare(sequence, other.sequence);
+		}
 	}
 
 
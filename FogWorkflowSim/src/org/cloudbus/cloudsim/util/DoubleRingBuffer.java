@@ -0,0 +1,96 @@
+package org.cloudbus.cloudsim.util;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A history of primitive double values with a fixed capacity. The values are indexed from the most
+ * recent one, which has the index 0, and adding a value to a full history discards the oldest one.
+ * It can be read as a list of the values, which cannot be modified through the list.
+ *
+ * @since TSP Extension 1.0
+ */
+public class DoubleRingBuffer extends AbstractList<Double> implements RandomAccess {
+
+	/** The values, in insertion order from head, wrapping around. */
+	private final double[] values;
+
+	/** The position of the most recent value. */
+	private int head;
+
+	/** The quantity of values. */
+	private int size;
+
+	/**
+	 * Instantiates a new empty history.
+	 *
+	 * @param capacity the maximum quantity of values
+	 */
+	public DoubleRingBuffer(final int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("The capacity must be greater than zero");
+		}
+		values = new double[capacity];
+		head = capacity - 1;
+	}
+
+	/**
+	 * Adds a value as the most recent one, discarding the oldest one if the history is full.
+	 *
+	 * @param value the value
+	 */
+	public void addValue(final double value) {
+		head = head == 0 ? values.length - 1 : head - 1;
+		values[head] = value;
+		if (size < values.length) {
+			size++;
+		}
+	}
+
+	/**
+	 * Gets a value.
+	 *
+	 * @param index the index, 0 for the most recent value
+	 * @return the value
+	 */
+	public double getDouble(final int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		int position = head + index;
+		return values[position < values.length ? position : position - values.length];
+	}
+
+	/**
+	 * Copies the values, from the most recent one, to the beginning of an array.
+	 *
+	 * @param destination the array, which must have room for all the values
+	 * @return the quantity of values copied
+	 */
+	public int copyTo(final double[] destination) {
+		int first = Math.min(size, values.length - head);
+		System.arraycopy(values, head, destination, 0, first);
+		System.arraycopy(values, 0, destination, first, size - first);
+		return size;
+	}
+
+	/**
+	 * Gets the maximum quantity of values.
+	 *
+	 * @return the capacity
+	 */
+	public int capacity() {
+		return values.length;
+	}
+
+	@Override
+	public Double get(final int index) {
+		return getDouble(index);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+}
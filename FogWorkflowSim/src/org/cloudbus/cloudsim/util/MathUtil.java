@@ -18,6 +18,10 @@ import org.apache.commons.math3.stat.regression.SimpleRegression;
 /**
  * A class containing multiple convenient math functions.
  * 
+ * TSP modification: the median, MAD and IQR can be computed on the first values of an array without
+ * modifying it, and the loess regressions add the data to the regression as it is read instead of
+ * building the weighted arrays first.
+ * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 3.0
  */
@@ -72,6 +76,49 @@ public class MathUtil {
 		return getStatistics(list).getPercentile(50);
 	}
 
+	/**
+	 * Gets the median of the first values of an array, computed as the 50th percentile of
+	 * {@link #getStatistics(double[])}. The array is not modified.
+	 * 
+	 * @param data the data
+	 * @param length the quantity of values
+	 * @return the median, NaN if there are no values
+	 */
+	public static double median(final double[] data, final int length) {
+		double[] sorted = Arrays.copyOf(data, length);
+		Arrays.sort(sorted);
+		return percentileOfSorted(sorted, 0.5);
+	}
+
+	/**
+	 * Gets a percentile of sorted values with the estimation of the default percentile of the
+	 * descriptive statistics.
+	 * 
+	 * @param sorted the sorted values
+	 * @param quantile the quantile, between 0 and 1
+	 * @return the percentile, NaN if there are no values
+	 */
+	private static double percentileOfSorted(final double[] sorted, final double quantile) {
+		int n = sorted.length;
+		if (n == 0) {
+			return Double.NaN;
+		}
+		if (n == 1) {
+			return sorted[0];
+		}
+		double pos = quantile * (n + 1);
+		if (pos < 1) {
+			return sorted[0];
+		}
+		if (pos >= n) {
+			return sorted[n - 1];
+		}
+		double fpos = Math.floor(pos);
+		double lower = sorted[(int) fpos - 1];
+		double upper = sorted[(int) fpos];
+		return lower + (pos - fpos) * (upper - lower);
+	}
+
 	/**
 	 * Returns descriptive statistics for the list of numbers.
 	 * 
@@ -173,6 +220,26 @@ public class MathUtil {
 		return mad;
 	}
 
+	/**
+	 * Gets the MAD of the first values of an array, without modifying it.
+	 * 
+	 * @param data the data
+	 * @param length the quantity of values
+	 * @return the mad
+	 */
+	public static double mad(final double[] data, final int length) {
+		double mad = 0;
+		if (length > 0) {
+			double median = median(data, length);
+			double[] deviationSum = new double[length];
+			for (int i = 0; i < length; i++) {
+				deviationSum[i] = Math.abs(median - data[i]);
+			}
+			mad = median(deviationSum, length);
+		}
+		return mad;
+	}
+
 	/**
 	 * Gets the IQR.
 	 * 
@@ -186,6 +253,21 @@ public class MathUtil {
 		return data[q3] - data[q1];
 	}
 
+	/**
+	 * Gets the IQR of the first values of an array, without modifying it.
+	 * 
+	 * @param data the data
+	 * @param length the quantity of values
+	 * @return the IQR
+	 */
+	public static double iqr(final double[] data, final int length) {
+		double[] sorted = Arrays.copyOf(data, length);
+		Arrays.sort(sorted);
+		int q1 = (int) Math.round(0.25 * (length + 1)) - 1;
+		int q3 = (int) Math.round(0.75 * (length + 1)) - 1;
+		return sorted[q3] - sorted[q1];
+	}
+
 	/**
 	 * Count non zero beginning of the data.
 	 * 
@@ -193,7 +275,18 @@ public class MathUtil {
 	 * @return the int
 	 */
 	public static int countNonZeroBeginning(final double[] data) {
-		int i = data.length - 1;
+		return countNonZeroBeginning(data, data.length);
+	}
+
+	/**
+	 * Count non zero beginning of the first values of an array.
+	 * 
+	 * @param data the data
+	 * @param length the quantity of values
+	 * @return the int
+	 */
+	public static int countNonZeroBeginning(final double[] data, final int length) {
+		int i = length - 1;
 		while (i >= 0) {
 			if (data[i--] != 0) {
 				break;
@@ -235,12 +328,7 @@ public class MathUtil {
 	 * @return the loess parameter estimates
 	 */
 	public static double[] getLoessParameterEstimates(final double[] y) {
-		int n = y.length;
-		double[] x = new double[n];
-		for (int i = 0; i < n; i++) {
-			x[i] = i + 1;
-		}
-		return createWeigthedLinearRegression(x, y, getTricubeWeigts(n))
+		return createWeigthedLinearRegression(y, getTricubeWeigts(y.length))
 				.regress().getParameterEstimates();
 	}
 
@@ -288,6 +376,39 @@ public class MathUtil {
 		return createLinearRegression(xW, yW);
 	}
 
+	/**
+	 * Creates the weighted linear regression of values over the positions 1, 2, ..., n, adding the
+	 * data as it is read. It gives the same regression as
+	 * {@link #createWeigthedLinearRegression(double[], double[], double[])}.
+	 * 
+	 * @param y the values
+	 * @param weigths the weigths
+	 * @return the regression
+	 */
+	private static SimpleRegression createWeigthedLinearRegression(
+			final double[] y, final double[] weigths) {
+		// As to Flanagan's documentation they perform weigthed regression if the
+		// number or non-zero weigths is more than 40%
+		int numZeroWeigths = 0;
+		for (int i = 0; i < weigths.length; i++) {
+			if (weigths[i] <= 0) {
+				numZeroWeigths++;
+			}
+		}
+		boolean weighted = numZeroWeigths >= 0.4 * weigths.length;
+
+		SimpleRegression regression = new SimpleRegression();
+		for (int i = 0; i < y.length; i++) {
+			double x = i + 1;
+			if (weighted) {
+				regression.addData(Math.sqrt(weigths[i]) * x, Math.sqrt(weigths[i]) * y[i]);
+			} else {
+				regression.addData(x, y[i]);
+			}
+		}
+		return regression;
+	}
+
 	/**
 	 * Gets the robust loess parameter estimates.
 	 * 
@@ -296,18 +417,13 @@ public class MathUtil {
 	 */
 	public static double[] getRobustLoessParameterEstimates(final double[] y) {
 		int n = y.length;
-		double[] x = new double[n];
-		for (int i = 0; i < n; i++) {
-			x[i] = i + 1;
-		}
-		SimpleRegression tricubeRegression = createWeigthedLinearRegression(x,
-				y, getTricubeWeigts(n));
+		SimpleRegression tricubeRegression = createWeigthedLinearRegression(y, getTricubeWeigts(n));
 		double[] residuals = new double[n];
 		for (int i = 0; i < n; i++) {
-			residuals[i] = y[i] - tricubeRegression.predict(x[i]);
+			residuals[i] = y[i] - tricubeRegression.predict(i + 1);
 		}
 		SimpleRegression tricubeBySquareRegression = createWeigthedLinearRegression(
-				x, y, getTricubeBisquareWeigts(residuals));
+				y, getTricubeBisquareWeigts(residuals));
 
 		double[] estimates = tricubeBySquareRegression.regress()
 				.getParameterEstimates();
@@ -1,7 +1,6 @@
 package org.fog.entities;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.List;
 
 import org.cloudbus.cloudsim.Log;
@@ -245,26 +244,22 @@ public class Controller extends SimEntity{
 		count1=0; count2=0; count3=0;
 	}
 	
+	/**
+	 * TSP modification: the input files already counted are marked in a bitset indexed by the file id
+	 */
 	public double getSendSize(){
 		double sendsize=0;
 		List<Job> jobList=wfEngine.getJobsReceivedList();
-		HashMap<String, List<Integer>> fileToDatacenter= new HashMap<String, List<Integer>>();
-		
+		BitSet sentFiles = new BitSet();
+
 		for(Job job:jobList){
 			CondorVM vm = getVm(job.getVmId());
 			int datacenterId = vm.getHost().getDatacenter().getId();
 			if(!CloudSim.getEntity(datacenterId).getName().contains("m")){
 				for(FileItem file : job.getFileList()){
-					List<Integer> datacenterIdList = new ArrayList<Integer>();
-					if(file.getType() == FileType.INPUT){
-						if(!fileToDatacenter.containsKey(file.getName())){
-							sendsize += file.getSize();
-						}
-						else if(fileToDatacenter.containsKey(file.getName()) && !fileToDatacenter.get(file.getName()).contains(datacenterId)){
-							datacenterIdList = fileToDatacenter.get(file.getName());
-						}
-						datacenterIdList.add(datacenterId);
-						fileToDatacenter.put(file.getName(), datacenterIdList);
+					if(file.getType() == FileType.INPUT && !sentFiles.get(file.getId())){
+						sentFiles.set(file.getId());
+						sendsize += file.getSize();
 					}
 				}
 			}
@@ -354,4 +349,19 @@ public class Controller extends SimEntity{
 				return dev;
 		return null;
 	}
+	
+	public double getLANBandwidth(){
+		return LAN_Bandwidth;
+	}
+	
+	public double getWANBandwidth(){
+		return WAN_Bandwidth;
+	}
+	
+	/**
+	 * Gets the adjustment parameter used to calculate the time to transfer data
+	 */
+	public double getParameter(){
+		return parameter;
+	}
 }
@@ -28,6 +28,7 @@ import org.workflowsim.scheduling.MaxMinSchedulingAlgorithm;
 import org.workflowsim.scheduling.MinMinSchedulingAlgorithm;
 import org.workflowsim.scheduling.PsoScheduling;
 import org.workflowsim.scheduling.RoundRobinSchedulingAlgorithm;
+import org.workflowsim.scheduling.ScheduleFitnessEvaluator;
 import org.workflowsim.scheduling.StaticSchedulingAlgorithm;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.Parameters.SchedulingAlgorithm;
@@ -42,10 +43,6 @@ public class FogBroker extends PowerDatacenterBroker{
      * the start time of algorithm
      */
     public long startTime;
-    public static int count=0;//初始化时，计数当前根据哪个粒子来为job分配虚拟机
-    public static int count2=0;//更新粒子时，计数当前根据哪个粒子来为job分配虚拟机
-    public static int initIndexForGA=0;
-    public static int tempChildrenIndex=0;
     private static List<CondorVM> scheduledVmList;
     /**
      * Created a new WorkflowScheduler object.
@@ -128,19 +125,15 @@ public class FogBroker extends PowerDatacenterBroker{
             case WorkflowSimTags.CLOUDLET_UPDATE:
             	switch (Parameters.getSchedulingAlgorithm()) {
 				case PSO:
-					if(WorkflowEngine.updateFlag==0&&WorkflowEngine.startlastSchedule==0) {
+					if(WorkflowEngine.findBestSchedule==0) {
 						processCloudletUpdateForPSOInit(ev);
-	            	}else if(WorkflowEngine.startlastSchedule==0){
-	            		processCloudletUpdateForPSOUpdate(ev);
-					}else {
-						processCloudletUpdateForPSOGbest(ev);
 					}
+					if(WorkflowEngine.findBestSchedule==1)
+						processCloudletUpdateForPSOGbest(ev);
 				  break;
 				case GA:
-					if(WorkflowEngine.gaFlag==0&&WorkflowEngine.findBestSchedule==0) {
+					if(WorkflowEngine.findBestSchedule==0) {
 						processCloudletUpdateForGAInit(ev);
-					}else if(WorkflowEngine.gaFlag==1&&WorkflowEngine.findBestSchedule==0){
-						processCloudletUpdateForGA(ev);
 					}
 					if(WorkflowEngine.findBestSchedule==1)
 						processCloudletUpdateForGABest(ev);
@@ -330,74 +323,25 @@ public class FogBroker extends PowerDatacenterBroker{
     }
 
     /**
-     * Update a cloudlet (job)
-     * 每接收到一个任务以后，调用此方法，设置提交到调度机上的任务，以及调度机绑定的虚拟机，并为cloudlets分配虚拟机
-     *每处理完一个任务以后，调用此方法，更新提交到调度机上的任务，以及调度机绑定的虚拟机
+     * Runs the PSO with the fitness estimated by a {@link ScheduleFitnessEvaluator} before the first job is
+     * scheduled. The jobs are then scheduled following the best schedule found, so the workflow is simulated once.
+     *
      * @param ev a simEvent object
      */
     protected void processCloudletUpdateForPSOInit(SimEvent ev) {
-    	List<Cloudlet> cloudletList=getCloudletList();
-    	List<CondorVM> vmList=getVmsCreatedList();
-    	if(PsoScheduling.initFlag==0) {
-    		startTime = System.currentTimeMillis();
-    		WorkflowEngine engine = (WorkflowEngine)CloudSim.getEntity(workflowEngineId);
-    		PsoScheduling.init(engine.jobList.size(),getVmList().size());
-    	}
-    	List<Cloudlet> scheduledList =new ArrayList<Cloudlet>();
-    	List<int[]> schedules=PsoScheduling.schedules;
-    	for(int i=0;i<cloudletList.size();i++) {
-    		int cloudletId=cloudletList.get(i).getCloudletId();
-    		int vmId=schedules.get(count)[cloudletId];
-    		cloudletList.get(i).setVmId(vmId);
-    		//setVmState(vmId);
-    		scheduledList.add(cloudletList.get(i));
-    	}
-    	for (Cloudlet cloudlet : scheduledList) {
-            int vmId = cloudlet.getVmId();
-            double delay = 0.0;
-            if (Parameters.getOverheadParams().getQueueDelay() != null) {
-                delay = Parameters.getOverheadParams().getQueueDelay(cloudlet);
-            }
-           // System.out.println("delay:"+delay);
-           // System.out.println("FogBroker.processCloudletUpdateForPSOInit提交给"+getVmsToDatacentersMap().get(vmId)+"号数据中心"+vmId+"号虚拟机的任务："+cloudlet.getCloudletId());
-            
-            schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
-        }
-        //把Cloudlets交由数据中心处理以后，从CloudletList中移除这些任务，并向CloudletSubmittedList中添加这些任务
-        getCloudletList().removeAll(scheduledList);
-        getCloudletSubmittedList().addAll(scheduledList);
-        cloudletsSubmitted += scheduledList.size();
+    	startTime = System.currentTimeMillis();
+    	WorkflowEngine engine = (WorkflowEngine)CloudSim.getEntity(workflowEngineId);
+    	ScheduleFitnessEvaluator evaluator = new ScheduleFitnessEvaluator(WorkflowEngine.jobList, getVmList(),
+    			engine.getController(), engine.DeadLine);
+    	List<Double> bestFitness = PsoScheduling.run(evaluator, WorkflowEngine.jobList.size(), getVmList().size());
+
+    	WorkflowEngine.updatebest.addAll(bestFitness);
+    	engine.iterateNum = PsoScheduling.iterateNum;
+    	engine.algorithmTime = System.currentTimeMillis() - startTime;
+    	Log.printLine("PSO: estimated fitness of the best schedule " + PsoScheduling.gbest_fitness);
+    	WorkflowEngine.findBestSchedule = 1;//去按照最优的调度方案执行
     }
 
-    protected void processCloudletUpdateForPSOUpdate(SimEvent ev) {
-    	List<Cloudlet> cloudletList=getCloudletList();
-    	List<CondorVM> vmList=getVmsCreatedList();
-    	if(WorkflowEngine.updateFlag2==1&&cloudletList.size()!=0) {
-    		PsoScheduling.updateParticles();
-    	}
-    	List<Cloudlet> scheduledList =new ArrayList<Cloudlet>();
-    	List<int[]> newSchedules=PsoScheduling.newSchedules;
-    	for(int i=0;i<cloudletList.size();i++) {
-    		int cloudletId=cloudletList.get(i).getCloudletId();
-    		int vmId=newSchedules.get(count2)[cloudletId];
-    		cloudletList.get(i).setVmId(vmId);
-    		//setVmState(vmId);
-    		scheduledList.add(cloudletList.get(i));
-    	}
-    	for (Cloudlet cloudlet : scheduledList) {
-            int vmId = cloudlet.getVmId();
-            double delay = 0.0;
-            if (Parameters.getOverheadParams().getQueueDelay() != null) {
-                delay = Parameters.getOverheadParams().getQueueDelay(cloudlet);
-            }
-            schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
-        }
-        //把Cloudlets交由数据中心处理以后，从CloudletList中移除这些任务，并向CloudletSubmittedList中添加这些任务
-        getCloudletList().removeAll(scheduledList);
-        getCloudletSubmittedList().addAll(scheduledList);
-        cloudletsSubmitted += scheduledList.size();
-    }
-    
     protected void processCloudletUpdateForPSOGbest(SimEvent ev) {
     	List<Cloudlet> cloudletList=getCloudletList();
     	List<CondorVM> vmList=getVmsCreatedList();
@@ -405,37 +349,6 @@ public class FogBroker extends PowerDatacenterBroker{
     	for(int i=0;i<cloudletList.size();i++) {
     		int cloudletId=cloudletList.get(i).getCloudletId();
     		int vmId=PsoScheduling.gbest_schedule[cloudletId];
-    		cloudletList.get(i).setVmId(vmId);
-    		//setVmState(vmId);
-    		scheduledList.add(cloudletList.get(i));
-    	}
-    	for (Cloudlet cloudlet : scheduledList) {
-            int vmId = cloudlet.getVmId();
-            double delay = 0.0;
-            if (Parameters.getOverheadParams().getQueueDelay() != null) {
-                delay = Parameters.getOverheadParams().getQueueDelay(cloudlet);
-            }
-            schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
-        }
-        //把Cloudlets交由数据中心处理以后，从CloudletList中移除这些任务，并向CloudletSubmittedList中添加这些任务
-        getCloudletList().removeAll(scheduledList);
-        getCloudletSubmittedList().addAll(scheduledList);
-        cloudletsSubmitted += scheduledList.size();
-    }
-    
-    protected void processCloudletUpdateForGAInit(SimEvent ev) {
-    	List<Cloudlet> cloudletList=getCloudletList();
-    	List<CondorVM> vmList=getVmsCreatedList();
-    	if(GASchedulingAlgorithm.initFlag==0) {
-    		startTime = System.currentTimeMillis();
-    		WorkflowEngine engine = (WorkflowEngine)CloudSim.getEntity(workflowEngineId);
-    		GASchedulingAlgorithm.initPopsRandomly(engine.jobList.size(),getVmList().size());
-    	}
-    	List<Cloudlet> scheduledList =new ArrayList<Cloudlet>();
-    	List<int[]> schedules=GASchedulingAlgorithm.schedules;
-    	for(int i=0;i<cloudletList.size();i++) {
-    		int cloudletId=cloudletList.get(i).getCloudletId();
-    		int vmId=schedules.get(initIndexForGA)[cloudletId];
     		int scheduledVmId = ChooseVm(cloudletList.get(i), vmId);
     		cloudletList.get(i).setVmId(scheduledVmId);
     		//setVmState(vmId);
@@ -455,34 +368,27 @@ public class FogBroker extends PowerDatacenterBroker{
         cloudletsSubmitted += scheduledList.size();
     }
     
-    protected void processCloudletUpdateForGA(SimEvent ev) {
-    	List<Cloudlet> cloudletList=getCloudletList();
-    	List<CondorVM> vmList=getVmsCreatedList();
-    	if(WorkflowEngine.gaFlag2==0&&cloudletList.size()!=0) {
-    		GASchedulingAlgorithm.GA();
-    	}
-    	List<Cloudlet> scheduledList =new ArrayList<Cloudlet>();
-    	List<int[]> schedules=GASchedulingAlgorithm.tempChildren;
-    	for(int i=0;i<cloudletList.size();i++) {
-    		int cloudletId=cloudletList.get(i).getCloudletId();
-    		int vmId=schedules.get(tempChildrenIndex)[cloudletId];
-    		int scheduledVmId = ChooseVm(cloudletList.get(i), vmId);
-    		cloudletList.get(i).setVmId(scheduledVmId);
-    		//setVmState(vmId);
-    		scheduledList.add(cloudletList.get(i));
+    /**
+     * Runs the GA with the fitness estimated by a {@link ScheduleFitnessEvaluator} before the first job is
+     * scheduled. The jobs are then scheduled following the best schedule found, so the workflow is simulated once.
+     *
+     * @param ev a simEvent object
+     */
+    protected void processCloudletUpdateForGAInit(SimEvent ev) {
+    	startTime = System.currentTimeMillis();
+    	WorkflowEngine engine = (WorkflowEngine)CloudSim.getEntity(workflowEngineId);
+    	if(GASchedulingAlgorithm.initFlag==0) {
+    		GASchedulingAlgorithm.initPopsRandomly(WorkflowEngine.jobList.size(),getVmList().size());
     	}
-    	for (Cloudlet cloudlet : scheduledList) {
-            int vmId = cloudlet.getVmId();
-            double delay = 0.0;
-            if (Parameters.getOverheadParams().getQueueDelay() != null) {
-                delay = Parameters.getOverheadParams().getQueueDelay(cloudlet);
-            }
-            schedule(getVmsToDatacentersMap().get(vmId), delay, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
-        }
-        //把Cloudlets交由数据中心处理以后，从CloudletList中移除这些任务，并向CloudletSubmittedList中添加这些任务
-        getCloudletList().removeAll(scheduledList);
-        getCloudletSubmittedList().addAll(scheduledList);
-        cloudletsSubmitted += scheduledList.size();
+    	ScheduleFitnessEvaluator evaluator = new ScheduleFitnessEvaluator(WorkflowEngine.jobList, getVmList(),
+    			engine.getController(), engine.DeadLine);
+    	List<Double> bestFitness = GASchedulingAlgorithm.evolve(evaluator);
+
+    	WorkflowEngine.updatebest.addAll(bestFitness);
+    	engine.iterateNum = GASchedulingAlgorithm.gmax;
+    	engine.algorithmTime = System.currentTimeMillis() - startTime;
+    	Log.printLine("GA: estimated fitness of the best schedule " + GASchedulingAlgorithm.bestParentFitness);
+    	WorkflowEngine.findBestSchedule = 1;//去按照最优的调度方案执行
     }
     
     protected void processCloudletUpdateForGABest(SimEvent ev) {
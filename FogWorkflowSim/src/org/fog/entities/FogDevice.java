@@ -1,12 +1,17 @@
 package org.fog.entities;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.CloudletScheduler;
+import org.cloudbus.cloudsim.CloudletSchedulerListener;
 import org.cloudbus.cloudsim.Consts;
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.Log;
@@ -69,6 +74,92 @@ public class FogDevice extends PowerDatacenter {
 	protected double ratePerMips;
 	
 	protected double totalCost;
+
+	/**
+	 * Hosts closer than this to their next completion time are considered finished, to absorb the rounding of the
+	 * event times
+	 */
+	private static final double COMPLETION_TIME_TOLERANCE = 1e-9;
+
+	/**
+	 * Next completion time of the cloudlets of each host, indexed by the position of the host in the host list.
+	 * Double.MAX_VALUE means the host has nothing running. It is null until the hosts are first processed
+	 */
+	private double[] hostNextCompletionTimes;
+
+	/**
+	 * Positions of the hosts in the host list
+	 */
+	private Map<Host, Integer> hostIndexes;
+
+	/**
+	 * Next completion time of the hosts, ordered by time and host position. An entry is stale when its time does not
+	 * match the one in hostNextCompletionTimes
+	 */
+	private final PriorityQueue<HostCompletion> hostCompletions = new PriorityQueue<HostCompletion>();
+
+	/**
+	 * Times of the VM_DATACENTER_EVENT wakeups already scheduled by this device
+	 */
+	private final TreeSet<Double> pendingWakeups = new TreeSet<Double>();
+
+	/**
+	 * Listener registered in the cloudlet schedulers of the VMs of each host, indexed by the position of the host
+	 */
+	private HostListener[] hostListeners;
+
+	/**
+	 * Hosts that received a cloudlet since they were last processed
+	 */
+	private final BitSet changedHosts = new BitSet();
+
+	/**
+	 * Hosts with finished cloudlets not yet returned to their users
+	 */
+	private final BitSet hostsWithFinishedCloudlets = new BitSet();
+
+	/**
+	 * Hosts whose previous CPU utilization is not zero, so they consume energy in the current time frame. A bit is
+	 * refreshed wherever the processing of its host is updated
+	 */
+	private final BitSet hostsConsumingEnergy = new BitSet();
+
+	/**
+	 * Marks its host as changed when one of its schedulers receives or finishes a cloudlet
+	 */
+	private final class HostListener implements CloudletSchedulerListener {
+		final int hostIndex;
+
+		HostListener(int hostIndex) {
+			this.hostIndex = hostIndex;
+		}
+
+		@Override
+		public void cloudletSubmitted(CloudletScheduler scheduler) {
+			changedHosts.set(hostIndex);
+		}
+
+		@Override
+		public void cloudletFinished(CloudletScheduler scheduler) {
+			hostsWithFinishedCloudlets.set(hostIndex);
+		}
+	}
+
+	private static final class HostCompletion implements Comparable<HostCompletion> {
+		final double time;
+		final int hostIndex;
+
+		HostCompletion(double time, int hostIndex) {
+			this.time = time;
+			this.hostIndex = hostIndex;
+		}
+
+		@Override
+		public int compareTo(HostCompletion other) {
+			int result = Double.compare(time, other.time);
+			return result != 0 ? result : Integer.compare(hostIndex, other.hostIndex);
+		}
+	}
 	
 	public FogDevice(
 			String name, 
@@ -210,32 +301,154 @@ public class FogDevice extends PowerDatacenter {
 	}
 	
 	
+    /**
+     * Updates only the hosts whose next cloudlet completion is due. The first call updates every host, so their
+     * schedulers know the MIPS share before receiving cloudlets. A single VM_DATACENTER_EVENT is kept scheduled at
+     * the earliest completion time of the device.
+     */
     @Override
     protected void updateCloudletProcessing() {
-        // if some time passed since last processing
-        // R: for term is to allow loop at simulation start. Otherwise, one initial
-        // simulation step is skipped and schedulers are not properly initialized
-        //this is a bug of CloudSim if the runtime is smaller than 0.1 (now is 0.01) it doesn't work at all
-    	if (CloudSim.clock() < 0.111 || CloudSim.clock() > getLastProcessTime() + 0.01) {
+        updateChangedHosts(CloudSim.clock());
+        scheduleNextWakeup();
+        setLastProcessTime(CloudSim.clock());
+    }
+
+    /**
+     * Updates the hosts whose next cloudlet completion is due and the ones that received a cloudlet through a path
+     * that did not update them, or every host the first time
+     *
+     * @param currentTime the current simulation time
+     */
+    private void updateChangedHosts(double currentTime) {
+        pendingWakeups.headSet(currentTime + COMPLETION_TIME_TOLERANCE, true).clear();
+
+        if (hostNextCompletionTimes == null) {
             List<? extends Host> list = getVmAllocationPolicy().getHostList();
-            double smallerTime = Double.MAX_VALUE;
-            // for each host...
-            for (Host host : list) {
-                // inform VMs to update processing
-                double time = host.updateVmsProcessing(CloudSim.clock());
-                // what time do we expect that the next cloudlet will finish?
-                if (time < smallerTime) {
-                    smallerTime = time;
+            hostNextCompletionTimes = new double[list.size()];
+            hostIndexes = new IdentityHashMap<Host, Integer>();
+            hostListeners = new HostListener[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                hostIndexes.put(list.get(i), i);
+                hostListeners[i] = new HostListener(i);
+                hostNextCompletionTimes[i] = Double.MAX_VALUE;
+            }
+            for (Vm vm : this.<Vm> getVmList()) {
+                watchVm(vm);
+            }
+            for (int i = 0; i < list.size(); i++) {
+                updateHostProcessing(i, currentTime);
+            }
+        } else {
+            while (!hostCompletions.isEmpty()
+                    && hostCompletions.peek().time <= currentTime + COMPLETION_TIME_TOLERANCE) {
+                HostCompletion completion = hostCompletions.poll();
+                if (completion.time == hostNextCompletionTimes[completion.hostIndex]) {
+                    updateHostProcessing(completion.hostIndex, currentTime);
                 }
             }
-            // gurantees a minimal interval before scheduling the event
-            if (smallerTime < CloudSim.clock() + 0.11) {
-                smallerTime = CloudSim.clock() + 0.11;
+            for (int i = changedHosts.nextSetBit(0); i >= 0; i = changedHosts.nextSetBit(i + 1)) {
+                updateHostProcessing(i, currentTime);
             }
-            if (smallerTime != Double.MAX_VALUE) {
-                schedule(getId(), (smallerTime - CloudSim.clock()), CloudSimTags.VM_DATACENTER_EVENT);
+        }
+    }
+
+    /**
+     * Updates the processing of the cloudlets of one host and records its next completion time
+     *
+     * @param hostIndex the position of the host in the host list
+     * @param currentTime the current simulation time
+     */
+    private void updateHostProcessing(int hostIndex, double currentTime) {
+        Host host = getVmAllocationPolicy().getHostList().get(hostIndex);
+        changedHosts.clear(hostIndex);
+
+        double time = host.updateVmsProcessing(currentTime);
+        updateHostConsumingEnergy(hostIndex, host);
+        double next = time > 0.0 ? time : Double.MAX_VALUE;
+        if (next != hostNextCompletionTimes[hostIndex]) {
+            hostNextCompletionTimes[hostIndex] = next;
+            if (next != Double.MAX_VALUE) {
+                hostCompletions.add(new HostCompletion(next, hostIndex));
             }
-            setLastProcessTime(CloudSim.clock());
+        }
+    }
+
+    /**
+     * Records whether a host consumes energy in the current time frame, after its processing was updated
+     *
+     * @param hostIndex the position of the host in the host list
+     * @param host the host
+     */
+    private void updateHostConsumingEnergy(int hostIndex, Host host) {
+        hostsConsumingEnergy.set(hostIndex, ((PowerHost) host).getPreviousUtilizationOfCpu() != 0);
+    }
+
+    /**
+     * Registers the listener of the host of a VM in its cloudlet scheduler. It is called once the VM is allocated to
+     * one of the hosts of this device, as the VM list of the hosts is static and shared by all of them
+     *
+     * @param vm the VM
+     */
+    private void watchVm(Vm vm) {
+        Integer hostIndex = vm.getHost() == null ? null : hostIndexes.get(vm.getHost());
+        if (hostIndex != null) {
+            vm.getCloudletScheduler().setListener(hostListeners[hostIndex]);
+        }
+    }
+
+    @Override
+    protected void processVmCreate(SimEvent ev, boolean ack) {
+        super.processVmCreate(ev, ack);
+        if (hostListeners != null) {
+            watchVm((Vm) ev.getData());
+        }
+    }
+
+    @Override
+    protected void processVmMigrate(SimEvent ev, boolean ack) {
+        super.processVmMigrate(ev, ack);
+        if (hostListeners != null) {
+            watchVm((Vm) ((Map<?, ?>) ev.getData()).get("vm"));
+        }
+    }
+
+    /**
+     * Updates the processing of the host that is receiving a cloudlet, so its scheduler accounts the progress made
+     * until now before the cloudlet is added
+     *
+     * @param host the host
+     */
+    private void updateHostProcessing(Host host) {
+        if (hostNextCompletionTimes == null) {
+            updateCloudletProcessing();
+        }
+        updateHostProcessing(hostIndexes.get(host), CloudSim.clock());
+    }
+
+    /**
+     * Gets the earliest completion time of the hosts, dropping the stale entries of the heap
+     *
+     * @return the earliest completion time, or Double.MAX_VALUE if nothing is running
+     */
+    private double getNextCompletionTime() {
+        while (!hostCompletions.isEmpty()
+                && hostCompletions.peek().time != hostNextCompletionTimes[hostCompletions.peek().hostIndex]) {
+            hostCompletions.poll();
+        }
+        return hostCompletions.isEmpty() ? Double.MAX_VALUE : hostCompletions.peek().time;
+    }
+
+    /**
+     * Schedules a VM_DATACENTER_EVENT at the earliest completion time, unless there is already one at or before it
+     */
+    private void scheduleNextWakeup() {
+        double next = getNextCompletionTime();
+        if (next == Double.MAX_VALUE) {
+            return;
+        }
+        if (pendingWakeups.floor(next) == null) {
+            pendingWakeups.add(next);
+            schedule(getId(), next - CloudSim.clock(), CloudSimTags.VM_DATACENTER_EVENT);
         }
     }
 	
@@ -247,59 +460,63 @@ public class FogDevice extends PowerDatacenter {
 	protected double updateCloudetProcessingWithoutSchedulingFutureEventsForce() {
 
 		double currentTime = CloudSim.clock();
-		double minTime = Double.MAX_VALUE;
 		double timeDiff = currentTime - getLastProcessTime();
 		double timeFrameDatacenterEnergy = 0.0;
 
-		for (PowerHost host : this.<PowerHost> getHostList()) {
-			Log.printLine();
+		// only the hosts with due completions or new cloudlets change their processing
+		updateChangedHosts(currentTime);
+		double minTime = getNextCompletionTime();
 
-			double time = host.updateVmsProcessing(currentTime); // inform VMs to update processing
-			if (time < minTime) {
-				minTime = time;
+		if (!Log.isDisabled()) {
+			for (PowerHost host : this.<PowerHost> getHostList()) {
+				Log.printLine();
+				Log.formatLine(
+						"%.2f: [Host #%d] utilization is %.2f%%",
+						currentTime,
+						host.getId(),
+						host.getUtilizationOfCpu() * 100);
 			}
-
-			Log.formatLine(
-					"%.2f: [Host #%d] utilization is %.2f%%",
-					currentTime,
-					host.getId(),
-					host.getUtilizationOfCpu() * 100);
 		}
 
 		if (timeDiff > 0) {
-			Log.formatLine(
-					"\nEnergy consumption for the last time frame from %.2f to %.2f:",
-					getLastProcessTime(),
-					currentTime);
-
-			for (PowerHost host : this.<PowerHost> getHostList()) {
-				double previousUtilizationOfCpu = host.getPreviousUtilizationOfCpu();
-				double utilizationOfCpu = host.getUtilizationOfCpu();
-				double timeFrameHostEnergy = host.getEnergyLinearInterpolation(
-						previousUtilizationOfCpu,
-						utilizationOfCpu,
+			// a host with no previous utilization has no energy consumption in the time frame
+			for (int i = hostsConsumingEnergy.nextSetBit(0); i >= 0; i = hostsConsumingEnergy.nextSetBit(i + 1)) {
+				PowerHost host = (PowerHost) getHostList().get(i);
+				timeFrameDatacenterEnergy += host.getEnergyLinearInterpolation(
+						host.getPreviousUtilizationOfCpu(),
+						host.getUtilizationOfCpu(),
 						timeDiff);
-				timeFrameDatacenterEnergy += timeFrameHostEnergy;
+			}
 
-				Log.printLine();
+			if (!Log.isDisabled()) {
 				Log.formatLine(
-						"%.2f: [Host #%d] utilization at %.2f was %.2f%%, now is %.2f%%",
-						currentTime,
-						host.getId(),
+						"\nEnergy consumption for the last time frame from %.2f to %.2f:",
 						getLastProcessTime(),
-						previousUtilizationOfCpu * 100,
-						utilizationOfCpu * 100);
+						currentTime);
+
+				for (PowerHost host : this.<PowerHost> getHostList()) {
+					double previousUtilizationOfCpu = host.getPreviousUtilizationOfCpu();
+					double utilizationOfCpu = host.getUtilizationOfCpu();
+					Log.printLine();
+					Log.formatLine(
+							"%.2f: [Host #%d] utilization at %.2f was %.2f%%, now is %.2f%%",
+							currentTime,
+							host.getId(),
+							getLastProcessTime(),
+							previousUtilizationOfCpu * 100,
+							utilizationOfCpu * 100);
+					Log.formatLine(
+							"%.2f: [Host #%d] energy is %.2f W*sec",
+							currentTime,
+							host.getId(),
+							host.getEnergyLinearInterpolation(previousUtilizationOfCpu, utilizationOfCpu, timeDiff));
+				}
+
 				Log.formatLine(
-						"%.2f: [Host #%d] energy is %.2f W*sec",
+						"\n%.2f: Data center's energy is %.2f W*sec\n",
 						currentTime,
-						host.getId(),
-						timeFrameHostEnergy);
+						timeFrameDatacenterEnergy);
 			}
-
-			Log.formatLine(
-					"\n%.2f: Data center's energy is %.2f W*sec\n",
-					currentTime,
-					timeFrameDatacenterEnergy);
 		}
 
 		setPower(getPower() + timeFrameDatacenterEnergy);
@@ -326,27 +543,38 @@ public class FogDevice extends PowerDatacenter {
 
 
 	protected void checkCloudletCompletion() {  //有修改
-		//boolean cloudletCompleted = false;
 		List<? extends Host> list = getVmAllocationPolicy().getHostList();
 
-//		System.out.println("checkCloudletCompletion: ");
+		if (hostListeners == null) {
+			// the schedulers are not watched until the hosts are first processed
+			for (int i = 0; i < list.size(); i++) {
+				returnFinishedCloudlets(list.get(i));
+			}
+			return;
+		}
 
-		for (int i = 0; i < list.size(); i++) {
-			Host host = list.get(i);
-			for (Vm vm : host.getVmList()) {
-
-//				System.out.println("vm.getCloudletScheduler().runningCloudlets() "+vm.getCloudletScheduler().runningCloudlets());
-				while (vm.getCloudletScheduler().isFinishedCloudlets()) {
-					Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
-					if (cl != null) {
-						sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
-						register(cl);
-					}
+		// only the hosts notified by their schedulers have finished cloudlets, visited in the host list order
+		for (int i = hostsWithFinishedCloudlets.nextSetBit(0); i >= 0; i = hostsWithFinishedCloudlets.nextSetBit(i + 1)) {
+			hostsWithFinishedCloudlets.clear(i);
+			returnFinishedCloudlets(list.get(i));
+		}
+	}
+
+	/**
+	 * Returns the finished cloudlets of the VMs of a host to their users
+	 *
+	 * @param host the host
+	 */
+	private void returnFinishedCloudlets(Host host) {
+		for (Vm vm : host.getVmList()) {
+			while (vm.getCloudletScheduler().isFinishedCloudlets()) {
+				Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
+				if (cl != null) {
+					sendNow(cl.getUserId(), CloudSimTags.CLOUDLET_RETURN, cl);
+					register(cl);
 				}
 			}
 		}
-		//if(cloudletCompleted)
-		//	updateAllocatedMips(null);
 	}
 	
 	private void register(Cloudlet cl) {
@@ -357,7 +585,7 @@ public class FogDevice extends PowerDatacenter {
             {
                 switch (ReplicaCatalog.getFileSystem()) {
                     case SHARED:
-                        ReplicaCatalog.addFileToStorage(file.getName(), this.getName());
+                        ReplicaCatalog.addFileToStorage(file.getId(), ReplicaCatalog.getStorageId(this.getName()));
                         break;
                     case LOCAL:
                         int vmId = cl.getVmId();
@@ -367,7 +595,7 @@ public class FogDevice extends PowerDatacenter {
                          * Left here for future work
                          */
                         CondorVM vm = (CondorVM) host.getVm(vmId, userId);
-                        ReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
+                        ReplicaCatalog.addFileToStorage(file.getId(), ReplicaCatalog.getStorageId(Integer.toString(vmId)));
                         break;
                 }
             }
@@ -418,11 +646,10 @@ public class FogDevice extends PowerDatacenter {
 				TSPTask task = (TSPTask) ev.getData();
 
 				if (task.isFinished()) {
-					String name = CloudSim.getEntityName(task.getUserId());
-					Log.printLine(getName() + ": Warning - Cloudlet #" + task.getCloudletId() + " owned by " + name
-							+ " is already completed/finished.");
-					Log.printLine("Therefore, it is not being executed again");
-					Log.printLine();
+					// one call, so the whole warning is written or filtered out at the WARN level
+					Log.log(Log.Level.WARN, () -> getName() + ": Warning - Cloudlet #" + task.getCloudletId() + " owned by "
+							+ CloudSim.getEntityName(task.getUserId()) + " is already completed/finished."
+							+ System.lineSeparator() + "Therefore, it is not being executed again" + System.lineSeparator());
 
 					// NOTE: If a Cloudlet has finished, then it won't be processed.
 					// So, if ack is required, this method sends back a result.
@@ -466,18 +693,16 @@ public class FogDevice extends PowerDatacenter {
 				}
 
 				CloudletScheduler scheduler = vm.getCloudletScheduler();
-				double estimatedFinishTime = scheduler.cloudletSubmit(task, 0.0);
+				updateHostProcessing(host);
+				scheduler.cloudletSubmit(task, 0.0);
 
 				double start_time = task.getExecStartTime();
 				double task_runtime = task.getCloudletLength() / vm.getMips();
 				task.setTaskFinishTime(start_time + task_runtime);
 
-				// if this cloudlet is in the exec queue
-				if (estimatedFinishTime > 0.0 && !Double.isInfinite(estimatedFinishTime)) {
-					send(getId(), estimatedFinishTime, CloudSimTags.VM_DATACENTER_EVENT);
-				} else {
-					//Log.printLine("Warning: You schedule cloudlet to a busy VM");
-				}
+				// the completion of the cloudlet is scheduled through the next completion time of the host
+				updateHostProcessing(host);
+				scheduleNextWakeup();
 
 				if (ack) {
 					int[] data = new int[3];
@@ -506,11 +731,10 @@ public class FogDevice extends PowerDatacenter {
 				// System.out.println(job.getCloudletId());
 
 				if (job.isFinished()) {
-					String name = CloudSim.getEntityName(job.getUserId());
-					Log.printLine(getName() + ": Warning - Cloudlet #" + job.getCloudletId() + " owned by " + name
-							+ " is already completed/finished.");
-					Log.printLine("Therefore, it is not being executed again");
-					Log.printLine();
+					// one call, so the whole warning is written or filtered out at the WARN level
+					Log.log(Log.Level.WARN, () -> getName() + ": Warning - Cloudlet #" + job.getCloudletId() + " owned by "
+							+ CloudSim.getEntityName(job.getUserId()) + " is already completed/finished."
+							+ System.lineSeparator() + "Therefore, it is not being executed again" + System.lineSeparator());
 
 					// NOTE: If a Cloudlet has finished, then it won't be processed.
 					// So, if ack is required, this method sends back a result.
@@ -567,18 +791,16 @@ public class FogDevice extends PowerDatacenter {
 				}
 
 				CloudletScheduler scheduler = vm.getCloudletScheduler();
-				double estimatedFinishTime = scheduler.cloudletSubmit(job, fileTransferTime);
+				updateHostProcessing(host);
+				scheduler.cloudletSubmit(job, fileTransferTime);
 				updateTaskExecTime(job, vm);
 				for (Task task : job.getTaskList()) {
 					System.out.println("task finish time: "+task.getTaskFinishTime());
 				}
 
-				// if this cloudlet is in the exec queue
-				if (estimatedFinishTime > 0.0 && !Double.isInfinite(estimatedFinishTime)) {
-					send(getId(), estimatedFinishTime, CloudSimTags.VM_DATACENTER_EVENT);
-				} else {
-					//Log.printLine("Warning: You schedule cloudlet to a busy VM");
-				}
+				// the completion of the cloudlet is scheduled through the next completion time of the host
+				updateHostProcessing(host);
+				scheduleNextWakeup();
 
 				if (ack) {
 					int[] data = new int[3];
@@ -628,6 +850,7 @@ public class FogDevice extends PowerDatacenter {
      */
     private void stageInFile2FileSystem(Job job) {
         List<FileItem> fList = job.getFileList();
+        int storageId = ReplicaCatalog.getStorageId(this.getName());
 
         for (FileItem file : fList) {
             switch (ReplicaCatalog.getFileSystem()) {
@@ -636,7 +859,7 @@ public class FogDevice extends PowerDatacenter {
                  * name)
                  */
                 case LOCAL:
-                    ReplicaCatalog.addFileToStorage(file.getName(), this.getName());
+                    ReplicaCatalog.addFileToStorage(file.getId(), storageId);
                     /**
                      * Is it not really needed currently but it is left for
                      * future usage
@@ -648,7 +871,7 @@ public class FogDevice extends PowerDatacenter {
                  * For shared file system, add it to the shared storage
                  */
                 case SHARED:
-                    ReplicaCatalog.addFileToStorage(file.getName(), this.getName());
+                    ReplicaCatalog.addFileToStorage(file.getId(), storageId);
                     break;
                 default:
                     break;
@@ -658,6 +881,9 @@ public class FogDevice extends PowerDatacenter {
 
     /*
      * Stage in for a single job (both stage-in job and compute job)
+     * TSP modification: the real input files are classified once per job and
+     * the replicas are looked up by interned file and storage ids, so a job
+     * takes a single pass over its input files.
      * @param requiredFiles, all files to be stage-in
      * @param job, the job to be processed
      * @pre  $none
@@ -665,86 +891,94 @@ public class FogDevice extends PowerDatacenter {
      */
     protected double processDataStageInForComputeJob(List<FileItem> requiredFiles, Job job) throws Exception {
         double time = 0.0;
-        Controller controller = (Controller)CloudSim.getEntity(controllerId);
-        for (FileItem file : requiredFiles) {
-            //The input file is not an output File 
-            if (file.isRealInputFile(requiredFiles)) {
-                double maxBwth = 0.0;
-				List siteList = ReplicaCatalog.getStorageList(file.getName());
-                if (siteList.isEmpty()) {
-                    throw new Exception(file.getName() + " does not exist");
+        //The input files that are not an output File 
+        List<FileItem> realInputFiles = requiredFiles == job.getFileList()
+                ? job.getRealInputFiles() : FileItem.getRealInputFiles(requiredFiles);
+        if (realInputFiles.isEmpty()) {
+            return 0;
+        }
+        switch (ReplicaCatalog.getFileSystem()) {
+            case SHARED: //进入share
+                //stage-in job
+                /**
+                 * Picks up the site that is closest
+                 */
+                /*double maxRate = Double.MIN_VALUE;
+                for (Storage storage : getStorageList()) {
+                    double rate = storage.getMaxTransferRate();
+                    if (rate > maxRate) {
+                        maxRate = rate;
+                    }
                 }
-                switch (ReplicaCatalog.getFileSystem()) {
-                    case SHARED: //进入share
-                        //stage-in job
-                        /**
-                         * Picks up the site that is closest
-                         */
-                        /*double maxRate = Double.MIN_VALUE;
-                        for (Storage storage : getStorageList()) {
-                            double rate = storage.getMaxTransferRate();
-                            if (rate > maxRate) {
-                                maxRate = rate;
-                            }
-                        }
-                        //Storage storage = getStorageList().get(0);
-                        
-                        time += file.getSize() / (double) Consts.MILLION / maxRate;*/
-                        if(getId() == controller.getcloud().getId())
-                        	time += file.getSize() / controller.parameter / controller.WAN_Bandwidth;
-                        else if(getId() == controller.getFogNode().getId())
-                        	time += file.getSize() / controller.parameter / controller.LAN_Bandwidth;
-                        break;
-                    case LOCAL:
-                        int vmId = job.getVmId();
-                        int userId = job.getUserId();
-                        Host host = getVmAllocationPolicy().getHost(vmId, userId);
-                        Vm vm = host.getVm(vmId, userId);
-
-                        boolean requiredFileStagein = true;
-                        for (Iterator it = siteList.iterator(); it.hasNext();) {
-                            //site is where one replica of this data is located at
-                            String site = (String) it.next();
-                            if (site.equals(this.getName())) {
+                //Storage storage = getStorageList().get(0);
+                
+                time += file.getSize() / (double) Consts.MILLION / maxRate;*/
+                Controller controller = (Controller)CloudSim.getEntity(controllerId);
+                double bandwidth = 0.0;
+                if(getId() == controller.getcloud().getId())
+                	bandwidth = controller.WAN_Bandwidth;
+                else if(getId() == controller.getFogNode().getId())
+                	bandwidth = controller.LAN_Bandwidth;
+                for (FileItem file : realInputFiles) {
+                    checkReplicaExists(file);
+                    if (bandwidth > 0.0) {
+                        time += file.getSize() / controller.parameter / bandwidth;
+                    }
+                }
+                break;
+            case LOCAL:
+                int vmId = job.getVmId();
+                int userId = job.getUserId();
+                Host host = getVmAllocationPolicy().getHost(vmId, userId);
+                Vm vm = host.getVm(vmId, userId);
+                int deviceStorageId = ReplicaCatalog.getStorageId(this.getName());
+                int vmStorageId = ReplicaCatalog.getStorageId(Integer.toString(vmId));
+                int sourceStorageId = ReplicaCatalog.getStorageId(Parameters.SOURCE);
+
+                for (FileItem file : realInputFiles) {
+                    BitSet siteList = checkReplicaExists(file);
+                    double maxBwth = 0.0;
+                    /**
+                     * This file is already in the local vm and thus it is no
+                     * need to transfer
+                     */
+                    boolean requiredFileStagein = !siteList.get(vmStorageId);
+                    if (requiredFileStagein) {
+                        //site is where one replica of this data is located at
+                        for (int site = siteList.nextSetBit(0); site >= 0; site = siteList.nextSetBit(site + 1)) {
+                            if (site == deviceStorageId) {
                                 continue;
                             }
-                            /**
-                             * This file is already in the local vm and thus it
-                             * is no need to transfer
-                             */
-                            if (site.equals(Integer.toString(vmId))) {
-                                requiredFileStagein = false;
-                                break;
-                            }
                             double bwth;
-                            if (site.equals(Parameters.SOURCE)) {
+                            if (site == sourceStorageId) {
                                 //transfers from the source to the VM is limited to the VM bw only
                                 bwth = vm.getBw();
                                 //bwth = dcStorage.getBaseBandwidth();
                             } else {
                                 //transfers between two VMs is limited to both VMs
-                                bwth = Math.min(vm.getBw(), getVmAllocationPolicy().getHost(Integer.parseInt(site), userId).getVm(Integer.parseInt(site), userId).getBw());
+                                int siteVmId = Integer.parseInt(ReplicaCatalog.getStorageName(site));
+                                bwth = Math.min(vm.getBw(), getVmAllocationPolicy().getHost(siteVmId, userId).getVm(siteVmId, userId).getBw());
                                 //bwth = dcStorage.getBandwidth(Integer.parseInt(site), vmId);
                             }
                             if (bwth > maxBwth) {
                                 maxBwth = bwth;
                             }
                         }
-                        if (requiredFileStagein && maxBwth > 0.0) {
-                            time += file.getSize() / (double) Consts.MILLION / maxBwth;
-                        }
+                    }
+                    if (requiredFileStagein && maxBwth > 0.0) {
+                        time += file.getSize() / (double) Consts.MILLION / maxBwth;
+                    }
 
-                        /**
-                         * For the case when storage is too small it is not
-                         * handled here
-                         */
-                        //We should add but since CondorVm has a small capability it often fails
-                        //We currently don't use this storage to do anything meaningful. It is left for future. 
-                        //condorVm.addLocalFile(file);
-                        ReplicaCatalog.addFileToStorage(file.getName(), Integer.toString(vmId));
-                        break;
+                    /**
+                     * For the case when storage is too small it is not
+                     * handled here
+                     */
+                    //We should add but since CondorVm has a small capability it often fails
+                    //We currently don't use this storage to do anything meaningful. It is left for future. 
+                    //condorVm.addLocalFile(file);
+                    ReplicaCatalog.addFileToStorage(file.getId(), vmStorageId);
                 }
-            }
+                break;
         }
         if(getName().contains("m"))//如果该雾设备是手机，则不考虑文件传输时间
 			return 0;
@@ -752,6 +986,21 @@ public class FogDevice extends PowerDatacenter {
 			return time;
     }
 
+    /**
+     * Gets the storages of a file that must be staged in
+     *
+     * @param file the file
+     * @return the storage ids
+     * @throws Exception if the file is not in any storage
+     */
+    private BitSet checkReplicaExists(FileItem file) throws Exception {
+        BitSet siteList = ReplicaCatalog.getStorages(file.getId());
+        if (siteList == null || siteList.isEmpty()) {
+            throw new Exception(file.getName() + " does not exist");
+        }
+        return siteList;
+    }
+
 	protected void processOperatorRelease(SimEvent ev){
 		this.processVmMigrate(ev, false);
 	}
@@ -854,9 +1103,15 @@ public class FogDevice extends PowerDatacenter {
 		// TODO Auto-generated method stub
 		setLastProcessTime(0.1);
 		List<? extends Host> list = getVmAllocationPolicy().getHostList();
-		for (Host host : list) {
-            double time = host.updateVmsProcessing(CloudSim.clock());
+		for (int i = 0; i < list.size(); i++) {
+			list.get(i).updateVmsProcessing(CloudSim.clock());
+			updateHostConsumingEnergy(i, list.get(i));
 		}
+		// the hosts are processed again from scratch after clearing them
+		hostNextCompletionTimes = null;
+		hostCompletions.clear();
+		pendingWakeups.clear();
+		changedHosts.clear();
 	}
 
 	public void clearConsumption() {
@@ -1,6 +1,10 @@
 package org.fog.entities;
 
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.fog.offloading.OffloadingStrategy;
@@ -54,15 +58,15 @@ public class OffloadingEngine extends SimEntity{
 			sum += job.getCloudletLength();
 		}
 		System.out.println(sum);
-		double time = 0;
 		if(getOffloadingStrategy() != null){
-			for(Job job : list){
-				double deadline = DeadLine;
-//				double deadline = job.getCloudletLength() / sum * DeadLine;// * 10;
-				time += getOffloadingStrategy().SelectDatacenter(job, deadline);
-			}
+			// TSP modification: the jobs are decided in a batch and only the quantity of jobs per datacenter is printed
+			int[] decisions = getOffloadingStrategy().SelectDatacenters(list, DeadLine);
+			Map<Integer, Integer> jobsPerDatacenter = new TreeMap<Integer, Integer>();
+			for(int decision : decisions)
+				jobsPerDatacenter.merge(decision, 1, Integer::sum);
+			for(Map.Entry<Integer, Integer> entry : jobsPerDatacenter.entrySet())
+				System.out.println("卸载决策结果: " + CloudSim.getEntityName(entry.getKey()) + " = " + entry.getValue() + " jobs");
 		}
-		System.out.println("手机运行时间之和 = "+time);
 		long endoffloading = System.currentTimeMillis();
 		System.out.println("卸载策略运行时间 = " + (endoffloading - startoffloading));
 		return endoffloading - startoffloading;
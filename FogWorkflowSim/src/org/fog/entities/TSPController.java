@@ -1,6 +1,6 @@
 package org.fog.entities;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 
@@ -68,6 +68,23 @@ public class TSPController extends Controller{
      */
     public double MReceTime;//移动设备接收数据时间
 
+    /**
+     * Busy time, busy energy and cost of the tasks executed in each device, indexed by the device id. They are
+     * updated every time a task returns, so the final metrics do not need to iterate over the received tasks
+     */
+    private final HashMap<Integer, DeviceAccounting> devicesAccounting = new HashMap<>();
+
+    /**
+     * The VMs of the workflow engine indexed by their id
+     */
+    private CondorVM[] vmsById;
+
+    private static class DeviceAccounting {
+        double busyTime;
+        double busyEnergy;
+        double cost;
+    }
+
     double LAN_Bandwidth = 100;//Mbps
     double WAN_Bandwidth = 40;//Mbps
     final double parameter = 10000;//计算传输数据的传输时间的调整参数
@@ -86,6 +103,9 @@ public class TSPController extends Controller{
             fogDevice.setControllerId(getId());
         }
         setFogDevices(fogDevices);
+        for(FogDevice fogDevice : fogDevices){
+            devicesAccounting.put(fogDevice.getId(), new DeviceAccounting());
+        }
         wfEngine = Engine;
         wfEngine.setcontrollerId(this.getId());
         offloadingEngine = wfEngine.getoffloadingEngine();
@@ -217,8 +237,9 @@ public class TSPController extends Controller{
                 fogDevice.setEnergyConsumption(TSPJobManager.getGatewayTotalEnergyConsumption(CloudSim.clock(), fogDevice.getHost()));//updating the energy consumption
             }
             else{
-                fogDevice.setTotalCost(getDatacenterCost(fogDevice.getId()));
-                cost += getDatacenterCost(fogDevice.getId());
+                double datacenterCost = getDatacenterCost(fogDevice.getId());
+                fogDevice.setTotalCost(datacenterCost);
+                cost += datacenterCost;
             }
         }
         TotalExecutionTime = CloudSim.clock();
@@ -286,67 +307,96 @@ public class TSPController extends Controller{
         MSendTime = 0.0;
         MReceTime = 0.0;
         count1=0; count2=0; count3=0;
+        for(DeviceAccounting accounting : devicesAccounting.values()){
+            accounting.busyTime = 0;
+            accounting.busyEnergy = 0;
+            accounting.cost = 0;
+        }
+    }
+
+    /**
+     * TSP modification: new function to account the execution time, energy and cost of a task in the device where it
+     * was executed. It must be called once for each task returned to the workflow engine
+     * @param task the returned task
+     */
+    public void updateTaskAccounting(TSPTask task){
+        CondorVM vm = getVm(task.getVmId());
+        PowerHost host = (PowerHost) vm.getHost();
+        FogLinearPowerModel powerModel = (FogLinearPowerModel) host.getPowerModel();
+        FogDevice fogdevice = (FogDevice) host.getDatacenter();
+        DeviceAccounting accounting = devicesAccounting.get(fogdevice.getId());
+
+        accounting.busyTime += task.getActualCPUTime();
+        accounting.busyEnergy += task.getActualCPUTime() * powerModel.getPower(vm.getMips()/host.getTotalMips());
+        if(!fogdevice.getName().contains("m")){
+            accounting.cost += task.getActualCPUTime()* vm.getHost().getTotalMips()/vm.getMips() * host.getcostPerMips();
+        }
     }
 
+    /**
+     * TSP modification: the input files already counted are marked in a bitset indexed by the file id
+     */
     public double getSendSize(){
         double sendsize=0;
         List<Job> jobList=wfEngine.getJobsReceivedList();
-        HashMap<String, List<Integer>> fileToDatacenter= new HashMap<String, List<Integer>>();
+        BitSet sentFiles = new BitSet();
 
         for(Job job:jobList){
             CondorVM vm = getVm(job.getVmId());
             int datacenterId = vm.getHost().getDatacenter().getId();
             if(!CloudSim.getEntity(datacenterId).getName().contains("m")){
                 for(FileItem file : job.getFileList()){
-                    List<Integer> datacenterIdList = new ArrayList<Integer>();
-                    if(file.getType() == FileType.INPUT){
-                        if(!fileToDatacenter.containsKey(file.getName())){
-                            sendsize += file.getSize();
-                        }
-                        else if(fileToDatacenter.containsKey(file.getName()) && !fileToDatacenter.get(file.getName()).contains(datacenterId)){
-                            datacenterIdList = fileToDatacenter.get(file.getName());
-                        }
-                        datacenterIdList.add(datacenterId);
-                        fileToDatacenter.put(file.getName(), datacenterIdList);
+                    if(file.getType() == FileType.INPUT && !sentFiles.get(file.getId())){
+                        sentFiles.set(file.getId());
+                        sendsize += file.getSize();
                     }
                 }
             }
         }
-        return sendsize;
+    return sendsize;
     }
 
+    /**
+     * TSP modification: the VMs are looked up in a table indexed by their id instead of iterating over all of them.
+     * The table is built the first time it is needed, once the VMs were submitted to the workflow engine
+     */
     public CondorVM getVm(int vmId){
-        for(Vm vm:wfEngine.getAllVmList()){
-            if(vm.getId()==vmId)
-                return (CondorVM) vm;
+        if(vmsById == null || vmId < 0 || vmId >= vmsById.length || vmsById[vmId] == null){
+            indexVms();
         }
-        return null;
+        if(vmId < 0 || vmId >= vmsById.length)
+            return null;
+        return vmsById[vmId];
     }
 
-    public int getDC(int vmId){
-        for(Vm vm:wfEngine.getAllVmList()){
-            if(vm.getId()==vmId)
-                return vm.getHost().getDatacenter().getId();
+    private void indexVms(){
+        List<? extends Vm> vmList = wfEngine.getAllVmList();
+        int maxId = -1;
+        for(Vm vm : vmList){
+            maxId = Math.max(maxId, vm.getId());
         }
+        vmsById = new CondorVM[maxId + 1];
+        for(Vm vm : vmList){
+            if(vmsById[vm.getId()] == null)
+                vmsById[vm.getId()] = (CondorVM) vm;
+        }
+    }
+
+    public int getDC(int vmId){
+        CondorVM vm = getVm(vmId);
+        if(vm != null)
+            return vm.getHost().getDatacenter().getId();
         return 0;
     }
 
+    /**
+     * TSP modification: the cost is accumulated as the tasks return (see updateTaskAccounting)
+     */
     public double getDatacenterCost(int id) {
-        double cost = 0;
-        List<TSPTask> taskList = wfEngine.getJobsReceivedList();
-        for(TSPTask task : taskList){
-            CondorVM vm = getVm(task.getVmId());
-            PowerHost host = (PowerHost) vm.getHost();
-            FogDevice fogdevice = (FogDevice) host.getDatacenter();
-            int datacenterId = fogdevice.getId();
-            if(!CloudSim.getEntity(datacenterId).getName().contains("m")){
-                if(id == datacenterId) {
-                    double c = task.getActualCPUTime()* vm.getHost().getTotalMips()/vm.getMips() * host.getcostPerMips();
-                    cost += c;
-                }
-            }
-        }
-        return cost;
+        DeviceAccounting accounting = devicesAccounting.get(id);
+        if(accounting == null)
+            return 0;
+        return accounting.cost;
     }
 
     /**
@@ -356,23 +406,11 @@ public class TSPController extends Controller{
      * @return the energy consumed by the specified device
      */
     public double getDeviceEnergy(FogDevice dev){
-        double energy = 0;
-        double executiontime = 0;
-        double idletime = 0;
-        List<TSPTask> taskList=wfEngine.getJobsReceivedList();
-
-        for(TSPTask task:taskList){
-            CondorVM vm = getVm(task.getVmId());
-            PowerHost host = (PowerHost)vm.getHost();
-            FogLinearPowerModel powerModel = (FogLinearPowerModel) host.getPowerModel();
-            FogDevice fogdevice = (FogDevice) vm.getHost().getDatacenter();
-            if(fogdevice.getId() == dev.getId()){
-                executiontime += task.getActualCPUTime();
-                double  e = task.getActualCPUTime() * powerModel.getPower(vm.getMips()/host.getTotalMips());
-                energy += e;
-            }
-        }
-        idletime = CloudSim.clock()-executiontime;
+        //the busy time and energy are accumulated as the tasks return (see updateTaskAccounting)
+        DeviceAccounting accounting = devicesAccounting.get(dev.getId());
+        double energy = accounting.busyEnergy;
+        double executiontime = accounting.busyTime;
+        double idletime = CloudSim.clock()-executiontime;
         FogLinearPowerModel powerModel = (FogLinearPowerModel) getmobile().getHost().getPowerModel();
         energy += idletime * powerModel.getStaticPower();//负载能耗+空闲能耗
         return energy;
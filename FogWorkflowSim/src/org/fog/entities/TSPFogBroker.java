@@ -3,6 +3,7 @@ package org.fog.entities;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmRegistry;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
 import org.cloudbus.cloudsim.core.SimEvent;
@@ -211,12 +212,12 @@ public class TSPFogBroker extends FogBroker {
              */
             if (VmList.getById(getVmList(), vmId) != null) {
                 getVmsCreatedList().add(VmList.getById(getVmList(), vmId));
-                Log.printLine(CloudSim.clock() + ": " + getName() + ": VM #" + vmId
+                Log.printLine(() -> CloudSim.clock() + ": " + getName() + ": VM #" + vmId
                         + " has been created in Datacenter #" + datacenterId + ", Host #"
                         + VmList.getById(getVmsCreatedList(), vmId).getHost().getId());
             }
         } else {
-            Log.printLine(CloudSim.clock() + ": " + getName() + ": Creation of VM #" + vmId
+            Log.printLine(() -> CloudSim.clock() + ": " + getName() + ": Creation of VM #" + vmId
                     + " failed in Datacenter #" + datacenterId);
         }
 
@@ -251,6 +252,30 @@ public class TSPFogBroker extends FogBroker {
     private boolean the_gateway_is_idle = true;
     private boolean all_severs_are_busy = false;
 
+    /**
+     * The scheduler used in every decision and the registry of the created VMs shared with it
+     */
+    private TSPBaseStrategyAlgorithm tsp_scheduler;
+    private TSPServerRegistry server_registry;
+
+    /**
+     * Gets the TSP scheduler, creating it the first time and registering the created VMs when they change
+     *
+     * @return the TSP scheduler
+     */
+    private TSPBaseStrategyAlgorithm getTSPScheduler() {
+        if (tsp_scheduler == null) {
+            tsp_scheduler = (TSPBaseStrategyAlgorithm) getScheduler(Parameters.getSchedulingAlgorithm());
+        }
+        List<? extends Vm> vmlist = getVmsCreatedList();
+        if (server_registry == null || server_registry.getVmQuantity() != vmlist.size()) {
+            server_registry = new TSPServerRegistry(vmlist);
+            tsp_scheduler.setVmList(vmlist);
+            tsp_scheduler.setServerRegistry(server_registry);
+        }
+        return tsp_scheduler;
+    }
+
     /**
      * Performs one scheduling/placement decision on the gateway
      */
@@ -261,11 +286,11 @@ public class TSPFogBroker extends FogBroker {
             return;
         }
 
-        TSPBaseStrategyAlgorithm scheduler = (TSPBaseStrategyAlgorithm)getScheduler(Parameters.getSchedulingAlgorithm());
+        TSPBaseStrategyAlgorithm scheduler = getTSPScheduler();
 
+        scheduler.clearSteep();
         scheduler.setCloudletList(getCloudletList());
         List<? extends Vm> vmlist = getVmsCreatedList();
-        scheduler.setVmList(vmlist);
 
         double decision_time = 0;
 
@@ -288,7 +313,10 @@ public class TSPFogBroker extends FogBroker {
             TSPTask tsp_task = (TSPTask) cloudlet;
 
 //            delay += TSPEnvHelper.getOffloadingTimeByFogDeviceId(vmId, tsp_task.getCloudletLength());
-            Vm vm = VmList.getById(vmlist, vmId);
+            Vm vm = VmRegistry.getVm(vmId, getId());
+            if (vm == null) {
+                vm = VmList.getById(vmlist, vmId);
+            }
             delay += TSPEnvHelper.getOffloadingTimeByFogDeviceId(vm.getHost().getDatacenter().getId(), tsp_task.getStorage());
 
             schedule(getVmsToDatacentersMap().get(vmId), delay + decision_time, CloudSimTags.CLOUDLET_SUBMIT, cloudlet);
@@ -315,11 +343,8 @@ public class TSPFogBroker extends FogBroker {
 
     protected void processTSPTaskArrived() {
         if (the_gateway_is_idle){
-            TSPBaseStrategyAlgorithm scheduler = (TSPBaseStrategyAlgorithm)getScheduler(Parameters.getSchedulingAlgorithm());
-            List<? extends Vm> vmlist = getVmsCreatedList();
-            scheduler.setVmList(vmlist);
+            TSPBaseStrategyAlgorithm scheduler = getTSPScheduler();
             if (scheduler.thereAreServersInIdle()){
-                scheduler.setCloudletList(getCloudletList());
                 this.doTSPDecision();
             }
         }
@@ -332,15 +357,9 @@ public class TSPFogBroker extends FogBroker {
             return;
         }
 
-        TSPBaseStrategyAlgorithm scheduler = (TSPBaseStrategyAlgorithm)getScheduler(Parameters.getSchedulingAlgorithm());
-        List<? extends Vm> vmlist = getVmsCreatedList();
-        scheduler.setVmList(vmlist);
-
-//        if (scheduler.thereAreServersInIdle()){
-//            scheduler.setCloudletList(getCloudletList());
+//        if (getTSPScheduler().thereAreServersInIdle()){
 //            this.doTSPDecision();
 //        }
-        scheduler.setCloudletList(getCloudletList());
         this.doTSPDecision();
 
 
@@ -466,10 +485,14 @@ public class TSPFogBroker extends FogBroker {
     }
 
     private void setVmState(int id) {
-        for(Vm vm : getVmList()){
-            if(vm.getId()==id){
-                CondorVM vm2 = (CondorVM) vm;
-                vm2.setState(WorkflowSimTags.VM_STATUS_BUSY);
+        Vm vm = VmRegistry.getVm(id, getId());
+        if (vm != null) {
+            ((CondorVM) vm).setState(WorkflowSimTags.VM_STATUS_BUSY);
+            return;
+        }
+        for(Vm vm2 : getVmList()){
+            if(vm2.getId()==id){
+                ((CondorVM) vm2).setState(WorkflowSimTags.VM_STATUS_BUSY);
             }
         }
     }
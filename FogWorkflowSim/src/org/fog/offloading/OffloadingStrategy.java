@@ -33,6 +33,23 @@ public abstract class OffloadingStrategy {
 	public abstract void SelectDatacenter(Job job);
 	public abstract double SelectDatacenter(Job job, double deadline);
 	
+	/**
+	 * Selects the datacenter of every job of a batch and sets it as the offloading decision of the job. By default
+	 * the jobs are decided one by one with {@link #SelectDatacenter(Job, double)}.
+	 * 
+	 * @param jobs the jobs
+	 * @param deadline the deadline of the workflow
+	 * @return the id of the datacenter selected for every job
+	 */
+	public int[] SelectDatacenters(List<Job> jobs, double deadline) {
+		int[] decisions = new int[jobs.size()];
+		for(int i = 0; i < decisions.length; i++) {
+			SelectDatacenter(jobs.get(i), deadline);
+			decisions[i] = jobs.get(i).getoffloading();
+		}
+		return decisions;
+	}
+	
 	public FogDevice getmobile(){
 		for(FogDevice dev : getFogDeviceLists())
 			if(dev.getName().contains("m"))
@@ -1,5 +1,6 @@
 package org.fog.offloading;
 
+import java.util.Arrays;
 import java.util.List;
 import org.fog.entities.FogDevice;
 import org.workflowsim.Job;
@@ -21,6 +22,15 @@ public class OffloadingStrategyAllinFog extends OffloadingStrategy{
 		return 0;
 	}
 	
+	@Override
+	public int[] SelectDatacenters(List<Job> jobs, double deadline) {
+		int[] decisions = new int[jobs.size()];
+		Arrays.fill(decisions, getFogNode().getId());
+		for(int i = 0; i < decisions.length; i++)
+			jobs.get(i).setoffloading(decisions[i]);
+		return decisions;
+	}
+	
 	@Override
 	public void SelectDatacenter(Job job) {
 		// TODO Auto-generated method stub
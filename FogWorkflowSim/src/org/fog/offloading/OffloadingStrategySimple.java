@@ -1,10 +1,10 @@
 package org.fog.offloading;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.fog.entities.FogDevice;
 import org.fog.utils.FogLinearPowerModel;
 import org.workflowsim.FileItem;
@@ -17,102 +17,131 @@ public class OffloadingStrategySimple extends OffloadingStrategy{
 	double WAN_Bandwidth = 40;//Mbps
 	final double parameter = 10000;//计算传输数据的传输时间的调整参数
 	double deadline;
-	private HashMap<String, List<Integer>> fileToDatacenter;
+	/**
+	 * TSP modification: the datacenters that hold every file, indexed by the file id
+	 */
+	private List<BitSet> fileToDatacenter;
 	private static FogLinearPowerModel powerModel;
-	List<Integer> IdList = new ArrayList<Integer>();
 	
 	public OffloadingStrategySimple(List<FogDevice> fogdevices) {
 		super(fogdevices);
 		// TODO Auto-generated constructor stub
 		deadline = getOffloadingEngine().getWorkflowEngine().DeadLine;
-		fileToDatacenter = new HashMap<String, List<Integer>>();
+		fileToDatacenter = new ArrayList<BitSet>();
 	}
 	public OffloadingStrategySimple() {
-		fileToDatacenter = new HashMap<String, List<Integer>>();
+		fileToDatacenter = new ArrayList<BitSet>();
 	}
 
+	/**
+	 * TSP modification: decides the job with the same rules of {@link #SelectDatacenters(List, double)}, which are
+	 * shared in the offloading targets, without printing.
+	 */
 	public double SelectDatacenter(Job job, double deadline) {
-		// TODO Auto-generated method stub
-		double time1 = 0, time2 = 0, time3 = 0;
-		double energy1 = 0, energy2 = 0, energy3 = 0;
-		powerModel = (FogLinearPowerModel) getmobile().getHost().getPowerModel();
+		OffloadingTargets targets = new OffloadingTargets();
+		job.setoffloading(targets.decide(job, deadline));
+		return targets.time(MOBILE, job.getCloudletLength(), 0);
+	}
+	
+	/**
+	 * Targets of the offloading, used as indexes of the device tables
+	 */
+	private static final int CLOUD = 0, FOG = 1, MOBILE = 2;
+	
+	/**
+	 * TSP modification: decides a batch of jobs with the same rules of {@link #SelectDatacenter(Job, double)}. The
+	 * mips, bandwidth and power of every target are read once, and the jobs are decided in parallel without printing.
+	 */
+	@Override
+	public int[] SelectDatacenters(List<Job> jobs, double deadline) {
+		OffloadingTargets targets = new OffloadingTargets();
+		int[] decisions = new int[jobs.size()];
+		Arrays.parallelSetAll(decisions, j -> targets.decide(jobs.get(j), deadline));
+		for(int j = 0; j < decisions.length; j++)
+			jobs.get(j).setoffloading(decisions[j]);
+		return decisions;
+	}
+	
+	/**
+	 * TSP modification: the mips, bandwidth and power of the cloud, the fog node and the mobile device, read once from
+	 * the devices to decide one job or a batch of them.
+	 */
+	private final class OffloadingTargets {
 		
-		for(FogDevice fd: getFogDeviceLists()){
-			if(fd.getName().equalsIgnoreCase("cloud")){ //计算卸载到云所需时间
-				time1 = job.getCloudletLength() / fd.getAverageMips()
-						                  + getJobFileSize(job) / parameter / WAN_Bandwidth;
-				//卸载所需能耗 = 空闲功率 * 云执行时间 + 传输功率 * (发送数据大小 + 接收数据大小 ) / WAN带宽
-				energy1 = powerModel.getStaticPower() * job.getCloudletLength() / fd.getAverageMips()
-						     + powerModel.getSendPower() * getJobFileSize(job) / parameter / WAN_Bandwidth;
-			}
-			else if(fd.getName().contains("f")){ //计算卸载到雾所需时间
-				time2 = job.getCloudletLength() / fd.getAverageMips()
-		                  + getJobFileSize(job) / parameter / LAN_Bandwidth;
-				//卸载所需能耗 = 空闲功率 * 雾执行时间 + 传输功率 * (发送数据大小 + 接收数据大小 ) / LAN带宽
-				energy2 = powerModel.getStaticPower() * job.getCloudletLength() / fd.getAverageMips()
-						+ powerModel.getSendPower() * getJobFileSize(job) / parameter / LAN_Bandwidth;
-//				System.out.print("energy2 = ");
-//				System.out.print(powerModel.getStaticPower()+" * "+(job.getCloudletLength() / fd.getHost().getTotalMips()));
-//				System.out.print(" + "+ powerModel.getSendPower() +" * ("); 
-//				System.out.print(getJobInputFileSize(fd, job));
-//				System.out.print(" + "+getJobOutputFileSize(job)+" ) * 8/ 100 /");
-//                System.out.println(LAN_Bandwidth);
-//                System.out.println("energy2 = "+powerModel.getStaticPower() * job.getCloudletLength() / fd.getHost().getTotalMips() + " + "
-//                                                  +powerModel.getSendPower() +" * "+(getJobInputFileSize(fd, job) + getJobOutputFileSize(job)) * 8 /100 / LAN_Bandwidth);
-			}
-			else{//不卸载
-				time3 = job.getCloudletLength() / fd.getAverageMips();
-				energy3 = powerModel.getMaxPower() * job.getCloudletLength() / fd.getAverageMips();
+		private final double[] mips = new double[3];
+		private final boolean[] present = new boolean[3];
+		private final double[] bandwidth = {WAN_Bandwidth, LAN_Bandwidth, 0};
+		private final double staticPower, sendPower, maxPower;
+		private final int cloudId, fogId, mobileId;
+		
+		OffloadingTargets() {
+			powerModel = (FogLinearPowerModel) getmobile().getHost().getPowerModel();
+			// the last device of every target is the one used
+			for(FogDevice fd: getFogDeviceLists()){
+				int target = fd.getName().equalsIgnoreCase("cloud") ? CLOUD : fd.getName().contains("f") ? FOG : MOBILE;
+				mips[target] = fd.getAverageMips();
+				present[target] = true;
 			}
+			staticPower = powerModel.getStaticPower();
+			sendPower = powerModel.getSendPower();
+			maxPower = powerModel.getMaxPower();
+			cloudId = getcloud() == null ? -1 : getcloud().getId();
+			fogId = getFogNode() == null ? -1 : getFogNode().getId();
+			mobileId = getmobile().getId();
 		}
-		System.out.println("deadline : "+deadline+"; cloud : "+time1+"; fog : "+time2+"; mobile : "+time3);
-//		System.out.println(energy1+",  "+energy2+",  "+energy3);
-		if(deadline < Math.min(time1, time2)){//都不满足时间约束
-			System.out.println("卸载不满足时间约束");
-			job.setoffloading(getmobile().getId());//不卸载
+		
+		/**
+		 * The time of a job in a target: its execution time plus, out of the mobile device, the time to send its input
+		 * files. A missing target never meets the deadline.
+		 */
+		double time(int target, double length, double fileSize) {
+			if(!present[target])
+				return Double.POSITIVE_INFINITY;
+			if(target == MOBILE)
+				return length / mips[MOBILE];
+			return length / mips[target] + fileSize / parameter / bandwidth[target];
 		}
-		else if(deadline > Math.max(time1, time2)){//都满足时间约束
-			if(Math.min(energy3, Math.min(energy1, energy2)) == energy1){
-				System.out.println("都满足时间约束，且卸载到云能耗最小");
-				job.setoffloading(getcloud().getId());//卸载到云
-			}
-			else if(Math.min(energy3, Math.min(energy1, energy2)) == energy2){
-				System.out.println("都满足时间约束，且卸载到雾能耗最小");
-				job.setoffloading(getFogNode().getId());//卸载到雾节点
-			}
-			else{
-				System.out.println("都满足时间约束，但不卸载能耗最小");
-				job.setoffloading(getmobile().getId());//不卸载
-			}
+		
+		/**
+		 * The energy of the mobile device for a job in a target: idle while the job runs out of it plus sending the
+		 * input files, or busy while the job runs in it. A missing target never has the least energy.
+		 */
+		double energy(int target, double length, double fileSize) {
+			if(!present[target])
+				return Double.POSITIVE_INFINITY;
+			if(target == MOBILE)
+				return maxPower * length / mips[MOBILE];
+			return staticPower * length / mips[target] + sendPower * fileSize / parameter / bandwidth[target];
 		}
-		else{//deadline介于time1和time2之间
-			if(time1 < time2 && energy1 < energy3){//卸载到云满足时间约束并且能耗较小
-				System.out.println("云满足时间约束，且能耗小");
-				job.setoffloading(getcloud().getId());//卸载到云
-			}
-			else if(time1 > time2 && energy2 < energy3){//卸载到雾节点满足时间约束并且能耗较小
-				System.out.println("雾满足时间约束，且能耗小");
-				job.setoffloading(getFogNode().getId());//卸载到雾节点
-			}
-			else{
-				System.out.println("有一个满足时间约束，但不卸载能耗最小");
-				job.setoffloading(getmobile().getId());//不卸载
+		
+		/**
+		 * Chooses the datacenter of a job: the least energy among the targets that meet the deadline
+		 *
+		 * @return the id of the datacenter
+		 */
+		int decide(Job job, double deadline) {
+			double length = job.getCloudletLength();
+			double fileSize = getJobFileSize(job);
+			double time1 = time(CLOUD, length, fileSize), time2 = time(FOG, length, fileSize);
+			double energy1 = energy(CLOUD, length, fileSize), energy2 = energy(FOG, length, fileSize);
+			double energy3 = energy(MOBILE, length, fileSize);
+			if(deadline < Math.min(time1, time2))//都不满足时间约束
+				return mobileId;
+			if(deadline > Math.max(time1, time2)){//都满足时间约束
+				double minEnergy = Math.min(energy3, Math.min(energy1, energy2));
+				if(minEnergy == energy1)
+					return cloudId;
+				if(minEnergy == energy2)
+					return fogId;
+				return mobileId;
 			}
+			//deadline介于time1和time2之间
+			if(time1 < time2 && energy1 < energy3)
+				return cloudId;
+			if(time1 > time2 && energy2 < energy3)
+				return fogId;
+			return mobileId;
 		}
-//		if(deadline < Math.min(time1, time2))
-//			job.setoffloading(getmobile().getId());//不卸载
-//		else{
-//			if(time1 < time2){
-//				job.setoffloading(getcloud().getId());//卸载到云
-//				addFileToDatacenter(getcloud(), job);
-//			}
-//			else{
-//				job.setoffloading(getFogNode().getId());//卸载到雾节点
-//				addFileToDatacenter(getFogNode(), job);
-//			}
-//		}
-		System.out.println("job"+job.getCloudletId()+"卸载决策结果: "+job.getoffloading()+":"+CloudSim.getEntityName(job.getoffloading()));//输出卸载决策结果
-		return time3;
 	}
 	
 	/*
@@ -211,13 +240,20 @@ public class OffloadingStrategySimple extends OffloadingStrategy{
 		double sendsize = 0;
 		for(FileItem file : job.getFileList()){
 			if(file.getType() == FileType.INPUT)
-				if(!fileToDatacenter.containsKey(file.getName())|| !fileToDatacenter.get(file.getName()).contains(device.getId())){
+				if(!isFileInDatacenter(file, device)){
 					sendsize += file.getSize();
 				}
 		}
 		return sendsize;
 	}
 	
+	private boolean isFileInDatacenter(FileItem file, FogDevice device){
+		if(file.getId() >= fileToDatacenter.size())
+			return false;
+		BitSet datacenters = fileToDatacenter.get(file.getId());
+		return datacenters != null && datacenters.get(device.getId());
+	}
+	
 	public double getJobOutputFileSize(Job job){
 		double sendsize = 0;
 		for(FileItem file : job.getFileList()){
@@ -232,12 +268,14 @@ public class OffloadingStrategySimple extends OffloadingStrategy{
 		job.setOutputsize(getJobOutputFileSize(job));
 		for(FileItem file : job.getFileList()){
 			//job输入输出文件都放入数据中心中
-			if(fileToDatacenter.containsKey(file.getName()))
-				IdList.addAll(fileToDatacenter.get(file.getName()));
-			if(!IdList.contains(device.getId()))
-				IdList.add(device.getId());
-			fileToDatacenter.put(file.getName(), IdList);
-			IdList.clear();
+			while(fileToDatacenter.size() <= file.getId())
+				fileToDatacenter.add(null);
+			BitSet datacenters = fileToDatacenter.get(file.getId());
+			if(datacenters == null) {
+				datacenters = new BitSet();
+				fileToDatacenter.set(file.getId(), datacenters);
+			}
+			datacenters.set(device.getId());
 //			if(file.getType() == FileType.INPUT){//job输入文件放入数据中心中
 //				list = fileToDatacenter.get(file.getName());
 //				if(!list.contains(device.getId()))
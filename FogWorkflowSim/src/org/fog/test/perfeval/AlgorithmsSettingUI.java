@@ -621,8 +621,6 @@ public class AlgorithmsSettingUI extends JFrame {
 			PsoScheduling.w = Double.valueOf(weight.getText());
 			if(!psoSimNum.getText().isEmpty())
 				repeat = Integer.valueOf(psoSimNum.getText());
-			wfEngine.fitness = new double[PsoScheduling.particleNum];
-			wfEngine.fitness2 = new double[PsoScheduling.particleNum];
 		}catch (Exception e) {
 			return -1;
 		}
@@ -642,7 +640,6 @@ public class AlgorithmsSettingUI extends JFrame {
 			GASchedulingAlgorithm.mutationRate = Double.valueOf(mutate.getText());
 			if(!gaSimNum.getText().isEmpty())
 				repeat = Integer.valueOf(gaSimNum.getText());
-			wfEngine.fitnessForGA = new double[GASchedulingAlgorithm.popsize];
 		}catch (Exception e) {
 			return -1;
 		}
@@ -0,0 +1,204 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * This class checks that the cloudlet histories rebuilt from the CloudletJournal are the same text that the former
+ * per-cloudlet history buffer wrote. It runs two small simulations in a row with cloudlets recording their history,
+ * which also write their transitions with the former formatter, and compares both texts of every cloudlet. The second
+ * simulation reuses the cloudlet ids of the first one, so a journal which is not reset between them fails the check.
+ *
+ * @since TSP Extension 1.0
+ */
+public class CloudletJournalCheck {
+
+    public static void main(String[] args) throws Exception {
+        int cloudlet_quantity = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        Log.disable();
+
+        int mismatches = 0;
+        for (int simulation = 0; simulation < 2; simulation++) {
+            mismatches += simulate(cloudlet_quantity, simulation);
+        }
+
+        if (mismatches == 0) {
+            System.out.println("The journal histories match the former histories");
+        } else {
+            System.out.println(mismatches + " journal histories do not match the former histories");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a simulation with one datacenter, one broker, two VMs and a set of cloudlets, and compares the histories of
+     * the cloudlets
+     *
+     * @return the quantity of cloudlets whose histories are different
+     */
+    private static int simulate(int cloudlet_quantity, int simulation) throws Exception {
+        CloudSim.init(1, Calendar.getInstance(), false);
+
+        createDatacenter("Datacenter_" + simulation);
+        DatacenterBroker broker = new DatacenterBroker("Broker_" + simulation);
+
+        List<Vm> vms = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            vms.add(new Vm(i, broker.getId(), 1000, 1, 512, 1000, 10000, "Xen", new CloudletSchedulerSpaceShared()));
+        }
+        broker.submitVmList(vms);
+
+        List<FormerHistoryCloudlet> cloudlets = new ArrayList<>();
+        for (int i = 0; i < cloudlet_quantity; i++) {
+            FormerHistoryCloudlet cloudlet = new FormerHistoryCloudlet(i, 1000L * (1 + i % 7 + simulation));
+            cloudlet.setUserId(broker.getId());
+            cloudlets.add(cloudlet);
+        }
+        broker.submitCloudletList(cloudlets);
+
+        CloudSim.startSimulation();
+
+        int mismatches = 0;
+        for (FormerHistoryCloudlet cloudlet : cloudlets) {
+            String expected = cloudlet.getFormerHistory();
+            String actual = cloudlet.getCloudletHistory();
+            if (!expected.equals(actual)) {
+                mismatches++;
+                System.out.println("Simulation " + simulation + ", Cloudlet #" + cloudlet.getCloudletId()
+                        + "\nexpected:\n" + expected + "actual:\n" + actual);
+            }
+        }
+        return mismatches;
+    }
+
+    private static void createDatacenter(String name) throws Exception {
+        List<Pe> pes = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            pes.add(new Pe(i, new PeProvisionerSimple(1000)));
+        }
+        List<Host> hosts = new ArrayList<>();
+        hosts.add(new Host(0, new RamProvisionerSimple(2048), new BwProvisionerSimple(10000), 1000000, pes,
+                new VmSchedulerTimeShared(pes)));
+
+        DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts, 10.0,
+                3.0, 0.05, 0.001, 0.0);
+        new Datacenter(name, characteristics, new VmAllocationPolicySimple(hosts), new LinkedList<Storage>(), 0);
+    }
+
+    /**
+     * Cloudlet recording its history, which also writes its transitions as the Cloudlet class did before the journal
+     */
+    private static class FormerHistoryCloudlet extends Cloudlet {
+
+        private final DecimalFormat num = new DecimalFormat("#0.00#");
+
+        private final String newline = System.getProperty("line.separator");
+
+        private StringBuffer history;
+
+        FormerHistoryCloudlet(int id, long length) {
+            super(id, length, 1, 300, 300, new UtilizationModelFull(), new UtilizationModelFull(),
+                    new UtilizationModelFull(), true);
+        }
+
+        String getFormerHistory() {
+            return history == null ? "No history is recorded for Cloudlet #" + getCloudletId() : history.toString();
+        }
+
+        private void write(String str) {
+            if (history == null) {
+                history = new StringBuffer(1000);
+                history.append("Time below denotes the simulation time.").append(newline);
+                history.append("Time (sec)       Description Cloudlet #" + getCloudletId()).append(newline);
+                history.append("------------------------------------------").append(newline);
+                history.append(num.format(CloudSim.clock()));
+                history.append("   Creates Cloudlet ID #" + getCloudletId()).append(newline);
+            }
+            history.append(num.format(CloudSim.clock()));
+            history.append("   " + str + newline);
+        }
+
+        @Override
+        public void setCloudletFinishedSoFar(long length) {
+            if (length >= 0 && getResourceId() != -1) {
+                write("Sets the length's finished so far to " + length);
+            }
+            super.setCloudletFinishedSoFar(length);
+        }
+
+        @Override
+        public void setUserId(int id) {
+            super.setUserId(id);
+            write("Assigns the Cloudlet to " + CloudSim.getEntityName(id) + " (ID #" + id + ")");
+        }
+
+        @Override
+        public void setResourceParameter(int resourceID, double cost) {
+            int id = getResourceId();
+            if (id == -1) {
+                write("Allocates this Cloudlet to " + CloudSim.getEntityName(resourceID) + " (ID #" + resourceID
+                        + ") with cost = $" + cost + "/sec");
+            } else {
+                write("Moves Cloudlet from " + CloudSim.getEntityName(id) + " (ID #" + id + ") to "
+                        + CloudSim.getEntityName(resourceID) + " (ID #" + resourceID + ") with cost = $" + cost
+                        + "/sec");
+            }
+            super.setResourceParameter(resourceID, cost);
+        }
+
+        @Override
+        public void setSubmissionTime(double clockTime) {
+            if (clockTime >= 0.0 && getResourceId() != -1) {
+                write("Sets the submission time to " + num.format(clockTime));
+            }
+            super.setSubmissionTime(clockTime);
+        }
+
+        @Override
+        public void setExecStartTime(double clockTime) {
+            super.setExecStartTime(clockTime);
+            write("Sets the execution start time to " + num.format(clockTime));
+        }
+
+        @Override
+        public void setExecParam(double wallTime, double actualTime) {
+            if (wallTime >= 0.0 && actualTime >= 0.0 && getResourceId() != -1) {
+                write("Sets the wall clock time to " + num.format(wallTime) + " and the actual CPU time to "
+                        + num.format(actualTime));
+            }
+            super.setExecParam(wallTime, actualTime);
+        }
+
+        @Override
+        public void setCloudletStatus(int newStatus) throws Exception {
+            if (getCloudletStatus() != newStatus && newStatus >= Cloudlet.CREATED
+                    && newStatus <= Cloudlet.FAILED_RESOURCE_UNAVAILABLE) {
+                write("Sets Cloudlet status from " + getCloudletStatusString() + " to "
+                        + Cloudlet.getStatusString(newStatus));
+            }
+            super.setCloudletStatus(newStatus);
+        }
+    }
+}
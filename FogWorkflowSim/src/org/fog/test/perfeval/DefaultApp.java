@@ -2,6 +2,7 @@ package org.fog.test.perfeval;
 
 import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.RandomStreams;
 import org.cloudbus.cloudsim.power.PowerHost;
 import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
@@ -370,6 +371,12 @@ public class DefaultApp {
 
         System.out.println("Optimization objective : "+optimize_objective);
 
+        // the master seed of the random streams can be given as the first argument
+        if (args.length > 0) {
+            RandomStreams.setMasterSeed(Long.parseLong(args[0]));
+        }
+        System.out.println("Random seed : "+RandomStreams.getMasterSeed());
+
         double deadline = Double.MAX_VALUE;
         simulate(deadline);
         CloudSim.startSimulation();
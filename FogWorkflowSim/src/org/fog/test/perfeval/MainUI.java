@@ -67,6 +67,7 @@ import org.cloudbus.cloudsim.Storage;
 import org.cloudbus.cloudsim.VmAllocationPolicySimple;
 import org.cloudbus.cloudsim.VmSchedulerTimeShared;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.RandomStreams;
 import org.cloudbus.cloudsim.core.SimEntity;
 import org.cloudbus.cloudsim.power.PowerHost;
 import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
@@ -190,6 +191,7 @@ public class MainUI extends JFrame {
 	private static String daxPath;
 	private static File XMLFile;
 	public static JTextField inputDL;
+	public static JTextField inputSeed;
 	
 	/**
 	 * Output Area
@@ -593,7 +595,9 @@ public class MainUI extends JFrame {
 		JLabel taskTypeLabel = new JLabel("Type:");
 		JLabel taskNumLabel = new JLabel("Amount:");
 		JLabel lblDeadline = new JLabel("Deadline:");
+		JLabel lblSeed = new JLabel("Seed:");
 		inputDL = new JTextField();
+		inputSeed = new JTextField(String.valueOf(RandomStreams.DEFAULT_MASTER_SEED));
 		panel_1.setBackground(Color.WHITE);
 		panel_1.setBounds(656, 185, 318, 130);
 		contentPane.add(panel_1);
@@ -644,6 +648,14 @@ public class MainUI extends JFrame {
 		inputDL.setColumns(10);
 		inputDL.setBounds(75, 102, 132, 23);
 		panel_1.add(inputDL);
+		
+		lblSeed.setFont(new Font("Consolas", Font.PLAIN, 12));
+		lblSeed.setBounds(215, 104, 40, 20);
+		panel_1.add(lblSeed);
+		
+		inputSeed.setColumns(10);
+		inputSeed.setBounds(255, 102, 58, 23);
+		panel_1.add(inputSeed);
 	}
 	
 	@SuppressWarnings("finally")
@@ -1607,6 +1619,11 @@ public class MainUI extends JFrame {
         	double deadline = Double.MAX_VALUE;
         	if(!inputDL.getText().isEmpty())
         		deadline = Double.valueOf(inputDL.getText()).doubleValue();
+        	//the master seed of the random streams
+        	long seed = RandomStreams.DEFAULT_MASTER_SEED;
+        	if(!inputSeed.getText().trim().isEmpty())
+        		seed = Long.parseLong(inputSeed.getText().trim());
+        	RandomStreams.setMasterSeed(seed);
         	simulate(deadline);
         	CloudSim.startSimulation();
         	List<Job> outputList0 = wfEngine.getJobsReceivedList();
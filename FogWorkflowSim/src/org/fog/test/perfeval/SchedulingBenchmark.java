@@ -0,0 +1,77 @@
+package org.fog.test.perfeval;
+
+import org.cloudbus.cloudsim.CloudletSchedulerSpaceShared;
+import org.cloudbus.cloudsim.Log;
+import org.workflowsim.CondorVM;
+import org.workflowsim.Job;
+import org.workflowsim.WorkflowSimTags;
+import org.workflowsim.scheduling.BaseSchedulingAlgorithm;
+import org.workflowsim.scheduling.MCTSchedulingAlgorithm;
+import org.workflowsim.scheduling.MaxMinSchedulingAlgorithm;
+import org.workflowsim.scheduling.MinMinSchedulingAlgorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Schedules a bag of independent jobs on a set of VMs with the MinMin, MaxMin and MCT algorithms and prints the
+ * average time of a scheduling pass. The arguments are the quantity of jobs, the quantity of VMs, the fraction of busy
+ * VMs and the quantity of repetitions (by default 100000 jobs, 1000 VMs, 0.5 and 5).
+ *
+ * @since TSP Extension 1.0
+ */
+public class SchedulingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int job_quantity = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int vm_quantity = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        double busy_fraction = args.length > 2 ? Double.parseDouble(args[2]) : 0.5;
+        int repetitions = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        Log.disable();
+
+        benchmark("MinMin", MinMinSchedulingAlgorithm::new, job_quantity, vm_quantity, busy_fraction, repetitions);
+        benchmark("MaxMin", MaxMinSchedulingAlgorithm::new, job_quantity, vm_quantity, busy_fraction, repetitions);
+        benchmark("MCT", MCTSchedulingAlgorithm::new, job_quantity, vm_quantity, busy_fraction, repetitions);
+    }
+
+    /**
+     * Runs an algorithm several times, each one on a new bag of jobs and VMs generated with the same seed
+     */
+    private static void benchmark(String name, Supplier<BaseSchedulingAlgorithm> algorithm, int job_quantity,
+                                  int vm_quantity, double busy_fraction, int repetitions) throws Exception {
+        long total_time = 0;
+        int scheduled = 0;
+        for (int r = 0; r < repetitions; r++) {
+            Random random = new Random(r);
+
+            List<Job> jobs = new ArrayList<>(job_quantity);
+            for (int i = 0; i < job_quantity; i++) {
+                jobs.add(new Job(i, 1000 + random.nextInt(1000000)));
+            }
+
+            List<CondorVM> vms = new ArrayList<>(vm_quantity);
+            for (int i = 0; i < vm_quantity; i++) {
+                CondorVM vm = new CondorVM(i, 0, 1000 + random.nextInt(4000), 1, 1024, 100, 1000, "Xen",
+                        new CloudletSchedulerSpaceShared());
+                if (random.nextDouble() < busy_fraction) {
+                    vm.setState(WorkflowSimTags.VM_STATUS_BUSY);
+                }
+                vms.add(vm);
+            }
+
+            BaseSchedulingAlgorithm scheduler = algorithm.get();
+            scheduler.setCloudletList(jobs);
+            scheduler.setVmList(vms);
+
+            long start = System.nanoTime();
+            scheduler.run();
+            total_time += System.nanoTime() - start;
+            scheduled += scheduler.getScheduledList().size();
+        }
+        System.out.printf("%-7s jobs=%d vms=%d scheduled/pass=%d time/pass=%.3f ms%n", name, job_quantity,
+                vm_quantity, scheduled / repetitions, total_time / 1e6 / repetitions);
+    }
+}
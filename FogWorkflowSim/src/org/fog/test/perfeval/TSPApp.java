@@ -1,6 +1,7 @@
 package org.fog.test.perfeval;
 import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.RandomStreams;
 import org.cloudbus.cloudsim.power.PowerHost;
 import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
 import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
@@ -92,7 +93,8 @@ public class TSPApp {
 
         fogNodesFeatures = new double[numFogDevices][];
 
-        Random generator = new Random(42);
+        // the same stream in every episode, so the fog nodes only change with the master seed
+        SplittableRandom generator = RandomStreams.stream("TSPApp.fogNodesFeatures", 0);
 
         for (int i=0; i < TSPApp.numFogDevices; i++){
             int random =generator.nextInt(availableFogNodesFeatures.length);
@@ -480,6 +482,19 @@ public class TSPApp {
     }
 
     public static void runExplorationMode() throws IOException {
+        runExplorationMode(new int[]{
+                3,
+                7,
+                42,
+        });
+    }
+
+    /**
+     * Runs the exploration mode once for every master seed of the random streams
+     *
+     * @param randomSeeds the master seeds
+     */
+    public static void runExplorationMode(int[] randomSeeds) throws IOException {
         System.out.println("Starting TSP in Exploration mode...");
         double deadline = Double.MAX_VALUE;
 
@@ -501,12 +516,6 @@ public class TSPApp {
                 {"TSP_Placement", Parameters.TSPStrategy.TP_DRL},
                 {"TSP_Scheduling_Placement", Parameters.TSPStrategy.TSP_DRL}
         };
-        int [] randomSeeds = new int[]{
-                3,
-                7,
-                42,
-        };
-
         int numEpisodes = 300;
 
         boolean drlLoadPretrainedModelOn = false;
@@ -527,6 +536,7 @@ public class TSPApp {
                     Parameters.TSPStrategy strategy = (Parameters.TSPStrategy) schedulerStrategy[1];
 
                     for (int randomSeed : randomSeeds) {
+                        RandomStreams.setMasterSeed(randomSeed);
 
                         for (int episode_number=0; episode_number < numEpisodes; episode_number++){
 
@@ -602,7 +612,16 @@ public class TSPApp {
 
     public static void main(String[] args) {
         try {
-            runExplorationMode();
+            // the master seeds of the random streams can be given as arguments
+            if (args.length > 0) {
+                int[] randomSeeds = new int[args.length];
+                for (int i = 0; i < args.length; i++) {
+                    randomSeeds[i] = Integer.parseInt(args[i]);
+                }
+                runExplorationMode(randomSeeds);
+            } else {
+                runExplorationMode();
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -1,6 +1,6 @@
 package org.fog.utils.distribution;
 
-import java.util.Random;
+import org.cloudbus.cloudsim.core.RandomStreams;
 
 public class NormalDistribution extends Distribution{
 
@@ -10,7 +10,7 @@ public class NormalDistribution extends Distribution{
 	public NormalDistribution(double mean, double stdDev) {
 		setMean(mean);
 		setStdDev(stdDev);
-		setRandom(new Random());
+		setRandom(RandomStreams.random("NormalDistribution"));
 	}
 	
 	@Override
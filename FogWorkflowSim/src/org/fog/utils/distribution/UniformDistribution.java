@@ -1,5 +1,7 @@
 package org.fog.utils.distribution;
 
+import org.cloudbus.cloudsim.core.RandomStreams;
+
 public class UniformDistribution extends Distribution{
 
 	private double min;
@@ -9,6 +11,7 @@ public class UniformDistribution extends Distribution{
 		super();
 		setMin(min);
 		setMax(max);
+		setRandom(RandomStreams.random("UniformDistribution"));
 	}
 	
 	@Override
@@ -204,15 +204,10 @@ public final class ClusteringEngine extends SimEntity {
          * all the files to be the input of this stage-in job so that
          * WorkflowSim will transfers them when this job is executed
          */
-        List<FileItem> fileList = new ArrayList<>();
-        for (FileItem file : list) {
-            /**
-             * To avoid duplicate files
-             */
-            if (file.isRealInputFile(list)) {
-                ReplicaCatalog.addFileToStorage(file.getName(), Parameters.SOURCE);
-                fileList.add(file);
-            }
+        List<FileItem> fileList = FileItem.getRealInputFiles(list);
+        int sourceStorageId = ReplicaCatalog.getStorageId(Parameters.SOURCE);
+        for (FileItem file : fileList) {
+            ReplicaCatalog.addFileToStorage(file.getId(), sourceStorageId);
         }
         job.setFileList(fileList);
         job.setClassType(ClassType.STAGE_IN.value);
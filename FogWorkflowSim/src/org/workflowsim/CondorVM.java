@@ -35,6 +35,12 @@ public class CondorVM extends PowerVm {
      */
     private int state;
 
+    /**
+     * TSP modification: the registry notified of the state changes of this VM and its position in it
+     */
+    private TSPServerRegistry serverRegistry;
+    private int serverRegistryIndex;
+
     /**
      * the cost of using memory in this resource
      */
@@ -197,6 +203,9 @@ public class CondorVM extends PowerVm {
      */
     public final void setState(int tag) {
         this.state = tag;
+        if (serverRegistry != null) {
+            serverRegistry.updateServerState(serverRegistryIndex, tag);
+        }
 //        double timenow = CloudSim.clock();
 //        double idletime = 0.0 , executiontime = 0.0;
 //        flag = true;
@@ -218,6 +227,17 @@ public class CondorVM extends PowerVm {
 //        }
     }
 
+    /**
+     * TSP modification: sets the registry to be notified of the state changes of this VM
+     *
+     * @param serverRegistry the registry
+     * @param serverRegistryIndex the position of this VM in the registry
+     */
+    void setServerRegistry(TSPServerRegistry serverRegistry, int serverRegistryIndex) {
+        this.serverRegistry = serverRegistry;
+        this.serverRegistryIndex = serverRegistryIndex;
+    }
+
     /**
      * Gets the state of the task
      *
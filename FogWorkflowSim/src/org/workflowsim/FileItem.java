@@ -16,8 +16,10 @@
 package org.workflowsim;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import org.workflowsim.utils.Parameters.FileType;
+import org.workflowsim.utils.ReplicaCatalog;
 
 /**
  * This is a file implementation in WorkflowSim. Since CloudSim has already
@@ -28,23 +30,31 @@ import org.workflowsim.utils.Parameters.FileType;
  * we would like to specify the type (input, output, intermediate) which is a
  * different concept to the type in CloudSim.
  *
+ * TSP modification: the name of a file is interned to a dense integer id when
+ * the file is created (the workflow parser creates them), so the files can be
+ * compared and indexed by id.
+ *
  * @author weiweich
  */
 public class FileItem {
 
     private String name;
 
+    private int id;
+
     private double size;
 
     private FileType type;
 
     public FileItem(String name, double size) {
         this.name = name;
+        this.id = ReplicaCatalog.getFileId(name);
         this.size = size;
     }
 
     public void setName(String name) {
         this.name = name;
+        this.id = ReplicaCatalog.getFileId(name);
     }
 
     public void setSize(double size) {
@@ -59,6 +69,15 @@ public class FileItem {
         return this.name;
     }
 
+    /**
+     * Gets the interned id of the file name
+     *
+     * @return the file id
+     */
+    public int getId() {
+        return this.id;
+    }
+
     public double getSize() {
         return this.size;
     }
@@ -80,7 +99,7 @@ public class FileItem {
         if (this.getType() == FileType.INPUT)//input file
         {
             for (FileItem another : list) {
-                if (another.getName().equals(this.getName())
+                if (another.getId() == this.getId()
                         /**
                          * if another file is output file
                          */
@@ -92,4 +111,28 @@ public class FileItem {
         }
         return false;
     }
+
+    /**
+     * Gets the files of a list that must be staged in, that is, the input
+     * files that are not an output file of the same list. It is equivalent to
+     * filter the list with isRealInputFile but takes a single pass over it.
+     *
+     * @param list the files of a job
+     * @return the real input files, in the order of the list
+     */
+    public static List<FileItem> getRealInputFiles(List<FileItem> list) {
+        BitSet outputs = new BitSet();
+        for (FileItem file : list) {
+            if (file.getType() == FileType.OUTPUT) {
+                outputs.set(file.getId());
+            }
+        }
+        List<FileItem> realInputFiles = new ArrayList<>();
+        for (FileItem file : list) {
+            if (file.getType() == FileType.INPUT && !outputs.get(file.getId())) {
+                realInputFiles.add(file);
+            }
+        }
+        return realInputFiles;
+    }
 }
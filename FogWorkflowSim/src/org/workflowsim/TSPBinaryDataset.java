@@ -0,0 +1,359 @@
+package org.workflowsim;
+
+import com.opencsv.exceptions.CsvValidationException;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memory-mapped reader of the binary version of a TSP dataset. The file is created once from the Jobs.csv and
+ * Tasks.csv files with {@link #convert(TSPDatasetReader, String)} and has the following layout (big endian):
+ *
+ * <pre>
+ * header:      magic (int), version (int), job quantity (int), task quantity (int), constraint blob size (long)
+ * job table:   job id (int), max parallel executable tasks (int), constraint offset (long)   x job quantity
+ * task table:  one column per field, each one with task quantity fixed-width values, in this order:
+ *              job id (int), task id (int), mi (long), ram (long), storage (long), arrival time (long),
+ *              time deadline final (long), priority (int)
+ * constraints: for each job, group quantity (int) and, for each group, group size (int) and its task ids (int)
+ * </pre>
+ *
+ * Every column is mapped on its own, so the tasks are materialized lazily by index without reading the whole file
+ * into the heap.
+ *
+ * @since TSP Extension 1.0
+ */
+public final class TSPBinaryDataset implements TSPDatasetReader {
+
+    /**
+     * Name of the binary file inside the dataset folder
+     */
+    public static final String FILE_NAME = "Dataset.tspd";
+
+    /**
+     * Identifies the binary files ("TSPD")
+     */
+    private static final int MAGIC = 0x54535044;
+
+    /**
+     * Version of the binary format
+     */
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8;
+
+    private static final int JOB_RECORD_SIZE = 4 + 4 + 8;
+
+    /**
+     * Datasets already mapped, indexed by their file
+     */
+    private static final Map<String, TSPBinaryDataset> datasets = new HashMap<>();
+
+    /**
+     * Gets the dataset stored in a binary file, mapping it only the first time it is requested
+     *
+     * @param file the binary file
+     * @return the dataset
+     * @throws IOException if the file can not be read or it is not a valid dataset
+     */
+    public static synchronized TSPBinaryDataset load(String file) throws IOException {
+        TSPBinaryDataset dataset = datasets.get(file);
+        if (dataset == null) {
+            dataset = new TSPBinaryDataset(file);
+            datasets.put(file, dataset);
+        }
+        return dataset;
+    }
+
+    /**
+     * Checks if a dataset folder has a binary file which is not older than its Jobs.csv and Tasks.csv files, so it
+     * can be used instead of them
+     *
+     * @param path the dataset folder
+     * @return true if the binary file exists and it is up to date, false otherwise
+     */
+    public static boolean isUpToDate(String path) {
+        File binary_file = new File(path, FILE_NAME);
+        if (!binary_file.isFile()) {
+            return false;
+        }
+        long binary_time = binary_file.lastModified();
+        return binary_time >= new File(path, "Jobs.csv").lastModified()
+                && binary_time >= new File(path, "Tasks.csv").lastModified();
+    }
+
+    /**
+     * Removes all the mapped datasets from the cache
+     */
+    public static synchronized void clearCache() {
+        datasets.clear();
+    }
+
+    private final int job_quantity;
+    private final int task_quantity;
+
+    private final MappedByteBuffer jobs;
+    private final MappedByteBuffer constraints;
+
+    private final IntBuffer task_job_ids;
+    private final IntBuffer task_ids;
+    private final LongBuffer task_mi;
+    private final LongBuffer task_ram;
+    private final LongBuffer task_storage;
+    private final LongBuffer task_arrival_time;
+    private final LongBuffer task_time_deadline_final;
+    private final IntBuffer task_priority;
+
+    /**
+     * Maps a binary dataset
+     *
+     * @param file the binary file
+     */
+    private TSPBinaryDataset(String file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a TSP binary dataset");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has the unsupported version " + version);
+            }
+            job_quantity = header.getInt();
+            task_quantity = header.getInt();
+            long constraints_size = header.getLong();
+
+            long position = HEADER_SIZE;
+            jobs = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) job_quantity * JOB_RECORD_SIZE);
+            position += (long) job_quantity * JOB_RECORD_SIZE;
+
+            long int_column = (long) task_quantity * 4;
+            long long_column = (long) task_quantity * 8;
+
+            task_job_ids = channel.map(FileChannel.MapMode.READ_ONLY, position, int_column).asIntBuffer();
+            position += int_column;
+            task_ids = channel.map(FileChannel.MapMode.READ_ONLY, position, int_column).asIntBuffer();
+            position += int_column;
+            task_mi = channel.map(FileChannel.MapMode.READ_ONLY, position, long_column).asLongBuffer();
+            position += long_column;
+            task_ram = channel.map(FileChannel.MapMode.READ_ONLY, position, long_column).asLongBuffer();
+            position += long_column;
+            task_storage = channel.map(FileChannel.MapMode.READ_ONLY, position, long_column).asLongBuffer();
+            position += long_column;
+            task_arrival_time = channel.map(FileChannel.MapMode.READ_ONLY, position, long_column).asLongBuffer();
+            position += long_column;
+            task_time_deadline_final = channel.map(FileChannel.MapMode.READ_ONLY, position, long_column).asLongBuffer();
+            position += long_column;
+            task_priority = channel.map(FileChannel.MapMode.READ_ONLY, position, int_column).asIntBuffer();
+            position += int_column;
+
+            constraints = channel.map(FileChannel.MapMode.READ_ONLY, position, constraints_size);
+        }
+    }
+
+    @Override
+    public int getNumberOfJobs() {
+        return job_quantity;
+    }
+
+    @Override
+    public int getNumberOfTasks() {
+        return task_quantity;
+    }
+
+    /**
+     * Gets the position of a field of a job record in the job table
+     *
+     * @param index the position of the job in the dataset
+     * @param field the offset of the field inside the record
+     * @return the position in the job table
+     */
+    private static int jobPosition(int index, int field) {
+        return Math.toIntExact((long) index * JOB_RECORD_SIZE + field);
+    }
+
+    @Override
+    public int getJobId(int index) {
+        return jobs.getInt(jobPosition(index, 0));
+    }
+
+    @Override
+    public int getJobMaxParallelExecutableTasks(int index) {
+        return jobs.getInt(jobPosition(index, 4));
+    }
+
+    @Override
+    public int[][] getJobTasksWhichCanRunInParallel(int index) {
+        long position = jobs.getLong(jobPosition(index, 8));
+
+        int[][] groups = new int[constraints.getInt(Math.toIntExact(position))][];
+        position += 4;
+        for (int i = 0; i < groups.length; i++) {
+            int[] group = new int[constraints.getInt(Math.toIntExact(position))];
+            position += 4;
+            for (int j = 0; j < group.length; j++) {
+                group[j] = constraints.getInt(Math.toIntExact(position));
+                position += 4;
+            }
+            groups[i] = group;
+        }
+        return groups;
+    }
+
+    @Override
+    public int getTaskJobId(int index) {
+        return task_job_ids.get(index);
+    }
+
+    @Override
+    public int getTaskId(int index) {
+        return task_ids.get(index);
+    }
+
+    @Override
+    public long getTaskMi(int index) {
+        return task_mi.get(index);
+    }
+
+    @Override
+    public long getTaskRam(int index) {
+        return task_ram.get(index);
+    }
+
+    @Override
+    public long getTaskStorage(int index) {
+        return task_storage.get(index);
+    }
+
+    @Override
+    public long getTaskArrivalTime(int index) {
+        return task_arrival_time.get(index);
+    }
+
+    @Override
+    public long getTaskTimeDeadlineFinal(int index) {
+        return task_time_deadline_final.get(index);
+    }
+
+    @Override
+    public int getTaskPriority(int index) {
+        return task_priority.get(index);
+    }
+
+    /**
+     * Positions of the tasks sorted by arrival time, computed the first time they are requested
+     */
+    private int[] task_indexes_by_arrival_time;
+
+    @Override
+    public synchronized int[] getTaskIndexesByArrivalTime() {
+        if (task_indexes_by_arrival_time == null) {
+            task_indexes_by_arrival_time = TSPDatasetReader.sortTaskIndexesByArrivalTime(this);
+        }
+        return task_indexes_by_arrival_time;
+    }
+
+    /**
+     * Writes a dataset in the binary format
+     *
+     * @param dataset the dataset to be written
+     * @param file the binary file
+     * @throws IOException if the file can not be written
+     */
+    public static void convert(TSPDatasetReader dataset, String file) throws IOException {
+        int job_quantity = dataset.getNumberOfJobs();
+        int task_quantity = dataset.getNumberOfTasks();
+
+        //computing where the constraints of each job start
+        long[] constraint_offsets = new long[job_quantity];
+        long constraints_size = 0;
+        for (int i = 0; i < job_quantity; i++) {
+            constraint_offsets[i] = constraints_size;
+            constraints_size += 4L;
+            for (int[] group : dataset.getJobTasksWhichCanRunInParallel(i)) {
+                constraints_size += 4L + 4L * group.length;
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(job_quantity);
+            out.writeInt(task_quantity);
+            out.writeLong(constraints_size);
+
+            for (int i = 0; i < job_quantity; i++) {
+                out.writeInt(dataset.getJobId(i));
+                out.writeInt(dataset.getJobMaxParallelExecutableTasks(i));
+                out.writeLong(constraint_offsets[i]);
+            }
+
+            for (int i = 0; i < task_quantity; i++) {
+                out.writeInt(dataset.getTaskJobId(i));
+            }
+            for (int i = 0; i < task_quantity; i++) {
+                out.writeInt(dataset.getTaskId(i));
+            }
+            for (int i = 0; i < task_quantity; i++) {
+                out.writeLong(dataset.getTaskMi(i));
+            }
+            for (int i = 0; i < task_quantity; i++) {
+                out.writeLong(dataset.getTaskRam(i));
+            }
+            for (int i = 0; i < task_quantity; i++) {
+                out.writeLong(dataset.getTaskStorage(i));
+            }
+            for (int i = 0; i < task_quantity; i++) {
+                out.writeLong(dataset.getTaskArrivalTime(i));
+            }
+            for (int i = 0; i < task_quantity; i++) {
+                out.writeLong(dataset.getTaskTimeDeadlineFinal(i));
+            }
+            for (int i = 0; i < task_quantity; i++) {
+                out.writeInt(dataset.getTaskPriority(i));
+            }
+
+            for (int i = 0; i < job_quantity; i++) {
+                int[][] groups = dataset.getJobTasksWhichCanRunInParallel(i);
+                out.writeInt(groups.length);
+                for (int[] group : groups) {
+                    out.writeInt(group.length);
+                    for (int task_id : group) {
+                        out.writeInt(task_id);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts the Jobs.csv and Tasks.csv files of a dataset folder to the binary format, writing the result in the
+     * same folder
+     *
+     * @param args the dataset folders, e.g. datasets/1k
+     */
+    public static void main(String[] args) throws IOException, CsvValidationException {
+        if (args.length == 0) {
+            System.out.println("Usage: TSPBinaryDataset <dataset folder> [<dataset folder> ...]");
+            return;
+        }
+        for (String path : args) {
+            TSPDataset dataset = TSPDataset.load(path);
+            String file = path + "/" + FILE_NAME;
+            convert(dataset, file);
+            System.out.println(path + ": " + dataset.getNumberOfTasks() + " tasks of " + dataset.getNumberOfJobs()
+                    + " jobs written to " + file);
+        }
+    }
+}
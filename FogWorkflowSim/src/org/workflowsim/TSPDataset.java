@@ -0,0 +1,304 @@
+package org.workflowsim;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import org.workflowsim.utils.TSPJobManager;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The Jobs.csv and Tasks.csv files are parsed only once per path and kept as primitive arrays. Each episode
+ * registers the job restrictions and instantiates its TSPTask objects from these arrays, so the episode startup
+ * does not need to read or parse the CSV files again.
+ *
+ * @since TSP Extension 1.0
+ */
+public final class TSPDataset implements TSPDatasetReader {
+
+    /**
+     * Datasets already loaded, indexed by their path
+     */
+    private static final Map<String, TSPDataset> datasets = new HashMap<>();
+
+    /**
+     * Gets the dataset stored in a path, parsing it only the first time it is requested
+     *
+     * @param path the path where are the Jobs.csv and Tasks.csv files
+     * @return the dataset
+     * @throws IOException if the files can not be read
+     * @throws CsvValidationException if the files are not valid CSV files
+     */
+    public static synchronized TSPDataset load(String path) throws IOException, CsvValidationException {
+        TSPDataset dataset = datasets.get(path);
+        if (dataset == null) {
+            dataset = new TSPDataset(path);
+            datasets.put(path, dataset);
+        }
+        return dataset;
+    }
+
+    /**
+     * Removes all the loaded datasets from memory
+     */
+    public static synchronized void clearCache() {
+        datasets.clear();
+    }
+
+    /**
+     * Job ids, in the order in which the jobs are registered
+     */
+    private int[] job_ids;
+
+    /**
+     * Maximum number of tasks can be executed simultaneously in each job
+     */
+    private int[] job_max_parallel_executable_tasks;
+
+    /**
+     * Task lists can be executed simultaneously in each job
+     */
+    private int[][][] job_tasks_which_can_run_in_parallel;
+
+    /**
+     * Quantity of jobs
+     */
+    private int job_quantity;
+
+    /**
+     * Job id of each task
+     */
+    private int[] task_job_ids;
+
+    /**
+     * Id of each task inside its job
+     */
+    private int[] task_ids;
+
+    /**
+     * Millions of instructions of each task, without the runtime scale
+     */
+    private long[] task_mi;
+
+    /**
+     * Amount of RAM needed by each task
+     */
+    private long[] task_ram;
+
+    /**
+     * Amount of storage needed by each task
+     */
+    private long[] task_storage;
+
+    /**
+     * Arrival time of each task
+     */
+    private long[] task_arrival_time;
+
+    /**
+     * Maximum time to execute each task
+     */
+    private long[] task_time_deadline_final;
+
+    /**
+     * Priority of each task
+     */
+    private int[] task_priority;
+
+    /**
+     * Quantity of tasks
+     */
+    private int task_quantity;
+
+    /**
+     * Parses the dataset stored in a path
+     *
+     * @param path the path where are the Jobs.csv and Tasks.csv files
+     */
+    private TSPDataset(String path) throws IOException, CsvValidationException {
+        job_ids = new int[64];
+        job_max_parallel_executable_tasks = new int[64];
+        job_tasks_which_can_run_in_parallel = new int[64][][];
+        task_job_ids = new int[1024];
+        task_ids = new int[1024];
+        task_mi = new long[1024];
+        task_ram = new long[1024];
+        task_storage = new long[1024];
+        task_arrival_time = new long[1024];
+        task_time_deadline_final = new long[1024];
+        task_priority = new int[1024];
+
+        try (CSVReader job_reader = new CSVReader(new FileReader(path + "/Jobs.csv"));
+             CSVReader task_reader = new CSVReader(new FileReader(path + "/Tasks.csv"))) {
+
+            long last_job_submission = 0;
+
+            //skip the headers
+            job_reader.readNext();
+            task_reader.readNext();
+
+            //reading job information
+            String[] job_info;
+
+            while ((job_info = job_reader.readNext()) != null) {
+
+                int job_id = Integer.parseInt(job_info[1]);
+
+                //compiling the job restrictions
+                addJob(job_id, Integer.parseInt(job_info[19]), TSPJobManager.parseTasksWhichCanRunInParallel(job_info[21]));
+
+                //reading job's tasks
+                String[] task_info = task_reader.peek();
+
+                // vew validation because duplicated jobs
+                if (task_info == null){
+                    break;
+                }
+
+                int task_job_id = Integer.parseInt(task_info[2]);
+
+                last_job_submission = last_job_submission + Long.parseLong(job_info[5]);
+
+                while (task_job_id == job_id){
+
+                    task_job_id = Integer.parseInt(task_info[2]);
+
+                    long task_time_submission = last_job_submission + Long.parseLong(task_info[7]);
+
+                    addTask(task_job_id,
+                            Integer.parseInt(task_info[1]),
+                            Long.parseLong(task_info[3]),
+                            Long.parseLong(task_info[4]),
+                            Long.parseLong(task_info[5]),
+                            task_time_submission,
+                            task_time_submission + Long.parseLong(task_info[9]),
+                            Integer.parseInt(task_info[17]));
+
+                    //going to th next task
+                    task_info = task_reader.readNext();
+
+                    if (task_info == null){
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private void addJob(int job_id, int max_parallel_executable_tasks, int[][] tasks_which_can_run_in_parallel) {
+        if (job_quantity == job_ids.length) {
+            int capacity = job_quantity * 2;
+            job_ids = Arrays.copyOf(job_ids, capacity);
+            job_max_parallel_executable_tasks = Arrays.copyOf(job_max_parallel_executable_tasks, capacity);
+            job_tasks_which_can_run_in_parallel = Arrays.copyOf(job_tasks_which_can_run_in_parallel, capacity);
+        }
+        job_ids[job_quantity] = job_id;
+        job_max_parallel_executable_tasks[job_quantity] = max_parallel_executable_tasks;
+        job_tasks_which_can_run_in_parallel[job_quantity] = tasks_which_can_run_in_parallel;
+        job_quantity++;
+    }
+
+    private void addTask(int job_id, int task_id, long mi, long ram, long storage, long arrival_time,
+                         long time_deadline_final, int priority) {
+        if (task_quantity == task_ids.length) {
+            int capacity = task_quantity * 2;
+            task_job_ids = Arrays.copyOf(task_job_ids, capacity);
+            task_ids = Arrays.copyOf(task_ids, capacity);
+            task_mi = Arrays.copyOf(task_mi, capacity);
+            task_ram = Arrays.copyOf(task_ram, capacity);
+            task_storage = Arrays.copyOf(task_storage, capacity);
+            task_arrival_time = Arrays.copyOf(task_arrival_time, capacity);
+            task_time_deadline_final = Arrays.copyOf(task_time_deadline_final, capacity);
+            task_priority = Arrays.copyOf(task_priority, capacity);
+        }
+        task_job_ids[task_quantity] = job_id;
+        task_ids[task_quantity] = task_id;
+        task_mi[task_quantity] = mi;
+        task_ram[task_quantity] = ram;
+        task_storage[task_quantity] = storage;
+        task_arrival_time[task_quantity] = arrival_time;
+        task_time_deadline_final[task_quantity] = time_deadline_final;
+        task_priority[task_quantity] = priority;
+        task_quantity++;
+    }
+
+    @Override
+    public int getNumberOfJobs() {
+        return job_quantity;
+    }
+
+    @Override
+    public int getNumberOfTasks() {
+        return task_quantity;
+    }
+
+    @Override
+    public int getJobId(int index) {
+        return job_ids[index];
+    }
+
+    @Override
+    public int getJobMaxParallelExecutableTasks(int index) {
+        return job_max_parallel_executable_tasks[index];
+    }
+
+    @Override
+    public int[][] getJobTasksWhichCanRunInParallel(int index) {
+        return job_tasks_which_can_run_in_parallel[index];
+    }
+
+    @Override
+    public int getTaskJobId(int index) {
+        return task_job_ids[index];
+    }
+
+    @Override
+    public int getTaskId(int index) {
+        return task_ids[index];
+    }
+
+    @Override
+    public long getTaskMi(int index) {
+        return task_mi[index];
+    }
+
+    @Override
+    public long getTaskRam(int index) {
+        return task_ram[index];
+    }
+
+    @Override
+    public long getTaskStorage(int index) {
+        return task_storage[index];
+    }
+
+    @Override
+    public long getTaskArrivalTime(int index) {
+        return task_arrival_time[index];
+    }
+
+    @Override
+    public long getTaskTimeDeadlineFinal(int index) {
+        return task_time_deadline_final[index];
+    }
+
+    @Override
+    public int getTaskPriority(int index) {
+        return task_priority[index];
+    }
+
+    /**
+     * Positions of the tasks sorted by arrival time, computed the first time they are requested
+     */
+    private int[] task_indexes_by_arrival_time;
+
+    @Override
+    public synchronized int[] getTaskIndexesByArrivalTime() {
+        if (task_indexes_by_arrival_time == null) {
+            task_indexes_by_arrival_time = TSPDatasetReader.sortTaskIndexesByArrivalTime(this);
+        }
+        return task_indexes_by_arrival_time;
+    }
+}
@@ -0,0 +1,190 @@
+package org.workflowsim;
+
+import org.workflowsim.utils.Parameters;
+import org.workflowsim.utils.TSPJobManager;
+import java.util.Arrays;
+
+/**
+ * Read access to a TSP dataset, regardless of the format in which it is stored. The tasks are materialized by index,
+ * so a reader never needs to keep TSPTask objects for the whole dataset in memory.
+ *
+ * @since TSP Extension 1.0
+ */
+public interface TSPDatasetReader {
+
+    /**
+     * Gets the quantity of jobs
+     *
+     * @return the quantity of jobs
+     */
+    int getNumberOfJobs();
+
+    /**
+     * Gets the quantity of tasks
+     *
+     * @return the quantity of tasks
+     */
+    int getNumberOfTasks();
+
+    /**
+     * Gets the id of a job
+     *
+     * @param index the position of the job in the dataset
+     * @return the job id
+     */
+    int getJobId(int index);
+
+    /**
+     * Gets the maximum number of tasks can be executed simultaneously in a job
+     *
+     * @param index the position of the job in the dataset
+     * @return the maximum number of tasks can be executed simultaneously
+     */
+    int getJobMaxParallelExecutableTasks(int index);
+
+    /**
+     * Gets the groups of task ids can be executed simultaneously in a job
+     *
+     * @param index the position of the job in the dataset
+     * @return the groups of task ids
+     */
+    int[][] getJobTasksWhichCanRunInParallel(int index);
+
+    /**
+     * Gets the job id of a task
+     *
+     * @param index the position of the task in the dataset
+     * @return the job id
+     */
+    int getTaskJobId(int index);
+
+    /**
+     * Gets the id of a task inside its job
+     *
+     * @param index the position of the task in the dataset
+     * @return the task id
+     */
+    int getTaskId(int index);
+
+    /**
+     * Gets the millions of instructions of a task, without the runtime scale
+     *
+     * @param index the position of the task in the dataset
+     * @return the millions of instructions
+     */
+    long getTaskMi(int index);
+
+    /**
+     * Gets the amount of RAM needed by a task
+     *
+     * @param index the position of the task in the dataset
+     * @return the amount of RAM
+     */
+    long getTaskRam(int index);
+
+    /**
+     * Gets the amount of storage needed by a task
+     *
+     * @param index the position of the task in the dataset
+     * @return the amount of storage
+     */
+    long getTaskStorage(int index);
+
+    /**
+     * Gets the arrival time of a task
+     *
+     * @param index the position of the task in the dataset
+     * @return the arrival time
+     */
+    long getTaskArrivalTime(int index);
+
+    /**
+     * Gets the maximum time to execute a task
+     *
+     * @param index the position of the task in the dataset
+     * @return the maximum time to execute the task
+     */
+    long getTaskTimeDeadlineFinal(int index);
+
+    /**
+     * Gets the priority of a task
+     *
+     * @param index the position of the task in the dataset
+     * @return the priority
+     */
+    int getTaskPriority(int index);
+
+    /**
+     * Gets the positions of the tasks sorted by arrival time. Tasks with the same arrival time keep their order in
+     * the dataset
+     *
+     * @return the positions of the tasks
+     */
+    int[] getTaskIndexesByArrivalTime();
+
+    /**
+     * Registers the execution restrictions of every job in the TSPJobManager. It must be called once per episode,
+     * since the running state of the jobs is not shared between episodes
+     */
+    default void registerJobs() {
+        for (int i = 0; i < getNumberOfJobs(); i++) {
+            TSPJobManager.createTSPJob(getJobId(i), getJobMaxParallelExecutableTasks(i), getJobTasksWhichCanRunInParallel(i));
+        }
+    }
+
+    /**
+     * Creates a new task from the dataset
+     *
+     * @param index the position of the task in the dataset
+     * @param taskId the global id of the task
+     * @param userId the user id
+     * @return the task
+     */
+    default TSPTask createTask(int index, int taskId, int userId) {
+        long mi = getTaskMi(index) * (long) Parameters.getRuntimeScale();
+        TSPTask task = new TSPTask(taskId, getTaskJobId(index), getTaskId(index), mi, getTaskRam(index),
+                getTaskStorage(index), getTaskArrivalTime(index), getTaskTimeDeadlineFinal(index), getTaskPriority(index));
+        task.setUserId(userId);
+        return task;
+    }
+
+    /**
+     * Sorts the positions of the tasks of a dataset by arrival time, keeping the dataset order between tasks with the
+     * same arrival time
+     *
+     * @param dataset the dataset
+     * @return the positions of the tasks
+     */
+    static int[] sortTaskIndexesByArrivalTime(TSPDatasetReader dataset) {
+        int task_quantity = dataset.getNumberOfTasks();
+        int[] indexes = new int[task_quantity];
+
+        boolean packable = true;
+        for (int i = 0; i < task_quantity && packable; i++) {
+            long arrival_time = dataset.getTaskArrivalTime(i);
+            packable = arrival_time >= 0 && arrival_time <= Integer.MAX_VALUE;
+        }
+
+        if (packable) {
+            //arrival time in the high half and position in the low half, so a primitive sort is enough
+            long[] keys = new long[task_quantity];
+            for (int i = 0; i < task_quantity; i++) {
+                keys[i] = (dataset.getTaskArrivalTime(i) << 32) | i;
+            }
+            Arrays.parallelSort(keys);
+            for (int i = 0; i < task_quantity; i++) {
+                indexes[i] = (int) keys[i];
+            }
+        } else {
+            Integer[] boxed = new Integer[task_quantity];
+            for (int i = 0; i < task_quantity; i++) {
+                boxed[i] = i;
+            }
+            Arrays.sort(boxed, (a, b) -> Long.compare(dataset.getTaskArrivalTime(a), dataset.getTaskArrivalTime(b)));
+            for (int i = 0; i < task_quantity; i++) {
+                indexes[i] = boxed[i];
+            }
+        }
+        return indexes;
+    }
+}
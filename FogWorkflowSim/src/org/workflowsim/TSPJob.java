@@ -1,6 +1,5 @@
 package org.workflowsim;
 
-import java.util.ArrayList;
 import java.util.LinkedList;
 
 /**
@@ -20,7 +19,7 @@ public class TSPJob {
     /**
      * Task list can be executed simultaneously
      */
-    private ArrayList<ArrayList<Integer>> tasks_which_can_run_in_parallel;
+    private int[][] tasks_which_can_run_in_parallel;
 
     /**
      * List of tasks that are running at a certain time
@@ -37,7 +36,7 @@ public class TSPJob {
      * @param max_parallel_executable_tasks Maximum number of tasks can be executed simultaneously
      * @param tasks_which_can_run_in_parallel Task list can be executed simultaneously
      */
-    public TSPJob(int max_parallel_executable_tasks, ArrayList<ArrayList<Integer>> tasks_which_can_run_in_parallel) {
+    public TSPJob(int max_parallel_executable_tasks, int[][] tasks_which_can_run_in_parallel) {
         this.max_parallel_executable_tasks = max_parallel_executable_tasks;
         this.tasks_which_can_run_in_parallel = tasks_which_can_run_in_parallel;
         this.tasks_running = new LinkedList<>();
@@ -74,10 +73,10 @@ public class TSPJob {
             return false;
         }
 
-        for (ArrayList<Integer> tasks: this.tasks_which_can_run_in_parallel) {
-            if (tasks.contains(id)){
+        for (int[] tasks: this.tasks_which_can_run_in_parallel) {
+            if (contains(tasks, id)){
                 for (TSPTask task_running: this.tasks_running) {
-                    if (!tasks.contains(task_running.getTaskId())){
+                    if (!contains(tasks, task_running.getTaskId())){
                         return false;
                     }
                 }
@@ -87,4 +86,19 @@ public class TSPJob {
 
         return true;
     }
+
+    /**
+     * Checks if a task id belongs to a group of tasks
+     * @param tasks the group of tasks
+     * @param id the task id
+     * @return true if the id is in the group, else false
+     */
+    private static boolean contains(int[] tasks, int id) {
+        for (int task: tasks) {
+            if (task == id) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
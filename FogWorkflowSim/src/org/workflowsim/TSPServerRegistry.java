@@ -0,0 +1,146 @@
+package org.workflowsim;
+
+import org.cloudbus.cloudsim.Vm;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The VMs are classified once into the gateway VM (mobile layer) and the servers (fog and cloud layers). Every server
+ * notifies its state changes to the registry, which keeps the idle servers in a bitset, so checking if there are
+ * idle servers does not need to iterate over the VMs.
+ *
+ * @since TSP Extension 1.0
+ */
+public class TSPServerRegistry {
+
+    /**
+     * Quantity of VMs classified by the registry
+     */
+    private final int vm_quantity;
+
+    /**
+     * The gateway VM
+     */
+    private CondorVM gateway_vm;
+
+    /**
+     * The fog and cloud VMs, in the same order as in the VM list
+     */
+    private final List<Vm> server_vms;
+
+    /**
+     * Positions in server_vms of the idle servers
+     */
+    private final BitSet idle_servers;
+
+    /**
+     * Quantity of idle servers
+     */
+    private int idle_server_quantity;
+
+    /**
+     * Classifies the VMs and registers itself in the servers to be notified of their state changes
+     *
+     * @param vm_list the VM list
+     */
+    public TSPServerRegistry(List<? extends Vm> vm_list) {
+        vm_quantity = vm_list.size();
+
+        List<Vm> servers = new ArrayList<>();
+        for (Vm value : vm_list) {
+            CondorVM vm = (CondorVM) value;
+            if (vm.getHost().getDatacenter().getName().startsWith("m")) {
+                if (gateway_vm == null) {
+                    gateway_vm = vm;
+                }
+            } else {
+                servers.add(vm);
+            }
+        }
+        server_vms = Collections.unmodifiableList(servers);
+
+        idle_servers = new BitSet(servers.size());
+        for (int i = 0; i < servers.size(); i++) {
+            CondorVM vm = (CondorVM) servers.get(i);
+            vm.setServerRegistry(this, i);
+            if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                idle_servers.set(i);
+                idle_server_quantity++;
+            }
+        }
+    }
+
+    /**
+     * Updates the idle servers when the state of a server changes
+     *
+     * @param index the position of the server
+     * @param state the new state of the server
+     */
+    void updateServerState(int index, int state) {
+        boolean idle = state == WorkflowSimTags.VM_STATUS_IDLE;
+        if (idle != idle_servers.get(index)) {
+            idle_servers.set(index, idle);
+            idle_server_quantity += idle ? 1 : -1;
+        }
+    }
+
+    /**
+     * Gets the quantity of VMs classified by the registry
+     *
+     * @return the quantity of VMs
+     */
+    public int getVmQuantity() {
+        return vm_quantity;
+    }
+
+    /**
+     * Gets the gateway VM
+     *
+     * @return the gateway VM
+     */
+    public CondorVM getGatewayVm() {
+        return gateway_vm;
+    }
+
+    /**
+     * Gets the fog and cloud VMs
+     *
+     * @return an unmodifiable list of the fog and cloud VMs
+     */
+    public List<Vm> getServerVmList() {
+        return server_vms;
+    }
+
+    /**
+     * Gets the quantity of idle servers
+     *
+     * @return the quantity of idle servers
+     */
+    public int getIdleServerQuantity() {
+        return idle_server_quantity;
+    }
+
+    /**
+     * Checks if there are idle servers
+     *
+     * @return true if at least one server is idle
+     */
+    public boolean thereAreServersInIdle() {
+        return idle_server_quantity > 0;
+    }
+
+    /**
+     * Gets the idle servers, in the same order as in the VM list
+     *
+     * @return the idle servers
+     */
+    public List<CondorVM> getIdleServerVmList() {
+        List<CondorVM> idle_vms = new ArrayList<>(idle_server_quantity);
+        for (int i = idle_servers.nextSetBit(0); i >= 0; i = idle_servers.nextSetBit(i + 1)) {
+            idle_vms.add((CondorVM) server_vms.get(i));
+        }
+        return idle_vms;
+    }
+}
@@ -6,14 +6,12 @@
  */
 package org.workflowsim;
 
-import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
 import org.workflowsim.utils.Parameters;
 import org.workflowsim.utils.TSPEnvHelper;
 import org.workflowsim.utils.TSPJobManager;
+import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
 
@@ -69,90 +67,81 @@ public final class TSPWorkflowParser {
     }
 
     /**
-     * TSP modification: This method replaces the "parseXmlFile" method to read the tasks
-     * @param path the path where are the job.csv and tasks.csv files
+     * The dataset of the simulation
      */
-    public void parseCsvFile(String path){
-        int episodeNo = Parameters.getEpisodeNumber();
-        TSPJobManager.setEpisodeNumber(episodeNo);
-        System.out.println("Loading dataset for episode: " + episodeNo);
-        int taskId;
-        try {
-            if (episodeNo == 0){
-                taskId=0;
-            }else{
-                taskId= TSPJobManager.getNumberOfTasksPerEpisode() * episodeNo;
-            }
-
-//            long last_task_submission = 0;
-            long last_job_submission = 0;
-
-            CSVReader job_reader = new CSVReader(new FileReader(path + "/Jobs.csv"));
-            CSVReader task_reader = new CSVReader(new FileReader(path + "/Tasks.csv"));
-
-            //skip the headers
-            job_reader.readNext();
-            task_reader.readNext();
-
-
-            //reading job information
-            String[] job_info;
-
-
-            while ((job_info = job_reader.readNext()) != null) {
-
-                int job_id = Integer.parseInt(job_info[1]);
-
-                //creating the TSPJob
-                TSPJobManager.createTSPJob(job_id, job_info[19], job_info[21]);
-
-                //reading job's tasks
-                String[] task_info = task_reader.peek();
-
-                // vew validation because duplicated jobs
-                if (task_info == null){
-                    break;
-                }
-
-                int task_job_id = Integer.parseInt(task_info[2]);
-
-                last_job_submission = last_job_submission + Long.parseLong(job_info[5]);
-
-                while (task_job_id == job_id){
-
-                    task_job_id = Integer.parseInt(task_info[2]);
-                    int task_id = Integer.parseInt(task_info[1]);
-                    long mi = Long.parseLong(task_info[3]) * (long)Parameters.getRuntimeScale();
-                    long ram = Long.parseLong(task_info[4]);
-                    long storage = Long.parseLong(task_info[5]);
+    private TSPDatasetReader dataset;
 
+    /**
+     * Global id of the first task of the current episode
+     */
+    private int firstTaskId;
 
-                    long task_time_submission = last_job_submission + Long.parseLong(task_info[7]);
+    /**
+     * Gets the dataset of the simulation
+     *
+     * @return the dataset, null if it was not opened yet
+     */
+    public TSPDatasetReader getDataset() {
+        return dataset;
+    }
 
-                    long time_deadline_final = task_time_submission + Long.parseLong(task_info[9]);
+    /**
+     * Opens the dataset stored in a path for the current episode and registers its jobs, without creating the
+     * tasks. The binary version of the dataset is used when the folder contains it and it is not older than the CSV
+     * files.
+     * @param path the path where are the job.csv and tasks.csv files
+     * @throws IOException if the dataset can not be read
+     * @throws CsvValidationException if the CSV files are not valid
+     */
+    public void openDataset(String path) throws IOException, CsvValidationException {
+        int episodeNo = Parameters.getEpisodeNumber();
+        TSPJobManager.setEpisodeNumber(episodeNo);
 
-                    int priority_no = Integer.parseInt(task_info[17]);
+        if (TSPBinaryDataset.isUpToDate(path)){
+            dataset = TSPBinaryDataset.load(new File(path, TSPBinaryDataset.FILE_NAME).getPath());
+        }else{
+            dataset = TSPDataset.load(path);
+        }
 
-                    //task creation
-                    TSPTask task = new TSPTask(taskId, task_job_id, task_id, mi, ram, storage, task_time_submission, time_deadline_final, priority_no);
-                    task.setUserId(userId);
+        if (episodeNo == 0){
+            firstTaskId=0;
+            //saving the number od tasks per episode
+            TSPJobManager.setNumberOfTasksPerEpisode(dataset.getNumberOfTasks());
+        }else{
+            firstTaskId= TSPJobManager.getNumberOfTasksPerEpisode() * episodeNo;
+        }
 
-                    this.getTaskList().add(task);
+        //creating the TSPJobs
+        dataset.registerJobs();
+    }
 
-                    //going to th next task
-                    task_info = task_reader.readNext();
+    /**
+     * Creates a task of the opened dataset
+     *
+     * @param index the position of the task in the dataset
+     * @return the task
+     */
+    public TSPTask createTask(int index) {
+        return dataset.createTask(index, firstTaskId + index, userId);
+    }
 
-                    taskId+=1;
-                    if (task_info == null){
-                        break;
-                    }
-                }
-            }
+    /**
+     * TSP modification: This method replaces the "parseXmlFile" method to read the tasks. The dataset files are
+     * parsed only in the first episode, the next ones instantiate the tasks from the cached dataset
+     * @param path the path where are the job.csv and tasks.csv files
+     */
+    public void parseCsvFile(String path){
+        System.out.println("Loading dataset for episode: " + Parameters.getEpisodeNumber());
+        try {
+            openDataset(path);
 
-            //saving the number od tasks per episode
-            if (episodeNo == 0){
-                TSPJobManager.setNumberOfTasksPerEpisode(this.getTaskList().size());
+            //task creation
+            int taskQuantity = dataset.getNumberOfTasks();
+            List<Task> taskList = new ArrayList<>(taskQuantity);
+            for (int i = 0; i < taskQuantity; i++) {
+                taskList.add(createTask(i));
             }
+            setTaskList(taskList);
 
             System.out.println("Dataset successfully loaded");
 
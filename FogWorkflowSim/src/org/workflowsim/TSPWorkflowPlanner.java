@@ -1,5 +1,4 @@
 package org.workflowsim;
-import java.util.List;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.CloudSimTags;
@@ -62,6 +61,21 @@ public final class TSPWorkflowPlanner extends SimEntity {
 
     private int workflowEngineId;
 
+    /**
+     * Maximum quantity of tasks sent to the broker ahead of the simulation clock
+     */
+    private static final int TASK_INJECTION_BATCH = 1024;
+
+    /**
+     * Positions of the dataset tasks sorted by arrival time
+     */
+    private int[] taskIndexesByArrivalTime;
+
+    /**
+     * Position in taskIndexesByArrivalTime of the next task to be sent to the broker
+     */
+    private int nextTaskToInject;
+
     /**
      * Gets the workflow engine
      *
@@ -83,17 +97,30 @@ public final class TSPWorkflowPlanner extends SimEntity {
     public void processEvent(SimEvent ev) {
         switch (ev.getTag()) {
             case WorkflowSimTags.START_SIMULATION:
-                getWorkflowParser().parse();
+                System.out.println("Loading dataset for episode: " + Parameters.getEpisodeNumber());
+                try {
+                    getWorkflowParser().openDataset(Parameters.getDaxPath());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    break;
+                }
+                System.out.println("Dataset successfully loaded");
+
+                TSPDatasetReader dataset = getWorkflowParser().getDataset();
+                taskIndexesByArrivalTime = dataset.getTaskIndexesByArrivalTime();
+                nextTaskToInject = 0;
 
-                List<Task> taskList = getWorkflowParser().getTaskList();
+                // scheduling the first Job (tasks) arrivals, before the quantity of tasks as it was done when the
+                // whole dataset was submitted up front
+                injectTasks();
 
                 int brokerId = CloudSim.getEntityId("MyFogScheduler");
-                // scheduling the Job (tasks) arrivals
-                for (Task task : taskList) {
-                    schedule(brokerId, ((TSPTask)task).getArrivalTime(), WorkflowSimTags.JOB_SUBMIT, task);
-                }
-                scheduleNow(brokerId, CloudSimTags.SEND_QTY_OF_TASKS, taskList.size());
-                getWorkflowEngine().setQuantityOfTasks(taskList.size());
+                scheduleNow(brokerId, CloudSimTags.SEND_QTY_OF_TASKS, dataset.getNumberOfTasks());
+                getWorkflowEngine().setQuantityOfTasks(dataset.getNumberOfTasks());
+                break;
+
+            case CloudSimTags.TSP_INJECT_TASKS:
+                injectTasks();
                 break;
 
             case CloudSimTags.END_OF_SIMULATION:
@@ -106,6 +133,31 @@ public final class TSPWorkflowPlanner extends SimEntity {
         }
     }
 
+    /**
+     * Schedules the arrival of the next tasks of the dataset in the broker. Instead of submitting the whole workload
+     * up front, only the next TASK_INJECTION_BATCH tasks (plus the ones arriving at the same time as the last of them)
+     * are created, and a new injection is scheduled for the arrival of the last one. This way the future event queue
+     * and the memory only hold the tasks that are about to arrive.
+     */
+    private void injectTasks() {
+        TSPDatasetReader dataset = getWorkflowParser().getDataset();
+        int brokerId = CloudSim.getEntityId("MyFogScheduler");
+
+        int end = Math.min(taskIndexesByArrivalTime.length, nextTaskToInject + TASK_INJECTION_BATCH);
+        long lastArrivalTime = -1;
+        while (nextTaskToInject < taskIndexesByArrivalTime.length
+                && (nextTaskToInject < end || dataset.getTaskArrivalTime(taskIndexesByArrivalTime[nextTaskToInject]) == lastArrivalTime)) {
+            TSPTask task = getWorkflowParser().createTask(taskIndexesByArrivalTime[nextTaskToInject]);
+            lastArrivalTime = task.getArrivalTime();
+            schedule(brokerId, lastArrivalTime - CloudSim.clock(), WorkflowSimTags.JOB_SUBMIT, task);
+            nextTaskToInject++;
+        }
+
+        if (nextTaskToInject < taskIndexesByArrivalTime.length) {
+            schedule(getId(), lastArrivalTime - CloudSim.clock(), CloudSimTags.TSP_INJECT_TASKS);
+        }
+    }
+
     /**
      * Overrides this method when making a new and different type of Broker.
      * This method is called by {@link #body()} for incoming unknown tags.
@@ -47,6 +47,13 @@ public class Task extends Cloudlet {
      * The list of all files (input data and ouput data)
      */
     private List<FileItem> fileList;
+    /*
+     * The real input files of the file list and the list and size they were
+     * classified from
+     */
+    private List<FileItem> realInputFiles;
+    private List<FileItem> classifiedFileList;
+    private int classifiedFileListSize;
     /*
      * The priority used for research. Not used in current version. 
      */
@@ -262,6 +269,24 @@ public class Task extends Cloudlet {
         this.fileList = list;
     }
 
+    /**
+     * Gets the input files that must be staged in, that is, the ones that are
+     * not an output of this task. They are classified the first time and again
+     * only if the file list is replaced or its size changes.
+     *
+     * @return the real input files, which must not be modified
+     */
+    public List<FileItem> getRealInputFiles() {
+        List<FileItem> list = getFileList();
+        if (realInputFiles == null || classifiedFileList != list
+                || classifiedFileListSize != list.size()) {
+            realInputFiles = FileItem.getRealInputFiles(list);
+            classifiedFileList = list;
+            classifiedFileListSize = list.size();
+        }
+        return realInputFiles;
+    }
+
     /**
      * Sets the impact factor
      *
@@ -16,11 +16,14 @@
 package org.workflowsim;
 
 import java.util.ArrayList;
-import java.util.Formatter;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
@@ -32,6 +35,7 @@ import org.cloudbus.cloudsim.core.SimEvent;
 import org.fog.entities.Controller;
 import org.fog.entities.FogBroker;
 import org.fog.entities.OffloadingEngine;
+import org.fog.entities.TSPController;
 import org.fog.entities.TSPFogBroker;
 import org.fog.utils.FogEvents;
 import org.workflowsim.reclustering.ReclusteringEngine;
@@ -55,25 +59,10 @@ public class WorkflowEngine extends SimEntity {
      * The job list.
      */
     protected List<? extends Cloudlet> jobsList;
-    public static double fitness[];
-    public static double fitness2[];
-    public static int index1=0;
-    public static int indexForUpdate=0;
-    public static int updateFlag=0;
-    public static int updateFlag2=0;
-    public static int startlastSchedule=0;
     public static List<Job> jobList =new ArrayList<Job>();
     
-    public static int already=0;
-    public static int  initIndexForGA=0;
-    public static int gaFlag=0;
-    public static int gaFlag2=0;
-    public static int  tempChildrenIndex=0;
-    public static double fitnessForGA[];
-    public static double fitnessForGATempChildren[]=new double[4];
     public static int findBestSchedule=0;
     public int iterateNum=0;
-	public static ArrayList<double[]> indicators =new ArrayList<double[]>();
 	public static ArrayList<Double> updatebest =new ArrayList<Double>();
 	public static List<Long> offloadingTimes = new ArrayList<>();
 	
@@ -215,16 +204,9 @@ public class WorkflowEngine extends SimEntity {
             case CloudSimTags.CLOUDLET_RETURN:
             	switch (Parameters.getSchedulingAlgorithm()) {
 				case PSO:
-					try {
-						processJobReturnForPSO(ev);
-					} catch (Exception e) {
-						// TODO Auto-generated catch block
-						e.printStackTrace();
-					}
-					break;
 				case GA:
 					try {
-						processJobReturnForGA(ev);
+						processJobReturnForBestSchedule(ev);
 					} catch (Exception e) {
 						// TODO Auto-generated catch block
 						e.printStackTrace();
@@ -342,6 +324,22 @@ public class WorkflowEngine extends SimEntity {
 	private int quantity_of_tasks;
 	public void setQuantityOfTasks(int qty){
 		this.quantity_of_tasks = qty;
+		this.reported_processed_tasks = -1;
+	}
+
+	/**
+	 * TSP modification: the progress is printed about a thousand times per simulation instead of once per returned
+	 * task
+	 */
+	private int reported_processed_tasks = -1;
+
+	private void reportProgress(int processed_tasks){
+		int step = Math.max(1, quantity_of_tasks / 1000);
+		if (processed_tasks != reported_processed_tasks && (processed_tasks == quantity_of_tasks
+				|| processed_tasks - reported_processed_tasks >= step || processed_tasks < reported_processed_tasks)){
+			reported_processed_tasks = processed_tasks;
+			System.out.print("\rProcessed tasks: " + processed_tasks);
+		}
 	}
 
 
@@ -358,6 +356,8 @@ public class WorkflowEngine extends SimEntity {
 
 		getJobsReceivedList().add(task);
 
+		((TSPController) getController()).updateTaskAccounting(task);
+
 		jobsSubmitted++;
 
 		// if all VMs are in idle & there is not more jobs so the simulation its finished
@@ -367,9 +367,9 @@ public class WorkflowEngine extends SimEntity {
 	}
 
 	public boolean checkAndEndSimulation(){
-		System.out.print("\r");
-		System.out.print("Processed tasks: "+ (jobsSubmitted + TSPJobManager.getTaskExceedingDeadlineQuantity()));
-		if (jobsSubmitted + TSPJobManager.getTaskExceedingDeadlineQuantity() != this.quantity_of_tasks){
+		int processed_tasks = jobsSubmitted + TSPJobManager.getTaskExceedingDeadlineQuantity();
+		reportProgress(processed_tasks);
+		if (processed_tasks != this.quantity_of_tasks){
 			return false;
 		}
 
@@ -385,240 +385,13 @@ public class WorkflowEngine extends SimEntity {
 		return false;
 	}
 
-
-
-
     /**
-     * Process a job return event.
-     *数据中心处理完成以后 ，工作流引擎调用processJobReturn方法：若任务处理失败，则调用ReclusteringEngine中的方法，以便重新执行此任务
-     *若任务处理成功，判断是否所有的任务都已经处理完成，若是，则通知调度机结束仿真，否则，通知自身继续提交任务
+     * Process a job return event of the PSO and the GA, which simulate only the best schedule found.
+     *
      * @param ev a SimEvent object
-     * @throws Exception 
-     * @pre ev != $null
-     * @post $none
+     * @throws Exception
      */
-    protected void processJobReturnForPSO(SimEvent ev) throws Exception {
-    	Job job = (Job) ev.getData();
-        if (job.getCloudletStatus() == Cloudlet.FAILED) {
-            // Reclusteringengine will add retry job to jobList
-        	System.out.println("failed");
-            int newId = getJobsList().size() + getJobsSubmittedList().size();
-            getJobsList().addAll(ReclusteringEngine.process(job, newId));
-        }
-        getJobsReceivedList().add(job);
-        jobsSubmitted--;
-        
-        if(getJobsList().isEmpty() && jobsSubmitted == 0) {
-    		//System.out.println("-------------------------------------------");
-        	if(index1 != PsoScheduling.particleNum) {
-        		already = 1;
-    			//处理完了一个粒子（初始化得到的粒子 ）
-             	FogBroker.count++;
-             	fitness[index1++] = caculatefitness();
-             	init();
-                if(index1 == PsoScheduling.particleNum) {
-	        		init();
-                	updateFlag = 1;
-                	updateFlag2 = 1;
-             	}
-             	sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null); 
-    		}
-        	else if(indexForUpdate != PsoScheduling.particleNum) {
- 	        	//处理完了所有的初始化得到的粒子,并且处理完了一个粒子（update后得到的粒子 ）
-        		int gbestIndex = 0;
-    			for(int i = 0; i < index1; i++) {
-    				if(fitness[i] < PsoScheduling.gbest_fitness) {
-    					 PsoScheduling.gbest_fitness = fitness[i];
-    					 gbestIndex = i;
-    				}
-    			}
-    			PsoScheduling.gbest_schedule = PsoScheduling.pbest_schedule.get(gbestIndex);//更新全局最优的调度方案
-    			
-    			FogBroker.count2++;
-	        	fitness2[indexForUpdate++] = caculatefitness();
-	        	if(FogBroker.count2 != PsoScheduling.particleNum && PsoScheduling.iterateNum > iterateNum) {
-	        		init();
-	        		sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null);
-	        	}
- 		    }
-            if(index1 == PsoScheduling.particleNum && indexForUpdate == PsoScheduling.particleNum) {
- 	        	//处理完了所有的初始化得到的粒子、update后得到的粒子
-            	if(PsoScheduling.iterateNum > iterateNum) {
-            		for(int i = 0; i < PsoScheduling.particleNum; i++) { 
-            			//更新个体最优
-            			if(fitness[i] > fitness2[i]) {
-            				int schedule1[] = PsoScheduling.pbest_schedule.get(i);
-            				int schedule2[] = PsoScheduling.newSchedules.get(i);
-            				for(int j = 0; j < schedule1.length; j++)
-            					schedule1[j] = schedule2[j];
-            				PsoScheduling.pbest_fitness[i] = fitness2[i]; 
-            			}
-            			else
-            				PsoScheduling.pbest_fitness[i]=fitness[i];
-	        		}
-            		fitness = PsoScheduling.pbest_fitness;
-            		for(int i = 0; i < PsoScheduling.particleNum; i++) {  //更新全局最优
-            			if(PsoScheduling.pbest_fitness[i] < PsoScheduling.gbest_fitness) {
-            				//index1=i;
-            				PsoScheduling.gbest_fitness = PsoScheduling.pbest_fitness[i];
-            				PsoScheduling.gbest_schedule = PsoScheduling.pbest_schedule.get(i);
-            			}
-            		}
-            		iterateNum++;
-            		System.out.println("After "+iterateNum+" iterations:");
-            		System.out.println("======gbest_fitness:========"+PsoScheduling.gbest_fitness);
-            		updatebest.add(PsoScheduling.gbest_fitness);
-//	              	printindicators(PsoScheduling.gbest_fitness);
-            		
-            		if(PsoScheduling.iterateNum != iterateNum) {
-    	        		indexForUpdate = 0;
-    	        		FogBroker.count2 = 0;
-    	        		getController().updateExecutionTime();
-        	        	init(); 
-         		    	updateFlag2 = 1;
-         		    	PsoScheduling.newSchedules.removeAll(PsoScheduling.newSchedules);
-         		    	sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null);
-    	        	}
-            	}
-            }
-            if(startlastSchedule == 1) {
-            	double f = caculatefitness();
-            	System.out.println("The last result : "+f);
-            	for (int i = 0; i < getSchedulerIds().size(); i++) {
-                    sendNow(getSchedulerId(i), CloudSimTags.END_OF_SIMULATION, null);
-                }
-     		}
-            if(PsoScheduling.iterateNum == iterateNum && startlastSchedule == 0) {
-            	for(int i = 0; i < PsoScheduling.particleNum; i++) {
-            		if(PsoScheduling.pbest_fitness[i] == PsoScheduling.gbest_fitness) {
-            			PsoScheduling.gbest_schedule = PsoScheduling.pbest_schedule.get(i);
-            		}
-            	}
-            	//记录pso结束时间
-            	endTime = System.currentTimeMillis();
-            	algorithmTime = endTime - getScheduler(0).startTime;
-            	
-            	startlastSchedule = 1;
-            	caculatefitness();
-            	init();
-            	//sendNow(this.getSchedulerId(0), CloudSimTags.CLOUDLET_SUBMIT, submittedList);
-            	sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null);
-            }
-        }
-        else{
-        	updateFlag2 = 0;
-        	sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null);
-        }
-//      sendNow(getSchedulerId(0), CloudSimTags.END_OF_SIMULATION, null);
-//    	sendNow(getcontrollerId(), FogEvents.STOP_SIMULATION,null);
-    }
-    
-    public double caculatefitness(){
-    	Controller controller = (Controller) CloudSim.getEntity(this.getcontrollerId());
-    	controller.updateExecutionTime();
-    	double energy = controller.TotalEnergy;  //单位J焦
-    	double time = controller.TotalExecutionTime;
-    	double cost = controller.TotalCost;
-//    	System.out.println("controller.time = "+controller.TotalExecutionTime);
-//    	System.out.println("------------------------------------------------------------------");
-//    	System.out.println("clock = "+CloudSim.clock());
-//    	System.out.println("------------------------------------------------------------------");
-    	
-    	if(time > DeadLine){
-    		energy = 10*energy*(time/DeadLine);
-    		cost = 10*cost*(time/DeadLine);
-    	}
-    	
-    	double[] a ={time,energy,cost};
-    	indicators.add(a);
-    	//System.out.println("\t"+time+"\t"+energy+"\t"+cost);
-    	switch (Parameters.getOptimization()) {
-		case Time:
-			return time;
-		case Energy:
-			return energy;
-		case Cost:
-			return cost;
-		default:
-			break;
-		}
-    	return 0;
-    }
-    
-    private int printindicators(double gbest_fitness) {
-    	@SuppressWarnings("resource")
-		Formatter formatter = new Formatter(System.out);
-//    	System.out.println("gbest_fitness:"+gbest_fitness);
-    	for(double[] a:indicators){
-    		switch (Parameters.getOptimization()) {
-    		case Time:
-//    			System.out.println(a[0]);
-    			if(a[0]==gbest_fitness){
-    				//System.out.println("\t"+a[0]+"\t"+a[1]+"\t"+a[2]);
-    		    	formatter.format("%-20f\t%-20f\t%-20f",a[0],a[1],a[2]);
-    		    	System.out.println();
-    				return 1;
-    			}
-    			break;
-    		case Energy:
-    			if(a[1]==gbest_fitness){
-    				//System.out.println("\t"+a[0]+"\t"+a[1]+"\t"+a[2]);
-    				formatter.format("%-20f\t%-20f\t%-20f",a[0],a[1],a[2]);
-    				System.out.println();
-    				return 1;
-    			}
-    			break;
-    		case Cost:
-    			if(a[2]==gbest_fitness){
-    				//System.out.println("\t"+a[0]+"\t"+a[1]+"\t"+a[2]);
-    				formatter.format("%-20f\t%-20f\t%-20f",a[0],a[1],a[2]);
-    				System.out.println();
-    				return 1;
-    			}
-    			break;
-    		}
-    	}
-    	indicators.clear();
-    	return 0;
-	}
-
-    private void init() throws Exception {
-		 for(Job job:jobList) {
-			 getJobsList().add(job);
-			 for(Task task : job.getTaskList()){
-				 task.initlength();
-				 Cloudlet cloudlet = (Cloudlet) task;
-				 cloudlet.setCloudletLength(task.initlength());
-				 //System.out.println("task#"+task.getCloudletId()+" length:"+task.getCloudletLength());
-			 }
-		 }
-		 CloudSim.clock=0.1;
-		 for (int i = 0; i < getSchedulerIds().size(); i++) {
-             sendNow(getSchedulerId(i), CloudSimTags.CLEAR, null);
-         }
-		 for(int i=0;i<getJobsReceivedList().size();i++) {
-			 Job job=(Job)getJobsReceivedList().get(i);
-			 job.setCloudletStatus(Cloudlet.CREATED);
-			 job.setTaskFinishTime(-1.0);
-			 job.setExecStartTime(0);
-			 job.setVmId(-1);
-			 job.setInputsize(0);
-			 job.setOutputsize(0);
-		 }
-		
-		 getController().clear();
-		 
-		 for(Vm vm:getAllVmList()) {
-			 vm.getCloudletScheduler().clear();
-			// vm.updateVmProcessing(CloudSim.clock(), Datacenter.vmAllocationPolicy.getHost(vm).getVmScheduler()
-						//.getAllocatedMipsForVm(vm));
-		 }
-		 getJobsReceivedList().removeAll(getJobsReceivedList());
-//		 if(getJobsReceivedList().isEmpty())
-//			 System.out.println("jobsReceivedList已清空");
-	}
-    
-    protected void processJobReturnForGA(SimEvent ev) throws Exception {
+    protected void processJobReturnForBestSchedule(SimEvent ev) throws Exception {
     	Job job = (Job) ev.getData();
         if (job.getCloudletStatus() == Cloudlet.FAILED) {
             // Reclusteringengine will add retry job to jobList
@@ -628,123 +401,10 @@ public class WorkflowEngine extends SimEntity {
         getJobsReceivedList().add(job);
         jobsSubmitted--;
         if(getJobsList().isEmpty() && jobsSubmitted == 0) {
-    		if(findBestSchedule == 1) {
-    			//按照最优调度方案去执行的结果，然后结束本次仿真
-    			getController().updateExecutionTime();
-    			sendNow(getSchedulerId(0), CloudSimTags.END_OF_SIMULATION, null);
-    		}
-    		if(initIndexForGA != GASchedulingAlgorithm.popsize) {
-    			//处理完了一个粒子（初始化得到的粒子 ）
-    			already = 1;
-             	FogBroker.initIndexForGA++;
-             	fitnessForGA[initIndexForGA++] = caculatefitness();
-             	init();
-                if(initIndexForGA == GASchedulingAlgorithm.popsize) {
-                	gaFlag = 1;
-                	gaFlag2 = 0;
-                	double totalFitness = 0;
-                	double bestFitness = Double.MAX_VALUE;
-                	int bestIndex = 0;
-                	for(int i = 0; i < fitnessForGA.length; i++) {
-                		totalFitness += fitnessForGA[i];
-                		if(bestFitness > fitnessForGA[i]) {
-          					 bestFitness = fitnessForGA[i];
-          					 bestIndex = i;
-          				}
-                	}
-                	GASchedulingAlgorithm.bestParent = GASchedulingAlgorithm.schedules.get(bestIndex);//父代中最好的染色体
-          			GASchedulingAlgorithm.bestParentFitness = bestFitness;//父代中最好的适应度值
-          			GASchedulingAlgorithm.gbestSchedule = GASchedulingAlgorithm.bestParent;
-//          			System.out.println("=======================================================第"+iterateNum+"次迭代前的最优适应度值bestFitness为："+bestFitness);
-      				updatebest.add(bestFitness);
-          			for(int i = 0; i < fitnessForGA.length; i++)
-       					GASchedulingAlgorithm.probs.put(i, fitnessForGA[i] / totalFitness);//每个染色体被选中的概率
-          			GASchedulingAlgorithm.getSegments();
-          			init();
-             	}
-             	sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null); 
-            }
-    		else if(tempChildrenIndex != 4 && findBestSchedule == 0){
-    			gaFlag2 = 1;
-    			fitnessForGATempChildren[tempChildrenIndex++] = caculatefitness();
-    			FogBroker.tempChildrenIndex++;
-    			if(tempChildrenIndex == 4) {
-    				gaFlag2 = 0;
-    				tempChildrenIndex = 0;
-    				FogBroker.tempChildrenIndex = 0;
-    				if(fitnessForGATempChildren[0] < fitnessForGATempChildren[1]) {
-    					GASchedulingAlgorithm.fitness.add(fitnessForGATempChildren[0]);
-    					GASchedulingAlgorithm.children.add(GASchedulingAlgorithm.tempChildren.get(0));
-    				}else {
-    					GASchedulingAlgorithm.fitness.add(fitnessForGATempChildren[1]);
-    					GASchedulingAlgorithm.children.add(GASchedulingAlgorithm.tempChildren.get(1));
-    				}
-    				if(fitnessForGATempChildren[2] < fitnessForGATempChildren[3]) {
-    					GASchedulingAlgorithm.fitness.add(fitnessForGATempChildren[2]);
-    					GASchedulingAlgorithm.children.add(GASchedulingAlgorithm.tempChildren.get(2));
-    				}else {
-    					GASchedulingAlgorithm.fitness.add(fitnessForGATempChildren[3]);
-    					GASchedulingAlgorithm.children.add(GASchedulingAlgorithm.tempChildren.get(3));
-    				}
-    				GASchedulingAlgorithm.tempChildren.removeAll(GASchedulingAlgorithm.tempChildren);
-    			}
-    			if(GASchedulingAlgorithm.children.size() != GASchedulingAlgorithm.popsize) {
-    				init();
-    				sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null); 
-          		}
-    			else if(findBestSchedule == 0){
-    				//完成了一次进化
-    				if(GASchedulingAlgorithm.gmax != iterateNum) {
-    					double bestFitness = Double.MAX_VALUE;//子代中最好的适应度值
-      					double worstFitness = 0;//子代中最坏的适应度值
-      					int worstIndex = 0;
-      					for(int i = 0; i < GASchedulingAlgorithm.fitness.size(); i++) {
-      						if(bestFitness > GASchedulingAlgorithm.fitness.get(i))
-      							bestFitness = GASchedulingAlgorithm.fitness.get(i);
-      						if(worstFitness < GASchedulingAlgorithm.fitness.get(i)) {
-    							worstFitness = GASchedulingAlgorithm.fitness.get(i);
-    							worstIndex = i;
-    						}
-    					}
-     					iterateNum++;
-     					GASchedulingAlgorithm.fitness.removeAll(GASchedulingAlgorithm.fitness);
-     					GASchedulingAlgorithm.schedules.removeAll(GASchedulingAlgorithm.schedules);
-     					GASchedulingAlgorithm.probSegments = new HashMap<Integer,double[]>();
-     					GASchedulingAlgorithm.probs = new HashMap<Integer,Double>();
-     					GASchedulingAlgorithm.tempParents.removeAll(GASchedulingAlgorithm.tempParents);
-     					for(int i = 0; i < GASchedulingAlgorithm.children.size(); i++) {
-     						if(i == worstIndex)
-     							//用父代中最好的染色体替换掉子代中最差的染色体
-     							GASchedulingAlgorithm.schedules.add(GASchedulingAlgorithm.bestParent);
-     						else
-     							GASchedulingAlgorithm.schedules.add(GASchedulingAlgorithm.children.get(i));
-     					}
-      					GASchedulingAlgorithm.children.removeAll(GASchedulingAlgorithm.children);
-      					/*
-      					 * 重置参数，以便执行下一次迭代
-      					 * （进化前，需要计算每个染色体被选中的概率，故设置了这些参数）
-      					 */
-      					initIndexForGA = 0;
-      					FogBroker.initIndexForGA = 0;
-      					tempChildrenIndex = 0;
-      					FogBroker.tempChildrenIndex = 0;
-      					gaFlag = 0;
-      					gaFlag2 = 0;
-      					init();
-      					sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null); 
-      				}else {
-      					//记录ga结束时间
-      					endTime = System.currentTimeMillis();
-      					algorithmTime = endTime - getScheduler(0).startTime;
-//      					System.out.println("*************************************************************************按照最优调度方案执行");
-      					findBestSchedule = 1;//去按照最优的调度方案执行
-      					init();
-      					sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null); 
-      				}
-    			}
-    		 }
+			//按照最优调度方案去执行的结果，然后结束本次仿真
+			getController().updateExecutionTime();
+			sendNow(getSchedulerId(0), CloudSimTags.END_OF_SIMULATION, null);
     	}else {
-    		gaFlag2 = 1;
     		sendNow(this.getId(), CloudSimTags.CLOUDLET_SUBMIT, null);
     	}
     }
@@ -765,20 +425,113 @@ public class WorkflowEngine extends SimEntity {
     }
 
     /**
-     * Checks whether a job list contains a id
-     *
-     * @param jobList the job list
-     * @param id the job id
-     * @return
+     * A job of the jobs list that has not been submitted yet, with the quantity of its parents
+     * that have not returned
      */
-    private boolean hasJobListContainsID(List jobList, int id) {
-        for (Iterator it = jobList.iterator(); it.hasNext();) {
-            Job job = (Job) it.next();
-            if (job.getCloudletId() == id) {
-                return true;
+    private static final class PendingJob implements Comparable<PendingJob> {
+
+        final Job job;
+
+        /**
+         * Order of the job in the jobs list
+         */
+        final long sequence;
+
+        int unfinishedParents;
+
+        PendingJob(Job job, long sequence) {
+            this.job = job;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(PendingJob other) {
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * The jobs list whose jobs are indexed
+     */
+    private List<? extends Cloudlet> indexedJobsList;
+
+    /**
+     * Quantity of jobs at the beginning of the jobs list that are indexed. The jobs list only
+     * grows by appending and only submitJobs removes jobs from it
+     */
+    private int indexedJobs;
+
+    /**
+     * Quantity of jobs of the received list whose ids are in receivedJobIds
+     */
+    private int indexedReceivedJobs;
+
+    /**
+     * Ids of the received jobs
+     */
+    private final Set<Integer> receivedJobIds = new HashSet<>();
+
+    /**
+     * Pending jobs waiting for each parent id
+     */
+    private final Map<Integer, List<PendingJob>> jobsWaitingForParent = new HashMap<>();
+
+    /**
+     * Pending jobs whose parents have all returned, in the order of the jobs list
+     */
+    private final PriorityQueue<PendingJob> readyJobs = new PriorityQueue<>();
+
+    /**
+     * Order given to the next indexed job
+     */
+    private long nextJobSequence;
+
+    /**
+     * Brings the dependency counters up to date with the jobs and received lists: the new received
+     * jobs release their waiting children and the new jobs are indexed. Everything is indexed again
+     * if the jobs list was replaced or the received list shrank.
+     */
+    private void updateReadyJobs() {
+        List<Job> list = getJobsList();
+        // the TSP strategies receive tasks, not jobs
+        List<? extends Cloudlet> received = getJobsReceivedList();
+        if (list != indexedJobsList || received.size() < indexedReceivedJobs || list.size() < indexedJobs) {
+            indexedJobsList = list;
+            indexedJobs = 0;
+            indexedReceivedJobs = 0;
+            receivedJobIds.clear();
+            jobsWaitingForParent.clear();
+            readyJobs.clear();
+        }
+
+        for (; indexedReceivedJobs < received.size(); indexedReceivedJobs++) {
+            int id = received.get(indexedReceivedJobs).getCloudletId();
+            if (receivedJobIds.add(id)) {
+                List<PendingJob> children = jobsWaitingForParent.remove(id);
+                if (children != null) {
+                    for (PendingJob child : children) {
+                        if (--child.unfinishedParents == 0) {
+                            readyJobs.add(child);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (; indexedJobs < list.size(); indexedJobs++) {
+            Job job = list.get(indexedJobs);
+            PendingJob pending = new PendingJob(job, nextJobSequence++);
+            List<Job> parentList = job.getParentList();
+            for (Job parent : parentList) {
+                if (!receivedJobIds.contains(parent.getCloudletId())) {
+                    pending.unfinishedParents++;
+                    jobsWaitingForParent.computeIfAbsent(parent.getCloudletId(), k -> new ArrayList<>()).add(pending);
+                }
+            }
+            if (pending.unfinishedParents == 0) {
+                readyJobs.add(pending);
             }
         }
-        return false;
     }
 
     /**
@@ -794,39 +547,46 @@ public class WorkflowEngine extends SimEntity {
             List<Job> submittedList = new ArrayList<>();
             allocationList.put(getSchedulerId(i), submittedList);
         }
-        int num = list.size();
-        for (int i = 0; i < num; i++) {
-            //at the beginning
-            Job job = list.get(i);
-            //Dont use job.isFinished() it is not right
 
-            if (!hasJobListContainsID(this.getJobsReceivedList(), job.getCloudletId())) {
-            	//如果这个工作尚未提交，就检查它的父任务是否全部都已经提交
-                List<Job> parentList = job.getParentList();
-                boolean flag = true;
-                for (Job parent : parentList) {
-                    if (!hasJobListContainsID(this.getJobsReceivedList(), parent.getCloudletId())) {
-                    	flag = false;
-                        break;
-                    }
-                }
-                /**
-                 * This job's parents have all completed successfully. Should
-                 * submit.如果这个未提交的任务的父任务都已经提交，那么就提交这个任务
-                 */
-                if (flag) {
-                	
-                    List submittedList = allocationList.get(job.getUserId());
-                    submittedList.add(job);
-                    jobsSubmitted++;
-                    getJobsSubmittedList().add(job);
-                    list.remove(job);
-                    i--;
-                    num--;
+        // only the jobs whose parents have all returned are visited, in the order of the jobs list
+        updateReadyJobs();
+        Set<Job> submitted = null;
+        List<PendingJob> alreadyReceived = null;
+        while (!readyJobs.isEmpty()) {
+            PendingJob pending = readyJobs.poll();
+            Job job = pending.job;
+            //Dont use job.isFinished() it is not right
+            if (receivedJobIds.contains(job.getCloudletId())) {
+                // a job with the id of a received one is never submitted, but stays in the list
+                if (alreadyReceived == null) {
+                    alreadyReceived = new ArrayList<>();
                 }
+                alreadyReceived.add(pending);
+                continue;
             }
-
+            /**
+             * This job's parents have all completed successfully. Should
+             * submit.如果这个未提交的任务的父任务都已经提交，那么就提交这个任务
+             */
+            List submittedList = allocationList.get(job.getUserId());
+            submittedList.add(job);
+            jobsSubmitted++;
+            getJobsSubmittedList().add(job);
+            if (submitted == null) {
+                submitted = Collections.newSetFromMap(new IdentityHashMap<>());
+            }
+            submitted.add(job);
+        }
+        if (alreadyReceived != null) {
+            readyJobs.addAll(alreadyReceived);
         }
+        if (submitted != null) {
+            // the submitted jobs are removed in a single pass over the jobs list
+            Set<Job> removed = submitted;
+            list.removeIf(removed::contains);
+            indexedJobs -= removed.size();
+        }
+
         /**
          * If we have multiple schedulers. Divide them equally.
          */
@@ -1059,22 +819,6 @@ public class WorkflowEngine extends SimEntity {
     public static void clearFlag() {
     	jobList.removeAll(jobList);
     	offloadingTimes.clear();
-    	startlastSchedule=0;
-    	updateFlag=0;
-    	startlastSchedule=0;
-    	FogBroker.count=0;
-    	FogBroker.count2=0;
-    	FogBroker.initIndexForGA=0;
-    	FogBroker.tempChildrenIndex=0;
-    	
-    	index1=0;
-        indexForUpdate=0;
-        updateFlag2=0;
-        
-        already=0;
-        initIndexForGA=0;
-        gaFlag=0;
-        gaFlag2=0;
         findBestSchedule=0;
         
         GASchedulingAlgorithm.clear();
@@ -23,6 +23,9 @@ import org.cloudbus.cloudsim.Cloudlet;
 import org.workflowsim.Job;
 import org.workflowsim.Task;
 import org.apache.commons.math3.distribution.WeibullDistribution;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.cloudbus.cloudsim.core.RandomStreams;
 import org.workflowsim.utils.DistributionGenerator;
 
 /**
@@ -50,19 +53,20 @@ public class FailureGenerator {
      */
     protected static RealDistribution getDistribution(double alpha, double beta) {
         RealDistribution distribution = null;
+        RandomGenerator random = new Well19937c(RandomStreams.nextSeed("FailureGenerator"));
         switch (FailureParameters.getFailureDistribution()) {
             case LOGNORMAL:
-                distribution = new LogNormalDistribution(1.0 / alpha, beta);
+                distribution = new LogNormalDistribution(random, 1.0 / alpha, beta);
                 break;
             case WEIBULL:
-                distribution = new WeibullDistribution(beta, 1.0 / alpha);
+                distribution = new WeibullDistribution(random, beta, 1.0 / alpha);
                 break;
             case GAMMA:
-                distribution = new GammaDistribution(beta, 1.0 / alpha);
+                distribution = new GammaDistribution(random, beta, 1.0 / alpha);
                 break;
             case NORMAL:
                 //beta is the std, 1.0/alpha is the mean
-                distribution = new NormalDistribution(1.0 / alpha, beta);
+                distribution = new NormalDistribution(random, 1.0 / alpha, beta);
                 break;
             default:
                 break;
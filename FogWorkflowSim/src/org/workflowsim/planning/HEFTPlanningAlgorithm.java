@@ -15,11 +15,12 @@
  */
 package org.workflowsim.planning;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import org.cloudbus.cloudsim.Consts;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
@@ -30,51 +31,96 @@ import org.workflowsim.utils.Parameters;
 /**
  * The HEFT planning algorithm.
  *
+ * Tasks and VMs are indexed by their position in the task and VM lists, so the
+ * planner works on dense arrays. The transfer costs are only kept for the
+ * edges of the workflow, in compressed adjacency arrays, the upward ranks are
+ * calculated iteratively in reverse topological order and the busy intervals
+ * of every VM are kept in a sorted map, so the insertion-based slot search
+ * does not scan the whole schedule of the VM.
+ *
  * @author Pedro Paulo Vezzá Campos
  * @date Oct 12, 2013
  */
 public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
-    private Map<Task, Map<CondorVM, Double>> computationCosts;
-    private Map<Task, Map<Task, Double>> transferCosts;
-    private Map<Task, Double> rank;
-    private Map<CondorVM, List<Event>> schedules;
-    private Map<Task, Double> earliestFinishTimes;
+    private Task[] tasks;
+    private CondorVM[] vms;
+    private double[] mips;
+    private int[] pes;
+    /**
+     * Children of every task: the children of task i are
+     * childTasks[childStart[i]] to childTasks[childStart[i + 1] - 1], and the
+     * time to transfer the files to each of them is in childCosts.
+     */
+    private int[] childStart;
+    private int[] childTasks;
+    private double[] childCosts;
+    /**
+     * Parents of every task, laid out as the children.
+     */
+    private int[] parentStart;
+    private int[] parentTasks;
+    private double[] parentCosts;
+    private int[] topologicalOrder;
+    private double[] rank;
+    private double[] earliestFinishTimes;
+    private int[] allocation;
+    private Schedule[] schedules;
     private double averageBandwidth;
 
-    private class Event {
-
-        public double start;
-        public double finish;
-
-        public Event(double start, double finish) {
-            this.start = start;
-            this.finish = finish;
-        }
-    }
-
-    private class TaskRank implements Comparable<TaskRank> {
-
-        public Task task;
-        public Double rank;
-
-        public TaskRank(Task task, Double rank) {
-            this.task = task;
-            this.rank = rank;
+    /**
+     * The busy intervals of a VM. Adjacent intervals are merged, so every gap
+     * between two intervals of the map can hold a task.
+     */
+    private static class Schedule {
+
+        private final TreeMap<Double, Double> intervals = new TreeMap<>();
+        private double lastFinish = 0.0;
+
+        /**
+         * Gets the earliest start time not before readyTime of a slot able to
+         * hold the given computation cost.
+         */
+        public double findStart(double readyTime, double computationCost) {
+            if (intervals.isEmpty() || readyTime >= lastFinish) {
+                return readyTime;
+            }
+            double start = readyTime;
+            Map.Entry<Double, Double> interval = intervals.floorEntry(start);
+            if (interval != null && interval.getValue() > start) {
+                start = interval.getValue();
+            }
+            while (true) {
+                interval = intervals.higherEntry(start);
+                if (interval == null
+                        || start + computationCost <= interval.getKey()) {
+                    return start;
+                }
+                start = interval.getValue();
+            }
         }
 
-        @Override
-        public int compareTo(TaskRank o) {
-            return o.rank.compareTo(rank);
+        /**
+         * Reserves the time slot between start and finish.
+         */
+        public void occupy(double start, double finish) {
+            Map.Entry<Double, Double> previous = intervals.floorEntry(start);
+            if (previous != null && previous.getValue() >= start) {
+                start = previous.getKey();
+                finish = Math.max(finish, previous.getValue());
+            }
+            Map.Entry<Double, Double> next = intervals.ceilingEntry(start);
+            while (next != null && next.getKey() <= finish) {
+                finish = Math.max(finish, next.getValue());
+                intervals.remove(next.getKey());
+                next = intervals.higherEntry(start);
+            }
+            intervals.put(start, finish);
+            lastFinish = Math.max(lastFinish, finish);
         }
     }
 
     public HEFTPlanningAlgorithm() {
-        computationCosts = new HashMap<>();
-        transferCosts = new HashMap<>();
-        rank = new HashMap<>();
-        earliestFinishTimes = new HashMap<>();
-        schedules = new HashMap<>();
     }
 
     /**
@@ -87,14 +133,11 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
 
         averageBandwidth = calculateAverageBandwidth();
 
-        for (Object vmObject : getVmList()) {
-            CondorVM vm = (CondorVM) vmObject;
-            schedules.put(vm, new ArrayList<>());
-        }
+        indexTasksAndVms();
 
         // Prioritization phase
-        calculateComputationCosts();
         calculateTransferCosts();
+        calculateTopologicalOrder();
         calculateRanks();
 
         // Selection phase
@@ -116,73 +159,130 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     }
 
     /**
-     * Populates the computationCosts field with the time in seconds to compute
-     * a task in a vm.
+     * Copies the tasks and the VMs to arrays, together with the VM features
+     * used to calculate the computation costs.
      */
-    private void calculateComputationCosts() {
-        for (Task task : getTaskList()) {
-            Map<CondorVM, Double> costsVm = new HashMap<>();
-            for (Object vmObject : getVmList()) {
-                CondorVM vm = (CondorVM) vmObject;
-                if (vm.getNumberOfPes() < task.getNumberOfPes()) {
-                    costsVm.put(vm, Double.MAX_VALUE);
-                } else {
-                    costsVm.put(vm,
-                            task.getCloudletTotalLength() / vm.getMips());
-                }
-            }
-            computationCosts.put(task, costsVm);
+    private void indexTasksAndVms() {
+        tasks = getTaskList().toArray(new Task[0]);
+
+        @SuppressWarnings("unchecked")
+        List<CondorVM> vmList = getVmList();
+        vms = new CondorVM[vmList.size()];
+        mips = new double[vms.length];
+        pes = new int[vms.length];
+        schedules = new Schedule[vms.length];
+        for (int v = 0; v < vms.length; v++) {
+            vms[v] = vmList.get(v);
+            mips[v] = vms[v].getMips();
+            pes[v] = vms[v].getNumberOfPes();
+            schedules[v] = new Schedule();
+        }
+    }
+
+    /**
+     * Gets the time in seconds to compute a task in a vm.
+     */
+    private double getComputationCost(int task, int vm) {
+        if (pes[vm] < tasks[task].getNumberOfPes()) {
+            return Double.MAX_VALUE;
         }
+        return tasks[task].getCloudletTotalLength() / mips[vm];
     }
 
     /**
-     * Populates the transferCosts map with the time in seconds to transfer all
-     * files from each parent to each child
+     * Populates the adjacency arrays with the time in seconds to transfer all
+     * files from each parent to each child. Only the relations between tasks
+     * of the task list are considered.
      */
     private void calculateTransferCosts() {
-        // Initializing the matrix
-        for (Task task1 : getTaskList()) {
-            Map<Task, Double> taskTransferCosts = new HashMap<>();
-            for (Task task2 : getTaskList()) {
-                taskTransferCosts.put(task2, 0.0);
+        Map<Task, Integer> index = new IdentityHashMap<>(tasks.length * 2);
+        for (int i = 0; i < tasks.length; i++) {
+            index.put(tasks[i], i);
+        }
+
+        childStart = new int[tasks.length + 1];
+        int[] parentCount = new int[tasks.length + 1];
+        int edges = 0;
+        for (int i = 0; i < tasks.length; i++) {
+            childStart[i] = edges;
+            for (Task child : tasks[i].getChildList()) {
+                Integer c = index.get(child);
+                if (c != null) {
+                    edges++;
+                    parentCount[c]++;
+                }
             }
-            transferCosts.put(task1, taskTransferCosts);
+        }
+        childStart[tasks.length] = edges;
+
+        parentStart = new int[tasks.length + 1];
+        for (int i = 0; i < tasks.length; i++) {
+            parentStart[i + 1] = parentStart[i] + parentCount[i];
         }
 
-        // Calculating the actual values
-        for (Task parent : getTaskList()) {
-            for (Task child : parent.getChildList()) {
-                transferCosts.get(parent).put(child,
-                        calculateTransferCost(parent, child));
+        childTasks = new int[edges];
+        childCosts = new double[edges];
+        parentTasks = new int[edges];
+        parentCosts = new double[edges];
+        int[] parentFill = Arrays.copyOf(parentStart, tasks.length);
+        Map<Task, Map<String, Double>> inputFiles = new IdentityHashMap<>();
+        for (int i = 0; i < tasks.length; i++) {
+            int e = childStart[i];
+            for (Task child : tasks[i].getChildList()) {
+                Integer c = index.get(child);
+                if (c == null) {
+                    continue;
+                }
+                Map<String, Double> childInputs = inputFiles.get(child);
+                if (childInputs == null) {
+                    childInputs = getInputFiles(child);
+                    inputFiles.put(child, childInputs);
+                }
+                double cost = calculateTransferCost(tasks[i], childInputs);
+                childTasks[e] = c;
+                childCosts[e] = cost;
+                e++;
+                parentTasks[parentFill[c]] = i;
+                parentCosts[parentFill[c]] = cost;
+                parentFill[c]++;
             }
         }
     }
 
+    /**
+     * Gets the size of the input files of a task by their name. When a name
+     * is repeated, the first file is kept.
+     */
+    private Map<String, Double> getInputFiles(Task task) {
+        Map<String, Double> files = new HashMap<>();
+        for (FileItem file : task.getFileList()) {
+            if (file.getType() == Parameters.FileType.INPUT) {
+                files.putIfAbsent(file.getName(), file.getSize());
+            }
+        }
+        return files;
+    }
+
     /**
      * Accounts the time in seconds necessary to transfer all files described
      * between parent and child
      *
      * @param parent
-     * @param child
+     * @param childInputs the size of the input files of the child by name
      * @return Transfer cost in seconds
      */
-    private double calculateTransferCost(Task parent, Task child) {
-        List<FileItem> parentFiles = parent.getFileList();
-        List<FileItem> childFiles = child.getFileList();
-
+    private double calculateTransferCost(Task parent,
+            Map<String, Double> childInputs) {
         double acc = 0.0;
 
-        for (FileItem parentFile : parentFiles) {
+        for (FileItem parentFile : parent.getFileList()) {
             if (parentFile.getType() != Parameters.FileType.OUTPUT) {
                 continue;
             }
 
-            for (FileItem childFile : childFiles) {
-                if (childFile.getType() == Parameters.FileType.INPUT
-                        && childFile.getName().equals(parentFile.getName())) {
-                    acc += childFile.getSize();
-                    break;
-                }
+            Double size = childInputs.get(parentFile.getName());
+            if (size != null) {
+                acc += size;
             }
         }
 
@@ -193,61 +293,82 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
     }
 
     /**
-     * Invokes calculateRank for each task to be scheduled
+     * Sorts the tasks so that every task comes after its parents, keeping the
+     * order of the task list among the tasks that are ready at the same time.
      */
-    private void calculateRanks() {
-        for (Task task : getTaskList()) {
-            calculateRank(task);
+    private void calculateTopologicalOrder() {
+        int[] pending = new int[tasks.length];
+        topologicalOrder = new int[tasks.length];
+        int size = 0;
+        for (int i = 0; i < tasks.length; i++) {
+            pending[i] = parentStart[i + 1] - parentStart[i];
+            if (pending[i] == 0) {
+                topologicalOrder[size++] = i;
+            }
+        }
+        for (int next = 0; next < size; next++) {
+            int task = topologicalOrder[next];
+            for (int e = childStart[task]; e < childStart[task + 1]; e++) {
+                if (--pending[childTasks[e]] == 0) {
+                    topologicalOrder[size++] = childTasks[e];
+                }
+            }
+        }
+        if (size < tasks.length) {
+            throw new IllegalArgumentException(
+                    "The workflow has a cycle between its tasks");
         }
     }
 
     /**
-     * Populates rank.get(task) with the rank of task as defined in the HEFT
-     * paper.
-     *
-     * @param task The task have the rank calculates
-     * @return The rank
+     * Calculates the rank of every task as defined in the HEFT paper, going
+     * from the exit tasks to the entry tasks.
      */
-    private double calculateRank(Task task) {
-        if (rank.containsKey(task)) {
-            return rank.get(task);
-        }
-
-        double averageComputationCost = 0.0;
+    private void calculateRanks() {
+        rank = new double[tasks.length];
+        for (int k = tasks.length - 1; k >= 0; k--) {
+            int task = topologicalOrder[k];
 
-        for (Double cost : computationCosts.get(task).values()) {
-            averageComputationCost += cost;
-        }
+            double averageComputationCost = 0.0;
+            for (int v = 0; v < vms.length; v++) {
+                averageComputationCost += getComputationCost(task, v);
+            }
+            averageComputationCost /= vms.length;
 
-        averageComputationCost /= computationCosts.get(task).size();
+            double max = 0.0;
+            for (int e = childStart[task]; e < childStart[task + 1]; e++) {
+                double childCost = childCosts[e] + rank[childTasks[e]];
+                max = Math.max(max, childCost);
+            }
 
-        double max = 0.0;
-        for (Task child : task.getChildList()) {
-            double childCost = transferCosts.get(task).get(child)
-                    + calculateRank(child);
-            max = Math.max(max, childCost);
+            rank[task] = averageComputationCost + max;
         }
-
-        rank.put(task, averageComputationCost + max);
-
-        return rank.get(task);
     }
 
     /**
-     * Allocates all tasks to be scheduled in non-ascending order of schedule.
+     * Allocates all tasks to be scheduled in non-ascending order of rank.
+     * Tasks with the same rank are allocated in topological order.
      */
     private void allocateTasks() {
-        List<TaskRank> taskRank = new ArrayList<>();
-        for (Task task : rank.keySet()) {
-            taskRank.add(new TaskRank(task, rank.get(task)));
+        Integer[] position = new Integer[tasks.length];
+        for (int k = 0; k < tasks.length; k++) {
+            position[k] = k;
         }
 
         // Sorting in non-ascending order of rank
-        Collections.sort(taskRank);
-        for (TaskRank rank : taskRank) {
-            allocateTask(rank.task);
+        Arrays.sort(position, (a, b) -> {
+            int c = Double.compare(rank[topologicalOrder[b]],
+                    rank[topologicalOrder[a]]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+
+        earliestFinishTimes = new double[tasks.length];
+        allocation = new int[tasks.length];
+        double[] readyTimes = new double[vms.length];
+        Arrays.fill(readyTimes, -1.0);
+        for (Integer k : position) {
+            allocateTask(topologicalOrder[k], readyTimes);
         }
-
     }
 
     /**
@@ -255,124 +376,77 @@ public class HEFTPlanningAlgorithm extends BasePlanningAlgorithm {
      * time
      *
      * @param task The task to be scheduled
+     * @param readyTimes scratch array, with -1 for every vm
      * @pre All parent tasks are already scheduled
      */
-    private void allocateTask(Task task) {
-        CondorVM chosenVM = null;
-        double earliestFinishTime = Double.MAX_VALUE;
-        double bestReadyTime = 0.0;
-        double finishTime;
-
-        for (Object vmObject : getVmList()) {
-            CondorVM vm = (CondorVM) vmObject;
-            double minReadyTime = 0.0;
-
-            for (Task parent : task.getParentList()) {
-                double readyTime = earliestFinishTimes.get(parent);
-                if (parent.getVmId() != vm.getId()) {
-                    readyTime += transferCosts.get(parent).get(task);
+    private void allocateTask(int task, double[] readyTimes) {
+        // The data of a parent reaches the vm of the parent when the parent
+        // finishes and the other vms after the transfer, so the ready time is
+        // the same in all the vms but the ones running a parent
+        double best = 0.0;
+        double secondBest = 0.0;
+        int bestVm = -1;
+        for (int e = parentStart[task]; e < parentStart[task + 1]; e++) {
+            int parent = parentTasks[e];
+            int vm = allocation[parent];
+            double readyTime = earliestFinishTimes[parent] + parentCosts[e];
+            if (readyTime > best) {
+                if (vm != bestVm) {
+                    secondBest = best;
                 }
-                minReadyTime = Math.max(minReadyTime, readyTime);
-            }
-
-            finishTime = findFinishTime(task, vm, minReadyTime, false);
-
-            if (finishTime < earliestFinishTime) {
-                bestReadyTime = minReadyTime;
-                earliestFinishTime = finishTime;
-                chosenVM = vm;
+                best = readyTime;
+                bestVm = vm;
+            } else if (vm != bestVm && readyTime > secondBest) {
+                secondBest = readyTime;
             }
         }
+        for (int e = parentStart[task]; e < parentStart[task + 1]; e++) {
+            int vm = allocation[parentTasks[e]];
+            readyTimes[vm] = Math.max(readyTimes[vm],
+                    earliestFinishTimes[parentTasks[e]]);
+        }
 
-        findFinishTime(task, chosenVM, bestReadyTime, true);
-        earliestFinishTimes.put(task, earliestFinishTime);
-
-        task.setVmId(chosenVM.getId());
-    }
+        int chosenVm = -1;
+        double earliestFinishTime = Double.MAX_VALUE;
+        double bestStart = 0.0;
 
-    /**
-     * Finds the best time slot available to minimize the finish time of the
-     * given task in the vm with the constraint of not scheduling it before
-     * readyTime. If occupySlot is true, reserves the time slot in the schedule.
-     *
-     * @param task The task to have the time slot reserved
-     * @param vm The vm that will execute the task
-     * @param readyTime The first moment that the task is available to be
-     * scheduled
-     * @param occupySlot If true, reserves the time slot in the schedule.
-     * @return The minimal finish time of the task in the vmn
-     */
-    private double findFinishTime(Task task, CondorVM vm, double readyTime,
-            boolean occupySlot) {
-        List<Event> sched = schedules.get(vm);
-        double computationCost = computationCosts.get(task).get(vm);
-        double start, finish;
-        int pos;
-
-        if (sched.isEmpty()) {
-            if (occupySlot) {
-                sched.add(new Event(readyTime, readyTime + computationCost));
+        for (int v = 0; v < vms.length; v++) {
+            double minReadyTime = best;
+            if (readyTimes[v] >= 0.0) {
+                minReadyTime = Math.max(readyTimes[v],
+                        v == bestVm ? secondBest : best);
             }
-            return readyTime + computationCost;
-        }
-
-        if (sched.size() == 1) {
-            if (readyTime >= sched.get(0).finish) {
-                pos = 1;
-                start = readyTime;
-            } else if (readyTime + computationCost <= sched.get(0).start) {
-                pos = 0;
-                start = readyTime;
-            } else {
-                pos = 1;
-                start = sched.get(0).finish;
+            double computationCost = getComputationCost(task, v);
+            if (minReadyTime + computationCost >= earliestFinishTime) {
+                continue;
             }
 
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
+            double start = schedules[v].findStart(minReadyTime,
+                    computationCost);
+            double finishTime = start + computationCost;
+
+            if (finishTime < earliestFinishTime) {
+                bestStart = start;
+                earliestFinishTime = finishTime;
+                chosenVm = v;
             }
-            return start + computationCost;
         }
 
-        // Trivial case: Start after the latest task scheduled
-        start = Math.max(readyTime, sched.get(sched.size() - 1).finish);
-        finish = start + computationCost;
-        int i = sched.size() - 1;
-        int j = sched.size() - 2;
-        pos = i + 1;
-        while (j >= 0) {
-            Event current = sched.get(i);
-            Event previous = sched.get(j);
-
-            if (readyTime > previous.finish) {
-                if (readyTime + computationCost <= current.start) {
-                    start = readyTime;
-                    finish = readyTime + computationCost;
-                }
+        for (int e = parentStart[task]; e < parentStart[task + 1]; e++) {
+            readyTimes[allocation[parentTasks[e]]] = -1.0;
+        }
 
-                break;
-            }
-            if (previous.finish + computationCost <= current.start) {
-                start = previous.finish;
-                finish = previous.finish + computationCost;
-                pos = i;
-            }
-            i--;
-            j--;
+        if (chosenVm == -1) {
+            throw new IllegalStateException("HEFT can not place task "
+                    + tasks[task].getCloudletId() + ": "
+                    + (vms.length == 0 ? "there are no VMs"
+                            : "no VM gives it a finite finish time"));
         }
 
-        if (readyTime + computationCost <= sched.get(0).start) {
-            pos = 0;
-            start = readyTime;
+        schedules[chosenVm].occupy(bestStart, earliestFinishTime);
+        earliestFinishTimes[task] = earliestFinishTime;
+        allocation[task] = chosenVm;
 
-            if (occupySlot) {
-                sched.add(pos, new Event(start, start + computationCost));
-            }
-            return start + computationCost;
-        }
-        if (occupySlot) {
-            sched.add(pos, new Event(start, finish));
-        }
-        return finish;
+        tasks[task].setVmId(vms[chosenVm].getId());
     }
 }
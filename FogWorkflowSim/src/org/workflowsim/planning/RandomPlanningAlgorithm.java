@@ -17,6 +17,7 @@ package org.workflowsim.planning;
 
 import java.util.Iterator;
 import java.util.Random;
+import org.cloudbus.cloudsim.core.RandomStreams;
 import org.workflowsim.CondorVM;
 import org.workflowsim.Task;
 import org.workflowsim.utils.Parameters;
@@ -36,7 +37,7 @@ public class RandomPlanningAlgorithm extends BasePlanningAlgorithm {
     @Override
     public void run() {
 
-        Random random = new Random(System.currentTimeMillis());
+        Random random = RandomStreams.random("RandomPlanningAlgorithm");
         for (Iterator it = getTaskList().iterator(); it.hasNext();) {
             Task task = (Task) it.next();
             double duration = task.getCloudletLength() / 1000;
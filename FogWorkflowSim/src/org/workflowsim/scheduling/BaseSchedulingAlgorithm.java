@@ -17,8 +17,11 @@ package org.workflowsim.scheduling;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.PriorityQueue;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Vm;
+import org.workflowsim.CondorVM;
+import org.workflowsim.WorkflowSimTags;
 
 /**
  * The base scheduler has implemented the basic features. Every other scheduling method
@@ -43,6 +46,53 @@ public abstract class BaseSchedulingAlgorithm implements SchedulingAlgorithmInte
      */
     private List< Cloudlet> scheduledList;
 
+    /**
+     * The idle VMs of a VM list in non-ascending order of current requested
+     * mips. VMs with the same requested mips keep the order of the list, so
+     * the head is the first idle VM with the maximum requested mips. VMs that
+     * become busy are discarded when they reach the head.
+     */
+    protected static class IdleVmQueue {
+
+        private final List<? extends Vm> vms;
+        private final double[] requestedMips;
+        private final PriorityQueue<Integer> queue;
+
+        public IdleVmQueue(List<? extends Vm> vms) {
+            this.vms = vms;
+            requestedMips = new double[vms.size()];
+            List<Integer> idle = new ArrayList<>();
+            for (int i = 0; i < vms.size(); i++) {
+                CondorVM vm = (CondorVM) vms.get(i);
+                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                    requestedMips[i] = vm.getCurrentRequestedTotalMips();
+                    idle.add(i);
+                }
+            }
+            queue = new PriorityQueue<>(Math.max(1, idle.size()), (a, b) -> {
+                int c = Double.compare(requestedMips[b], requestedMips[a]);
+                return c != 0 ? c : Integer.compare(a, b);
+            });
+            queue.addAll(idle);
+        }
+
+        /**
+         * Gets the idle VM with the maximum requested mips
+         *
+         * @return the VM; null if there are no idle VMs
+         */
+        public CondorVM peek() {
+            while (!queue.isEmpty()) {
+                CondorVM vm = (CondorVM) vms.get(queue.peek());
+                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
+                    return vm;
+                }
+                queue.poll();
+            }
+            return null;
+        }
+    }
+
     /**
      * Initialize a BaseSchedulingAlgorithm
      */
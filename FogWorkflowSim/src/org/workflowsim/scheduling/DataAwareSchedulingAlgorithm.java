@@ -81,22 +81,12 @@ public class DataAwareSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
     protected double dataTransferTime(List<FileItem> requiredFiles, Cloudlet cl, int vmId)  {
         double time = 0.0;
+        int vmStorageId = ReplicaCatalog.getStorageId(Integer.toString(vmId));
 
-        for (FileItem file : requiredFiles) {
-            //The input file is not an output File 
-            if (file.isRealInputFile(requiredFiles)) {
-                List<String> siteList = ReplicaCatalog.getStorageList(file.getName());
-
-                boolean hasFile = false;
-                for (String site : siteList) {
-                    if(site.equals(Integer.toString(vmId))){
-                        hasFile = true;
-                        break;
-                    }
-                }
-                if(!hasFile){
-                    time += file.getSize() ;
-                }
+        //The input files that are not an output File 
+        for (FileItem file : FileItem.getRealInputFiles(requiredFiles)) {
+            if (!ReplicaCatalog.hasReplica(file.getId(), vmStorageId)) {
+                time += file.getSize() ;
             }
         }
         return time;
@@ -1,162 +1,206 @@
 package org.workflowsim.scheduling;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+
+import org.cloudbus.cloudsim.core.RandomStreams;
 
 /**
  * The GA Algorithm
- * 
+ *
+ * TSP modification: the fitness of the chromosomes is calculated by a {@link ScheduleEvaluator}, such as the
+ * {@link ScheduleFitnessEvaluator}, which evaluates every population in parallel, instead of simulating the workflow
+ * once per chromosome. The simulation is only run for the best schedule found. The random numbers come from the GASchedulingAlgorithm streams of
+ * {@link RandomStreams}.
+ *
  * @since FogWorkflowSim Toolkit 1.0
  * @author Lina Gong
  */
 public class GASchedulingAlgorithm {
-	
+
 	public static int popsize;//子代个数
 	public static int gmax;//迭代次数
 	public static double crossoverProb;//交叉概率
 	public static double mutationRate;//变异概率
-	
+
 	public static int taskNum;//任务数
 	public static int vmNum;//虚拟机数
 	public static ArrayList<int[]> schedules=new ArrayList<int[]>();
-	public static double totalFitness=0;	
-	public static HashMap<Integer,Double> probs=new HashMap<Integer,Double>();
-	public static HashMap<Integer,double[]> probSegments=new HashMap<Integer,double[]>();
-	public static ArrayList<int[]> children=new ArrayList<int[]>();
-	public static ArrayList<int[]> tempParents=new ArrayList<int[]>();
-	public static ArrayList<int[]> tempChildren=new ArrayList<int[]>();
-	public static double bestFitness=Double.MAX_VALUE;
 	public static double bestParentFitness=Double.MAX_VALUE;
-	//public static ArrayList<int[]> bestSchedule=new ArrayList<int[]>();
 	public static int[] gbestSchedule;
 	public static int[] bestParent;
 	public static int initFlag=0;
-	public static List<Double> fitness=new ArrayList<Double>();
-	//public static List<Double> best_fitness=new ArrayList<Double>();
-	
+
 	public  static void initPopsRandomly(int taskNum1,int vmNum1)
 	{
 		taskNum=taskNum1;
 		vmNum=vmNum1;
 		gbestSchedule=new int[taskNum];
 		bestParent=new int[taskNum];
-		
+
+		SplittableRandom random = RandomStreams.stream("GASchedulingAlgorithm");
 		for(int i=0;i<popsize;i++)
 		{
 			int[] schedule=new int[taskNum];
 			for(int j=0;j<taskNum;j++)
 			{
-				schedule[j]=new Random().nextInt(vmNum);
+				schedule[j]=random.nextInt(vmNum);
 			}
 			schedules.add(schedule);
 		}
 		initFlag=1;
 	}
-	
-	public static void GA()
+
+	/**
+	 * Evolves the population during gmax generations. In every generation, pairs of parents are selected by roulette
+	 * wheel and crossed over, each parent is replaced by its offspring if it is better, the resulting children can be
+	 * mutated and the worst child is replaced by the best chromosome of the population.
+	 *
+	 * @param evaluator the evaluator of the fitness of the chromosomes
+	 * @return the best fitness of the population in every generation, the last population included
+	 */
+	public static List<Double> evolve(ScheduleEvaluator evaluator)
 	{
-		if(children.size()<schedules.size()) {//对每个pop[i]进行交叉变异操作
-			//selection phase:select two parents each time.
-			for(int i=0;i<2;i++)
-			{
-				double prob = new Random().nextDouble();
-				for (int j = 0; j < schedules.size(); j++)
+		SplittableRandom random = RandomStreams.stream("GASchedulingAlgorithm");
+		List<Double> bestFitnessHistory = new ArrayList<Double>();
+		double[] fitness = evaluator.getFitness(schedules);
+
+		for(int iteration = 0; ; iteration++)
+		{
+			double totalFitness = 0;
+			double bestFitness = Double.MAX_VALUE;
+			int bestIndex = 0;
+			for(int i = 0; i < fitness.length; i++) {
+				totalFitness += fitness[i];
+				if(bestFitness > fitness[i]) {
+					bestFitness = fitness[i];
+					bestIndex = i;
+				}
+			}
+			bestParent = schedules.get(bestIndex);//父代中最好的染色体
+			bestParentFitness = bestFitness;//父代中最好的适应度值
+			gbestSchedule = bestParent;
+			bestFitnessHistory.add(bestFitness);
+			if(iteration == gmax)
+				break;
+
+			//selection phase: every chromosome is selected with probability fitness / totalFitness
+			double[] segmentEnds = new double[fitness.length];
+			double end = 0;
+			for(int i = 0; i < fitness.length; i++) {
+				end += fitness[i] / totalFitness;
+				segmentEnds[i] = end;
+			}
+			int pairs = (schedules.size() + 1) / 2;
+			int[] parents = new int[2 * pairs];
+			List<int[]> offspring = new ArrayList<int[]>(2 * pairs);
+			for(int k = 0; k < pairs; k++) {
+				int[] p1temp, p2temp;
+				parents[2 * k] = select(segmentEnds, random.nextDouble());
+				parents[2 * k + 1] = select(segmentEnds, random.nextDouble());
+				p1temp = schedules.get(parents[2 * k]).clone();
+				p2temp = schedules.get(parents[2 * k + 1]).clone();
+
+				//cross-over phase.
+				if(random.nextDouble() < crossoverProb)
 				{
- 					if (isBetween(prob, probSegments.get(j)))
+					int crossPosition = random.nextInt(taskNum+1);//生成的数字：0-->任务数-1
+					for (int i = crossPosition; i < taskNum; i++)
 					{
-						tempParents.add(schedules.get(j));
-						break;
+						int temp = p1temp[i];
+						p1temp[i] = p2temp[i];
+						p2temp[i] = temp;
 					}
 				}
+				offspring.add(p1temp);
+				offspring.add(p2temp);
 			}
-			//cross-over phase.
-			int[] p1,p2,p1temp,p2temp;
-			p1= tempParents.get(tempParents.size() - 2).clone();
-			p1temp= tempParents.get(tempParents.size() - 2).clone();
-			p2 = tempParents.get(tempParents.size() -1).clone();
-			p2temp = tempParents.get(tempParents.size() -1).clone();
-			
-			if(new Random().nextDouble()<crossoverProb)
-			{
-				int crossPosition = new Random().nextInt(taskNum+1);//生成的数字：0-->任务数-1
-				//cross-over operation
-				for (int i = crossPosition; i < taskNum; i++)
-				{
-					int temp = p1temp[i];
-					p1temp[i] = p2temp[i];
-					p2temp[i] = temp;
+			double[] offspringFitness = evaluator.getFitness(offspring);
+
+			//choose the children if they are better, else keep parents in next iteration.
+			List<int[]> children = new ArrayList<int[]>(2 * pairs);
+			double[] childrenFitness = new double[2 * pairs];
+			for(int i = 0; i < 2 * pairs; i++) {
+				if(offspringFitness[i] < fitness[parents[i]]) {
+					children.add(offspring.get(i));
+					childrenFitness[i] = offspringFitness[i];
+				}else {
+					children.add(schedules.get(parents[i]).clone());
+					childrenFitness[i] = fitness[parents[i]];
 				}
 			}
-			tempChildren.add(p1);
-			tempChildren.add(p1temp);
-			tempChildren.add(p2);
-			tempChildren.add(p2temp);
-			
-			//choose the children if they are better,else keep parents in next iteration.
-			//children.add(getFitness(p1temp) < getFitness(p1) ? p1temp : p1);//适应度低的作为children
-			//children.add(getFitness(p2temp) < getFitness(p2) ? p2temp : p2);	
-			// mutation phase.
-			if (new Random().nextDouble() < mutationRate&&children.size()>0)
-			{
-				// mutation operations bellow.
-				int maxIndex = children.size() - 1;
 
-				for (int i = maxIndex - 1; i <= maxIndex; i++)
+			// mutation phase.
+			List<Integer> mutatedIndexes = new ArrayList<Integer>();
+			List<int[]> mutated = new ArrayList<int[]>();
+			for(int k = 0; k < pairs; k++) {
+				if (random.nextDouble() < mutationRate)
 				{
-					operateMutation(children.get(i));//对每个children进行变异
+					for (int i = 2 * k; i <= 2 * k + 1; i++)
+					{
+						operateMutation(children.get(i), random);
+						mutatedIndexes.add(i);
+						mutated.add(children.get(i));
+					}
 				}
 			}
+			double[] mutatedFitness = evaluator.getFitness(mutated);
+			for(int i = 0; i < mutatedIndexes.size(); i++)
+				childrenFitness[mutatedIndexes.get(i)] = mutatedFitness[i];
+
+			//用父代中最好的染色体替换掉子代中最差的染色体
+			int size = schedules.size();
+			double worstFitness = 0;
+			int worstIndex = 0;
+			for(int i = 0; i < size; i++) {
+				if(worstFitness < childrenFitness[i]) {
+					worstFitness = childrenFitness[i];
+					worstIndex = i;
+				}
+			}
+			children.set(worstIndex, bestParent);
+			childrenFitness[worstIndex] = bestParentFitness;
+
+			schedules.clear();
+			schedules.addAll(children.subList(0, size));
+			fitness = new double[size];
+			System.arraycopy(childrenFitness, 0, fitness, 0, size);
 		}
+		return bestFitnessHistory;
 	}
-	
-	public static void operateMutation(int []child) //变异
+
+	private static void operateMutation(int []child, SplittableRandom random) //变异
 	{
-		int mutationIndex = new Random().nextInt(taskNum);
-		int newVmId = new Random().nextInt(vmNum);
+		int mutationIndex = random.nextInt(taskNum);
+		int newVmId = random.nextInt(vmNum);
 		while (child[mutationIndex] == newVmId)
 		{
-			newVmId = new Random().nextInt(vmNum);
+			newVmId = random.nextInt(vmNum);
 		}
 
 		child[mutationIndex] = newVmId;
 	}
-	
-	private static boolean isBetween(double prob,double[]segment)
-	{
-		if(segment[0]<=prob&&prob<=segment[1])
-			return true;
-		return false;	
-	}
-	
-	public static void getSegments()
+
+	/**
+	 * Gets the chromosome whose segment of the roulette wheel contains prob
+	 */
+	private static int select(double[] segmentEnds, double prob)
 	{
-		int size=probs.size();
-		double start=0;
-		double end=0;
-		for(int i=0;i<size;i++)
+		for (int j = 0; j < segmentEnds.length; j++)
 		{
-			end=start+probs.get(i);
-			double[]segment=new double[2];
-			segment[0]=start;
-			segment[1]=end;
-			probSegments.put(i, segment);
-			start=end;
+			if (prob <= segmentEnds[j])
+				return j;
 		}
+		return segmentEnds.length - 1;
 	}
 
 	/**
 	 * 初始化所有对象，为了反复实现GA调度算法
 	 */
 	public static void clear() {
-		schedules.removeAll(schedules);
-        children.removeAll(children);
-        tempParents.removeAll(tempParents);
-        tempChildren.removeAll(tempChildren);
-        fitness.removeAll(fitness);
-        probSegments=new HashMap<Integer,double[]>();
-		probs=new HashMap<Integer,Double>();
+		schedules.clear();
+		bestParentFitness=Double.MAX_VALUE;
 		initFlag=0;
 	}
 }
@@ -15,6 +15,7 @@
  */
 package org.workflowsim.scheduling;
 
+import java.util.List;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
@@ -38,30 +39,16 @@ public class MCTSchedulingAlgorithm extends BaseSchedulingAlgorithm {
 
 
         int size = getCloudletList().size();
+        @SuppressWarnings("unchecked")
+        List<CondorVM> vmList = getVmList();
+        IdleVmQueue idleVms = new IdleVmQueue(vmList);
 
         for (int i = 0; i < size; i++) {
             Cloudlet cloudlet = (Cloudlet) getCloudletList().get(i);
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;
-
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+            CondorVM firstIdleVm = idleVms.peek();
             if (firstIdleVm == null) {
                 break;
             }
-
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && (vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips())) {
-                    firstIdleVm = vm;
-                }
-            }
             firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             cloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(cloudlet);
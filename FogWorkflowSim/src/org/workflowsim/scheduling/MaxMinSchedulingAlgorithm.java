@@ -15,8 +15,8 @@
  */
 package org.workflowsim.scheduling;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.PriorityQueue;
 import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Log;
 import org.workflowsim.CondorVM;
@@ -38,68 +38,40 @@ public class MaxMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
         super();
     }
     /**
-     * the check point list.
+     * Schedules the cloudlets in non-ascending order of length, the first one
+     * of the list among those with the same length, each of them to the idle
+     * VM with the maximum requested mips.
      */
-    private final List<Boolean> hasChecked = new ArrayList<>();
-
     @Override
     public void run() {
 
 
         //Log.printLine("Schedulin Cycle");
-        int size = getCloudletList().size();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            hasChecked.add(false);
+        @SuppressWarnings("unchecked")
+        List<Cloudlet> cloudlets = getCloudletList();
+        int size = cloudlets.size();
+        long[] lengths = new long[size];
+        for (int i = 0; i < size; i++) {
+            lengths[i] = cloudlets.get(i).getCloudletLength();
         }
+        PriorityQueue<Integer> longest = new PriorityQueue<>(Math.max(1, size), (a, b) -> {
+            int c = Long.compare(lengths[b], lengths[a]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
         for (int i = 0; i < size; i++) {
-            int maxIndex = 0;
-            Cloudlet maxCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (!hasChecked.get(j)) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                    break;
-                }
-            }
-            if (maxCloudlet == null) {
-                break;
-            }
+            longest.add(i);
+        }
+        @SuppressWarnings("unchecked")
+        List<CondorVM> vmList = getVmList();
+        IdleVmQueue idleVms = new IdleVmQueue(vmList);
 
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) getCloudletList().get(j);
-                if (hasChecked.get(j)) {
-                    continue;
-                }
-                long length = cloudlet.getCloudletLength();
-                if (length > maxCloudlet.getCloudletLength()) {
-                    maxCloudlet = cloudlet;
-                    maxIndex = j;
-                }
-            }
-            hasChecked.set(maxIndex, true);
+        while (!longest.isEmpty()) {
+            Cloudlet maxCloudlet = cloudlets.get(longest.poll());
 
-            int vmSize = getVmList().size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
-                    break;
-                }
-            }
+            CondorVM firstIdleVm = idleVms.peek();
             if (firstIdleVm == null) {
                 break;
             }
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = (CondorVM) getVmList().get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
-
-                }
-            }
             firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             maxCloudlet.setVmId(firstIdleVm.getId());
             getScheduledList().add(maxCloudlet);
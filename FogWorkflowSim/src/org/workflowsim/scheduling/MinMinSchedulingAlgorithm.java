@@ -16,12 +16,15 @@
 package org.workflowsim.scheduling;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-
-import javax.swing.plaf.basic.BasicScrollPaneUI.VSBChangeListener;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 import org.cloudbus.cloudsim.Cloudlet;
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.workflowsim.CondorVM;
 import org.workflowsim.Job;
 import org.workflowsim.WorkflowSimTags;
@@ -40,97 +43,130 @@ public class MinMinSchedulingAlgorithm extends BaseSchedulingAlgorithm {
     public MinMinSchedulingAlgorithm() {
         super();
     }
-    private final List<Boolean> hasChecked = new ArrayList<>();
 
-    @Override
-    public void run() {
+    /**
+     * The VMs where the jobs offloaded to a datacenter can be scheduled.
+     */
+    private static class SchedulableVms {
 
-        int size = getCloudletList().size();
-        List<Cloudlet> cloudlets = getCloudletList();
-        hasChecked.clear();
-        for (int t = 0; t < size; t++) {
-            hasChecked.add(false);
+        private final List<CondorVM> vms;
+        private final IdleVmQueue idleVms;
+        private CondorVM fastestVm;
+
+        SchedulableVms(List<CondorVM> vms) {
+            this.vms = vms;
+            this.idleVms = new IdleVmQueue(vms);
         }
-//        for (int i = 0; i < size; i++) 
-        while(!cloudlets.isEmpty()){
-            int minIndex = 0;
-            Cloudlet minCloudlet = null;
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) cloudlets.get(j);
-                if (!hasChecked.get(j)) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                    break;
-                }
+
+        /**
+         * Gets the idle VM with the maximum requested mips or, if all the
+         * VMs are busy, the VM with the maximum mips.
+         */
+        CondorVM getVm() {
+            CondorVM vm = idleVms.peek();
+            if (vm != null) {
+                return vm;
             }
-            if (minCloudlet == null) {
-                break;
+            if (fastestVm == null) {
+                CondorVM fast = vms.get(0);
+                for (CondorVM candidate : vms) {
+                    if (candidate.getMips() > fast.getMips()) {
+                        fast = candidate;
+                    }
+                }
+                fastestVm = fast;
             }
+            return fastestVm;
+        }
+    }
 
+    /**
+     * Schedules the shortest cloudlets first. A round picks the shortest
+     * cloudlet, the first one of the list among those with the same length,
+     * skipping the cloudlets at the positions of the list already picked in
+     * previous rounds, and ends the pass when all the positions have been
+     * picked. The cloudlets are kept in a heap by length and the positions
+     * are obtained from a Fenwick tree of the cloudlets not scheduled yet.
+     */
+    @Override
+    public void run() {
 
-            for (int j = 0; j < size; j++) {
-                Cloudlet cloudlet = (Cloudlet) cloudlets.get(j);
-                if (hasChecked.get(j)) {
-                    continue;
-                }
-                long length = cloudlet.getCloudletLength();
-                if (length < minCloudlet.getCloudletLength()) {
-                    minCloudlet = cloudlet;
-                    minIndex = j;
-                }
+        List<Cloudlet> cloudlets = getCloudletList();
+        int size = cloudlets.size();
+        long[] lengths = new long[size];
+        for (int i = 0; i < size; i++) {
+            lengths[i] = cloudlets.get(i).getCloudletLength();
+        }
+        PriorityQueue<Integer> shortest = new PriorityQueue<>(Math.max(1, size), (a, b) -> {
+            int c = Long.compare(lengths[a], lengths[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        for (int i = 0; i < size; i++) {
+            shortest.add(i);
+        }
+        // pending[i] counts the cloudlets not scheduled yet in a range ending at i
+        int[] pending = new int[size + 1];
+        for (int i = 1; i <= size; i++) {
+            pending[i]++;
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                pending[parent] += pending[i];
             }
-            hasChecked.set(minIndex, true);
+        }
+        boolean[] hasChecked = new boolean[size];
+        Map<Integer, SchedulableVms> schedulableVms = new HashMap<>();
+        Set<Cloudlet> scheduled = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Integer> skipped = new ArrayList<>();
 
-//            int vmSize = getVmList().size();
-            Job job = (Job) minCloudlet;
-            List<CondorVM> vlist = getVmList();
-            List<CondorVM> schedulableVmList = new ArrayList<CondorVM>();
-            if(job.getoffloading() == -1){
-            	schedulableVmList.addAll(vlist);
-//            	System.out.println("没有进行卸载决策");
-            }
-            else{
-            	for(CondorVM vm : vlist){
-                	if(job.getoffloading() == vm.getHost().getDatacenter().getId())
-                		schedulableVmList.add(vm);
+        while (true) {
+            int minIndex = -1;
+            int position = -1;
+            skipped.clear();
+            while (!shortest.isEmpty()) {
+                int index = shortest.poll();
+                position = 0;
+                for (int i = index; i > 0; i -= i & -i) {
+                    position += pending[i];
                 }
-			}
-//            System.out.print("  job"+job.getCloudletId()+"卸载到"+CloudSim.getEntityName(job.getoffloading())+", 可调度的虚拟机有: ");
-//            for(CondorVM v2 : schedulableVmList)
-//            	System.out.print(v2.getId()+",");
-            int vmSize = schedulableVmList.size();
-            CondorVM firstIdleVm = null;//(CondorVM)getVmList().get(0);
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = schedulableVmList.get(j);
-                if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
-                    firstIdleVm = vm;
+                if (!hasChecked[position]) {
+                    minIndex = index;
                     break;
                 }
+                skipped.add(index);
             }
-            if (firstIdleVm == null) {
-//                break;
-            	CondorVM fast = schedulableVmList.get(0);
-            	for(CondorVM vm : schedulableVmList){
-            		if(vm.getMips() > fast.getMips())
-            			fast = vm;
-            	}
-            	firstIdleVm = fast;
+            shortest.addAll(skipped);
+            if (minIndex < 0) {
+                break;
             }
-            else{
-            for (int j = 0; j < vmSize; j++) {
-                CondorVM vm = schedulableVmList.get(j);
-                if ((vm.getState() == WorkflowSimTags.VM_STATUS_IDLE)
-                        && vm.getCurrentRequestedTotalMips() > firstIdleVm.getCurrentRequestedTotalMips()) {
-                    firstIdleVm = vm;
-                }
+            hasChecked[position] = true;
+            for (int i = minIndex + 1; i <= size; i += i & -i) {
+                pending[i]--;
             }
+            Cloudlet minCloudlet = cloudlets.get(minIndex);
+
+            Job job = (Job) minCloudlet;
+            SchedulableVms vms = schedulableVms.get(job.getoffloading());
+            if (vms == null) {
+                List<CondorVM> vlist = getVmList();
+                List<CondorVM> schedulableVmList = new ArrayList<CondorVM>();
+                if (job.getoffloading() == -1) {
+                    schedulableVmList.addAll(vlist);
+                } else {
+                    for (CondorVM vm : vlist) {
+                        if (job.getoffloading() == vm.getHost().getDatacenter().getId()) {
+                            schedulableVmList.add(vm);
+                        }
+                    }
+                }
+                vms = new SchedulableVms(schedulableVmList);
+                schedulableVms.put(job.getoffloading(), vms);
             }
+            CondorVM firstIdleVm = vms.getVm();
             firstIdleVm.setState(WorkflowSimTags.VM_STATUS_BUSY);
             minCloudlet.setVmId(firstIdleVm.getId());
-//            System.out.println("调度到vm"+firstIdleVm.getId());
             getScheduledList().add(minCloudlet);
-            cloudlets.remove(minCloudlet);
-            size = cloudlets.size();
+            scheduled.add(minCloudlet);
         }
+        cloudlets.removeIf(scheduled::contains);
     }
 }
@@ -1,98 +1,245 @@
 package org.workflowsim.scheduling;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.cloudbus.cloudsim.core.RandomStreams;
 
 /**
  * The PSO Algorithm
- * 
+ *
+ * TSP modification: the swarm is split in islands, every one with its own particles and its own generator, split
+ * from a PsoScheduling stream of {@link RandomStreams}.
+ * The islands evolve concurrently in the fork-join common pool with the fitness estimated by a
+ * {@link ScheduleEvaluator}, and every migrationInterval iterations the best particle of every island replaces the
+ * worst particle of the next one. The simulation is only run for the best schedule found.
+ *
  * @since FogWorkflowSim Toolkit 1.0
  * @author Lina Gong
  */
 public class PsoScheduling {
-	
+
 	public static int particleNum;//粒子数
 	public static int iterateNum;//迭代次数
 	public static double c1;//学习因子c1
 	public static double c2;//学习因子c2
 	public static double w;//惯性权重
-	
-	public static int initFlag=0;
-	public static List<int[]> schedules=new ArrayList<int[]>();//更新前
-	public static List<int[]> newSchedules=new ArrayList<int[]>();//更新后
-	public static List<int[]> pbest_schedule=new ArrayList<int[]>();
+
+	/**
+	 * Quantity of islands the particles are split in and iterations between two migrations. The quantity of islands
+	 * does not depend on the processors, so a master seed gives the same result in every machine.
+	 */
+	public static int islandNum = 4;
+	public static int migrationInterval = 10;
+
+	/**
+	 * The best schedule found by the last run and its fitness
+	 */
 	public static int[] gbest_schedule;
-	public static double[] pbest_fitness;
-	public static List<double[]> velocity=new ArrayList<double[]>();
-	public static double gbest_fitness=Double.MAX_VALUE;
-	public static int[] x;//更新前
-	public static int[] pbestSchedule;
-	public static double[] v;
-	public static int taskNum;
-	public static int vmNum;
-	
-	public static void init(int jobNum,int maxVmNum) {
-		pbest_fitness=new double[particleNum];
-		  taskNum=jobNum;
-		  vmNum=maxVmNum;
-		  gbest_schedule=new int[taskNum];
-			for(int i=0;i<particleNum;i++)
-			{
-				x=new int[taskNum];
-				pbestSchedule=new int[taskNum];
-				double[] v=new double[taskNum];
-				for(int j=0;j<taskNum;j++)
-				{
-					x[j]=new Random().nextInt(vmNum);
-					pbestSchedule[j]=x[j];
-					v[j]=new Random().nextDouble();
+	public static double gbest_fitness = Double.MAX_VALUE;
+
+	private final ScheduleEvaluator evaluator;
+	private final SplittableRandom random;
+	private final int taskNum;
+	private final int vmNum;
+
+	private final int[][] schedules;
+	private final double[][] velocity;
+	private final int[][] pbest_schedule;
+	private final double[] pbest_fitness;
+	private final int[] island_best_schedule;
+	private double island_best_fitness = Double.MAX_VALUE;
+
+	/**
+	 * The best fitness of the island after every iteration
+	 */
+	private final double[] best_fitness_history;
+	private int iteration = 0;
+
+	/**
+	 * Creates an island with random particles and evaluates them
+	 */
+	private PsoScheduling(ScheduleEvaluator evaluator, int particles, int taskNum, int vmNum, SplittableRandom random) {
+		this.evaluator = evaluator;
+		this.random = random;
+		this.taskNum = taskNum;
+		this.vmNum = vmNum;
+
+		schedules = new int[particles][taskNum];
+		velocity = new double[particles][taskNum];
+		pbest_schedule = new int[particles][];
+		for(int i = 0; i < particles; i++) {
+			for(int j = 0; j < taskNum; j++) {
+				schedules[i][j] = random.nextInt(vmNum);
+				velocity[i][j] = random.nextDouble();
+			}
+			pbest_schedule[i] = schedules[i].clone();
+		}
+		pbest_fitness = evaluator.getFitness(Arrays.asList(schedules));
+		island_best_schedule = new int[taskNum];
+		updateIslandBest();
+		best_fitness_history = new double[iterateNum];
+	}
+
+	/**
+	 * Moves every particle towards its own best schedule and the best schedule of the island
+	 */
+	private void updateParticles() {
+		for(int i = 0; i < schedules.length; i++) {
+			int[] x = schedules[i];
+			double[] v = velocity[i];
+			int[] pbest = pbest_schedule[i];
+			for(int j = 0; j < taskNum; j++) {
+				double r1 = random.nextDouble();
+				double r2 = random.nextDouble();
+				v[j] = w * v[j] + c1 * r1 * (pbest[j] - x[j]) + c2 * r2 * (island_best_schedule[j] - x[j]);
+				x[j] = x[j] + (int) v[j];
+				if(x[j] > vmNum - 1)
+					x[j] = vmNum - 1;
+				if(x[j] < 0)
+					x[j] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Runs some iterations of the island: the particles are moved, evaluated, and the best schedules are updated
+	 */
+	private void iterate(int iterations) {
+		for(int k = 0; k < iterations; k++) {
+			updateParticles();
+			double[] fitness = evaluator.getFitness(Arrays.asList(schedules));
+			for(int i = 0; i < schedules.length; i++) {
+				if(fitness[i] < pbest_fitness[i]) {
+					System.arraycopy(schedules[i], 0, pbest_schedule[i], 0, taskNum);
+					pbest_fitness[i] = fitness[i];
 				}
-				schedules.add(x);
-				pbest_schedule.add(pbestSchedule);
-				velocity.add(v);
 			}
-			initFlag=1;
+			updateIslandBest();
+			best_fitness_history[iteration++] = island_best_fitness;
+		}
+	}
+
+	private void updateIslandBest() {
+		for(int i = 0; i < pbest_fitness.length; i++) {
+			if(pbest_fitness[i] < island_best_fitness) {
+				island_best_fitness = pbest_fitness[i];
+				System.arraycopy(pbest_schedule[i], 0, island_best_schedule, 0, taskNum);
+			}
+		}
+	}
+
+	/**
+	 * Replaces the worst particle of the island by a migrant
+	 */
+	private void receive(int[] migrant, double migrantFitness) {
+		int worst = 0;
+		for(int i = 1; i < pbest_fitness.length; i++) {
+			if(pbest_fitness[i] > pbest_fitness[worst])
+				worst = i;
+		}
+		System.arraycopy(migrant, 0, schedules[worst], 0, taskNum);
+		System.arraycopy(migrant, 0, pbest_schedule[worst], 0, taskNum);
+		pbest_fitness[worst] = migrantFitness;
+		updateIslandBest();
+	}
+
+	/**
+	 * Runs the PSO during iterateNum iterations and stores the best schedule found in gbest_schedule
+	 *
+	 * @param evaluator the evaluator of the fitness of the schedules
+	 * @param jobNum the quantity of jobs, which is the length of the schedules
+	 * @param maxVmNum the quantity of VMs
+	 * @return the best fitness of the swarm after every iteration
+	 */
+	public static List<Double> run(ScheduleEvaluator evaluator, int jobNum, int maxVmNum) {
+		SplittableRandom random = RandomStreams.stream("PsoScheduling");
+		int islandQuantity = Math.max(1, Math.min(islandNum, particleNum));
+		PsoScheduling[] islands = new PsoScheduling[islandQuantity];
+		for(int i = 0; i < islandQuantity; i++) {
+			int particles = particleNum / islandQuantity + (i < particleNum % islandQuantity ? 1 : 0);
+			islands[i] = new PsoScheduling(evaluator, Math.max(1, particles), jobNum, maxVmNum, random.split());
+		}
+
+		int interval = Math.max(1, migrationInterval);
+		for(int done = 0; done < iterateNum; done += interval) {
+			int iterations = Math.min(interval, iterateNum - done);
+			ForkJoinPool.commonPool().invoke(new IslandTask(islands, iterations, 0, islandQuantity));
+			if(islandQuantity > 1 && done + iterations < iterateNum)
+				migrate(islands);
+		}
+
+		List<Double> bestFitnessHistory = new ArrayList<Double>(iterateNum);
+		for(int k = 0; k < iterateNum; k++) {
+			double best = Double.MAX_VALUE;
+			for(PsoScheduling island : islands)
+				best = Math.min(best, island.best_fitness_history[k]);
+			bestFitnessHistory.add(best);
+		}
+		for(PsoScheduling island : islands) {
+			if(island.island_best_fitness < gbest_fitness) {
+				gbest_fitness = island.island_best_fitness;
+				gbest_schedule = island.island_best_schedule.clone();
+			}
+		}
+		return bestFitnessHistory;
+	}
+
+	/**
+	 * Sends a copy of the best particle of every island to the next island of the ring
+	 */
+	private static void migrate(PsoScheduling[] islands) {
+		int[][] migrants = new int[islands.length][];
+		double[] migrantFitness = new double[islands.length];
+		for(int i = 0; i < islands.length; i++) {
+			migrants[i] = islands[i].island_best_schedule.clone();
+			migrantFitness[i] = islands[i].island_best_fitness;
+		}
+		for(int i = 0; i < islands.length; i++)
+			islands[(i + 1) % islands.length].receive(migrants[i], migrantFitness[i]);
+	}
+
+	/**
+	 * Runs some iterations of a range of islands, splitting it in halves while it has more than one island
+	 */
+	private static class IslandTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final PsoScheduling[] islands;
+		private final int iterations;
+		private final int from;
+		private final int to;
+
+		IslandTask(PsoScheduling[] islands, int iterations, int from, int to) {
+			this.islands = islands;
+			this.iterations = iterations;
+			this.from = from;
+			this.to = to;
 		}
-		
-	public static void updateParticles()
-	{
-		for(int i=0;i<particleNum;i++) {
-			int x[]=schedules.get(i);
-			double v[]=velocity.get(i);
-			int pbest[]=new int[taskNum];
-			int temp1[]=new int[taskNum];
-			int temp2[]=new int[taskNum];
-			double sum[]=new double[taskNum];
-			//更新每种调度方案
-			pbest=pbest_schedule.get(i);
-			for(int j=0;j<x.length;j++) {
-				temp1[j] = pbest[j]-x[j];
-				temp2[j] = gbest_schedule[j]-x[j];
-				double r1 = new Random().nextDouble();
-				double r2 = new Random().nextDouble();
-				sum[j] = c1*r1*temp1[j]+c2*r2*temp2[j];
-				v[j] = w*v[j]+sum[j];
-				x[j] = x[j]+(int)v[j];
-				if(x[j]>vmNum-1)
-					x[j]=vmNum-1;
-				if(x[j]<0)
-					x[j]=0;
+
+		@Override
+		protected void compute() {
+			if(to - from <= 1) {
+				for(int i = from; i < to; i++)
+					islands[i].iterate(iterations);
+				return;
 			}
-			newSchedules.add(x);
+			int middle = (from + to) >>> 1;
+			invokeAll(new IslandTask(islands, iterations, from, middle),
+					new IslandTask(islands, iterations, middle, to));
 		}
 	}
-	
+
 	/**
 	 * 初始化所有对象，为了反复实现pso调度算法
 	 */
 	public static void clear() {
 		gbest_fitness = Double.MAX_VALUE;
-	    initFlag = 0;
-        schedules.removeAll(schedules);
-        pbest_schedule.removeAll(pbest_schedule);
-        velocity.removeAll(velocity);
-        newSchedules.removeAll(newSchedules);
-        pbest_schedule.removeAll(pbest_schedule);
+		gbest_schedule = null;
 	}
 }
@@ -0,0 +1,35 @@
+package org.workflowsim.scheduling;
+
+import java.util.List;
+
+/**
+ * Calculates the fitness of the schedules searched by the intelligent scheduling algorithms. A schedule assigns a VM
+ * id to every job, indexed by the job id, and a lower fitness is better. The implementations must allow several
+ * threads to evaluate schedules at the same time.
+ *
+ * @since TSP Extension 1.0
+ */
+public interface ScheduleEvaluator {
+
+    /**
+     * Calculates the fitness of a schedule
+     *
+     * @param schedule the VM id of every job, indexed by the job id
+     * @return the fitness, lower is better
+     */
+    double getFitness(int[] schedule);
+
+    /**
+     * Calculates the fitness of several schedules, by default one after the other
+     *
+     * @param schedules the schedules
+     * @return the fitness of every schedule
+     */
+    default double[] getFitness(List<int[]> schedules) {
+        double[] fitness = new double[schedules.size()];
+        for (int i = 0; i < fitness.length; i++) {
+            fitness[i] = getFitness(schedules.get(i));
+        }
+        return fitness;
+    }
+}
@@ -0,0 +1,441 @@
+package org.workflowsim.scheduling;
+
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.fog.entities.Controller;
+import org.fog.entities.FogDevice;
+import org.fog.utils.FogLinearPowerModel;
+import org.workflowsim.CondorVM;
+import org.workflowsim.FileItem;
+import org.workflowsim.Job;
+import org.workflowsim.utils.Parameters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A schedule assigns a VM id to every job, indexed by the job id. The evaluator compiles the jobs into a DAG and the
+ * VMs into a table once, and then replays a schedule as a list scheduling of the jobs in the order they become ready,
+ * with the same rules that the simulation uses to obtain the indicators:
+ * <ul>
+ *     <li>a job runs in the first free PE of its VM for its length divided by the VM mips,</li>
+ *     <li>a compute job that starts as soon as it is submitted also stages in its real input files, through the WAN
+ *     in the cloud and through the LAN in the fog node,</li>
+ *     <li>the cost of the jobs out of the mobile device is charged by the mips of their host,</li>
+ *     <li>the energy is the one of the mobile device: busy, idle and sending and receiving data,</li>
+ *     <li>the energy and the cost are penalized when the makespan exceeds the deadline.</li>
+ * </ul>
+ * The evaluation of a schedule does not modify the evaluator, so whole populations are evaluated in parallel in the
+ * fork-join common pool. The fitness is an estimation: the full simulation is only run for the best schedule.
+ *
+ * @since TSP Extension 1.0
+ */
+public class ScheduleFitnessEvaluator implements ScheduleEvaluator {
+
+    /**
+     * Ways of a device to receive the input files of a job
+     */
+    private static final int NO_LINK = 0;
+    private static final int LAN_LINK = 1;
+    private static final int WAN_LINK = 2;
+
+    /**
+     * Quantity of jobs
+     */
+    private final int job_quantity;
+
+    /**
+     * Id of every job, which is its position in a schedule
+     */
+    private final int[] job_ids;
+
+    /**
+     * Length of every job in MI
+     */
+    private final double[] job_lengths;
+
+    /**
+     * Delay of every job between the return of its last parent and its submission
+     */
+    private final double[] job_queue_delays;
+
+    /**
+     * Time to stage in the real input files of every job through the LAN and through the WAN
+     */
+    private final double[] job_lan_transfer_times;
+    private final double[] job_wan_transfer_times;
+
+    /**
+     * Input size and total output size of every job, used to calculate the time the mobile device sends and receives
+     */
+    private final double[] job_input_sizes;
+    private final double[] job_output_sizes;
+
+    /**
+     * VMs where every job can be placed according to its offloading decision; null if it was not offloaded
+     */
+    private final int[][] job_allowed_vms;
+
+    /**
+     * Children of every job: the children of job i are job_children[job_children_start[i]] to
+     * job_children[job_children_start[i + 1] - 1]
+     */
+    private final int[] job_children_start;
+    private final int[] job_children;
+
+    /**
+     * Quantity of parents of every job
+     */
+    private final int[] job_parent_quantity;
+
+    /**
+     * Position in the VM table of every VM id, -1 for unknown ids
+     */
+    private final int[] vm_index_by_id;
+
+    /**
+     * The VM table
+     */
+    private final int[] vm_ids;
+    private final double[] vm_mips;
+    private final int[] vm_pe_start;
+    private final int[] vm_links;
+    private final boolean[] vm_in_mobile;
+    private final double[] vm_busy_power;
+    private final double[] vm_cost_per_second;
+
+    /**
+     * Features of the mobile device and the network
+     */
+    private final double mobile_static_power;
+    private final double mobile_send_power;
+    private final double mobile_receive_power;
+    private final double lan_bandwidth;
+    private final double wan_bandwidth;
+    private final double transfer_parameter;
+
+    private final double deadline;
+    private final Parameters.Optimization optimization;
+
+    /**
+     * Compiles the jobs and the VMs
+     *
+     * @param jobs the jobs of the workflow, with dense ids starting in 0
+     * @param vms the VMs that can appear in a schedule
+     * @param controller the controller, which has the features of the devices and the network
+     * @param deadline the deadline of the workflow
+     */
+    public ScheduleFitnessEvaluator(List<Job> jobs, List<? extends Vm> vms, Controller controller, double deadline) {
+        this.deadline = deadline;
+        this.optimization = Parameters.getOptimization();
+        this.lan_bandwidth = controller.getLANBandwidth();
+        this.wan_bandwidth = controller.getWANBandwidth();
+        this.transfer_parameter = controller.getParameter();
+
+        FogLinearPowerModel mobile_power_model = (FogLinearPowerModel) controller.getmobile().getHost().getPowerModel();
+        this.mobile_static_power = mobile_power_model.getStaticPower();
+        this.mobile_send_power = mobile_power_model.getSendPower();
+        this.mobile_receive_power = mobile_power_model.getRecePower();
+
+        int cloud_id = controller.getcloud() == null ? -1 : controller.getcloud().getId();
+        int fog_node_id = controller.getFogNode() == null ? -1 : controller.getFogNode().getId();
+
+        // VM table
+        int vm_quantity = vms.size();
+        vm_ids = new int[vm_quantity];
+        vm_mips = new double[vm_quantity];
+        vm_pe_start = new int[vm_quantity + 1];
+        vm_links = new int[vm_quantity];
+        vm_in_mobile = new boolean[vm_quantity];
+        vm_busy_power = new double[vm_quantity];
+        vm_cost_per_second = new double[vm_quantity];
+        int max_vm_id = -1;
+        for (int v = 0; v < vm_quantity; v++) {
+            CondorVM vm = (CondorVM) vms.get(v);
+            PowerHost host = (PowerHost) vm.getHost();
+            FogDevice device = (FogDevice) host.getDatacenter();
+
+            vm_ids[v] = vm.getId();
+            vm_mips[v] = vm.getMips();
+            vm_pe_start[v + 1] = vm_pe_start[v] + Math.max(1, vm.getNumberOfPes());
+            vm_links[v] = device.getId() == cloud_id ? WAN_LINK : device.getId() == fog_node_id ? LAN_LINK : NO_LINK;
+            vm_in_mobile[v] = device.getName().contains("m");
+            if (vm_in_mobile[v]) {
+                vm_busy_power[v] = ((FogLinearPowerModel) host.getPowerModel()).getPower(vm.getMips() / host.getTotalMips());
+            } else {
+                vm_cost_per_second[v] = host.getTotalMips() / vm.getMips() * host.getcostPerMips();
+            }
+            max_vm_id = Math.max(max_vm_id, vm.getId());
+        }
+        vm_index_by_id = new int[max_vm_id + 1];
+        Arrays.fill(vm_index_by_id, -1);
+        for (int v = 0; v < vm_quantity; v++) {
+            vm_index_by_id[vm_ids[v]] = v;
+        }
+
+        // jobs
+        job_quantity = jobs.size();
+        job_ids = new int[job_quantity];
+        job_lengths = new double[job_quantity];
+        job_queue_delays = new double[job_quantity];
+        job_lan_transfer_times = new double[job_quantity];
+        job_wan_transfer_times = new double[job_quantity];
+        job_input_sizes = new double[job_quantity];
+        job_output_sizes = new double[job_quantity];
+        job_allowed_vms = new int[job_quantity][];
+        job_parent_quantity = new int[job_quantity];
+
+        Map<Job, Integer> job_index = new IdentityHashMap<>(job_quantity * 2);
+        for (int j = 0; j < job_quantity; j++) {
+            job_index.put(jobs.get(j), j);
+        }
+
+        for (int j = 0; j < job_quantity; j++) {
+            Job job = jobs.get(j);
+            job_ids[j] = job.getCloudletId();
+            job_lengths[j] = job.getCloudletLength();
+            if (Parameters.getOverheadParams() != null && Parameters.getOverheadParams().getQueueDelay() != null) {
+                job_queue_delays[j] = Parameters.getOverheadParams().getQueueDelay(job);
+            }
+
+            double real_input_size = 0;
+            for (FileItem file : job.getRealInputFiles()) {
+                real_input_size += file.getSize();
+            }
+            int output_file_quantity = 0;
+            for (FileItem file : job.getFileList()) {
+                if (file.getType() == Parameters.FileType.OUTPUT) {
+                    output_file_quantity++;
+                }
+            }
+            if (job.getClassType() == Parameters.ClassType.COMPUTE.value) {
+                job_lan_transfer_times[j] = real_input_size / transfer_parameter / lan_bandwidth;
+                job_wan_transfer_times[j] = real_input_size / transfer_parameter / wan_bandwidth;
+            }
+            job_input_sizes[j] = job.getInputsize();
+            job_output_sizes[j] = job.getOutputsize() * output_file_quantity;
+
+            if (job.getoffloading() != -1) {
+                List<Integer> allowed = new ArrayList<>();
+                for (int v = 0; v < vm_quantity; v++) {
+                    if (((CondorVM) vms.get(v)).getHost().getDatacenter().getId() == job.getoffloading()) {
+                        allowed.add(vm_ids[v]);
+                    }
+                }
+                job_allowed_vms[j] = allowed.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        // DAG
+        job_children_start = new int[job_quantity + 1];
+        List<Integer> children = new ArrayList<>();
+        for (int j = 0; j < job_quantity; j++) {
+            job_children_start[j] = children.size();
+            for (Object child : jobs.get(j).getChildList()) {
+                Integer c = job_index.get(child);
+                if (c != null) {
+                    children.add(c);
+                    job_parent_quantity[c]++;
+                }
+            }
+        }
+        job_children_start[job_quantity] = children.size();
+        job_children = children.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Gets the VM where a job runs, converting the VM of the schedule as the broker does when the job was offloaded
+     * to a datacenter where that VM is not
+     */
+    private int getVmIndex(int job, int[] schedule) {
+        int vm_id = schedule[job_ids[job]];
+        int[] allowed = job_allowed_vms[job];
+        if (allowed != null) {
+            boolean is_allowed = false;
+            for (int id : allowed) {
+                if (id == vm_id) {
+                    is_allowed = true;
+                    break;
+                }
+            }
+            if (!is_allowed) {
+                vm_id = allowed[0] + vm_id % allowed.length;
+            }
+        }
+        return vm_index_by_id[vm_id];
+    }
+
+    /**
+     * Estimates the indicators of a schedule
+     *
+     * @param schedule the VM id of every job, indexed by the job id
+     * @return the makespan, the energy and the cost
+     */
+    public double[] getIndicators(int[] schedule) {
+        double[] ready_time = new double[job_quantity];
+        int[] pending_parents = job_parent_quantity.clone();
+        double[] pe_free_time = new double[vm_pe_start[vm_pe_start.length - 1]];
+
+        PriorityQueue<Integer> ready_jobs = new PriorityQueue<>(Math.max(1, job_quantity), (a, b) -> {
+            int c = Double.compare(ready_time[a], ready_time[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        for (int j = 0; j < job_quantity; j++) {
+            if (pending_parents[j] == 0) {
+                ready_time[j] = job_queue_delays[j];
+                ready_jobs.add(j);
+            }
+        }
+
+        double makespan = 0;
+        double mobile_busy_time = 0;
+        double mobile_busy_energy = 0;
+        double cost = 0;
+        double lan_send_input = 0, wan_send_input = 0;
+        double lan_send_output = 0, wan_send_output = 0;
+
+        while (!ready_jobs.isEmpty()) {
+            int job = ready_jobs.poll();
+            int vm = getVmIndex(job, schedule);
+
+            int pe = vm_pe_start[vm];
+            for (int p = pe + 1; p < vm_pe_start[vm + 1]; p++) {
+                if (pe_free_time[p] < pe_free_time[pe]) {
+                    pe = p;
+                }
+            }
+
+            double start = Math.max(ready_time[job], pe_free_time[pe]);
+            double runtime = job_lengths[job] / vm_mips[vm];
+            // a job waiting for a free PE does not account the stage-in of its files
+            if (pe_free_time[pe] <= ready_time[job]) {
+                if (vm_links[vm] == LAN_LINK) {
+                    runtime += job_lan_transfer_times[job];
+                } else if (vm_links[vm] == WAN_LINK) {
+                    runtime += job_wan_transfer_times[job];
+                }
+            }
+            double finish = start + runtime;
+            pe_free_time[pe] = finish;
+
+            if (vm_in_mobile[vm]) {
+                mobile_busy_time += runtime;
+                mobile_busy_energy += runtime * vm_busy_power[vm];
+            } else {
+                cost += runtime * vm_cost_per_second[vm];
+            }
+            if (vm_links[vm] == LAN_LINK) {
+                lan_send_input += job_input_sizes[job];
+            } else if (vm_links[vm] == WAN_LINK) {
+                wan_send_input += job_input_sizes[job];
+            }
+
+            // the output of the last job is sent back to the mobile device
+            if (finish >= makespan) {
+                makespan = finish;
+                lan_send_output = vm_links[vm] == LAN_LINK ? job_output_sizes[job] : 0;
+                wan_send_output = vm_links[vm] == WAN_LINK ? job_output_sizes[job] : 0;
+            }
+
+            for (int e = job_children_start[job]; e < job_children_start[job + 1]; e++) {
+                int child = job_children[e];
+                ready_time[child] = Math.max(ready_time[child], finish);
+                if (--pending_parents[child] == 0) {
+                    ready_time[child] += job_queue_delays[child];
+                    ready_jobs.add(child);
+                }
+            }
+        }
+
+        double send_time = lan_send_input / transfer_parameter / lan_bandwidth
+                + wan_send_input / transfer_parameter / wan_bandwidth;
+        double receive_time = lan_send_output / transfer_parameter / lan_bandwidth
+                + wan_send_output / transfer_parameter / wan_bandwidth;
+        double energy = mobile_busy_energy + (makespan - mobile_busy_time) * mobile_static_power
+                + send_time * mobile_send_power + receive_time * mobile_receive_power;
+
+        return new double[]{makespan, energy / 1000, cost};
+    }
+
+    /**
+     * Estimates the fitness of a schedule, as the workflow engine calculates it from the indicators
+     *
+     * @param schedule the VM id of every job, indexed by the job id
+     * @return the fitness, lower is better
+     */
+    @Override
+    public double getFitness(int[] schedule) {
+        double[] indicators = getIndicators(schedule);
+        double time = indicators[0];
+        double energy = indicators[1];
+        double cost = indicators[2];
+
+        if (time > deadline) {
+            energy = 10 * energy * (time / deadline);
+            cost = 10 * cost * (time / deadline);
+        }
+
+        switch (optimization) {
+            case Time:
+                return time;
+            case Energy:
+                return energy;
+            case Cost:
+                return cost;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Estimates the fitness of several schedules in parallel
+     *
+     * @param schedules the schedules
+     * @return the fitness of every schedule
+     */
+    @Override
+    public double[] getFitness(List<int[]> schedules) {
+        double[] fitness = new double[schedules.size()];
+        ForkJoinPool.commonPool().invoke(new FitnessTask(schedules, fitness, 0, fitness.length));
+        return fitness;
+    }
+
+    /**
+     * Evaluates a range of schedules, splitting it in halves while it has more than one schedule
+     */
+    private class FitnessTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<int[]> schedules;
+        private final double[] fitness;
+        private final int from;
+        private final int to;
+
+        FitnessTask(List<int[]> schedules, double[] fitness, int from, int to) {
+            this.schedules = schedules;
+            this.fitness = fitness;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) {
+                    fitness[i] = getFitness(schedules.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new FitnessTask(schedules, fitness, from, middle),
+                    new FitnessTask(schedules, fitness, middle, to));
+        }
+    }
+}
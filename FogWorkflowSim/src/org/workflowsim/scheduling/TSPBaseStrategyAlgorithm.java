@@ -44,16 +44,38 @@ public abstract class TSPBaseStrategyAlgorithm extends BaseSchedulingAlgorithm {
         return this.all_severs_are_busy;
     }
 
+    /**
+     * The registry of the VMs classified by layer. When it is set, the VM list is not iterated to find the servers
+     */
+    protected TSPServerRegistry server_registry;
+    public void setServerRegistry(TSPServerRegistry server_registry){
+        this.server_registry = server_registry;
+    }
+
+    /**
+     * Clears the results of the previous steep, so the same instance can be used for every decision
+     */
+    public void clearSteep(){
+        getScheduledList().clear();
+        this.there_were_deadlines = false;
+    }
+
     /**
      * Return the list of devices available for placement
      * @return the list of fog and cloud devices
      */
     public List<Vm> getNotMobileVmList() {
+        if (server_registry != null){
+            return server_registry.getServerVmList();
+        }
         Predicate<CondorVM> byLayer = vm -> !vm.getHost().getDatacenter().getName().startsWith("m");
         return (List)getVmList().stream().filter(byLayer).collect(Collectors.toList());
     }
 
     public boolean thereAreServersInIdle(){
+        if (server_registry != null){
+            return server_registry.thereAreServersInIdle();
+        }
         for (Vm value : getNotMobileVmList()) {
             CondorVM vm = (CondorVM) value;
             if (vm.getState() == WorkflowSimTags.VM_STATUS_IDLE) {
@@ -72,6 +94,9 @@ public abstract class TSPBaseStrategyAlgorithm extends BaseSchedulingAlgorithm {
      * @return the mobile device
      */
     public CondorVM getGatewayVm(){
+        if (server_registry != null){
+            return server_registry.getGatewayVm();
+        }
         for (Iterator itc = getVmList().iterator(); itc.hasNext();) { //VM list
             CondorVM vm = (CondorVM) itc.next();
             if (vm.getHost().getDatacenter().getName().startsWith("m")){
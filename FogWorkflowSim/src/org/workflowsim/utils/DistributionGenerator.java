@@ -23,6 +23,9 @@ import org.apache.commons.math3.distribution.LogNormalDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.distribution.RealDistribution;
 import org.apache.commons.math3.distribution.WeibullDistribution;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.cloudbus.cloudsim.core.RandomStreams;
 
 /**
  * This is a OverheadDistributionGenrator for one typic overhead per level.
@@ -43,6 +46,10 @@ public class DistributionGenerator {
     protected double[] cumulativeSamples;
     protected int cursor;
     protected final int SAMPLE_SIZE = 1500 ; //DistributionGenerator will automatically increase the size
+    /**
+     * The generator of the samples, seeded from the DistributionGenerator streams
+     */
+    protected final RandomGenerator random = new Well19937c(RandomStreams.nextSeed("DistributionGenerator"));
     
 
     public enum DistributionFamily {
@@ -232,17 +239,17 @@ public class DistributionGenerator {
         RealDistribution distribution = null;
         switch (this.dist) {
             case LOGNORMAL:
-                distribution = new LogNormalDistribution(scale, shape);
+                distribution = new LogNormalDistribution(random, scale, shape);
                 break;
             case WEIBULL:
-                distribution = new WeibullDistribution(shape, scale);
+                distribution = new WeibullDistribution(random, shape, scale);
                 break;
             case GAMMA:
-                distribution = new GammaDistribution(shape, scale);
+                distribution = new GammaDistribution(random, shape, scale);
                 break;
             case NORMAL:
                 //shape is the std, scale is the mean
-                distribution = new NormalDistribution(scale, shape);
+                distribution = new NormalDistribution(random, scale, shape);
                 break;
             default:
                 break;
@@ -18,6 +18,7 @@
 package org.workflowsim.utils;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +27,10 @@ import org.workflowsim.FileItem;
 /**
  * ReplicaCatalog stores all the data information and where (site) there are
  *
+ * TSP modification: file names and storage names are interned to dense integer
+ * ids, and the storages of every file are kept in a bitset indexed by the
+ * storage id. The ids are never reused, so they remain valid after a new init.
+ *
  * @author Weiwei Chen
  * @since WorkflowSim Toolkit 1.0
  * @date Apr 9, 2013
@@ -47,9 +52,16 @@ public class ReplicaCatalog {
      */
     private static FileSystem fileSystem;
     /**
-     * Map from file to a list of data storage
+     * The storages of every file, indexed by the file id
+     */
+    private static List<BitSet> dataReplicaCatalog;
+    /**
+     * Interned file names and storage names
      */
-    private static Map<String, List<String>> dataReplicaCatalog;
+    private static final Map<String, Integer> fileIds = new HashMap<>();
+    private static final List<String> fileNames = new ArrayList<>();
+    private static final Map<String, Integer> storageIds = new HashMap<>();
+    private static final List<String> storageNames = new ArrayList<>();
 
     /**
      * Initialize a ReplicaCatalog
@@ -58,7 +70,7 @@ public class ReplicaCatalog {
      */
     public static void init(FileSystem fs) {
         fileSystem = fs;
-        dataReplicaCatalog = new HashMap<>();
+        dataReplicaCatalog = new ArrayList<>();
         fileName2File = new HashMap<>();
     }
 
@@ -71,6 +83,58 @@ public class ReplicaCatalog {
         return fileSystem;
     }
 
+    /**
+     * Gets the id of a file name, interning it the first time
+     *
+     * @param fileName the file name
+     * @return the file id
+     */
+    public static synchronized int getFileId(String fileName) {
+        Integer id = fileIds.get(fileName);
+        if (id == null) {
+            id = fileNames.size();
+            fileIds.put(fileName, id);
+            fileNames.add(fileName);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the name of an interned file
+     *
+     * @param fileId the file id
+     * @return the file name
+     */
+    public static synchronized String getFileName(int fileId) {
+        return fileNames.get(fileId);
+    }
+
+    /**
+     * Gets the id of a storage name, interning it the first time
+     *
+     * @param storage the storage name
+     * @return the storage id
+     */
+    public static synchronized int getStorageId(String storage) {
+        Integer id = storageIds.get(storage);
+        if (id == null) {
+            id = storageNames.size();
+            storageIds.put(storage, id);
+            storageNames.add(storage);
+        }
+        return id;
+    }
+
+    /**
+     * Gets the name of an interned storage
+     *
+     * @param storageId the storage id
+     * @return the storage name
+     */
+    public static synchronized String getStorageName(int storageId) {
+        return storageNames.get(storageId);
+    }
+
     /**
      * Gets the file object based its file name
      *
@@ -105,10 +169,40 @@ public class ReplicaCatalog {
      * Gets the list of storages a file exists
      *
      * @param file the file object
-     * @return list of storages
+     * @return list of storages, null if the file is not in any storage
      */
     public static List<String> getStorageList(String file) {
-        return dataReplicaCatalog.get(file);
+        BitSet storages = getStorages(getFileId(file));
+        if (storages == null) {
+            return null;
+        }
+        List<String> list = new ArrayList<>(storages.cardinality());
+        for (int i = storages.nextSetBit(0); i >= 0; i = storages.nextSetBit(i + 1)) {
+            list.add(getStorageName(i));
+        }
+        return list;
+    }
+
+    /**
+     * Gets the ids of the storages a file exists, which must not be modified
+     *
+     * @param fileId the file id
+     * @return the storage ids, null if the file is not in any storage
+     */
+    public static BitSet getStorages(int fileId) {
+        return fileId < dataReplicaCatalog.size() ? dataReplicaCatalog.get(fileId) : null;
+    }
+
+    /**
+     * Checks whether a file is in a storage
+     *
+     * @param fileId the file id
+     * @param storageId the storage id
+     * @return whether the file is in the storage
+     */
+    public static boolean hasReplica(int fileId, int storageId) {
+        BitSet storages = getStorages(fileId);
+        return storages != null && storages.get(storageId);
     }
 
     /**
@@ -118,12 +212,24 @@ public class ReplicaCatalog {
      * @param storage , the storage associated with this file
      */
     public static void addFileToStorage(String file, String storage) {
-        if (!dataReplicaCatalog.containsKey(file)) {
-            dataReplicaCatalog.put(file, new ArrayList<>());
+        addFileToStorage(getFileId(file), getStorageId(storage));
+    }
+
+    /**
+     * Adds a file to a storage
+     *
+     * @param fileId the file id
+     * @param storageId the storage id
+     */
+    public static void addFileToStorage(int fileId, int storageId) {
+        while (dataReplicaCatalog.size() <= fileId) {
+            dataReplicaCatalog.add(null);
         }
-        List<String> list = getStorageList(file);
-        if (!list.contains(storage)) {
-            list.add(storage);
+        BitSet storages = dataReplicaCatalog.get(fileId);
+        if (storages == null) {
+            storages = new BitSet();
+            dataReplicaCatalog.set(fileId, storages);
         }
+        storages.set(storageId);
     }
 }
@@ -0,0 +1,373 @@
+package org.workflowsim.utils;
+
+import org.cloudbus.cloudsim.distributions.ExponentialDistr;
+import org.cloudbus.cloudsim.distributions.LognormalDistr;
+import org.fog.utils.distribution.NormalDistribution;
+import org.fog.utils.distribution.UniformDistribution;
+import org.workflowsim.TSPBinaryDataset;
+import org.workflowsim.TSPDataset;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Generates datasets of any size with the Jobs.csv and Tasks.csv schema read by the TSPWorkflowParser, sampling the
+ * task sizes, arrivals and deadlines from the simulator distributions. Every job is generated with its own random
+ * generator, derived from the seed and the job number, so the jobs are generated in parallel and the same seed always
+ * produces the same dataset regardless of the number of threads.
+ *
+ * @since TSP Extension 1.0
+ */
+public class TSPDatasetGenerator {
+
+    private static final String JOBS_HEADER = "JobID_InDB,JobID,SimID,OwnerUserID,NodeID_SubmittedOn,TimeSubmission,TimeDeadLinePrefered,TimeDeadlineFinal,ListOfTasks,LastStatus,LastStatusTime,JobSizeWithoutAccountForParallelism,CountOfEdges,CountOfTasks,SumOfEdgeWeight,MaxEdgeWeight,MinEdgeWeight,MaxTaskSize,MinTaskSize,MaxParallelExecutableTasks,JobInitSourceTypeID,TasksWhichCanRunInParallel,MinStorageNeeded,TotalStorageNeeded,MaxRamNeededForParallelExec,MinRamNeeded,TotalRamNeeded,TaskIDsOfHighestsCPULoadPartOfTheDag,MaxRamNeededForParallelExecutionOfHighestCpuLoadPartOfTheDag,MinimumPassThrough_MI_withHighestParallelism,MinTimeForExecuteDagWithMaxParallelismOnCloud,MinTimeForExecuteDagWithMaxParallelismOnFog,MinTimeForExecuteDagWithMaxParallelismOnIoT,MaxTimeForExecuteDagSerialOnCloud,MinTimeForExecuteDagSerialOnFog,MinTimeForExecuteDagSerialOnIoT,EFT_DAG";
+
+    private static final String TASKS_HEADER = "TaskID_InDB,TaskID,OwnerJobID,CPUNeed_Claimed,RAMNeed_Claimed,StorageNeed_Claimed,ListOfResourceNeeds,TimeSubmission,TimeDeadLinePrefered,TimeDeadlineFinal,Date,SimID,EST,EFT,NodeID_SubmittedOn,LastStatus,LastStatusTime,PriorityNo,CPUNeed_Real,RAMNeed_Real,StorageNeed_Real,CPUNeed_Predicted,RAMNeed_Predicted,StorageNeed_Predicted,LengthOnScheduledMachine,LengthOnFogAndCloudBaseLineCPU,BaseLineCloudAndFogCpuMIPS,LengthOnBaseLineCloudMachine,LengthOnBaseLineFogMachine,LengthOnBaseLineIoTMachine,BaseLineCpuFogMIPS,BaseLineCpuIoTMIPS,BaseLineCpuCloudMIPS,BaseLineCloudBandwidth,BaseLineCloudAndFogBandwidth,BaseLineIoTBandwidth,BaseLineFogBandwidth,SuccessorsImediate,SuccessorsNotImmediate,PredecessorsImediate,TimeStartOnMachine,TimeFinishOnMachine";
+
+    /**
+     * Quantity of jobs generated in parallel before writing them to the files
+     */
+    private static final int JOBS_PER_WAVE = 1 << 14;
+
+    /**
+     * The seed of the dataset
+     */
+    private long seed = 42;
+
+    /**
+     * Mean time between the submission of two consecutive jobs (exponential distribution)
+     */
+    private double mean_job_inter_arrival_time = 25;
+
+    /**
+     * Minimum and maximum number of tasks per job (uniform distribution)
+     */
+    private int min_tasks_per_job = 6;
+    private int max_tasks_per_job = 15;
+
+    /**
+     * Maximum number of tasks in a group of tasks that can run in parallel (uniform distribution from 1)
+     */
+    private int max_parallel_group_size = 4;
+
+    /**
+     * Mean and standard deviation of the logarithm of the task size in MI (lognormal distribution)
+     */
+    private double task_mi_log_mean = Math.log(586000);
+    private double task_mi_log_dev = 0.045;
+
+    /**
+     * Minimum and maximum RAM and storage needed by a task (uniform distribution)
+     */
+    private double min_task_ram = 21;
+    private double max_task_ram = 3992;
+    private double min_task_storage = 1;
+    private double max_task_storage = 400;
+
+    /**
+     * Mean time between the submission of the job and the submission of its tasks (exponential distribution).
+     * The first task of a job is always submitted with the job
+     */
+    private double mean_task_submission_offset = 30;
+
+    /**
+     * Mean, standard deviation and minimum of the time available for executing a task (normal distribution)
+     */
+    private double mean_task_deadline = 59;
+    private double std_task_deadline = 38;
+    private double min_task_deadline = 3;
+
+    /**
+     * Number of priorities and shape of their Zipf distribution (priority 1 is the most frequent)
+     */
+    private int priorities_quantity = 5;
+    private double priority_zipf_shape = 2.0;
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setMeanJobInterArrivalTime(double mean_job_inter_arrival_time) {
+        this.mean_job_inter_arrival_time = mean_job_inter_arrival_time;
+    }
+
+    public void setTasksPerJob(int min_tasks_per_job, int max_tasks_per_job) {
+        this.min_tasks_per_job = min_tasks_per_job;
+        this.max_tasks_per_job = max_tasks_per_job;
+    }
+
+    public void setMaxParallelGroupSize(int max_parallel_group_size) {
+        this.max_parallel_group_size = max_parallel_group_size;
+    }
+
+    public void setTaskMiLognormal(double log_mean, double log_dev) {
+        this.task_mi_log_mean = log_mean;
+        this.task_mi_log_dev = log_dev;
+    }
+
+    public void setTaskRam(double min_task_ram, double max_task_ram) {
+        this.min_task_ram = min_task_ram;
+        this.max_task_ram = max_task_ram;
+    }
+
+    public void setTaskStorage(double min_task_storage, double max_task_storage) {
+        this.min_task_storage = min_task_storage;
+        this.max_task_storage = max_task_storage;
+    }
+
+    public void setMeanTaskSubmissionOffset(double mean_task_submission_offset) {
+        this.mean_task_submission_offset = mean_task_submission_offset;
+    }
+
+    public void setTaskDeadline(double mean_task_deadline, double std_task_deadline, double min_task_deadline) {
+        this.mean_task_deadline = mean_task_deadline;
+        this.std_task_deadline = std_task_deadline;
+        this.min_task_deadline = min_task_deadline;
+    }
+
+    public void setPriorities(int priorities_quantity, double priority_zipf_shape) {
+        this.priorities_quantity = priorities_quantity;
+        this.priority_zipf_shape = priority_zipf_shape;
+    }
+
+    /**
+     * The rows of one generated job
+     */
+    private static class GeneratedJob {
+        int task_quantity;
+        String job_row;
+        String task_rows;
+    }
+
+    /**
+     * Generates a dataset
+     *
+     * @param path the folder where the Jobs.csv and Tasks.csv files are written
+     * @param task_quantity the minimum quantity of tasks of the dataset. The jobs are generated until reaching it
+     * @throws IOException if the files can not be written
+     */
+    public void generate(String path, long task_quantity) throws IOException {
+        new File(path).mkdirs();
+
+        try (Writer job_writer = new BufferedWriter(new FileWriter(path + "/Jobs.csv"), 1 << 20);
+             Writer task_writer = new BufferedWriter(new FileWriter(path + "/Tasks.csv"), 1 << 20)) {
+
+            job_writer.write(JOBS_HEADER);
+            job_writer.write('\n');
+            task_writer.write(TASKS_HEADER);
+            task_writer.write('\n');
+
+            long generated_tasks = 0;
+            int first_job = 0;
+
+            while (generated_tasks < task_quantity) {
+                final long first_task = generated_tasks;
+                final int wave_first_job = first_job;
+
+                //the jobs of a wave are generated in parallel, each one with its own generator
+                GeneratedJob[] wave = new GeneratedJob[JOBS_PER_WAVE];
+                IntStream.range(0, JOBS_PER_WAVE).parallel().forEach(i -> wave[i] = generateJob(wave_first_job + i));
+
+                //the task ids in the database are consecutive, so they are assigned when writing
+                for (GeneratedJob job : wave) {
+                    if (generated_tasks >= task_quantity) {
+                        break;
+                    }
+                    job_writer.write(job.job_row);
+                    task_writer.write(numberTaskRows(job.task_rows, generated_tasks));
+                    generated_tasks += job.task_quantity;
+                    first_job++;
+                }
+                if (generated_tasks == first_task) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the "#" placeholder of each task row with its consecutive id in the database
+     */
+    private static String numberTaskRows(String task_rows, long first_task) {
+        StringBuilder numbered = new StringBuilder(task_rows.length() + 16);
+        long task_number = first_task;
+        for (int i = 0; i < task_rows.length(); i++) {
+            char c = task_rows.charAt(i);
+            if (c == '#') {
+                numbered.append(task_number++);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    /**
+     * Mixes the dataset seed with the job number (SplitMix64), so each job gets an independent generator
+     */
+    private long jobSeed(int job_id) {
+        long z = seed + (job_id + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Samples a priority from the Zipf distribution, where priority k has a weight of 1 / k^shape
+     */
+    private int samplePriority(Random random) {
+        double total = 0;
+        for (int k = 1; k <= priorities_quantity; k++) {
+            total += 1 / Math.pow(k, priority_zipf_shape);
+        }
+        double variate = random.nextDouble() * total;
+        for (int k = 1; k < priorities_quantity; k++) {
+            variate -= 1 / Math.pow(k, priority_zipf_shape);
+            if (variate < 0) {
+                return k;
+            }
+        }
+        return priorities_quantity;
+    }
+
+    /**
+     * Generates the rows of a job and its tasks
+     *
+     * @param job_id the job id
+     * @return the generated job
+     */
+    private GeneratedJob generateJob(int job_id) {
+        Random random = new Random(jobSeed(job_id));
+
+        ExponentialDistr inter_arrival = new ExponentialDistr(random.nextLong(), mean_job_inter_arrival_time);
+        ExponentialDistr submission_offset = new ExponentialDistr(random.nextLong(), mean_task_submission_offset);
+        LognormalDistr mi = new LognormalDistr(random, task_mi_log_mean, task_mi_log_dev);
+
+        UniformDistribution ram = new UniformDistribution(min_task_ram, max_task_ram);
+        ram.setRandom(random);
+        UniformDistribution storage = new UniformDistribution(min_task_storage, max_task_storage);
+        storage.setRandom(random);
+        NormalDistribution deadline = new NormalDistribution(mean_task_deadline, std_task_deadline);
+        deadline.setRandom(random);
+
+        int task_quantity = min_tasks_per_job + random.nextInt(max_tasks_per_job - min_tasks_per_job + 1);
+        long job_submission = Math.round(inter_arrival.sample());
+
+        //groups of consecutive tasks that can run in parallel, the first task always runs alone
+        StringBuilder groups = new StringBuilder("[[0]");
+        int max_parallel_executable_tasks = 1;
+        int task = 1;
+        while (task < task_quantity) {
+            int size = Math.min(1 + random.nextInt(max_parallel_group_size), task_quantity - task);
+            max_parallel_executable_tasks = Math.max(max_parallel_executable_tasks, size);
+            groups.append(",[");
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    groups.append(',');
+                }
+                groups.append(task++);
+            }
+            groups.append(']');
+        }
+        groups.append(']');
+
+        StringBuilder task_rows = new StringBuilder(task_quantity * 128);
+        StringBuilder task_list = new StringBuilder();
+        long total_size = 0, max_size = Long.MIN_VALUE, min_size = Long.MAX_VALUE;
+        long total_storage = 0, min_storage = Long.MAX_VALUE;
+        long total_ram = 0, min_ram = Long.MAX_VALUE;
+        long job_deadline = 0;
+
+        for (int task_id = 0; task_id < task_quantity; task_id++) {
+            long task_mi = Math.round(mi.sample());
+            long task_ram = Math.round(ram.getNextValue());
+            long task_storage = Math.round(storage.getNextValue());
+            long task_submission = task_id == 0 ? 0 : Math.round(submission_offset.sample());
+            long task_deadline = Math.max(Math.round(min_task_deadline), Math.round(deadline.getNextValue()));
+            int task_priority = samplePriority(random);
+
+            total_size += task_mi;
+            max_size = Math.max(max_size, task_mi);
+            min_size = Math.min(min_size, task_mi);
+            total_storage += task_storage;
+            min_storage = Math.min(min_storage, task_storage);
+            total_ram += task_ram;
+            min_ram = Math.min(min_ram, task_ram);
+            job_deadline = Math.max(job_deadline, task_submission + task_deadline);
+
+            if (task_id > 0) {
+                task_list.append(',');
+            }
+            task_list.append(task_id);
+
+            task_rows.append('#').append(',')
+                    .append(task_id).append(',')
+                    .append(job_id).append(',')
+                    .append(task_mi).append(',')
+                    .append(task_ram).append(',')
+                    .append(task_storage).append(',')
+                    .append(0).append(',')
+                    .append(task_submission).append(',')
+                    .append(task_deadline).append(',')
+                    .append(task_deadline).append(',')
+                    .append(',')
+                    .append(0).append(',')
+                    .append(task_submission).append(',')
+                    .append(task_submission).append(',')
+                    .append(',')
+                    .append("InitializedAndWaiting").append(',')
+                    .append(task_submission).append(',')
+                    .append(task_priority)
+                    .append(",0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,0,[],[],[],0,0\n");
+        }
+
+        GeneratedJob job = new GeneratedJob();
+        job.task_quantity = task_quantity;
+        job.task_rows = task_rows.toString();
+        job.job_row = job_id + "," + job_id + ",0,,," + job_submission + "," + job_deadline + "," + job_deadline
+                + ",\"" + task_list + "\",InitializedAndWaiting," + job_submission + "," + total_size + ",0,"
+                + task_quantity + ",0,0,0," + max_size + "," + min_size + "," + max_parallel_executable_tasks
+                + ",0,\"" + groups + "\"," + min_storage + "," + total_storage + ",0," + min_ram + "," + total_ram
+                + ",[],0,0,0,0,0,0,0,0,0\n";
+        return job;
+    }
+
+    /**
+     * Generates a dataset from the command line
+     *
+     * @param args the dataset folder, the quantity of tasks, optionally the seed and "--binary" for also writing
+     *             the binary version of the dataset
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: TSPDatasetGenerator <dataset folder> <quantity of tasks> [<seed>] [--binary]");
+            return;
+        }
+
+        TSPDatasetGenerator generator = new TSPDatasetGenerator();
+        boolean binary = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--binary")) {
+                binary = true;
+            } else {
+                generator.setSeed(Long.parseLong(args[i]));
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        generator.generate(args[0], Long.parseLong(args[1]));
+        System.out.println("Dataset generated in " + (System.currentTimeMillis() - startTime) / 1000.0 + " s");
+
+        if (binary) {
+            //converted from the CSV files, so both versions are read in the same way
+            TSPDataset dataset = TSPDataset.load(args[0]);
+            TSPBinaryDataset.convert(dataset, args[0] + "/" + TSPBinaryDataset.FILE_NAME);
+            System.out.println("Binary dataset written with " + dataset.getNumberOfTasks() + " tasks");
+        }
+    }
+}
@@ -230,23 +230,41 @@ public class TSPJobManager {
      */
 
     public static void createTSPJob(Integer job_id, String max_parallel_executable_tasks,  String tasks_which_can_run_in_parallel){
+        createTSPJob(job_id, Integer.parseInt(max_parallel_executable_tasks), parseTasksWhichCanRunInParallel(tasks_which_can_run_in_parallel));
+    }
+
+    /**
+     * Create a new job from its already parsed restrictions
+     * @param job_id the job id
+     * @param max_parallel_executable_tasks the maximum number of tasks can be executed simultaneously in this job
+     * @param tasks_which_can_run_in_parallel the groups of task ids can be executed simultaneously in this job
+     */
+    public static void createTSPJob(int job_id, int max_parallel_executable_tasks, int[][] tasks_which_can_run_in_parallel){
+        //creating the job
+        TSPJob tsp_job = new TSPJob(max_parallel_executable_tasks, tasks_which_can_run_in_parallel);
+
+        jobs.put(job_id, tsp_job);
+    }
+
+    /**
+     * Parse the groups of tasks that can be executed simultaneously, e.g. "[[0],[1,2],[3]]"
+     * @param tasks_which_can_run_in_parallel the groups as they are written in the jobs dataset
+     * @return the groups of task ids
+     */
+    public static int[][] parseTasksWhichCanRunInParallel(String tasks_which_can_run_in_parallel){
         String[] task_id_list = tasks_which_can_run_in_parallel.substring(2, tasks_which_can_run_in_parallel.length() - 2).split(Pattern.quote("],["));
 
-        ArrayList<ArrayList<Integer>> tasks_which_can_run_in_parallel_parsed = new ArrayList<ArrayList<Integer>>(task_id_list.length);
+        int[][] tasks_which_can_run_in_parallel_parsed = new int[task_id_list.length][];
         for (int i=0; i<task_id_list.length; i++){
             String[] task = task_id_list[i].split(",");
-            ArrayList<Integer> tasks_parsed = new ArrayList<Integer>(task.length);
+            int[] tasks_parsed = new int[task.length];
 
             for (int j=0; j<task.length; j++){
-                tasks_parsed.add(Integer.parseInt(task[j]));
+                tasks_parsed[j] = Integer.parseInt(task[j]);
             }
-            tasks_which_can_run_in_parallel_parsed.add(tasks_parsed);
+            tasks_which_can_run_in_parallel_parsed[i] = tasks_parsed;
         }
-
-        //creating the job
-        TSPJob tsp_job = new TSPJob(Integer.parseInt(max_parallel_executable_tasks), tasks_which_can_run_in_parallel_parsed);
-
-        jobs.put(job_id, tsp_job);
+        return tasks_which_can_run_in_parallel_parsed;
     }
 
     /**